@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.benchmark;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.ait.tooling.server.core.json.JSONArray;
+import com.ait.tooling.server.core.json.JSONObject;
+
+/**
+ * BenchmarkPayloads - Deterministic request payloads, small is a handful of fields, medium about 10KB and large about 1MB.
+ */
+public final class BenchmarkPayloads
+{
+    public static final String SMALL  = "small";
+
+    public static final String MEDIUM = "medium";
+
+    public static final String LARGE  = "large";
+
+    private BenchmarkPayloads()
+    {
+    }
+
+    public static JSONObject make(final String size)
+    {
+        if (MEDIUM.equals(size))
+        {
+            return make(100);
+        }
+        if (LARGE.equals(size))
+        {
+            return make(10000);
+        }
+        return item(0);
+    }
+
+    private static JSONObject make(final int rows)
+    {
+        final JSONArray list = new JSONArray();
+
+        for (int i = 0; i < rows; i++)
+        {
+            list.add(item(i));
+        }
+        return new JSONObject("rows", list).set("size", rows);
+    }
+
+    private static JSONObject item(final int indx)
+    {
+        return new JSONObject("id", indx).set("name", "benchmark item " + indx).set("active", (0 == (indx % 2))).set("score", indx * 1.5).set("tags", "alpha,beta,gamma");
+    }
+
+    public static byte[] toBytes(final JSONObject object) throws IOException
+    {
+        final StringWriter writer = new StringWriter();
+
+        object.writeJSONString(writer, false);
+
+        return writer.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a POST of body to a servlet mapped at /rest, request bodies can only be read once so every call needs its own.
+     */
+    public static MockHttpServletRequest toRequest(final String path, final byte[] body)
+    {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/rest" + path);
+
+        request.setServletPath("/rest");
+
+        request.setPathInfo(path);
+
+        request.setContentType("application/json");
+
+        request.setCharacterEncoding("UTF-8");
+
+        request.setContent(body);
+
+        return request;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.benchmark;
+
+import java.util.Arrays;
+
+import com.ait.tooling.server.core.support.spring.testing.IServerCoreTesting.TestingOps;
+
+/**
+ * BenchmarkServer - Starts the server core once per benchmark JVM with the REST beans and {@link NoOpBenchmarkService}.
+ */
+public final class BenchmarkServer
+{
+    private static boolean s_started = false;
+
+    private BenchmarkServer()
+    {
+    }
+
+    public static synchronized void start()
+    {
+        if (false == s_started)
+        {
+            TestingOps.setupServerCoreDefault(Arrays.asList("classpath:/com/ait/tooling/server/rest/benchmark/BenchmarkApplicationContext.xml", "classpath:/com/ait/tooling/server/rest/config/RESTApplicationContext.xml", "classpath:/com/ait/tooling/server/core/config/CoreApplicationContext.xml"));
+
+            s_started = true;
+        }
+    }
+
+    public static synchronized void stop()
+    {
+        if (s_started)
+        {
+            TestingOps.closeServerCoreDefault();
+
+            s_started = false;
+        }
+    }
+}
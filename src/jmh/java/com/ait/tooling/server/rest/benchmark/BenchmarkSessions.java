@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+
+import com.ait.tooling.server.core.security.session.IServerSession;
+import com.ait.tooling.server.core.security.session.IServerSessionRepository;
+
+/**
+ * BenchmarkSessions - An in-memory session repository holding one session, found by its id or created for any client token.
+ */
+public final class BenchmarkSessions
+{
+    public static final String       SESSION_ID   = "benchmark-session";
+
+    public static final String       CLIENT_TOKEN = "benchmark-token";
+
+    public static final String       USER_ID      = "benchmark";
+
+    public static final List<String> ROLES        = Arrays.asList("USER", "BENCHMARK");
+
+    private BenchmarkSessions()
+    {
+    }
+
+    /**
+     * Returns the repository, both interfaces are proxied so methods the benchmark does not use answer null, false or zero.
+     */
+    public static IServerSessionRepository repository()
+    {
+        final IServerSession session = proxy(IServerSession.class, (name, args) -> {
+
+            switch (name)
+            {
+                case "getId":
+                    return SESSION_ID;
+                case "getUserId":
+                    return USER_ID;
+                case "getRoles":
+                    return ROLES;
+                default:
+                    return null;
+            }
+        });
+        return proxy(IServerSessionRepository.class, (name, args) -> {
+
+            switch (name)
+            {
+                case "getSession":
+                    return SESSION_ID.equals(args[0]) ? session : null;
+                case "createSession":
+                    return session;
+                case "getDomainName":
+                    return "default";
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private interface Answer
+    {
+        Object answer(String name, Object[] args);
+    }
+
+    private static <T> T proxy(final Class<T> type, final Answer answer)
+    {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (self, method, args) -> {
+
+            final Object valu = answer.answer(method.getName(), args);
+
+            if (null != valu)
+            {
+                return valu;
+            }
+            final Class<?> rtype = method.getReturnType();
+
+            if (boolean.class == rtype)
+            {
+                return false;
+            }
+            if ((rtype.isPrimitive()) && (void.class != rtype))
+            {
+                return (rtype == long.class) ? Long.valueOf(0L) : (rtype == double.class) ? Double.valueOf(0d) : (rtype == float.class) ? Float.valueOf(0f) : Integer.valueOf(0);
+            }
+            return null;
+        }));
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.benchmark;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+
+import com.ait.tooling.server.core.json.JSONObject;
+import com.ait.tooling.server.rest.IRESTRequestContext;
+import com.ait.tooling.server.rest.RESTServiceSupport;
+import com.ait.tooling.server.rest.RequestBinding;
+import com.ait.tooling.server.rest.RequestMethod;
+
+/**
+ * NoOpBenchmarkService - Echoes its request, so benchmarks measure the pipeline and not the service.
+ */
+@Service(NoOpBenchmarkService.NAME)
+@RequestMethod(HttpMethod.POST)
+@RequestBinding(NoOpBenchmarkService.BINDING)
+public class NoOpBenchmarkService extends RESTServiceSupport
+{
+    public static final String NAME    = "NoOpBenchmarkService";
+
+    public static final String BINDING = "/benchmark/noop";
+
+    @Override
+    public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+    {
+        return object;
+    }
+}
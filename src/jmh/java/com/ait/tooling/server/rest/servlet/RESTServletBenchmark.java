@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.servlet;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletConfig;
+import org.springframework.mock.web.MockServletContext;
+
+import com.ait.tooling.server.core.json.JSONObject;
+import com.ait.tooling.server.rest.benchmark.BenchmarkPayloads;
+import com.ait.tooling.server.rest.benchmark.BenchmarkServer;
+import com.ait.tooling.server.rest.benchmark.NoOpBenchmarkService;
+
+/**
+ * RESTServletBenchmark - End to end doService through RESTServlet and RESTCommandServlet with in-memory requests and responses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RESTServletBenchmark
+{
+    @Param({ BenchmarkPayloads.SMALL, BenchmarkPayloads.MEDIUM, BenchmarkPayloads.LARGE })
+    public String              payload;
+
+    private byte[]             m_body;
+
+    private byte[]             m_rpc;
+
+    private byte[]             m_command;
+
+    private RESTServlet        m_servlet;
+
+    private RESTCommandServlet m_commands;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception
+    {
+        BenchmarkServer.start();
+
+        final JSONObject object = BenchmarkPayloads.make(payload);
+
+        m_body = BenchmarkPayloads.toBytes(object);
+
+        m_rpc = BenchmarkPayloads.toBytes(new JSONObject("request", object));
+
+        m_command = BenchmarkPayloads.toBytes(new JSONObject("command", NoOpBenchmarkService.NAME).set("request", object));
+
+        final MockServletContext context = new MockServletContext();
+
+        m_servlet = new RESTServlet();
+
+        m_servlet.init(new MockServletConfig(context, "RESTServlet"));
+
+        m_commands = new RESTCommandServlet();
+
+        m_commands.init(new MockServletConfig(context, "RESTCommandServlet"));
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown()
+    {
+        m_servlet.destroy();
+
+        m_commands.destroy();
+
+        BenchmarkServer.stop();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse restServlet() throws Exception
+    {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        m_servlet.doPost(BenchmarkPayloads.toRequest(NoOpBenchmarkService.BINDING, m_body), response);
+
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse restServletRPC() throws Exception
+    {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        m_servlet.doPost(BenchmarkPayloads.toRequest(NoOpBenchmarkService.BINDING + ".rpc", m_rpc), response);
+
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse restCommandServlet() throws Exception
+    {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        m_commands.doPost(BenchmarkPayloads.toRequest("/", m_command), response);
+
+        return response;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.servlet;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletConfig;
+import org.springframework.mock.web.MockServletContext;
+
+import com.ait.tooling.server.core.json.JSONObject;
+import com.ait.tooling.server.core.security.AuthorizationResult;
+import com.ait.tooling.server.core.security.session.IServerSessionHelper;
+import com.ait.tooling.server.core.security.session.IServerSessionRepository;
+import com.ait.tooling.server.rest.IRESTService;
+import com.ait.tooling.server.rest.RESTRequestContext;
+import com.ait.tooling.server.rest.benchmark.BenchmarkPayloads;
+import com.ait.tooling.server.rest.benchmark.BenchmarkServer;
+import com.ait.tooling.server.rest.benchmark.BenchmarkSessions;
+import com.ait.tooling.server.rest.benchmark.NoOpBenchmarkService;
+import com.ait.tooling.server.rest.routing.RequestRouteMatch;
+import com.ait.tooling.server.rest.security.RequestPrincipal;
+import com.ait.tooling.server.rest.security.RoleSet;
+import com.ait.tooling.server.rest.support.spring.IRESTContext;
+import com.ait.tooling.server.rest.support.spring.RESTContextInstance;
+
+/**
+ * RESTServletPhaseBenchmark - Each phase of RESTServlet.doService measured on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RESTServletPhaseBenchmark
+{
+    @Param({ BenchmarkPayloads.SMALL, BenchmarkPayloads.MEDIUM, BenchmarkPayloads.LARGE })
+    public String              payload;
+
+    private byte[]             m_body;
+
+    private JSONObject         m_object;
+
+    private RESTServlet        m_servlet;
+
+    private IRESTContext       m_context;
+
+    private IRESTService       m_service;
+
+    private RESTRequestContext m_request;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception
+    {
+        BenchmarkServer.start();
+
+        m_object = BenchmarkPayloads.make(payload);
+
+        m_body = BenchmarkPayloads.toBytes(m_object);
+
+        m_servlet = new RESTServlet();
+
+        m_servlet.init(new MockServletConfig(new MockServletContext(), "RESTServlet"));
+
+        m_context = RESTContextInstance.getRESTContextInstance();
+
+        m_service = m_context.getServiceRegistry().getService(NoOpBenchmarkService.NAME);
+
+        m_request = new RESTRequestContext(null, null, null, false, RoleSet.of(IServerSessionHelper.SP_DEFAULT_ROLES_LIST), m_servlet.getServletContext(), BenchmarkPayloads.toRequest(NoOpBenchmarkService.BINDING, m_body), new MockHttpServletResponse(), HttpMethod.POST, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown()
+    {
+        m_servlet.destroy();
+
+        BenchmarkServer.stop();
+    }
+
+    @Benchmark
+    public IRESTService routeFixRequestBinding()
+    {
+        return m_context.getServiceRegistry().getBinding(m_context.fixRequestBinding("benchmark/noop"));
+    }
+
+    @Benchmark
+    public RequestRouteMatch routeTable()
+    {
+        return m_context.getServiceRegistry().getRoute(NoOpBenchmarkService.BINDING);
+    }
+
+    @Benchmark
+    public JSONObject parseJSON() throws Exception
+    {
+        return m_servlet.parseJSON(BenchmarkPayloads.toRequest(NoOpBenchmarkService.BINDING, m_body), HttpMethod.POST, Long.MAX_VALUE);
+    }
+
+    /**
+     * Resolves the caller from an X-Session-ID or X-Client-API-Token header through the session caches, then authorizes it.
+     */
+    @Benchmark
+    public AuthorizationResult sessionAuthorization(final PrincipalState state)
+    {
+        final RequestPrincipal principal = state.m_servlet.getRequestPrincipal(state.m_request, state.m_response);
+
+        return state.m_servlet.getAuthorizationResult(m_context.getServiceRegistry(), m_service, principal.getRoleSet());
+    }
+
+    @Benchmark
+    public JSONObject execute() throws Exception
+    {
+        return m_service.execute(m_request, m_object);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse writeJSON() throws Exception
+    {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        m_servlet.writeJSON(HttpServletResponse.SC_OK, response, m_object, false);
+
+        return response;
+    }
+
+    @State(Scope.Benchmark)
+    public static class PrincipalState
+    {
+        @Param({ "session", "token" })
+        public String                   principal;
+
+        private RESTServlet             m_servlet;
+
+        private MockHttpServletRequest  m_request;
+
+        private MockHttpServletResponse m_response;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception
+        {
+            BenchmarkServer.start();
+
+            final IServerSessionRepository repository = BenchmarkSessions.repository();
+
+            m_servlet = new RESTServlet()
+            {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected IServerSessionRepository getServerSessionRepository()
+                {
+                    return repository;
+                }
+            };
+            m_servlet.init(new MockServletConfig(new MockServletContext(), "RESTServlet"));
+
+            m_request = BenchmarkPayloads.toRequest(NoOpBenchmarkService.BINDING, new byte[0]);
+
+            if ("token".equals(principal))
+            {
+                m_request.addHeader(RESTServlet.X_CLIENT_API_TOKEN_HEADER, BenchmarkSessions.CLIENT_TOKEN);
+            }
+            else
+            {
+                m_request.addHeader(RESTServlet.X_SESSION_ID_HEADER, BenchmarkSessions.SESSION_ID);
+            }
+            m_response = new MockHttpServletResponse();
+        }
+
+        @TearDown(Level.Trial)
+        public void teardown()
+        {
+            m_servlet.destroy();
+        }
+    }
+}
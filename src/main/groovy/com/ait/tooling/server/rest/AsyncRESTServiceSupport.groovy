@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest
+
+import groovy.transform.CompileStatic
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+
+import com.ait.tooling.server.core.json.JSONObject
+
+@CompileStatic
+public abstract class AsyncRESTServiceSupport extends RESTServiceSupport implements IAsyncRESTService
+{
+    public AsyncRESTServiceSupport()
+    {
+    }
+
+    @Override
+    public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+    {
+        try
+        {
+            return executeAsync(context, object).get()
+        }
+        catch (ExecutionException e)
+        {
+            final Throwable cause = e.getCause()
+
+            if (cause instanceof Exception)
+            {
+                throw (Exception) cause
+            }
+            throw e
+        }
+    }
+
+    protected CompletableFuture<JSONObject> completed(final JSONObject result)
+    {
+        CompletableFuture.completedFuture(result)
+    }
+
+    protected CompletableFuture<JSONObject> failed(final Throwable thrown)
+    {
+        final CompletableFuture<JSONObject> future = new CompletableFuture<JSONObject>()
+
+        future.completeExceptionally(thrown)
+
+        future
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest;
+
+import java.util.Map;
+
+import javax.servlet.ServletContext;
+
+import org.springframework.http.HttpMethod;
+
+import com.ait.tooling.server.core.json.JSONObject;
+import com.ait.tooling.server.core.security.session.IServerSession;
+import com.ait.tooling.server.rest.security.RoleSet;
+
+/**
+ * DetachedRequestContext - Request context of a call that runs off the container's thread, such as a batch command.
+ * <p>
+ * It holds its own copies of the caller's headers and query parameters and no servlet request or response, which the
+ * container may recycle while the call is still running. getServletRequest() and getServletResponse() return null and
+ * setCookie() does nothing.
+ */
+public class DetachedRequestContext extends RESTRequestContext
+{
+    private final JSONObject            m_headers;
+
+    private final RESTRequestParameters m_params;
+
+    public DetachedRequestContext(final IServerSession session, final String userid, final String sessid, final boolean admin, final RoleSet rset, final ServletContext context, final HttpMethod reqtyp, final JSONObject headers, final JSONObject params)
+    {
+        super(session, userid, sessid, admin, rset, context, null, null, reqtyp, null);
+
+        m_headers = (null == headers) ? new JSONObject() : new JSONObject(headers);
+
+        m_params = new RESTRequestParameters(null);
+
+        if (null != params)
+        {
+            m_params.putAll(params);
+        }
+    }
+
+    @Override
+    public JSONObject getJSONHeaders()
+    {
+        return m_headers;
+    }
+
+    @Override
+    public JSONObject getJSONParameters()
+    {
+        return m_params;
+    }
+
+    /**
+     * Header names are matched ignoring case, as the servlet request does.
+     */
+    @Override
+    public String getHeader(final String name)
+    {
+        if (null == name)
+        {
+            return null;
+        }
+        Object valu = m_headers.get(name);
+
+        if (null == valu)
+        {
+            for (Map.Entry<String, Object> entry : m_headers.entrySet())
+            {
+                if (name.equalsIgnoreCase(entry.getKey()))
+                {
+                    valu = entry.getValue();
+
+                    break;
+                }
+            }
+        }
+        if (valu instanceof Iterable)
+        {
+            for (Object item : (Iterable<?>) valu)
+            {
+                return (null == item) ? null : item.toString();
+            }
+            return null;
+        }
+        return (null == valu) ? null : valu.toString();
+    }
+
+    @Override
+    public String getParameter(final String name)
+    {
+        if (null != name)
+        {
+            return m_params.getParameter(name);
+        }
+        return null;
+    }
+}
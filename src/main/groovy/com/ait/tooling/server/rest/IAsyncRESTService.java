@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.ait.tooling.server.core.json.JSONObject;
+
+/**
+ * IAsyncRESTService - An IRESTService whose result completes off the container thread.
+ * <p>
+ * When the servlet supports async, executeAsync is invoked on the RESTAsyncExecutor and the
+ * response is written when the returned future completes, otherwise execute is called as usual.
+ */
+public interface IAsyncRESTService extends IRESTService
+{
+    public CompletableFuture<JSONObject> executeAsync(IRESTRequestContext context, JSONObject object) throws Exception;
+}
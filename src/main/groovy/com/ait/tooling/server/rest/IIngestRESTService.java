@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest;
+
+import com.ait.tooling.server.core.json.JSONObject;
+import com.ait.tooling.server.rest.ingest.IngestBatch;
+import com.ait.tooling.server.rest.ingest.IngestPolicy;
+
+/**
+ * IIngestRESTService - An IRESTService that takes a bulk upload as newline delimited JSON, one batch of records at a time.
+ * <p>
+ * The servlet parses records from the request body as they arrive, so ingest memory is bounded by the batch size and not by
+ * the upload. The request schema describes one record. A JSON body of {"records":[...]}, or a batch command, goes through execute.
+ */
+public interface IIngestRESTService extends IRESTService
+{
+    public IngestPolicy getIngestPolicy();
+
+    /**
+     * Called once per batch, object holds the request parameters, records the service cannot take are rejected on the batch.
+     */
+    public void ingest(IRESTRequestContext context, JSONObject object, IngestBatch batch) throws Exception;
+}
@@ -24,8 +24,10 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.http.HttpMethod;
 
+import com.ait.tooling.common.api.java.util.StringOps;
 import com.ait.tooling.server.core.json.JSONObject;
 import com.ait.tooling.server.core.security.session.IServerSession;
+import com.ait.tooling.server.rest.security.RoleSet;
 import com.ait.tooling.server.rest.support.spring.IRESTContext;
 
 public interface IRESTRequestContext
@@ -36,6 +38,67 @@ public interface IRESTRequestContext
 
     public JSONObject getJSONParameters();
 
+    public default String getHeader(final String name)
+    {
+        final HttpServletRequest request = getServletRequest();
+
+        if ((null != request) && (null != name))
+        {
+            return request.getHeader(name);
+        }
+        return null;
+    }
+
+    public default String getParameter(final String name)
+    {
+        final HttpServletRequest request = getServletRequest();
+
+        if ((null != request) && (null != name))
+        {
+            return request.getParameter(name);
+        }
+        return null;
+    }
+
+    public default long getParameterAsLong(final String name, final long otherwise)
+    {
+        final String valu = StringOps.toTrimOrNull(getParameter(name));
+
+        if (null != valu)
+        {
+            try
+            {
+                return Long.parseLong(valu);
+            }
+            catch (NumberFormatException e)
+            {
+                return otherwise;
+            }
+        }
+        return otherwise;
+    }
+
+    public default boolean getParameterAsBoolean(final String name, final boolean otherwise)
+    {
+        final String valu = StringOps.toTrimOrNull(getParameter(name));
+
+        if (null != valu)
+        {
+            return Boolean.parseBoolean(valu);
+        }
+        return otherwise;
+    }
+
+    public default JSONObject getPathParameters()
+    {
+        return new JSONObject();
+    }
+
+    public default String getPathParameter(final String name)
+    {
+        return null;
+    }
+
     public HttpMethod getRequestType();
 
     public IRESTContext getRESTContext();
@@ -52,6 +115,21 @@ public interface IRESTRequestContext
 
     public List<String> getRoles();
 
+    public default RoleSet getRoleSet()
+    {
+        return RoleSet.of(getRoles());
+    }
+
+    public default boolean hasRole(final String role)
+    {
+        return getRoleSet().hasRole(role);
+    }
+
+    public default boolean hasAnyRole(final String... roles)
+    {
+        return getRoleSet().hasAnyRole(roles);
+    }
+
     public boolean isAdmin();
 
     public boolean isDelete();
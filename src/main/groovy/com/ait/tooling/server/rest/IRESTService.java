@@ -24,6 +24,10 @@ import com.ait.tooling.common.api.types.INamed;
 import com.ait.tooling.server.core.json.JSONObject;
 import com.ait.tooling.server.core.json.schema.JSONSchema;
 import com.ait.tooling.server.core.locking.IRateLimited;
+import com.ait.tooling.server.rest.cache.CoalescePolicy;
+import com.ait.tooling.server.rest.cache.ResponseCachePolicy;
+import com.ait.tooling.server.rest.io.CompressionPolicy;
+import com.ait.tooling.server.rest.limit.ConcurrencyLimitPolicy;
 
 public interface IRESTService extends INamed, IRateLimited, Closeable
 {
@@ -40,4 +44,60 @@ public interface IRESTService extends INamed, IRateLimited, Closeable
     public HttpMethod getRequestMethodType();
 
     public JSONObject getSwaggerAttributes();
+
+    /**
+     * Largest request body in bytes, or -1 for the servlet's limit.
+     */
+    public default long getMaxRequestBodySize()
+    {
+        return -1L;
+    }
+
+    /**
+     * Server side caching of GET responses, or null if they are not cached.
+     */
+    public default ResponseCachePolicy getResponseCachePolicy()
+    {
+        return null;
+    }
+
+    /**
+     * Sharing of identical concurrent GET calls, or null if each call executes.
+     */
+    public default CoalescePolicy getCoalescePolicy()
+    {
+        return null;
+    }
+
+    /**
+     * Calls per second, or 0 for no limit.
+     */
+    public default double getRateLimit()
+    {
+        return 0d;
+    }
+
+    /**
+     * True if calls over the rate are rejected with 429 instead of waiting for a permit.
+     */
+    public default boolean isNonBlockingRateLimit()
+    {
+        return false;
+    }
+
+    /**
+     * Adaptive concurrency limit, or null if the service is not limited.
+     */
+    public default ConcurrencyLimitPolicy getConcurrencyLimit()
+    {
+        return null;
+    }
+
+    /**
+     * Response compression, or null for the servlet's defaults.
+     */
+    public default CompressionPolicy getCompressionPolicy()
+    {
+        return null;
+    }
 }
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest;
+
+import com.ait.tooling.server.core.json.JSONObject;
+import com.ait.tooling.server.rest.io.IJSONStreamWriter;
+
+/**
+ * IStreamingRESTService - An IRESTService that writes its result incrementally instead of returning one JSONObject.
+ * <p>
+ * The servlet frames the items as a JSON array, NDJSON or Server-Sent Events by the request's Accept header, and
+ * only holds one chunk of output at a time. Callers that need a whole result, such as batch commands, use execute.
+ */
+public interface IStreamingRESTService extends IRESTService
+{
+    public void stream(IRESTRequestContext context, JSONObject object, IJSONStreamWriter writer) throws Exception;
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest
+
+import groovy.transform.CompileStatic
+import groovy.transform.Memoized
+
+import com.ait.tooling.server.core.json.JSONArray
+import com.ait.tooling.server.core.json.JSONObject
+import com.ait.tooling.server.rest.ingest.IngestBatcher
+import com.ait.tooling.server.rest.ingest.IngestPolicy
+import com.ait.tooling.server.rest.schema.CompiledSchema
+
+@CompileStatic
+public abstract class IngestRESTServiceSupport extends RESTServiceSupport implements IIngestRESTService
+{
+    public IngestRESTServiceSupport()
+    {
+    }
+
+    @Memoized
+    public IngestPolicy getIngestPolicy()
+    {
+        IngestPolicy.of(getClass().getAnnotation(BatchIngest))
+    }
+
+    /**
+     * Ingests the records of {"records":[...]} in batches and returns the summary, the servlet streams NDJSON uploads instead.
+     */
+    @Override
+    public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+    {
+        final JSONArray records = object.getAsArray('records')
+
+        final CompiledSchema schema = getServiceRegistry().isValidateRequests() ? getServiceRegistry().getSchemas(this).getRequestSchema() : null
+
+        final IngestBatcher batcher = new IngestBatcher(this, context, object, schema)
+
+        if (records)
+        {
+            long line = 0L
+
+            for (Object record : records)
+            {
+                batcher.offer(record, ++line)
+            }
+        }
+        batcher.finish().toJSONObject()
+    }
+}
@@ -30,6 +30,8 @@ import com.ait.tooling.common.api.java.util.StringOps;
 import com.ait.tooling.server.core.json.JSONObject;
 import com.ait.tooling.server.core.security.session.IServerSession;
 import com.ait.tooling.server.core.servlet.HTTPServletBase;
+import com.ait.tooling.server.rest.routing.RequestRouteMatch;
+import com.ait.tooling.server.rest.security.RoleSet;
 import com.ait.tooling.server.rest.support.spring.IRESTContext;
 import com.ait.tooling.server.rest.support.spring.RESTContextInstance;
 
@@ -55,7 +57,27 @@ public class RESTRequestContext implements IRESTRequestContext
 
     private final HttpServletResponse m_servlet_response;
 
+    private final RequestRouteMatch   m_route;
+
+    private final RoleSet             m_rset;
+
+    private JSONObject                m_headers;
+
+    private List<String>              m_sroles;
+
+    private List<String>              m_uroles;
+
     public RESTRequestContext(IServerSession session, String userid, String sessid, boolean admin, List<String> roles, ServletContext context, HttpServletRequest request, HttpServletResponse response, HttpMethod reqtyp)
+    {
+        this(session, userid, sessid, admin, roles, context, request, response, reqtyp, null);
+    }
+
+    public RESTRequestContext(IServerSession session, String userid, String sessid, boolean admin, List<String> roles, ServletContext context, HttpServletRequest request, HttpServletResponse response, HttpMethod reqtyp, RequestRouteMatch route)
+    {
+        this(session, userid, sessid, admin, RoleSet.of(roles), context, request, response, reqtyp, route);
+    }
+
+    public RESTRequestContext(IServerSession session, String userid, String sessid, boolean admin, RoleSet rset, ServletContext context, HttpServletRequest request, HttpServletResponse response, HttpMethod reqtyp, RequestRouteMatch route)
     {
         m_closed = false;
 
@@ -69,13 +91,17 @@ public class RESTRequestContext implements IRESTRequestContext
 
         m_session = session;
 
-        m_roles = Collections.unmodifiableList(roles);
+        m_rset = rset;
+
+        m_roles = rset.getRoles();
 
         m_servlet_context = context;
 
         m_servlet_request = request;
 
         m_servlet_response = response;
+
+        m_route = route;
     }
 
     @Override
@@ -227,13 +253,90 @@ public class RESTRequestContext implements IRESTRequestContext
     @Override
     public JSONObject getJSONHeaders()
     {
-        return HTTPServletBase.getJSONHeadersFromRequest(getServletRequest());
+        if (null == m_headers)
+        {
+            m_headers = HTTPServletBase.getJSONHeadersFromRequest(getServletRequest());
+        }
+        return m_headers;
     }
 
     @Override
     public JSONObject getJSONParameters()
     {
-        return HTTPServletBase.getJSONParametersFromRequest(getServletRequest());
+        return RESTRequestParameters.of(getServletRequest());
+    }
+
+    @Override
+    public String getHeader(final String name)
+    {
+        final HttpServletRequest request = getServletRequest();
+
+        if ((null != request) && (null != name))
+        {
+            return request.getHeader(name);
+        }
+        return null;
+    }
+
+    @Override
+    public String getParameter(final String name)
+    {
+        if (null != name)
+        {
+            return RESTRequestParameters.of(getServletRequest()).getParameter(name);
+        }
+        return null;
+    }
+
+    @Override
+    public long getParameterAsLong(final String name, final long otherwise)
+    {
+        final String valu = StringOps.toTrimOrNull(getParameter(name));
+
+        if (null != valu)
+        {
+            try
+            {
+                return Long.parseLong(valu);
+            }
+            catch (NumberFormatException e)
+            {
+                return otherwise;
+            }
+        }
+        return otherwise;
+    }
+
+    @Override
+    public boolean getParameterAsBoolean(final String name, final boolean otherwise)
+    {
+        final String valu = StringOps.toTrimOrNull(getParameter(name));
+
+        if (null != valu)
+        {
+            return Boolean.parseBoolean(valu);
+        }
+        return otherwise;
+    }
+
+    @Override
+    public JSONObject getPathParameters()
+    {
+        if (null != m_route)
+        {
+            return m_route.getPathParameters();
+        }
+        return new JSONObject();
+    }
+
+    @Override
+    public String getPathParameter(final String name)
+    {
+        if (null != m_route)
+        {
+            return m_route.getPathParameter(name);
+        }
+        return null;
     }
 
     @Override
@@ -247,12 +350,36 @@ public class RESTRequestContext implements IRESTRequestContext
 
             if ((null != valu) && (false == valu.isEmpty()))
             {
-                return Collections.unmodifiableList(valu);
+                if (valu != m_sroles)
+                {
+                    m_uroles = Collections.unmodifiableList(valu);
+
+                    m_sroles = valu;
+                }
+                return m_uroles;
             }
         }
         return m_roles;
     }
 
+    @Override
+    public RoleSet getRoleSet()
+    {
+        return m_rset;
+    }
+
+    @Override
+    public boolean hasRole(final String role)
+    {
+        return m_rset.hasRole(role);
+    }
+
+    @Override
+    public boolean hasAnyRole(final String... roles)
+    {
+        return m_rset.hasAnyRole(roles);
+    }
+
     @Override
     public void close()
     {
@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.ait.tooling.server.core.json.JSONArray;
+import com.ait.tooling.server.core.json.JSONObject;
+import com.ait.tooling.server.core.servlet.HTTPServletBase;
+
+/**
+ * RESTRequestParameters - The query parameters of a request as a JSONObject that only decodes the parameters actually read.
+ * <p>
+ * get() and containsKey() decode a single parameter and keep it, any other use builds the whole object once, as
+ * {@link HTTPServletBase#getJSONParametersFromRequest(HttpServletRequest)} would, keeping values already read or put.
+ * One instance is shared per request, see {@link #of(HttpServletRequest)}.
+ */
+public class RESTRequestParameters extends JSONObject
+{
+    private static final long                  serialVersionUID = 2986245129384067216L;
+
+    private static final String                ATTRIBUTE_NAME   = RESTRequestParameters.class.getName();
+
+    private final transient HttpServletRequest m_request;
+
+    private boolean                            m_complete;
+
+    protected RESTRequestParameters(final HttpServletRequest request)
+    {
+        m_request = request;
+
+        m_complete = (null == request);
+    }
+
+    public static RESTRequestParameters of(final HttpServletRequest request)
+    {
+        if (null == request)
+        {
+            return new RESTRequestParameters(null);
+        }
+        final Object attr = request.getAttribute(ATTRIBUTE_NAME);
+
+        if (attr instanceof RESTRequestParameters)
+        {
+            return (RESTRequestParameters) attr;
+        }
+        final RESTRequestParameters params = new RESTRequestParameters(request);
+
+        request.setAttribute(ATTRIBUTE_NAME, params);
+
+        return params;
+    }
+
+    /**
+     * Returns the first value of a parameter straight from the request, without decoding it into this object.
+     */
+    public String getParameter(final String name)
+    {
+        if ((false == m_complete) && (null != name) && (false == super.containsKey(name)))
+        {
+            return m_request.getParameter(name);
+        }
+        final Object valu = super.get(name);
+
+        if (valu instanceof JSONArray)
+        {
+            final JSONArray list = (JSONArray) valu;
+
+            return list.isEmpty() ? null : ((null == list.get(0)) ? null : list.get(0).toString());
+        }
+        return (null == valu) ? null : valu.toString();
+    }
+
+    private Object decode(final Object key)
+    {
+        if ((m_complete) || (false == (key instanceof String)))
+        {
+            return super.get(key);
+        }
+        final Object valu = super.get(key);
+
+        if ((null != valu) || (super.containsKey(key)))
+        {
+            return valu;
+        }
+        final String[] list = m_request.getParameterValues((String) key);
+
+        if (null == list)
+        {
+            return null;
+        }
+        if (1 == list.length)
+        {
+            super.put((String) key, list[0]);
+
+            return list[0];
+        }
+        final JSONArray array = new JSONArray();
+
+        Collections.addAll(array, (Object[]) list);
+
+        super.put((String) key, array);
+
+        return array;
+    }
+
+    protected final void complete()
+    {
+        if (false == m_complete)
+        {
+            m_complete = true;
+
+            final JSONObject params = HTTPServletBase.getJSONParametersFromRequest(m_request);
+
+            if (null != params)
+            {
+                for (Map.Entry<String, Object> entry : params.entrySet())
+                {
+                    super.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    public boolean isComplete()
+    {
+        return m_complete;
+    }
+
+    @Override
+    public Object get(final Object key)
+    {
+        return decode(key);
+    }
+
+    @Override
+    public boolean containsKey(final Object key)
+    {
+        if (m_complete)
+        {
+            return super.containsKey(key);
+        }
+        return ((null != decode(key)) || (super.containsKey(key)));
+    }
+
+    @Override
+    public Object getOrDefault(final Object key, final Object otherwise)
+    {
+        final Object valu = decode(key);
+
+        return ((null != valu) || (super.containsKey(key))) ? valu : otherwise;
+    }
+
+    @Override
+    public int size()
+    {
+        complete();
+
+        return super.size();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        complete();
+
+        return super.isEmpty();
+    }
+
+    @Override
+    public boolean containsValue(final Object value)
+    {
+        complete();
+
+        return super.containsValue(value);
+    }
+
+    @Override
+    public Object put(final String key, final Object value)
+    {
+        complete();
+
+        return super.put(key, value);
+    }
+
+    @Override
+    public void putAll(final Map<? extends String, ? extends Object> map)
+    {
+        complete();
+
+        super.putAll(map);
+    }
+
+    @Override
+    public Object putIfAbsent(final String key, final Object value)
+    {
+        complete();
+
+        return super.putIfAbsent(key, value);
+    }
+
+    @Override
+    public Object remove(final Object key)
+    {
+        complete();
+
+        return super.remove(key);
+    }
+
+    @Override
+    public boolean remove(final Object key, final Object value)
+    {
+        complete();
+
+        return super.remove(key, value);
+    }
+
+    @Override
+    public boolean replace(final String key, final Object oldvalue, final Object newvalue)
+    {
+        complete();
+
+        return super.replace(key, oldvalue, newvalue);
+    }
+
+    @Override
+    public Object replace(final String key, final Object value)
+    {
+        complete();
+
+        return super.replace(key, value);
+    }
+
+    @Override
+    public void replaceAll(final BiFunction<? super String, ? super Object, ? extends Object> function)
+    {
+        complete();
+
+        super.replaceAll(function);
+    }
+
+    @Override
+    public Object computeIfAbsent(final String key, final Function<? super String, ? extends Object> function)
+    {
+        complete();
+
+        return super.computeIfAbsent(key, function);
+    }
+
+    @Override
+    public Object computeIfPresent(final String key, final BiFunction<? super String, ? super Object, ? extends Object> function)
+    {
+        complete();
+
+        return super.computeIfPresent(key, function);
+    }
+
+    @Override
+    public Object compute(final String key, final BiFunction<? super String, ? super Object, ? extends Object> function)
+    {
+        complete();
+
+        return super.compute(key, function);
+    }
+
+    @Override
+    public Object merge(final String key, final Object value, final BiFunction<? super Object, ? super Object, ? extends Object> function)
+    {
+        complete();
+
+        return super.merge(key, value, function);
+    }
+
+    @Override
+    public void clear()
+    {
+        m_complete = true;
+
+        super.clear();
+    }
+
+    @Override
+    public Set<String> keySet()
+    {
+        complete();
+
+        return super.keySet();
+    }
+
+    @Override
+    public Collection<Object> values()
+    {
+        complete();
+
+        return super.values();
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet()
+    {
+        complete();
+
+        return super.entrySet();
+    }
+
+    @Override
+    public void forEach(final BiConsumer<? super String, ? super Object> action)
+    {
+        complete();
+
+        super.forEach(action);
+    }
+
+    @Override
+    public boolean equals(final Object other)
+    {
+        complete();
+
+        return super.equals(other);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        complete();
+
+        return super.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        complete();
+
+        return super.toString();
+    }
+
+    @Override
+    public Object clone()
+    {
+        complete();
+
+        return super.clone();
+    }
+}
@@ -28,6 +28,10 @@ import com.ait.tooling.common.api.java.util.StringOps
 import com.ait.tooling.server.core.json.JSONObject
 import com.ait.tooling.server.core.json.schema.JSONSchema
 import com.ait.tooling.server.core.locking.IRateLimited.RateLimiterFactory
+import com.ait.tooling.server.rest.cache.CoalescePolicy
+import com.ait.tooling.server.rest.cache.ResponseCachePolicy
+import com.ait.tooling.server.rest.io.CompressionPolicy
+import com.ait.tooling.server.rest.limit.ConcurrencyLimitPolicy
 import com.ait.tooling.server.rest.support.RESTSupport
 import com.google.common.util.concurrent.RateLimiter
 
@@ -50,6 +54,22 @@ public abstract class RESTServiceSupport extends RESTSupport implements IRESTSer
         }
     }
 
+    @Override
+    public double getRateLimit()
+    {
+        if (m_ratelimit)
+        {
+            return m_ratelimit.getRate()
+        }
+        0d
+    }
+
+    @Memoized
+    public boolean isNonBlockingRateLimit()
+    {
+        getClass().isAnnotationPresent(NonBlockingRateLimit)
+    }
+
     @Memoized
     public String getName()
     {
@@ -91,6 +111,66 @@ public abstract class RESTServiceSupport extends RESTSupport implements IRESTSer
         HttpMethod.GET
     }
 
+    @Memoized
+    public long getMaxRequestBodySize()
+    {
+        final Class<?> claz = getClass()
+
+        if (claz.isAnnotationPresent(MaxRequestBodySize))
+        {
+            return claz.getAnnotation(MaxRequestBodySize).value()
+        }
+        -1L
+    }
+
+    @Memoized
+    public ResponseCachePolicy getResponseCachePolicy()
+    {
+        final Class<?> claz = getClass()
+
+        if (claz.isAnnotationPresent(ResponseCache))
+        {
+            return ResponseCachePolicy.of(claz.getAnnotation(ResponseCache))
+        }
+        null
+    }
+
+    @Memoized
+    public CoalescePolicy getCoalescePolicy()
+    {
+        final Class<?> claz = getClass()
+
+        if (claz.isAnnotationPresent(CoalesceRequests))
+        {
+            return CoalescePolicy.of(claz.getAnnotation(CoalesceRequests))
+        }
+        null
+    }
+
+    @Memoized
+    public ConcurrencyLimitPolicy getConcurrencyLimit()
+    {
+        final Class<?> claz = getClass()
+
+        if (claz.isAnnotationPresent(ConcurrencyLimit))
+        {
+            return ConcurrencyLimitPolicy.of(claz.getAnnotation(ConcurrencyLimit))
+        }
+        null
+    }
+
+    @Memoized
+    public CompressionPolicy getCompressionPolicy()
+    {
+        final Class<?> claz = getClass()
+
+        if (claz.isAnnotationPresent(CompressResponse))
+        {
+            return CompressionPolicy.of(claz.getAnnotation(CompressResponse))
+        }
+        null
+    }
+
     @Override
     public JSONObject getSchemas()
     {
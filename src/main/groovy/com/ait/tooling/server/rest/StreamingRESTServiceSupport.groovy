@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest
+
+import groovy.transform.CompileStatic
+
+import com.ait.tooling.server.core.json.JSONObject
+import com.ait.tooling.server.rest.io.JSONArrayStreamWriter
+
+@CompileStatic
+public abstract class StreamingRESTServiceSupport extends RESTServiceSupport implements IStreamingRESTService
+{
+    public StreamingRESTServiceSupport()
+    {
+    }
+
+    /**
+     * Collects the streamed items into {"items":[...]}, the servlet streams instead whenever it can.
+     */
+    @Override
+    public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+    {
+        final JSONArrayStreamWriter writer = new JSONArrayStreamWriter()
+
+        stream(context, object, writer)
+
+        json(items: writer.getItems())
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+
+import com.ait.tooling.server.rest.io.ResponseDeflater;
+import com.google.common.hash.Hashing;
+
+/**
+ * CachedResponse - An already serialized response body, its strong ETag and its compressed forms.
+ */
+public final class CachedResponse
+{
+    private final int    m_code;
+
+    private final byte[] m_body;
+
+    private final String m_type;
+
+    private final String m_print;
+
+    private String       m_etag;
+
+    private String       m_etag_gzip;
+
+    private String       m_etag_deflate;
+
+    private byte[]       m_gzip;
+
+    private byte[]       m_deflate;
+
+    public CachedResponse(final int code, final byte[] body)
+    {
+        this(code, body, null);
+    }
+
+    public CachedResponse(final int code, final byte[] body, final String type)
+    {
+        this(code, body, type, null);
+    }
+
+    public CachedResponse(final int code, final byte[] body, final String type, final String print)
+    {
+        m_code = code;
+
+        m_body = Objects.requireNonNull(body);
+
+        m_type = type;
+
+        m_print = print;
+    }
+
+    /**
+     * Content-Type of the body, null for JSON text.
+     */
+    public String getContentType()
+    {
+        return m_type;
+    }
+
+    /**
+     * Fingerprint of the request the response was made for, null if the response is shared without one.
+     */
+    public String getFingerprint()
+    {
+        return m_print;
+    }
+
+    public int getCode()
+    {
+        return m_code;
+    }
+
+    public byte[] getBody()
+    {
+        return m_body;
+    }
+
+    /**
+     * The ETag is only hashed when first asked for, racing threads compute the same value.
+     */
+    public String getETag()
+    {
+        String etag = m_etag;
+
+        if (null == etag)
+        {
+            m_etag = etag = "\"" + Hashing.murmur3_128().hashBytes(m_body).toString() + "\"";
+        }
+        return etag;
+    }
+
+    /**
+     * ETag of the body as sent with a Content-Encoding, so caches never revalidate one encoding against another.
+     */
+    public String getETag(final String encoding)
+    {
+        if (null == encoding)
+        {
+            return getETag();
+        }
+        final boolean gzip = ResponseDeflater.GZIP.equals(encoding);
+
+        String etag = gzip ? m_etag_gzip : m_etag_deflate;
+
+        if (null == etag)
+        {
+            final String base = getETag();
+
+            etag = base.substring(0, base.length() - 1) + "-" + encoding + "\"";
+
+            if (gzip)
+            {
+                m_etag_gzip = etag;
+            }
+            else
+            {
+                m_etag_deflate = etag;
+            }
+        }
+        return etag;
+    }
+
+    /**
+     * Returns the body encoded as gzip or deflate, each encoding is only compressed when first asked for.
+     */
+    public byte[] getEncodedBody(final String encoding, final int level)
+    {
+        final boolean gzip = ResponseDeflater.GZIP.equals(encoding);
+
+        byte[] body = gzip ? m_gzip : m_deflate;
+
+        if (null == body)
+        {
+            final ResponseDeflater deflater = ResponseDeflater.acquire(encoding, level);
+
+            try
+            {
+                deflater.open(null).write(m_body, 0, m_body.length);
+
+                deflater.finish();
+
+                body = deflater.toByteArray();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            finally
+            {
+                deflater.release();
+            }
+            if (gzip)
+            {
+                m_gzip = body;
+            }
+            else
+            {
+                m_deflate = body;
+            }
+        }
+        return body;
+    }
+
+    /**
+     * True if an If-None-Match header value lists this response's ETag, If-None-Match uses weak comparison.
+     */
+    public boolean isMatch(final String match)
+    {
+        return isMatch(match, null);
+    }
+
+    /**
+     * True if an If-None-Match header value lists the ETag of this response sent with encoding, null for none.
+     */
+    public boolean isMatch(final String match, final String encoding)
+    {
+        if (null == match)
+        {
+            return false;
+        }
+        if ("*".equals(match.trim()))
+        {
+            return true;
+        }
+        return (match.indexOf(getETag(encoding)) >= 0);
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.cache;
+
+import com.ait.tooling.server.rest.CoalesceRequests;
+
+/**
+ * CoalescePolicy - Which concurrent GET calls of a service may share one execution.
+ */
+public final class CoalescePolicy
+{
+    private final boolean m_user;
+
+    public static CoalescePolicy of(final CoalesceRequests coalesce)
+    {
+        if (null == coalesce)
+        {
+            return null;
+        }
+        return new CoalescePolicy(coalesce.user());
+    }
+
+    public CoalescePolicy(final boolean user)
+    {
+        m_user = user;
+    }
+
+    public boolean isKeyedByUser()
+    {
+        return m_user;
+    }
+}
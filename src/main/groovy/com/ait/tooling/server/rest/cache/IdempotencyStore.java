@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * IdempotencyStore - In memory {@link IIdempotencyStore}, bounded in size and evicting responses a fixed time after they are stored.
+ */
+@ManagedResource
+public class IdempotencyStore implements IIdempotencyStore
+{
+    public static final long                       DEFAULT_TTL  = 24L * 60L * 60L;
+
+    public static final long                       DEFAULT_SIZE = 10000L;
+
+    private long                                   m_ttl        = DEFAULT_TTL;
+
+    private long                                   m_size       = DEFAULT_SIZE;
+
+    private volatile Cache<String, CachedResponse> m_cache;
+
+    private final LongAdder                        m_hits       = new LongAdder();
+
+    private final LongAdder                        m_miss       = new LongAdder();
+
+    private final LongAdder                        m_puts       = new LongAdder();
+
+    public IdempotencyStore()
+    {
+    }
+
+    /**
+     * Seconds a response is kept, only read before the first call.
+     */
+    public void setTTL(final long ttl)
+    {
+        m_ttl = Math.max(1L, ttl);
+    }
+
+    @ManagedAttribute(description = "Get seconds a response is kept.")
+    public long getTTL()
+    {
+        return m_ttl;
+    }
+
+    /**
+     * Most responses kept, only read before the first call.
+     */
+    public void setSize(final long size)
+    {
+        m_size = Math.max(1L, size);
+    }
+
+    @ManagedAttribute(description = "Get most responses kept.")
+    public long getSize()
+    {
+        return m_size;
+    }
+
+    @Override
+    public CachedResponse get(final String key)
+    {
+        final CachedResponse resp = getCache().getIfPresent(key);
+
+        if (null != resp)
+        {
+            m_hits.increment();
+        }
+        else
+        {
+            m_miss.increment();
+        }
+        return resp;
+    }
+
+    @Override
+    public void put(final String key, final CachedResponse response)
+    {
+        getCache().put(key, response);
+
+        m_puts.increment();
+    }
+
+    @ManagedAttribute(description = "Get count of replayed responses.")
+    public long getHitCount()
+    {
+        return m_hits.sum();
+    }
+
+    @ManagedAttribute(description = "Get count of lookups without a stored response.")
+    public long getMissCount()
+    {
+        return m_miss.sum();
+    }
+
+    @ManagedAttribute(description = "Get count of stored responses.")
+    public long getPutCount()
+    {
+        return m_puts.sum();
+    }
+
+    @ManagedAttribute(description = "Get count of responses currently kept.")
+    public long getStoredResponseCount()
+    {
+        final Cache<String, CachedResponse> cache = m_cache;
+
+        return (null == cache) ? 0L : cache.size();
+    }
+
+    @ManagedOperation(description = "Clear all stored responses.")
+    public void clear()
+    {
+        final Cache<String, CachedResponse> cache = m_cache;
+
+        if (null != cache)
+        {
+            cache.invalidateAll();
+        }
+    }
+
+    private Cache<String, CachedResponse> getCache()
+    {
+        Cache<String, CachedResponse> cache = m_cache;
+
+        if (null == cache)
+        {
+            synchronized (this)
+            {
+                cache = m_cache;
+
+                if (null == cache)
+                {
+                    m_cache = cache = CacheBuilder.newBuilder().maximumSize(m_size).expireAfterWrite(m_ttl, TimeUnit.SECONDS).build();
+                }
+            }
+        }
+        return cache;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.ait.tooling.server.rest.RESTException;
+
+/**
+ * RequestCoalescer - Single flight execution of serialized responses by key.
+ * <p>
+ * The first caller for a key runs the call, callers arriving while it is in flight wait for and share its
+ * response bytes, or its failure. Nothing is retained once the call completes.
+ */
+@ManagedResource
+public class RequestCoalescer
+{
+    private final ConcurrentHashMap<String, CompletableFuture<CachedResponse>> m_flights = new ConcurrentHashMap<String, CompletableFuture<CachedResponse>>();
+
+    private long                                                               m_timeout = 30000L;
+
+    private final LongAdder                                                    m_leader  = new LongAdder();
+
+    private final LongAdder                                                    m_shared  = new LongAdder();
+
+    public RequestCoalescer()
+    {
+    }
+
+    public void setWaitTimeout(final long timeout)
+    {
+        m_timeout = Math.max(1L, timeout);
+    }
+
+    @ManagedAttribute(description = "Get milliseconds a caller waits for an in flight call.")
+    public long getWaitTimeout()
+    {
+        return m_timeout;
+    }
+
+    @ManagedAttribute(description = "Get count of executed calls.")
+    public long getExecutedCount()
+    {
+        return m_leader.sum();
+    }
+
+    @ManagedAttribute(description = "Get count of calls that shared an in flight execution.")
+    public long getSharedCount()
+    {
+        return m_shared.sum();
+    }
+
+    @ManagedAttribute(description = "Get count of calls in flight.")
+    public int getInFlightCount()
+    {
+        return m_flights.size();
+    }
+
+    /**
+     * Runs call, or waits for the identical call already in flight. A call that returns null is not shared, each waiter then runs call itself.
+     */
+    public CachedResponse execute(final String key, final Callable<CachedResponse> call) throws Exception
+    {
+        final CompletableFuture<CachedResponse> make = new CompletableFuture<CachedResponse>();
+
+        final CompletableFuture<CachedResponse> have = m_flights.putIfAbsent(key, make);
+
+        if (null != have)
+        {
+            final CachedResponse resp = await(have);
+
+            if (null != resp)
+            {
+                m_shared.increment();
+
+                return resp;
+            }
+            return call.call();
+        }
+        m_leader.increment();
+
+        try
+        {
+            final CachedResponse resp = call.call();
+
+            make.complete(resp);
+
+            return resp;
+        }
+        catch (Throwable e)
+        {
+            make.completeExceptionally(e);
+
+            throw e;
+        }
+        finally
+        {
+            m_flights.remove(key, make);
+        }
+    }
+
+    private CachedResponse await(final CompletableFuture<CachedResponse> have) throws Exception
+    {
+        try
+        {
+            return have.get(getWaitTimeout(), TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException e)
+        {
+            throw new RESTException("coalesced call timed out", HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        }
+        catch (ExecutionException e)
+        {
+            final Throwable cause = e.getCause();
+
+            if (cause instanceof Exception)
+            {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.log4j.Logger;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.ait.tooling.common.api.java.util.StringOps;
+import com.ait.tooling.server.rest.IRESTService;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * ResponseCacheManager - Server side caches of serialized responses for GET services that opt in with {@link com.ait.tooling.server.rest.ResponseCache}.
+ */
+@ManagedResource
+public class ResponseCacheManager
+{
+    private static final Logger                           logger   = Logger.getLogger(ResponseCacheManager.class);
+
+    private static final char[]                           HEX      = "0123456789ABCDEF".toCharArray();
+
+    private final ConcurrentHashMap<String, ServiceCache> m_caches = new ConcurrentHashMap<String, ServiceCache>();
+
+    private final LongAdder                               m_hits   = new LongAdder();
+
+    private final LongAdder                               m_miss   = new LongAdder();
+
+    public ResponseCacheManager()
+    {
+    }
+
+    /**
+     * Returns the cache for a service, or null if the service does not cache its responses.
+     */
+    public Cache<String, CachedResponse> getCache(final IRESTService service)
+    {
+        final ResponseCachePolicy policy = service.getResponseCachePolicy();
+
+        if (null == policy)
+        {
+            return null;
+        }
+        final String name = service.getName();
+
+        ServiceCache cache = m_caches.get(name);
+
+        if ((null == cache) || (cache.m_service != service))
+        {
+            final ServiceCache make = new ServiceCache(service, policy);
+
+            if (null == cache)
+            {
+                cache = m_caches.putIfAbsent(name, make);
+
+                if (null == cache)
+                {
+                    cache = make;
+
+                    logger.info("ResponseCacheManager.getCache(" + name + ") ttl " + policy.getTTL() + " size " + policy.getSize());
+                }
+            }
+            else if (m_caches.replace(name, cache, make))
+            {
+                cache = make;
+            }
+            else
+            {
+                cache = m_caches.get(name);
+            }
+        }
+        return cache.m_cache;
+    }
+
+    public String getKey(final IRESTService service, final HttpServletRequest request, final String bind, final List<String> roles, final boolean strict)
+    {
+        final StringBuilder buff = getRequestKey(request, bind, strict);
+
+        final ResponseCachePolicy policy = service.getResponseCachePolicy();
+
+        if ((null != policy) && (policy.isKeyedByRoles()))
+        {
+            appendRoles(buff, roles);
+        }
+        return buff.toString();
+    }
+
+    /**
+     * Returns the request path, sorted query parameters and format of a GET request, the start of any key for its response.
+     * <p>
+     * Parameter names and values are escaped, so a value holding an encoded separator can not be read as two parameters.
+     */
+    public static StringBuilder getRequestKey(final HttpServletRequest request, final String bind, final boolean strict)
+    {
+        final StringBuilder buff = new StringBuilder(128).append(bind);
+
+        final Map<String, String[]> params = request.getParameterMap();
+
+        if ((null != params) && (false == params.isEmpty()))
+        {
+            final String[] names = params.keySet().toArray(new String[params.size()]);
+
+            Arrays.sort(names);
+
+            char join = '?';
+
+            for (String name : names)
+            {
+                final String[] list = params.get(name);
+
+                if (null != list)
+                {
+                    for (String valu : list)
+                    {
+                        appendEscaped(appendEscaped(buff.append(join), name).append('='), valu);
+
+                        join = '&';
+                    }
+                }
+            }
+        }
+        if (strict)
+        {
+            buff.append("#strict");
+        }
+        return buff;
+    }
+
+    public static StringBuilder appendRoles(final StringBuilder buff, final List<String> roles)
+    {
+        buff.append("#roles");
+
+        if (null != roles)
+        {
+            final ArrayList<String> sort = new ArrayList<String>(roles);
+
+            Collections.sort(sort);
+
+            for (String role : sort)
+            {
+                appendEscaped(buff.append(','), role);
+            }
+        }
+        return buff;
+    }
+
+    /**
+     * Appends text with the key separators and the escape character itself percent encoded.
+     */
+    public static StringBuilder appendEscaped(final StringBuilder buff, final String text)
+    {
+        if (null == text)
+        {
+            return buff;
+        }
+        final int leng = text.length();
+
+        for (int i = 0; i < leng; i++)
+        {
+            final char c = text.charAt(i);
+
+            switch (c)
+            {
+                case '%':
+                case '&':
+                case '=':
+                case '#':
+                case ',':
+                case '?':
+                    buff.append('%').append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    break;
+                default:
+                    buff.append(c);
+                    break;
+            }
+        }
+        return buff;
+    }
+
+    public CachedResponse get(final Cache<String, CachedResponse> cache, final String key)
+    {
+        final CachedResponse resp = cache.getIfPresent(key);
+
+        if (null != resp)
+        {
+            m_hits.increment();
+        }
+        else
+        {
+            m_miss.increment();
+        }
+        return resp;
+    }
+
+    @ManagedAttribute(description = "Get cached service names.")
+    public List<String> getCachedServiceNames()
+    {
+        return Collections.unmodifiableList(new ArrayList<String>(m_caches.keySet()));
+    }
+
+    @ManagedAttribute(description = "Get cache hit count.")
+    public long getHitCount()
+    {
+        return m_hits.sum();
+    }
+
+    @ManagedAttribute(description = "Get cache miss count.")
+    public long getMissCount()
+    {
+        return m_miss.sum();
+    }
+
+    @ManagedAttribute(description = "Get cached response count.")
+    public long getCachedResponseCount()
+    {
+        long size = 0L;
+
+        for (ServiceCache cache : m_caches.values())
+        {
+            size += cache.m_cache.size();
+        }
+        return size;
+    }
+
+    @ManagedOperation(description = "Clear all cached responses.")
+    public void clear()
+    {
+        for (ServiceCache cache : m_caches.values())
+        {
+            cache.m_cache.invalidateAll();
+        }
+    }
+
+    @ManagedOperation(description = "Clear cached responses of one service.")
+    public void clearService(final String name)
+    {
+        final ServiceCache cache = m_caches.get(StringOps.requireTrimOrNull(name));
+
+        if (null != cache)
+        {
+            cache.m_cache.invalidateAll();
+        }
+    }
+
+    private static final class ServiceCache
+    {
+        private final IRESTService                  m_service;
+
+        private final Cache<String, CachedResponse> m_cache;
+
+        ServiceCache(final IRESTService service, final ResponseCachePolicy policy)
+        {
+            m_service = service;
+
+            m_cache = CacheBuilder.newBuilder().maximumSize(policy.getSize()).expireAfterWrite(policy.getTTL(), TimeUnit.SECONDS).build();
+        }
+    }
+}
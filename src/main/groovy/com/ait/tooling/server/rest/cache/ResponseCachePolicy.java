@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.cache;
+
+import com.ait.tooling.server.rest.ResponseCache;
+
+/**
+ * ResponseCachePolicy - How long, how many and by what a GET service's responses are cached.
+ */
+public final class ResponseCachePolicy
+{
+    private final long    m_ttl;
+
+    private final long    m_size;
+
+    private final boolean m_roles;
+
+    public static ResponseCachePolicy of(final ResponseCache cache)
+    {
+        if (null == cache)
+        {
+            return null;
+        }
+        return new ResponseCachePolicy(cache.ttl(), cache.size(), cache.roles());
+    }
+
+    public ResponseCachePolicy(final long ttl, final long size, final boolean roles)
+    {
+        m_ttl = Math.max(1L, ttl);
+
+        m_size = Math.max(1L, size);
+
+        m_roles = roles;
+    }
+
+    /**
+     * Time to live in seconds.
+     */
+    public long getTTL()
+    {
+        return m_ttl;
+    }
+
+    public long getSize()
+    {
+        return m_size;
+    }
+
+    public boolean isKeyedByRoles()
+    {
+        return m_roles;
+    }
+}
@@ -0,0 +1,705 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import com.ait.tooling.server.core.json.JSONArray;
+import com.ait.tooling.server.core.json.JSONObject;
+
+/**
+ * CBORCodec - RFC 7049 CBOR encoding of the JSONObject model.
+ * <p>
+ * Maps, arrays, text, integers, floats, booleans and null round trip, integers decode as Integer, Long or BigInteger and floats as Double.
+ * Byte strings decode as Base64 text, and tags other than bignums are skipped. Encoders and decoders are pooled per thread.
+ */
+public class CBORCodec implements IRESTCodec
+{
+    public static final String                CONTENT_TYPE  = "application/cbor";
+
+    public static final int                   MAXIMUM_DEPTH = 256;
+
+    private static final int                  BUFFER_SIZE   = 8 * 1024;
+
+    private static final ThreadLocal<Encoder> ENCODERS      = ThreadLocal.withInitial(Encoder::new);
+
+    private static final ThreadLocal<Decoder> DECODERS      = ThreadLocal.withInitial(Decoder::new);
+
+    public CBORCodec()
+    {
+    }
+
+    @Override
+    public String getContentType()
+    {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public JSONObject decode(final InputStream stream) throws IOException
+    {
+        final Decoder decoder = DECODERS.get();
+
+        try
+        {
+            final Object value = decoder.open(stream).read(0);
+
+            if (value instanceof JSONObject)
+            {
+                return (JSONObject) value;
+            }
+            throw new IOException("CBOR body is not a map");
+        }
+        finally
+        {
+            decoder.close();
+        }
+    }
+
+    @Override
+    public void encode(final JSONObject output, final OutputStream stream) throws IOException
+    {
+        final Encoder encoder = ENCODERS.get();
+
+        try
+        {
+            encoder.open(stream).write(output, 0);
+
+            encoder.flush();
+        }
+        finally
+        {
+            encoder.close();
+        }
+    }
+
+    private static final class Encoder
+    {
+        private final byte[] m_bytes = new byte[BUFFER_SIZE];
+
+        private int          m_count = 0;
+
+        private OutputStream m_stream;
+
+        Encoder open(final OutputStream stream)
+        {
+            m_stream = stream;
+
+            m_count = 0;
+
+            return this;
+        }
+
+        void close()
+        {
+            m_stream = null;
+
+            m_count = 0;
+        }
+
+        void flush() throws IOException
+        {
+            if (m_count > 0)
+            {
+                m_stream.write(m_bytes, 0, m_count);
+
+                m_count = 0;
+            }
+        }
+
+        private void ensure(final int size) throws IOException
+        {
+            if ((m_count + size) > m_bytes.length)
+            {
+                flush();
+            }
+        }
+
+        private void head(final int major, final long size) throws IOException
+        {
+            ensure(9);
+
+            final int type = major << 5;
+
+            if (size < 24L)
+            {
+                m_bytes[m_count++] = (byte) (type | (int) size);
+            }
+            else if (size < 0x100L)
+            {
+                m_bytes[m_count++] = (byte) (type | 24);
+
+                m_bytes[m_count++] = (byte) size;
+            }
+            else if (size < 0x10000L)
+            {
+                m_bytes[m_count++] = (byte) (type | 25);
+
+                m_bytes[m_count++] = (byte) (size >> 8);
+
+                m_bytes[m_count++] = (byte) size;
+            }
+            else if (size < 0x100000000L)
+            {
+                m_bytes[m_count++] = (byte) (type | 26);
+
+                for (int shift = 24; shift >= 0; shift -= 8)
+                {
+                    m_bytes[m_count++] = (byte) (size >> shift);
+                }
+            }
+            else
+            {
+                m_bytes[m_count++] = (byte) (type | 27);
+
+                for (int shift = 56; shift >= 0; shift -= 8)
+                {
+                    m_bytes[m_count++] = (byte) (size >> shift);
+                }
+            }
+        }
+
+        private void raw(final byte[] bytes) throws IOException
+        {
+            if (bytes.length > m_bytes.length)
+            {
+                flush();
+
+                m_stream.write(bytes);
+
+                return;
+            }
+            ensure(bytes.length);
+
+            System.arraycopy(bytes, 0, m_bytes, m_count, bytes.length);
+
+            m_count += bytes.length;
+        }
+
+        private void text(final String text) throws IOException
+        {
+            final int size = text.length();
+
+            int leng = 0;
+
+            for (int i = 0; i < size; i++)
+            {
+                final char c = text.charAt(i);
+
+                if (c < 0x80)
+                {
+                    leng++;
+                }
+                else
+                {
+                    leng = -1;
+
+                    break;
+                }
+            }
+            if (leng < 0)
+            {
+                final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+                head(3, bytes.length);
+
+                raw(bytes);
+
+                return;
+            }
+            head(3, leng);
+
+            int from = 0;
+
+            while (from < size)
+            {
+                if (m_count == m_bytes.length)
+                {
+                    flush();
+                }
+                final int part = Math.min(size - from, m_bytes.length - m_count);
+
+                for (int i = 0; i < part; i++)
+                {
+                    m_bytes[m_count++] = (byte) text.charAt(from + i);
+                }
+                from += part;
+            }
+        }
+
+        private void integer(final long value) throws IOException
+        {
+            if (value >= 0L)
+            {
+                head(0, value);
+            }
+            else
+            {
+                head(1, -1L - value);
+            }
+        }
+
+        private void decimal(final double value) throws IOException
+        {
+            ensure(9);
+
+            m_bytes[m_count++] = (byte) 0xfb;
+
+            final long bits = Double.doubleToLongBits(value);
+
+            for (int shift = 56; shift >= 0; shift -= 8)
+            {
+                m_bytes[m_count++] = (byte) (bits >> shift);
+            }
+        }
+
+        private void simple(final int value) throws IOException
+        {
+            ensure(1);
+
+            m_bytes[m_count++] = (byte) (0xe0 | value);
+        }
+
+        @SuppressWarnings("unchecked")
+        void write(final Object value, final int depth) throws IOException
+        {
+            if (depth > MAXIMUM_DEPTH)
+            {
+                throw new IOException("CBOR nesting exceeds " + MAXIMUM_DEPTH);
+            }
+            if (null == value)
+            {
+                simple(22);
+            }
+            else if (value instanceof String)
+            {
+                text((String) value);
+            }
+            else if ((value instanceof Integer) || (value instanceof Long) || (value instanceof Short) || (value instanceof Byte))
+            {
+                integer(((Number) value).longValue());
+            }
+            else if (value instanceof Boolean)
+            {
+                simple(((Boolean) value).booleanValue() ? 21 : 20);
+            }
+            else if (value instanceof Map)
+            {
+                final Map<Object, Object> map = (Map<Object, Object>) value;
+
+                head(5, map.size());
+
+                for (Map.Entry<Object, Object> entry : map.entrySet())
+                {
+                    text(String.valueOf(entry.getKey()));
+
+                    write(entry.getValue(), depth + 1);
+                }
+            }
+            else if (value instanceof List)
+            {
+                final List<Object> list = (List<Object>) value;
+
+                head(4, list.size());
+
+                for (Object item : list)
+                {
+                    write(item, depth + 1);
+                }
+            }
+            else if (value instanceof Object[])
+            {
+                write(Arrays.asList((Object[]) value), depth);
+            }
+            else if (value instanceof BigInteger)
+            {
+                final BigInteger big = (BigInteger) value;
+
+                if (big.bitLength() < 64)
+                {
+                    integer(big.longValue());
+                }
+                else
+                {
+                    final boolean negative = (big.signum() < 0);
+
+                    byte[] bytes = (negative ? big.negate().subtract(BigInteger.ONE) : big).toByteArray();
+
+                    if ((bytes.length > 1) && (0 == bytes[0]))
+                    {
+                        bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+                    }
+                    head(6, negative ? 3 : 2);
+
+                    head(2, bytes.length);
+
+                    raw(bytes);
+                }
+            }
+            else if ((value instanceof Double) || (value instanceof Float) || (value instanceof BigDecimal))
+            {
+                decimal(((Number) value).doubleValue());
+            }
+            else if (value instanceof Number)
+            {
+                integer(((Number) value).longValue());
+            }
+            else
+            {
+                text(value.toString());
+            }
+        }
+    }
+
+    private static final class Decoder
+    {
+        private final byte[] m_bytes = new byte[BUFFER_SIZE];
+
+        private int          m_index = 0;
+
+        private int          m_count = 0;
+
+        private InputStream  m_stream;
+
+        Decoder open(final InputStream stream)
+        {
+            m_stream = stream;
+
+            m_index = 0;
+
+            m_count = 0;
+
+            return this;
+        }
+
+        void close()
+        {
+            m_stream = null;
+        }
+
+        private boolean fill() throws IOException
+        {
+            m_index = 0;
+
+            m_count = m_stream.read(m_bytes, 0, m_bytes.length);
+
+            if (m_count < 0)
+            {
+                m_count = 0;
+            }
+            return (m_count > 0);
+        }
+
+        private int next() throws IOException
+        {
+            if ((m_index >= m_count) && (false == fill()))
+            {
+                throw new IOException("CBOR body ends early");
+            }
+            return (m_bytes[m_index++] & 0xff);
+        }
+
+        private long argument(final int info) throws IOException
+        {
+            if (info < 24)
+            {
+                return info;
+            }
+            final int size;
+
+            switch (info)
+            {
+                case 24:
+                    size = 1;
+                    break;
+                case 25:
+                    size = 2;
+                    break;
+                case 26:
+                    size = 4;
+                    break;
+                case 27:
+                    size = 8;
+                    break;
+                default:
+                    throw new IOException("CBOR invalid additional info " + info);
+            }
+            long value = 0L;
+
+            for (int i = 0; i < size; i++)
+            {
+                value = (value << 8) | next();
+            }
+            return value;
+        }
+
+        private int length(final int info) throws IOException
+        {
+            final long size = argument(info);
+
+            if ((size < 0L) || (size > Integer.MAX_VALUE))
+            {
+                throw new IOException("CBOR length " + Long.toUnsignedString(size) + " too large");
+            }
+            return (int) size;
+        }
+
+        /**
+         * Reads a definite or indefinite byte or text string, growing as bytes actually arrive so a forged length cannot force a large allocation.
+         */
+        private byte[] bytes(final int major, final int info) throws IOException
+        {
+            if (31 == info)
+            {
+                byte[] data = new byte[0];
+
+                while (true)
+                {
+                    final int head = next();
+
+                    if (0xff == head)
+                    {
+                        return data;
+                    }
+                    if ((head >> 5) != major)
+                    {
+                        throw new IOException("CBOR invalid chunk in indefinite string");
+                    }
+                    final byte[] part = bytes(major, head & 0x1f);
+
+                    final int size = data.length;
+
+                    data = Arrays.copyOf(data, size + part.length);
+
+                    System.arraycopy(part, 0, data, size, part.length);
+                }
+            }
+            return bytes(length(info));
+        }
+
+        private byte[] bytes(final int size) throws IOException
+        {
+            byte[] data = new byte[Math.min(size, BUFFER_SIZE)];
+
+            int done = 0;
+
+            while (done < size)
+            {
+                if ((m_index >= m_count) && (false == fill()))
+                {
+                    throw new IOException("CBOR body ends early");
+                }
+                final int part = Math.min(size - done, m_count - m_index);
+
+                if ((done + part) > data.length)
+                {
+                    data = Arrays.copyOf(data, (int) Math.min(size, Math.max((long) data.length << 1, done + part)));
+                }
+                System.arraycopy(m_bytes, m_index, data, done, part);
+
+                m_index += part;
+
+                done += part;
+            }
+            return data;
+        }
+
+        private String text(final int info) throws IOException
+        {
+            if (info < 31)
+            {
+                final int size = length(info);
+
+                if (size <= (m_count - m_index))
+                {
+                    final String text = new String(m_bytes, m_index, size, StandardCharsets.UTF_8);
+
+                    m_index += size;
+
+                    return text;
+                }
+                return new String(bytes(size), StandardCharsets.UTF_8);
+            }
+            return new String(bytes(3, info), StandardCharsets.UTF_8);
+        }
+
+        private Object unsigned(final long value, final boolean negative)
+        {
+            if (value >= 0L)
+            {
+                final long signed = negative ? (-1L - value) : value;
+
+                if ((signed >= Integer.MIN_VALUE) && (signed <= Integer.MAX_VALUE))
+                {
+                    return Integer.valueOf((int) signed);
+                }
+                return Long.valueOf(signed);
+            }
+            final BigInteger big = new BigInteger(Long.toUnsignedString(value));
+
+            return negative ? big.negate().subtract(BigInteger.ONE) : big;
+        }
+
+        private double half(final int bits)
+        {
+            final int expo = (bits >> 10) & 0x1f;
+
+            final int mant = bits & 0x3ff;
+
+            final double valu;
+
+            if (0 == expo)
+            {
+                valu = mant * Math.pow(2, -24);
+            }
+            else if (31 == expo)
+            {
+                valu = (0 == mant) ? Double.POSITIVE_INFINITY : Double.NaN;
+            }
+            else
+            {
+                valu = (mant + 1024) * Math.pow(2, expo - 25);
+            }
+            return (0 != (bits & 0x8000)) ? -valu : valu;
+        }
+
+        Object read(final int depth) throws IOException
+        {
+            if (depth > MAXIMUM_DEPTH)
+            {
+                throw new IOException("CBOR nesting exceeds " + MAXIMUM_DEPTH);
+            }
+            final int head = next();
+
+            final int major = head >> 5;
+
+            final int info = head & 0x1f;
+
+            switch (major)
+            {
+                case 0:
+                    return unsigned(argument(info), false);
+                case 1:
+                    return unsigned(argument(info), true);
+                case 2:
+                    return Base64.getEncoder().encodeToString(bytes(2, info));
+                case 3:
+                    return text(info);
+                case 4:
+                {
+                    final JSONArray list = new JSONArray();
+
+                    if (31 == info)
+                    {
+                        while (true)
+                        {
+                            if ((m_index >= m_count) && (false == fill()))
+                            {
+                                throw new IOException("CBOR body ends early");
+                            }
+                            if (0xff == (m_bytes[m_index] & 0xff))
+                            {
+                                m_index++;
+
+                                return list;
+                            }
+                            list.add(read(depth + 1));
+                        }
+                    }
+                    final int size = length(info);
+
+                    for (int i = 0; i < size; i++)
+                    {
+                        list.add(read(depth + 1));
+                    }
+                    return list;
+                }
+                case 5:
+                {
+                    final JSONObject map = new JSONObject();
+
+                    final int size = (31 == info) ? -1 : length(info);
+
+                    for (int i = 0; ((size < 0) || (i < size)); i++)
+                    {
+                        if (size < 0)
+                        {
+                            if ((m_index >= m_count) && (false == fill()))
+                            {
+                                throw new IOException("CBOR body ends early");
+                            }
+                            if (0xff == (m_bytes[m_index] & 0xff))
+                            {
+                                m_index++;
+
+                                break;
+                            }
+                        }
+                        final Object key = read(depth + 1);
+
+                        map.put(String.valueOf(key), read(depth + 1));
+                    }
+                    return map;
+                }
+                case 6:
+                {
+                    final long tag = argument(info);
+
+                    final Object value = read(depth + 1);
+
+                    if (((2L == tag) || (3L == tag)) && (value instanceof String))
+                    {
+                        final BigInteger big = new BigInteger(1, Base64.getDecoder().decode((String) value));
+
+                        return (3L == tag) ? big.negate().subtract(BigInteger.ONE) : big;
+                    }
+                    return value;
+                }
+                default:
+                {
+                    switch (info)
+                    {
+                        case 20:
+                            return Boolean.FALSE;
+                        case 21:
+                            return Boolean.TRUE;
+                        case 22:
+                        case 23:
+                            return null;
+                        case 25:
+                            return Double.valueOf(half((int) argument(info)));
+                        case 26:
+                            return Double.valueOf(Float.intBitsToFloat((int) argument(info)));
+                        case 27:
+                            return Double.valueOf(Double.longBitsToDouble(argument(info)));
+                        default:
+                            throw new IOException("CBOR unsupported simple value " + info);
+                    }
+                }
+            }
+        }
+    }
+}
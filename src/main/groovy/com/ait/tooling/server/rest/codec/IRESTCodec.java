@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.ait.tooling.server.core.json.JSONObject;
+
+/**
+ * IRESTCodec - A wire format other than JSON text that maps to and from the JSONObject model, selected by Content-Type and Accept.
+ */
+public interface IRESTCodec
+{
+    public String getContentType();
+
+    public JSONObject decode(InputStream stream) throws IOException;
+
+    public void encode(JSONObject output, OutputStream stream) throws IOException;
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.codec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.ait.tooling.common.api.java.util.StringOps;
+
+/**
+ * RESTCodecRegistry - The non JSON wire formats a servlet accepts in Content-Type and offers through Accept, JSON text stays the default.
+ * <p>
+ * The most preferred type in Accept wins, ties go to the first listed, so JSON or a wildcard listed first keeps JSON text.
+ */
+@ManagedResource
+public class RESTCodecRegistry
+{
+    private static final Logger                         logger   = Logger.getLogger(RESTCodecRegistry.class);
+
+    private final ConcurrentHashMap<String, IRESTCodec> m_codecs = new ConcurrentHashMap<String, IRESTCodec>();
+
+    public RESTCodecRegistry()
+    {
+        addCodec(new CBORCodec());
+    }
+
+    public void setCodecs(final List<IRESTCodec> codecs)
+    {
+        if (null != codecs)
+        {
+            for (IRESTCodec codec : codecs)
+            {
+                addCodec(codec);
+            }
+        }
+    }
+
+    public void addCodec(final IRESTCodec codec)
+    {
+        final String type = StringOps.toTrimOrNull(codec.getContentType());
+
+        if (null != type)
+        {
+            m_codecs.put(type.toLowerCase(Locale.ENGLISH), codec);
+
+            logger.info("RESTCodecRegistry.addCodec(" + type + ")");
+        }
+    }
+
+    public boolean isEmpty()
+    {
+        return m_codecs.isEmpty();
+    }
+
+    @ManagedAttribute(description = "Get codec content types.")
+    public List<String> getContentTypes()
+    {
+        final ArrayList<String> list = new ArrayList<String>(m_codecs.keySet());
+
+        Collections.sort(list);
+
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Returns the codec for a request Content-Type, or null for JSON or an unknown type.
+     */
+    public IRESTCodec getRequestCodec(final String type)
+    {
+        if ((null == type) || (m_codecs.isEmpty()))
+        {
+            return null;
+        }
+        return m_codecs.get(getMediaType(type, 0, type.length()));
+    }
+
+    /**
+     * Returns the codec for the most preferred type in an Accept header, or null when JSON, a wildcard or nothing known is preferred.
+     */
+    public IRESTCodec getResponseCodec(final String accept)
+    {
+        if ((null == accept) || (m_codecs.isEmpty()))
+        {
+            return null;
+        }
+        IRESTCodec best = null;
+
+        double qbest = 0.0;
+
+        int from = 0;
+
+        final int size = accept.length();
+
+        while (from < size)
+        {
+            int next = accept.indexOf(',', from);
+
+            if (next < 0)
+            {
+                next = size;
+            }
+            final String type = getMediaType(accept, from, next);
+
+            final double qval = getQValue(accept, from, next);
+
+            if (qval > qbest)
+            {
+                final IRESTCodec codec = m_codecs.get(type);
+
+                if ((null != codec) || ("application/json".equals(type)) || (type.endsWith("/*")))
+                {
+                    best = codec;
+
+                    qbest = qval;
+                }
+            }
+            from = next + 1;
+        }
+        return best;
+    }
+
+    private static String getMediaType(final String header, final int from, final int stop)
+    {
+        int last = header.indexOf(';', from);
+
+        if ((last < 0) || (last > stop))
+        {
+            last = stop;
+        }
+        return header.substring(from, last).trim().toLowerCase(Locale.ENGLISH);
+    }
+
+    private static double getQValue(final String header, final int from, final int stop)
+    {
+        final int indx = header.indexOf("q=", from);
+
+        if ((indx < 0) || (indx >= stop))
+        {
+            return 1.0;
+        }
+        int last = header.indexOf(';', indx);
+
+        if ((last < 0) || (last > stop))
+        {
+            last = stop;
+        }
+        try
+        {
+            return Double.parseDouble(header.substring(indx + 2, last).trim());
+        }
+        catch (NumberFormatException e)
+        {
+            return 0.0;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.index;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.springframework.http.HttpMethod;
+
+import com.ait.tooling.server.core.json.JSONObject;
+import com.ait.tooling.server.core.json.schema.JSONSchema;
+import com.ait.tooling.server.rest.IRESTRequestContext;
+import com.ait.tooling.server.rest.IRESTService;
+import com.ait.tooling.server.rest.cache.CoalescePolicy;
+import com.ait.tooling.server.rest.cache.ResponseCachePolicy;
+import com.ait.tooling.server.rest.index.RESTServiceIndex.RESTServiceEntry;
+import com.ait.tooling.server.rest.io.CompressionPolicy;
+import com.ait.tooling.server.rest.limit.ConcurrencyLimitPolicy;
+
+/**
+ * IndexedRESTService - Stands in the registry for an indexed service bean that has not been created yet.
+ * <p>
+ * Name, binding and HTTP method come from the index, so routes exist from startup. Anything else creates the bean, once,
+ * and is passed on to it. The registry swaps the bean in when a request first resolves it, so the servlet never calls this.
+ */
+public final class IndexedRESTService implements IRESTService
+{
+    private final RESTServiceEntry                         m_entry;
+
+    private final String                                   m_bind;
+
+    private final Function<RESTServiceEntry, IRESTService> m_maker;
+
+    private volatile IRESTService                          m_service;
+
+    public IndexedRESTService(final RESTServiceEntry entry, final String bind, final Function<RESTServiceEntry, IRESTService> maker)
+    {
+        m_entry = Objects.requireNonNull(entry);
+
+        m_bind = bind;
+
+        m_maker = Objects.requireNonNull(maker);
+    }
+
+    public RESTServiceEntry getEntry()
+    {
+        return m_entry;
+    }
+
+    public boolean isCreated()
+    {
+        return (null != m_service);
+    }
+
+    /**
+     * Returns the service bean, creating it on the first call.
+     */
+    public IRESTService getService()
+    {
+        IRESTService service = m_service;
+
+        if (null == service)
+        {
+            synchronized (this)
+            {
+                service = m_service;
+
+                if (null == service)
+                {
+                    m_service = service = Objects.requireNonNull(m_maker.apply(m_entry));
+                }
+            }
+        }
+        return service;
+    }
+
+    @Override
+    public String getName()
+    {
+        return m_entry.getName();
+    }
+
+    @Override
+    public String getRequestBinding()
+    {
+        return m_bind;
+    }
+
+    @Override
+    public HttpMethod getRequestMethodType()
+    {
+        return m_entry.getRequestMethodType();
+    }
+
+    @Override
+    public void acquire()
+    {
+        getService().acquire();
+    }
+
+    @Override
+    public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+    {
+        return getService().execute(context, object);
+    }
+
+    @Override
+    public JSONObject getSchemas()
+    {
+        return getService().getSchemas();
+    }
+
+    @Override
+    public JSONSchema getRequestSchema()
+    {
+        return getService().getRequestSchema();
+    }
+
+    @Override
+    public JSONSchema getResponseSchema()
+    {
+        return getService().getResponseSchema();
+    }
+
+    @Override
+    public JSONObject getSwaggerAttributes()
+    {
+        return getService().getSwaggerAttributes();
+    }
+
+    @Override
+    public long getMaxRequestBodySize()
+    {
+        return getService().getMaxRequestBodySize();
+    }
+
+    @Override
+    public ResponseCachePolicy getResponseCachePolicy()
+    {
+        return getService().getResponseCachePolicy();
+    }
+
+    @Override
+    public CoalescePolicy getCoalescePolicy()
+    {
+        return getService().getCoalescePolicy();
+    }
+
+    @Override
+    public double getRateLimit()
+    {
+        return getService().getRateLimit();
+    }
+
+    @Override
+    public boolean isNonBlockingRateLimit()
+    {
+        return getService().isNonBlockingRateLimit();
+    }
+
+    @Override
+    public ConcurrencyLimitPolicy getConcurrencyLimit()
+    {
+        return getService().getConcurrencyLimit();
+    }
+
+    @Override
+    public CompressionPolicy getCompressionPolicy()
+    {
+        return getService().getCompressionPolicy();
+    }
+
+    /**
+     * Closes the bean only if it was ever created.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        final IRESTService service = m_service;
+
+        if (null != service)
+        {
+            service.close();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "IndexedRESTService(" + m_entry.getClassName() + ")";
+    }
+}
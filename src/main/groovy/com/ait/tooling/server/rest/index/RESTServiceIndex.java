@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.springframework.http.HttpMethod;
+
+import com.ait.tooling.common.api.java.util.StringOps;
+
+/**
+ * RESTServiceIndex - Services, bindings and HTTP methods listed at compile time by {@link RESTServiceIndexProcessor}.
+ * <p>
+ * One line per service class, tab separated: class name, service name, request binding or empty, HTTP method.
+ */
+public final class RESTServiceIndex
+{
+    private static final Logger          logger   = Logger.getLogger(RESTServiceIndex.class);
+
+    public static final String           RESOURCE = "META-INF/ahome-tooling-server-rest/services.idx";
+
+    private final List<RESTServiceEntry> m_entries;
+
+    /**
+     * Reads every index on the class path, an index that cannot be read is logged and skipped.
+     */
+    public static RESTServiceIndex load(final ClassLoader loader)
+    {
+        final ArrayList<RESTServiceEntry> list = new ArrayList<RESTServiceEntry>();
+
+        try
+        {
+            final Enumeration<URL> urls = (null == loader) ? ClassLoader.getSystemResources(RESOURCE) : loader.getResources(RESOURCE);
+
+            while (urls.hasMoreElements())
+            {
+                final URL url = urls.nextElement();
+
+                try (BufferedReader read = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8)))
+                {
+                    String line;
+
+                    while (null != (line = read.readLine()))
+                    {
+                        final RESTServiceEntry entry = RESTServiceEntry.parse(line);
+
+                        if (null != entry)
+                        {
+                            list.add(entry);
+                        }
+                    }
+                }
+                catch (IOException e)
+                {
+                    logger.error("RESTServiceIndex.load(" + url + ") ERROR ", e);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            logger.error("RESTServiceIndex.load() ERROR ", e);
+        }
+        return new RESTServiceIndex(list);
+    }
+
+    public RESTServiceIndex(final List<RESTServiceEntry> entries)
+    {
+        m_entries = Collections.unmodifiableList(new ArrayList<RESTServiceEntry>(entries));
+    }
+
+    public List<RESTServiceEntry> getEntries()
+    {
+        return m_entries;
+    }
+
+    public boolean isEmpty()
+    {
+        return m_entries.isEmpty();
+    }
+
+    public RESTServiceEntry getEntry(final String type)
+    {
+        for (RESTServiceEntry entry : m_entries)
+        {
+            if (entry.getClassName().equals(type))
+            {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * RESTServiceEntry - One indexed service class.
+     */
+    public static final class RESTServiceEntry
+    {
+        private final String     m_type;
+
+        private final String     m_name;
+
+        private final String     m_bind;
+
+        private final HttpMethod m_method;
+
+        public RESTServiceEntry(final String type, final String name, final String bind, final HttpMethod method)
+        {
+            m_type = StringOps.requireTrimOrNull(type);
+
+            m_name = StringOps.requireTrimOrNull(name);
+
+            m_bind = StringOps.toTrimOrNull(bind);
+
+            m_method = (null == method) ? HttpMethod.GET : method;
+        }
+
+        static RESTServiceEntry parse(final String line)
+        {
+            if ((null == line) || (line.trim().isEmpty()) || (line.startsWith("#")))
+            {
+                return null;
+            }
+            final String[] cols = line.split("\t", -1);
+
+            if (cols.length < 4)
+            {
+                logger.error("RESTServiceIndex.parse(" + line + ") bad line");
+
+                return null;
+            }
+            try
+            {
+                return new RESTServiceEntry(cols[0], cols[1], cols[2], HttpMethod.valueOf(cols[3].trim()));
+            }
+            catch (RuntimeException e)
+            {
+                logger.error("RESTServiceIndex.parse(" + line + ") bad line", e);
+
+                return null;
+            }
+        }
+
+        public String getClassName()
+        {
+            return m_type;
+        }
+
+        public String getName()
+        {
+            return m_name;
+        }
+
+        /**
+         * The binding as written in {@link com.ait.tooling.server.rest.RequestBinding}, not yet fixed, or null.
+         */
+        public String getRequestBinding()
+        {
+            return m_bind;
+        }
+
+        public HttpMethod getRequestMethodType()
+        {
+            return m_method;
+        }
+
+        public String toLine()
+        {
+            return m_type + '\t' + m_name + '\t' + ((null == m_bind) ? "" : m_bind) + '\t' + m_method.name();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.index;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * RESTServiceIndexProcessor - Writes the {@link RESTServiceIndex} of the concrete IRESTService classes compiled with it.
+ * <p>
+ * Only Java sources are seen, services written in Groovy are still found by the registry at startup. The processor is not
+ * registered through META-INF/services, a project opts in by naming it to javac, for example
+ * {@code -processor com.ait.tooling.server.rest.index.RESTServiceIndexProcessor} with this library on the
+ * {@code -processorpath}, or through annotationProcessorPaths in Maven or the annotationProcessor configuration in Gradle.
+ * It only refers to types by name, so it loads without Spring on the processor path. Without an index the registry creates
+ * every service bean at startup, as before.
+ */
+@SupportedAnnotationTypes({ RESTServiceIndexProcessor.SERVICE, RESTServiceIndexProcessor.BINDING, RESTServiceIndexProcessor.METHOD })
+public class RESTServiceIndexProcessor extends AbstractProcessor
+{
+    static final String               SERVICE   = "org.springframework.stereotype.Service";
+
+    static final String               BINDING   = "com.ait.tooling.server.rest.RequestBinding";
+
+    static final String               METHOD    = "com.ait.tooling.server.rest.RequestMethod";
+
+    static final String               INTERFACE = "com.ait.tooling.server.rest.IRESTService";
+
+    private final Map<String, String> m_lines   = new TreeMap<String, String>();
+
+    public RESTServiceIndexProcessor()
+    {
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment round)
+    {
+        final TypeElement root = processingEnv.getElementUtils().getTypeElement(INTERFACE);
+
+        if (null == root)
+        {
+            return false;
+        }
+        final TypeMirror type = processingEnv.getTypeUtils().erasure(root.asType());
+
+        for (TypeElement annotation : annotations)
+        {
+            for (Element element : round.getElementsAnnotatedWith(annotation))
+            {
+                if ((ElementKind.CLASS == element.getKind()) && (false == element.getModifiers().contains(Modifier.ABSTRACT)) && (processingEnv.getTypeUtils().isAssignable(processingEnv.getTypeUtils().erasure(element.asType()), type)))
+                {
+                    final TypeElement claz = (TypeElement) element;
+
+                    final String name = processingEnv.getElementUtils().getBinaryName(claz).toString();
+
+                    m_lines.put(name, toLine(claz, name));
+                }
+            }
+        }
+        if (round.processingOver())
+        {
+            write();
+        }
+        return false;
+    }
+
+    private String toLine(final TypeElement claz, final String type)
+    {
+        String name = getValue(claz, SERVICE);
+
+        if ((null == name) || (name.trim().isEmpty()))
+        {
+            name = claz.getSimpleName().toString();
+        }
+        String bind = getValue(claz, BINDING);
+
+        if (null == bind)
+        {
+            bind = "";
+        }
+        String method = getValue(claz, METHOD);
+
+        if ((null == method) || (method.trim().isEmpty()))
+        {
+            method = "GET";
+        }
+        return type + '\t' + name.trim() + '\t' + bind.trim() + '\t' + method.trim();
+    }
+
+    private String getValue(final TypeElement claz, final String annotation)
+    {
+        for (AnnotationMirror mirror : claz.getAnnotationMirrors())
+        {
+            if (annotation.equals(((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString()))
+            {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet())
+                {
+                    if ("value".equals(entry.getKey().getSimpleName().toString()))
+                    {
+                        return entry.getValue().getValue().toString();
+                    }
+                }
+                return "";
+            }
+        }
+        return null;
+    }
+
+    private void write()
+    {
+        if (m_lines.isEmpty())
+        {
+            return;
+        }
+        try
+        {
+            final FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", RESTServiceIndex.RESOURCE);
+
+            try (Writer out = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8))
+            {
+                out.write("# class\tname\tbinding\tmethod\n");
+
+                for (String line : m_lines.values())
+                {
+                    out.write(line);
+
+                    out.write('\n');
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "RESTServiceIndexProcessor can not write " + RESTServiceIndex.RESOURCE + " " + e.getMessage());
+        }
+    }
+}
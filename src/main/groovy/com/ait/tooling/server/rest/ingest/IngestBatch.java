@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.ingest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.ait.tooling.server.core.json.JSONObject;
+
+/**
+ * IngestBatch - The records an ingest service is handed in one callback, with the line each came from.
+ * <p>
+ * The service rejects single records with {@link #reject(int, String)}, every record it does not reject counts as accepted.
+ * The same instance is cleared and refilled for each batch, so records must be copied if they are kept past the callback.
+ */
+public final class IngestBatch
+{
+    private final IngestResult          m_result;
+
+    private final ArrayList<JSONObject> m_records;
+
+    private final List<JSONObject>      m_unmodifiable;
+
+    private long[]                      m_lines;
+
+    private boolean[]                   m_reject;
+
+    private int                         m_rejected;
+
+    private long                        m_index;
+
+    public IngestBatch(final int size, final IngestResult result)
+    {
+        m_result = result;
+
+        m_records = new ArrayList<JSONObject>(Math.max(1, size));
+
+        m_unmodifiable = Collections.unmodifiableList(m_records);
+
+        m_lines = new long[Math.max(1, size)];
+
+        m_reject = new boolean[Math.max(1, size)];
+    }
+
+    /**
+     * Number of this batch in the upload, counting from zero.
+     */
+    public long getIndex()
+    {
+        return m_index;
+    }
+
+    public int size()
+    {
+        return m_records.size();
+    }
+
+    public boolean isEmpty()
+    {
+        return m_records.isEmpty();
+    }
+
+    public List<JSONObject> getRecords()
+    {
+        return m_unmodifiable;
+    }
+
+    public JSONObject get(final int indx)
+    {
+        return m_records.get(indx);
+    }
+
+    public long getLine(final int indx)
+    {
+        return m_lines[indx];
+    }
+
+    public boolean isRejected(final int indx)
+    {
+        return m_reject[indx];
+    }
+
+    public int getRejectedCount()
+    {
+        return m_rejected;
+    }
+
+    /**
+     * Rejects one record of this batch, rejecting it again has no effect.
+     */
+    public void reject(final int indx, final String reason)
+    {
+        if (false == m_reject[indx])
+        {
+            m_reject[indx] = true;
+
+            m_rejected++;
+
+            m_result.reject(m_lines[indx], reason);
+        }
+    }
+
+    /**
+     * Rejects every record of this batch not already rejected, used when the whole callback fails.
+     */
+    public void rejectAll(final String reason)
+    {
+        final int size = size();
+
+        for (int i = 0; i < size; i++)
+        {
+            reject(i, reason);
+        }
+    }
+
+    public void add(final JSONObject record, final long line)
+    {
+        final int size = size();
+
+        if (size >= m_lines.length)
+        {
+            m_lines = Arrays.copyOf(m_lines, size * 2);
+
+            m_reject = Arrays.copyOf(m_reject, size * 2);
+        }
+        m_records.add(record);
+
+        m_lines[size] = line;
+    }
+
+    /**
+     * Empties the batch for the next callback.
+     */
+    public void clear()
+    {
+        Arrays.fill(m_reject, 0, size(), false);
+
+        m_records.clear();
+
+        m_rejected = 0;
+
+        m_index++;
+    }
+
+    /**
+     * Counts the batch and its records that were not rejected.
+     */
+    public void complete()
+    {
+        m_result.batch();
+
+        m_result.accept(size() - m_rejected);
+    }
+}
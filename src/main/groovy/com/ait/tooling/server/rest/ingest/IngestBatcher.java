@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.ingest;
+
+import java.util.List;
+
+import com.ait.tooling.server.core.json.JSONObject;
+import com.ait.tooling.server.rest.IIngestRESTService;
+import com.ait.tooling.server.rest.IRESTRequestContext;
+import com.ait.tooling.server.rest.RESTException;
+import com.ait.tooling.server.rest.schema.CompiledSchema;
+
+/**
+ * IngestBatcher - Gathers records into batches of the service's batch size and hands each full batch to the service.
+ * <p>
+ * Records that are not JSON objects, or do not match the request schema, are rejected on their own and never reach the service.
+ * When a callback throws, its batch is rejected and the exception is passed on, which ends the ingest.
+ */
+public final class IngestBatcher
+{
+    private final IIngestRESTService  m_service;
+
+    private final IRESTRequestContext m_context;
+
+    private final JSONObject          m_object;
+
+    private final CompiledSchema      m_schema;
+
+    private final IngestResult        m_result;
+
+    private final IngestBatch         m_batch;
+
+    private final int                 m_size;
+
+    /**
+     * Batches records for service, schema may be null when records are not validated.
+     */
+    public IngestBatcher(final IIngestRESTService service, final IRESTRequestContext context, final JSONObject object, final CompiledSchema schema)
+    {
+        final IngestPolicy policy = service.getIngestPolicy();
+
+        m_service = service;
+
+        m_context = context;
+
+        m_object = object;
+
+        m_schema = ((null == schema) || (schema.isTrivial())) ? null : schema;
+
+        m_size = policy.getBatchSize();
+
+        m_result = new IngestResult(policy.getMaxErrors());
+
+        m_batch = new IngestBatch(m_size, m_result);
+    }
+
+    public IngestResult getResult()
+    {
+        return m_result;
+    }
+
+    /**
+     * Adds one record read from line, a full batch is handed to the service before this returns.
+     */
+    public void offer(final Object record, final long line) throws Exception
+    {
+        m_result.record();
+
+        if (false == (record instanceof JSONObject))
+        {
+            m_result.reject(line, "record is not a JSON object");
+
+            return;
+        }
+        if (null != m_schema)
+        {
+            final List<String> errors = m_schema.validate(record);
+
+            if (false == errors.isEmpty())
+            {
+                m_result.reject(line, "invalid record " + errors);
+
+                return;
+            }
+        }
+        m_batch.add((JSONObject) record, line);
+
+        if (m_batch.size() >= m_size)
+        {
+            flush();
+        }
+    }
+
+    /**
+     * Rejects a record that could not be read, such as one that is not valid JSON.
+     */
+    public void reject(final long line, final String reason)
+    {
+        m_result.record();
+
+        m_result.reject(line, reason);
+    }
+
+    /**
+     * Hands the last partial batch to the service and returns the result.
+     */
+    public IngestResult finish() throws Exception
+    {
+        flush();
+
+        return m_result;
+    }
+
+    private void flush() throws Exception
+    {
+        if (m_batch.isEmpty())
+        {
+            return;
+        }
+        try
+        {
+            m_service.ingest(m_context, m_object, m_batch);
+        }
+        catch (Exception e)
+        {
+            m_batch.rejectAll((e instanceof RESTException) ? ((RESTException) e).getReason() : "batch " + m_batch.getIndex() + " failed");
+
+            throw e;
+        }
+        finally
+        {
+            m_batch.complete();
+
+            m_batch.clear();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.ingest;
+
+import com.ait.tooling.server.rest.BatchIngest;
+
+/**
+ * IngestPolicy - How many records an ingest service is handed per callback, and how many record errors are reported back.
+ */
+public final class IngestPolicy
+{
+    public static final int          DEFAULT_BATCH_SIZE = 500;
+
+    public static final int          DEFAULT_MAX_ERRORS = 100;
+
+    public static final IngestPolicy DEFAULT            = new IngestPolicy(DEFAULT_BATCH_SIZE, DEFAULT_MAX_ERRORS);
+
+    private final int                m_size;
+
+    private final int                m_errors;
+
+    public static IngestPolicy of(final BatchIngest ingest)
+    {
+        if (null == ingest)
+        {
+            return DEFAULT;
+        }
+        return new IngestPolicy(ingest.size(), ingest.errors());
+    }
+
+    public IngestPolicy(final int size, final int errors)
+    {
+        m_size = Math.max(1, size);
+
+        m_errors = Math.max(0, errors);
+    }
+
+    /**
+     * Records handed to the service per callback, ingest memory is bounded by this and not by the upload.
+     */
+    public int getBatchSize()
+    {
+        return m_size;
+    }
+
+    /**
+     * Most record errors listed in the summary, all of them are counted.
+     */
+    public int getMaxErrors()
+    {
+        return m_errors;
+    }
+}
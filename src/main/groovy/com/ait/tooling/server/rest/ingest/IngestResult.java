@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.ingest;
+
+import com.ait.tooling.server.core.json.JSONArray;
+import com.ait.tooling.server.core.json.JSONObject;
+
+/**
+ * IngestResult - Running counts of an ingest and the first record errors, by line, returned as its summary.
+ */
+public final class IngestResult
+{
+    private final int       m_maximum;
+
+    private final JSONArray m_errors = new JSONArray();
+
+    private long            m_records;
+
+    private long            m_accepted;
+
+    private long            m_rejected;
+
+    private long            m_batches;
+
+    public IngestResult(final int maximum)
+    {
+        m_maximum = Math.max(0, maximum);
+    }
+
+    public void record()
+    {
+        m_records++;
+    }
+
+    public void accept(final long count)
+    {
+        m_accepted += count;
+    }
+
+    public void batch()
+    {
+        m_batches++;
+    }
+
+    /**
+     * Counts a rejected record, its line and reason are listed until the maximum is reached.
+     */
+    public void reject(final long line, final String reason)
+    {
+        m_rejected++;
+
+        if (m_errors.size() < m_maximum)
+        {
+            m_errors.add(new JSONObject("line", line).set("reason", reason));
+        }
+    }
+
+    public long getRecordCount()
+    {
+        return m_records;
+    }
+
+    public long getAcceptedCount()
+    {
+        return m_accepted;
+    }
+
+    public long getRejectedCount()
+    {
+        return m_rejected;
+    }
+
+    public long getBatchCount()
+    {
+        return m_batches;
+    }
+
+    public JSONObject toJSONObject()
+    {
+        final JSONObject json = new JSONObject("records", m_records).set("accepted", m_accepted).set("rejected", m_rejected).set("batches", m_batches).set("errors", m_errors);
+
+        if (m_rejected > m_errors.size())
+        {
+            json.set("truncated", true);
+        }
+        return json;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * NDJSONRecordReader - Splits newline delimited JSON into one String per record as it is read, without holding more than one record.
+ * <p>
+ * Blank lines and a leading byte order mark are skipped, a trailing carriage return is dropped. Not thread safe.
+ */
+public final class NDJSONRecordReader
+{
+    private static final int  BUFFER_SIZE = 8192;
+
+    private final InputStream m_stream;
+
+    private final int         m_limit;
+
+    private final byte[]      m_buff      = new byte[BUFFER_SIZE];
+
+    private byte[]            m_line      = new byte[256];
+
+    private int               m_posn;
+
+    private int               m_size;
+
+    private long              m_lineno;
+
+    private boolean           m_ended;
+
+    /**
+     * Reads records from stream, a record longer than limit bytes is skipped with {@link RecordTooLargeException}.
+     */
+    public NDJSONRecordReader(final InputStream stream, final int limit)
+    {
+        m_stream = stream;
+
+        m_limit = Math.max(1, limit);
+    }
+
+    /**
+     * Line number of the record last returned or skipped, counting from one.
+     */
+    public long getLine()
+    {
+        return m_lineno;
+    }
+
+    /**
+     * Returns the next record's text, or null at the end of the stream.
+     * <p>
+     * A record over the limit is read past and reported with RecordTooLargeException, so the next call carries on with the
+     * following record.
+     */
+    public String next() throws IOException
+    {
+        while (false == m_ended)
+        {
+            int leng = 0;
+
+            boolean over = false;
+
+            boolean line = false;
+
+            m_lineno++;
+
+            while (false == line)
+            {
+                if (m_posn >= m_size)
+                {
+                    m_size = m_stream.read(m_buff, 0, BUFFER_SIZE);
+
+                    m_posn = 0;
+
+                    if (m_size <= 0)
+                    {
+                        m_size = 0;
+
+                        m_ended = true;
+
+                        break;
+                    }
+                }
+                int stop = m_posn;
+
+                while ((stop < m_size) && (m_buff[stop] != '\n'))
+                {
+                    stop++;
+                }
+                final int part = stop - m_posn;
+
+                if ((false == over) && (part > 0))
+                {
+                    if ((leng + part) > m_limit)
+                    {
+                        over = true;
+                    }
+                    else
+                    {
+                        if ((leng + part) > m_line.length)
+                        {
+                            m_line = Arrays.copyOf(m_line, Math.min(m_limit, Math.max(leng + part, m_line.length * 2)));
+                        }
+                        System.arraycopy(m_buff, m_posn, m_line, leng, part);
+
+                        leng += part;
+                    }
+                }
+                if (stop < m_size)
+                {
+                    line = true;
+
+                    stop++;
+                }
+                m_posn = stop;
+            }
+            if (over)
+            {
+                throw new RecordTooLargeException(m_lineno, m_limit);
+            }
+            int from = 0;
+
+            if ((1L == m_lineno) && (leng >= 3) && (m_line[0] == (byte) 0xEF) && (m_line[1] == (byte) 0xBB) && (m_line[2] == (byte) 0xBF))
+            {
+                from = 3;
+            }
+            while ((leng > from) && ((m_line[leng - 1] & 0xFF) <= ' '))
+            {
+                leng--;
+            }
+            while ((from < leng) && ((m_line[from] & 0xFF) <= ' '))
+            {
+                from++;
+            }
+            if (from < leng)
+            {
+                return new String(m_line, from, leng - from, StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    public static final class RecordTooLargeException extends IOException
+    {
+        private static final long serialVersionUID = 5710218930345762604L;
+
+        private final long        m_line;
+
+        public RecordTooLargeException(final long line, final int limit)
+        {
+            super("record exceeds " + limit + " bytes");
+
+            m_line = line;
+        }
+
+        public long getLine()
+        {
+            return m_line;
+        }
+    }
+}
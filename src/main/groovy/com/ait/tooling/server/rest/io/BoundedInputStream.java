@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * BoundedInputStream - Pass through InputStream that fails once more than a limit of bytes has been read.
+ * <p>
+ * Not thread safe, instances are meant to be reset and reused by a single thread.
+ */
+public final class BoundedInputStream extends InputStream
+{
+    private InputStream m_stream;
+
+    private long        m_limit;
+
+    private long        m_count;
+
+    private boolean     m_exceeded;
+
+    private int         m_pending = -1;
+
+    public BoundedInputStream()
+    {
+    }
+
+    public BoundedInputStream(final InputStream stream, final long limit)
+    {
+        reset(stream, limit);
+    }
+
+    public BoundedInputStream reset(final InputStream stream, final long limit)
+    {
+        m_stream = stream;
+
+        m_limit = limit;
+
+        m_count = 0L;
+
+        m_exceeded = false;
+
+        m_pending = -1;
+
+        return this;
+    }
+
+    public void clear()
+    {
+        m_stream = null;
+
+        m_pending = -1;
+    }
+
+    /**
+     * Reads ahead one byte to find out if the stream has any content, used when no length was sent.
+     */
+    public boolean isEmpty() throws IOException
+    {
+        if (m_pending >= 0)
+        {
+            return false;
+        }
+        final int b = m_stream.read();
+
+        if (b < 0)
+        {
+            return true;
+        }
+        m_count++;
+
+        check();
+
+        m_pending = b;
+
+        return false;
+    }
+
+    public long getCount()
+    {
+        return m_count;
+    }
+
+    public long getLimit()
+    {
+        return m_limit;
+    }
+
+    public boolean isExceeded()
+    {
+        return m_exceeded;
+    }
+
+    private void check() throws IOException
+    {
+        if ((m_limit >= 0) && (m_count > m_limit))
+        {
+            m_exceeded = true;
+
+            throw new BodyTooLargeException(m_limit);
+        }
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (m_pending >= 0)
+        {
+            final int b = m_pending;
+
+            m_pending = -1;
+
+            return b;
+        }
+        final int b = m_stream.read();
+
+        if (b >= 0)
+        {
+            m_count++;
+
+            check();
+        }
+        return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, int len) throws IOException
+    {
+        if ((m_pending >= 0) && (len > 0))
+        {
+            b[off] = (byte) m_pending;
+
+            m_pending = -1;
+
+            return 1;
+        }
+        if ((m_limit >= 0) && (len > 0))
+        {
+            final long left = m_limit - m_count + 1;
+
+            if (left < len)
+            {
+                len = (int) Math.max(1L, left);
+            }
+        }
+        final int n = m_stream.read(b, off, len);
+
+        if (n > 0)
+        {
+            m_count += n;
+
+            check();
+        }
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        if (m_pending >= 0)
+        {
+            return 1 + m_stream.available();
+        }
+        return m_stream.available();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        m_stream.close();
+    }
+
+    public static final class BodyTooLargeException extends IOException
+    {
+        private static final long serialVersionUID = 3318469373946404325L;
+
+        public BodyTooLargeException(final long limit)
+        {
+            super("request body exceeds " + limit + " bytes");
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.io;
+
+import java.util.zip.Deflater;
+
+import com.ait.tooling.server.rest.CompressResponse;
+
+/**
+ * CompressionPolicy - Whether, above what size and at what level a service's responses are compressed, negative values defer to the servlet.
+ * <p>
+ * Servlets compress nothing unless rest.compression.threshold is set. A service that opts in without a threshold of its own
+ * then compresses from {@link #ENABLED_THRESHOLD} bytes.
+ */
+public final class CompressionPolicy
+{
+    public static final int DEFAULT_THRESHOLD = -1;
+
+    public static final int ENABLED_THRESHOLD = 2048;
+
+    public static final int DEFAULT_LEVEL     = 6;
+
+    private final boolean   m_enabled;
+
+    private final int       m_threshold;
+
+    private final int       m_level;
+
+    public static CompressionPolicy of(final CompressResponse compress)
+    {
+        if (null == compress)
+        {
+            return null;
+        }
+        return new CompressionPolicy(compress.enabled(), compress.threshold(), compress.level());
+    }
+
+    public CompressionPolicy(final boolean enabled, final int threshold, final int level)
+    {
+        m_enabled = enabled;
+
+        m_threshold = Math.max(-1, threshold);
+
+        m_level = (level < 0) ? -1 : Math.min(level, Deflater.BEST_COMPRESSION);
+    }
+
+    public boolean isEnabled()
+    {
+        return m_enabled;
+    }
+
+    /**
+     * Smallest response in bytes that is compressed, or -1 to use the servlet's threshold.
+     */
+    public int getThreshold()
+    {
+        return m_threshold;
+    }
+
+    /**
+     * Deflater level from 0 to 9, or -1 to use the servlet's level.
+     */
+    public int getLevel()
+    {
+        return m_level;
+    }
+}
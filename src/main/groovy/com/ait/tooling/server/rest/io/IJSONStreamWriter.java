@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.io;
+
+import java.io.IOException;
+
+import com.ait.tooling.server.core.json.JSONObject;
+
+/**
+ * IJSONStreamWriter - Sink a streaming service writes its result items to, one at a time.
+ * <p>
+ * Writes block while the client is slow to read, which is the backpressure, and fail with IOException once it has gone away.
+ */
+public interface IJSONStreamWriter
+{
+    public JSONStreamFormat getFormat();
+
+    public void write(JSONObject item) throws IOException;
+
+    /**
+     * Writes a named Server-Sent Event, in the other formats the name is dropped and data is written as an item.
+     */
+    public void event(String name, JSONObject data) throws IOException;
+
+    public void flush() throws IOException;
+
+    public long getCount();
+
+    public boolean isClosed();
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.io;
+
+import com.ait.tooling.server.core.json.JSONArray;
+import com.ait.tooling.server.core.json.JSONObject;
+
+/**
+ * JSONArrayStreamWriter - Collects streamed items into a JSONArray, for callers that need a whole result such as batch commands.
+ */
+public class JSONArrayStreamWriter implements IJSONStreamWriter
+{
+    private final JSONArray m_items = new JSONArray();
+
+    public JSONArrayStreamWriter()
+    {
+    }
+
+    @Override
+    public JSONStreamFormat getFormat()
+    {
+        return JSONStreamFormat.ARRAY;
+    }
+
+    @Override
+    public void write(final JSONObject item)
+    {
+        m_items.add(item);
+    }
+
+    @Override
+    public void event(final String name, final JSONObject data)
+    {
+        m_items.add(data);
+    }
+
+    @Override
+    public void flush()
+    {
+    }
+
+    @Override
+    public long getCount()
+    {
+        return m_items.size();
+    }
+
+    @Override
+    public boolean isClosed()
+    {
+        return false;
+    }
+
+    public JSONArray getItems()
+    {
+        return m_items;
+    }
+}
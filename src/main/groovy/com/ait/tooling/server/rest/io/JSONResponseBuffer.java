@@ -0,0 +1,506 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * JSONResponseBuffer - Unsynchronized Writer that encodes straight to UTF-8 into a growable byte array.
+ * <p>
+ * Instances are pooled per thread, see {@link #acquire()} and {@link #release()}. When opened on a response,
+ * output below the stream threshold is held until {@link #finish()}, which sets an exact Content-Length and
+ * writes it in one call; past the threshold the buffer is written to the response in fixed size chunks.
+ * When compression is requested, see {@link #compress(String, int, int)}, output of at least the minimum size is
+ * encoded with a pooled {@link ResponseDeflater}.
+ */
+public final class JSONResponseBuffer extends Writer
+{
+    public static final int                              INITIAL_CAPACITY  = 8 * 1024;
+
+    public static final int                              MAXIMUM_RETAINED  = 256 * 1024;
+
+    public static final int                              DEFAULT_THRESHOLD = 64 * 1024;
+
+    public static final String                           CONTENT_ENCODING  = "Content-Encoding";
+
+    private static final ThreadLocal<JSONResponseBuffer> POOL              = ThreadLocal.withInitial(JSONResponseBuffer::new);
+
+    private static final ThreadLocal<long[]>             SENT              = ThreadLocal.withInitial(() -> new long[1]);
+
+    private byte[]                                       m_bytes           = new byte[INITIAL_CAPACITY];
+
+    private int                                          m_count           = 0;
+
+    private int                                          m_surrogate       = 0;
+
+    private int                                          m_threshold       = Integer.MAX_VALUE;
+
+    private long                                         m_written         = 0L;
+
+    private boolean                                      m_in_use          = false;
+
+    private HttpServletResponse                          m_response        = null;
+
+    private OutputStream                                 m_stream          = null;
+
+    private String                                       m_encoding        = null;
+
+    private int                                          m_minimum         = Integer.MAX_VALUE;
+
+    private int                                          m_level           = CompressionPolicy.DEFAULT_LEVEL;
+
+    private ResponseDeflater                             m_deflater        = null;
+
+    private OutputStream                                 m_output          = null;
+
+    public static JSONResponseBuffer acquire()
+    {
+        final JSONResponseBuffer buff = POOL.get();
+
+        if (buff.m_in_use)
+        {
+            final JSONResponseBuffer make = new JSONResponseBuffer();
+
+            make.m_in_use = true;
+
+            return make;
+        }
+        buff.m_in_use = true;
+
+        return buff;
+    }
+
+    /**
+     * Returns the body bytes sent to responses by this thread since the last call, before any compression, and resets the count.
+     */
+    public static long takeSentBytes()
+    {
+        final long[] sent = SENT.get();
+
+        final long size = sent[0];
+
+        sent[0] = 0L;
+
+        return size;
+    }
+
+    public static void addSentBytes(final long size)
+    {
+        SENT.get()[0] += size;
+    }
+
+    public JSONResponseBuffer()
+    {
+    }
+
+    /**
+     * Opens this buffer on a response whose status and headers are already set, output larger than threshold is streamed.
+     */
+    public JSONResponseBuffer open(final HttpServletResponse response, final int threshold)
+    {
+        reset();
+
+        m_response = response;
+
+        m_threshold = Math.max(INITIAL_CAPACITY, threshold);
+
+        return this;
+    }
+
+    /**
+     * Requests encoding of output of at least minimum bytes, encoding is gzip, deflate or null for none.
+     */
+    public JSONResponseBuffer compress(final String encoding, final int minimum, final int level)
+    {
+        m_encoding = encoding;
+
+        m_minimum = Math.max(0, minimum);
+
+        m_level = level;
+
+        return this;
+    }
+
+    public void reset()
+    {
+        if (null != m_deflater)
+        {
+            m_deflater.release();
+
+            m_deflater = null;
+        }
+        m_encoding = null;
+
+        m_minimum = Integer.MAX_VALUE;
+
+        m_count = 0;
+
+        m_surrogate = 0;
+
+        m_written = 0L;
+
+        m_threshold = Integer.MAX_VALUE;
+
+        m_response = null;
+
+        m_stream = null;
+    }
+
+    public void release()
+    {
+        reset();
+
+        if (m_bytes.length > MAXIMUM_RETAINED)
+        {
+            m_bytes = new byte[INITIAL_CAPACITY];
+        }
+        m_in_use = false;
+    }
+
+    public boolean isStreaming()
+    {
+        return (null != m_stream);
+    }
+
+    public int size()
+    {
+        return m_count;
+    }
+
+    public byte[] getBuffer()
+    {
+        return m_bytes;
+    }
+
+    public byte[] toByteArray()
+    {
+        return Arrays.copyOf(m_bytes, m_count);
+    }
+
+    public long getTotalBytes()
+    {
+        return m_written + m_count;
+    }
+
+    /**
+     * Completes the response, either with an exact Content-Length and a single write, or by flushing the last chunk.
+     */
+    public void finish() throws IOException
+    {
+        if (null == m_stream)
+        {
+            if (null != m_response)
+            {
+                addSentBytes(m_count);
+
+                if ((null != m_encoding) && (m_count >= m_minimum))
+                {
+                    final ResponseDeflater deflater = ResponseDeflater.acquire(m_encoding, m_level);
+
+                    try
+                    {
+                        deflater.open(null).write(m_bytes, 0, m_count);
+
+                        deflater.finish();
+
+                        m_response.setHeader(CONTENT_ENCODING, m_encoding);
+
+                        m_response.setContentLength(deflater.size());
+
+                        m_response.getOutputStream().write(deflater.getBuffer(), 0, deflater.size());
+                    }
+                    finally
+                    {
+                        deflater.release();
+                    }
+                    return;
+                }
+                m_response.setContentLength(m_count);
+
+                if (m_count > 0)
+                {
+                    m_response.getOutputStream().write(m_bytes, 0, m_count);
+                }
+            }
+        }
+        else
+        {
+            drain();
+
+            if (null != m_deflater)
+            {
+                m_deflater.finish();
+            }
+            m_response.getOutputStream().flush();
+        }
+    }
+
+    /**
+     * Sends what is buffered so far to the client, after which the response streams and has no Content-Length.
+     */
+    public void push() throws IOException
+    {
+        if (null != m_response)
+        {
+            drain();
+
+            m_response.getOutputStream().flush();
+        }
+    }
+
+    public void writeTo(final OutputStream stream) throws IOException
+    {
+        stream.write(m_bytes, 0, m_count);
+    }
+
+    /**
+     * Returns an OutputStream view of this buffer for binary encoders, bytes are written as is.
+     */
+    public OutputStream getOutputStream()
+    {
+        if (null == m_output)
+        {
+            m_output = new OutputStream()
+            {
+                @Override
+                public void write(final int b) throws IOException
+                {
+                    ensure(1);
+
+                    put(b);
+                }
+
+                @Override
+                public void write(final byte[] bytes, final int off, final int len) throws IOException
+                {
+                    writeBytes(bytes, off, len);
+                }
+            };
+        }
+        return m_output;
+    }
+
+    public void writeBytes(final byte[] bytes, final int off, final int len) throws IOException
+    {
+        ensure(len);
+
+        System.arraycopy(bytes, off, m_bytes, m_count, len);
+
+        m_count += len;
+    }
+
+    private void drain() throws IOException
+    {
+        if (null == m_stream)
+        {
+            if ((null != m_encoding) && (m_minimum <= m_threshold))
+            {
+                m_response.setHeader(CONTENT_ENCODING, m_encoding);
+
+                m_deflater = ResponseDeflater.acquire(m_encoding, m_level).open(m_response.getOutputStream());
+
+                m_stream = m_deflater;
+            }
+            else
+            {
+                m_stream = m_response.getOutputStream();
+            }
+        }
+        if (m_count > 0)
+        {
+            m_stream.write(m_bytes, 0, m_count);
+
+            m_written += m_count;
+
+            addSentBytes(m_count);
+
+            m_count = 0;
+        }
+    }
+
+    private void ensure(final int more) throws IOException
+    {
+        if ((null != m_response) && (m_count > 0) && ((m_count + more) > m_threshold))
+        {
+            drain();
+        }
+        if ((m_count + more) > m_bytes.length)
+        {
+            m_bytes = Arrays.copyOf(m_bytes, Math.max(m_bytes.length << 1, m_count + more));
+        }
+    }
+
+    private void put(final int b)
+    {
+        m_bytes[m_count++] = (byte) b;
+    }
+
+    @Override
+    public void write(final int c) throws IOException
+    {
+        ensure(4);
+
+        encode((char) c);
+    }
+
+    @Override
+    public void write(final char[] cbuf, int off, int len) throws IOException
+    {
+        while (len > 0)
+        {
+            final int part = Math.min(len, 1024);
+
+            ensure(part * 3 + 1);
+
+            for (int i = 0; i < part; i++)
+            {
+                final char c = cbuf[off + i];
+
+                if ((c < 0x80) && (0 == m_surrogate))
+                {
+                    m_bytes[m_count++] = (byte) c;
+                }
+                else
+                {
+                    encode(c);
+                }
+            }
+            off += part;
+
+            len -= part;
+        }
+    }
+
+    @Override
+    public void write(final String str, int off, int len) throws IOException
+    {
+        while (len > 0)
+        {
+            final int part = Math.min(len, 1024);
+
+            ensure(part * 3 + 1);
+
+            for (int i = 0; i < part; i++)
+            {
+                final char c = str.charAt(off + i);
+
+                if ((c < 0x80) && (0 == m_surrogate))
+                {
+                    m_bytes[m_count++] = (byte) c;
+                }
+                else
+                {
+                    encode(c);
+                }
+            }
+            off += part;
+
+            len -= part;
+        }
+    }
+
+    @Override
+    public void write(final String str) throws IOException
+    {
+        write(str, 0, str.length());
+    }
+
+    @Override
+    public Writer append(final CharSequence csq) throws IOException
+    {
+        final String str = String.valueOf(csq);
+
+        write(str, 0, str.length());
+
+        return this;
+    }
+
+    @Override
+    public Writer append(final char c) throws IOException
+    {
+        write(c);
+
+        return this;
+    }
+
+    private void encode(final char c)
+    {
+        if (0 != m_surrogate)
+        {
+            final int high = m_surrogate;
+
+            m_surrogate = 0;
+
+            if (Character.isLowSurrogate(c))
+            {
+                final int code = Character.toCodePoint((char) high, c);
+
+                put(0xF0 | (code >> 18));
+
+                put(0x80 | ((code >> 12) & 0x3F));
+
+                put(0x80 | ((code >> 6) & 0x3F));
+
+                put(0x80 | (code & 0x3F));
+
+                return;
+            }
+            put('?');
+        }
+        if (c < 0x80)
+        {
+            put(c);
+        }
+        else if (c < 0x800)
+        {
+            put(0xC0 | (c >> 6));
+
+            put(0x80 | (c & 0x3F));
+        }
+        else if (Character.isHighSurrogate(c))
+        {
+            m_surrogate = c;
+        }
+        else if (Character.isLowSurrogate(c))
+        {
+            put('?');
+        }
+        else
+        {
+            put(0xE0 | (c >> 12));
+
+            put(0x80 | ((c >> 6) & 0x3F));
+
+            put(0x80 | (c & 0x3F));
+        }
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.io;
+
+/**
+ * JSONStreamFormat - How a streamed result is framed, one JSON array, newline delimited JSON, or Server-Sent Events.
+ */
+public enum JSONStreamFormat
+{
+    ARRAY("application/json"), NDJSON("application/x-ndjson"), SSE("text/event-stream");
+
+    private final String m_type;
+
+    private JSONStreamFormat(final String type)
+    {
+        m_type = type;
+    }
+
+    public String getContentType()
+    {
+        return m_type;
+    }
+
+    /**
+     * Picks the format from an Accept header, Server-Sent Events or NDJSON when listed, else a JSON array.
+     */
+    public static JSONStreamFormat of(final String accept)
+    {
+        if (null != accept)
+        {
+            if (accept.contains(SSE.m_type))
+            {
+                return SSE;
+            }
+            if (isNDJSON(accept))
+            {
+                return NDJSON;
+            }
+        }
+        return ARRAY;
+    }
+
+    /**
+     * True if a Content-Type or Accept header names newline delimited JSON, under any of its common media types.
+     */
+    public static boolean isNDJSON(final String type)
+    {
+        if (null == type)
+        {
+            return false;
+        }
+        return ((type.contains(NDJSON.m_type)) || (type.contains("application/ndjson")) || (type.contains("application/jsonl")) || (type.contains("application/x-jsonlines")));
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.io;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.ait.tooling.server.core.json.JSONObject;
+
+/**
+ * JSONStreamWriter - Writes streamed items straight through a {@link JSONResponseBuffer} opened in streaming mode.
+ * <p>
+ * At most one chunk of output is held, the buffer is pushed to the client when the chunk fills, and at least every flush interval,
+ * so memory stays flat whatever the number of items.
+ */
+public class JSONStreamWriter implements IJSONStreamWriter
+{
+    private static final String      RESULT_PREFIX = "{\"result\":";
+
+    private final JSONResponseBuffer m_buff;
+
+    private final JSONStreamFormat   m_format;
+
+    private final boolean            m_strict;
+
+    private final boolean            m_wrap;
+
+    private final long               m_interval;
+
+    private long                     m_flushed;
+
+    private long                     m_count       = 0L;
+
+    private boolean                  m_started     = false;
+
+    private boolean                  m_closed      = false;
+
+    /**
+     * Writes to buff, when wrap is true an ARRAY is written inside a {"result":[...]} envelope.
+     */
+    public JSONStreamWriter(final JSONResponseBuffer buff, final JSONStreamFormat format, final boolean strict, final boolean wrap, final long interval)
+    {
+        m_buff = buff;
+
+        m_format = format;
+
+        m_strict = strict;
+
+        m_wrap = wrap && (JSONStreamFormat.ARRAY == format);
+
+        m_interval = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, interval));
+
+        m_flushed = System.nanoTime();
+    }
+
+    @Override
+    public JSONStreamFormat getFormat()
+    {
+        return m_format;
+    }
+
+    /**
+     * Writes the opening of the stream, called before the first item, or by {@link #close()} for an empty stream.
+     */
+    protected void start() throws IOException
+    {
+        if (false == m_started)
+        {
+            m_started = true;
+
+            if (JSONStreamFormat.ARRAY == m_format)
+            {
+                if (m_wrap)
+                {
+                    m_buff.write(RESULT_PREFIX);
+                }
+                m_buff.write('[');
+            }
+        }
+    }
+
+    @Override
+    public void write(final JSONObject item) throws IOException
+    {
+        event(null, item);
+    }
+
+    @Override
+    public void event(final String name, final JSONObject data) throws IOException
+    {
+        if (m_closed)
+        {
+            throw new IOException("stream closed");
+        }
+        start();
+
+        try
+        {
+            switch (m_format)
+            {
+                case ARRAY:
+                    if (m_count > 0L)
+                    {
+                        m_buff.write(',');
+                    }
+                    writeItem(data);
+                    break;
+                case NDJSON:
+                    writeItem(data);
+
+                    m_buff.write('\n');
+                    break;
+                case SSE:
+                    if (null != name)
+                    {
+                        m_buff.write("event: ");
+
+                        m_buff.write(name.replace('\n', ' ').replace('\r', ' '));
+
+                        m_buff.write('\n');
+                    }
+                    m_buff.write("data: ");
+
+                    writeItem(data);
+
+                    m_buff.write("\n\n");
+                    break;
+            }
+            m_count++;
+
+            if ((m_interval > 0L) && ((System.nanoTime() - m_flushed) >= m_interval))
+            {
+                flush();
+            }
+        }
+        catch (IOException e)
+        {
+            m_closed = true;
+
+            throw e;
+        }
+    }
+
+    private void writeItem(final JSONObject item) throws IOException
+    {
+        if (null == item)
+        {
+            m_buff.write("null");
+        }
+        else
+        {
+            item.writeJSONString(m_buff, m_strict);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        try
+        {
+            m_buff.push();
+        }
+        catch (IOException e)
+        {
+            m_closed = true;
+
+            throw e;
+        }
+        m_flushed = System.nanoTime();
+    }
+
+    /**
+     * Ends the stream, on failure error is written as a last NDJSON line or an "error" event, a JSON array can only be ended.
+     */
+    public void close(final JSONObject error) throws IOException
+    {
+        if (m_closed)
+        {
+            return;
+        }
+        start();
+
+        if (null != error)
+        {
+            if (JSONStreamFormat.SSE == m_format)
+            {
+                event("error", error);
+            }
+            else if (JSONStreamFormat.NDJSON == m_format)
+            {
+                write(error);
+            }
+        }
+        if (JSONStreamFormat.ARRAY == m_format)
+        {
+            m_buff.write(m_wrap ? "]}" : "]");
+        }
+        m_closed = true;
+    }
+
+    public void close() throws IOException
+    {
+        close(null);
+    }
+
+    @Override
+    public long getCount()
+    {
+        return m_count;
+    }
+
+    @Override
+    public boolean isClosed()
+    {
+        return m_closed;
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * ResponseDeflater - OutputStream that gzip or deflate encodes into a target stream, or into its own growable byte array.
+ * <p>
+ * Instances and their native Deflater are pooled per thread and encoding, see {@link #acquire(String, int)} and {@link #release()},
+ * so no native zlib state is allocated per response.
+ */
+public final class ResponseDeflater extends OutputStream
+{
+    public static final String                         GZIP         = "gzip";
+
+    public static final String                         DEFLATE      = "deflate";
+
+    private static final int                           CHUNK_SIZE   = 8 * 1024;
+
+    private static final byte[]                        GZIP_HEADER  = { (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    private static final ThreadLocal<ResponseDeflater> GZIP_POOL    = ThreadLocal.withInitial(() -> new ResponseDeflater(true));
+
+    private static final ThreadLocal<ResponseDeflater> DEFLATE_POOL = ThreadLocal.withInitial(() -> new ResponseDeflater(false));
+
+    private final boolean                              m_gzip;
+
+    private final Deflater                             m_deflater;
+
+    private final CRC32                                m_crc32;
+
+    private final byte[]                               m_chunk      = new byte[CHUNK_SIZE];
+
+    private final byte[]                               m_single     = new byte[1];
+
+    private byte[]                                     m_bytes      = new byte[CHUNK_SIZE];
+
+    private int                                        m_count      = 0;
+
+    private long                                       m_input      = 0L;
+
+    private boolean                                    m_in_use     = false;
+
+    private OutputStream                               m_target     = null;
+
+    /**
+     * Returns a deflater for gzip or deflate, anything else is an error, level is a Deflater level.
+     */
+    public static ResponseDeflater acquire(final String encoding, final int level)
+    {
+        final boolean gzip = GZIP.equals(encoding);
+
+        if ((false == gzip) && (false == DEFLATE.equals(encoding)))
+        {
+            throw new IllegalArgumentException("unsupported encoding " + encoding);
+        }
+        ResponseDeflater deflater = (gzip ? GZIP_POOL : DEFLATE_POOL).get();
+
+        if (deflater.m_in_use)
+        {
+            deflater = new ResponseDeflater(gzip);
+        }
+        deflater.m_in_use = true;
+
+        deflater.m_deflater.setLevel(level);
+
+        return deflater;
+    }
+
+    private ResponseDeflater(final boolean gzip)
+    {
+        m_gzip = gzip;
+
+        m_deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, gzip);
+
+        m_crc32 = gzip ? new CRC32() : null;
+    }
+
+    public String getEncoding()
+    {
+        return m_gzip ? GZIP : DEFLATE;
+    }
+
+    /**
+     * Starts a new encoding into target, or into this deflater's own buffer when target is null.
+     */
+    public ResponseDeflater open(final OutputStream target) throws IOException
+    {
+        m_target = target;
+
+        m_count = 0;
+
+        m_input = 0L;
+
+        if (m_gzip)
+        {
+            m_crc32.reset();
+
+            emit(GZIP_HEADER, 0, GZIP_HEADER.length);
+        }
+        return this;
+    }
+
+    @Override
+    public void write(final int b) throws IOException
+    {
+        m_single[0] = (byte) b;
+
+        write(m_single, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int off, final int len) throws IOException
+    {
+        if (len <= 0)
+        {
+            return;
+        }
+        if (m_gzip)
+        {
+            m_crc32.update(bytes, off, len);
+        }
+        m_input += len;
+
+        m_deflater.setInput(bytes, off, len);
+
+        while (false == m_deflater.needsInput())
+        {
+            pump();
+        }
+    }
+
+    /**
+     * Completes the encoding, writing the gzip trailer, the target stream is not flushed or closed.
+     */
+    public void finish() throws IOException
+    {
+        m_deflater.finish();
+
+        while (false == m_deflater.finished())
+        {
+            pump();
+        }
+        if (m_gzip)
+        {
+            final long crc = m_crc32.getValue();
+
+            final byte[] tail = m_chunk;
+
+            tail[0] = (byte) crc;
+
+            tail[1] = (byte) (crc >> 8);
+
+            tail[2] = (byte) (crc >> 16);
+
+            tail[3] = (byte) (crc >> 24);
+
+            tail[4] = (byte) m_input;
+
+            tail[5] = (byte) (m_input >> 8);
+
+            tail[6] = (byte) (m_input >> 16);
+
+            tail[7] = (byte) (m_input >> 24);
+
+            emit(tail, 0, 8);
+        }
+    }
+
+    private void pump() throws IOException
+    {
+        final int size = m_deflater.deflate(m_chunk, 0, m_chunk.length, Deflater.NO_FLUSH);
+
+        if (size > 0)
+        {
+            emit(m_chunk, 0, size);
+        }
+    }
+
+    private void emit(final byte[] bytes, final int off, final int len) throws IOException
+    {
+        if (null != m_target)
+        {
+            m_target.write(bytes, off, len);
+        }
+        else
+        {
+            if ((m_count + len) > m_bytes.length)
+            {
+                m_bytes = Arrays.copyOf(m_bytes, Math.max(m_bytes.length << 1, m_count + len));
+            }
+            System.arraycopy(bytes, off, m_bytes, m_count, len);
+
+            m_count += len;
+        }
+    }
+
+    /**
+     * Size of the encoded output held in this deflater's own buffer.
+     */
+    public int size()
+    {
+        return m_count;
+    }
+
+    public byte[] getBuffer()
+    {
+        return m_bytes;
+    }
+
+    public byte[] toByteArray()
+    {
+        return Arrays.copyOf(m_bytes, m_count);
+    }
+
+    public void release()
+    {
+        m_deflater.reset();
+
+        m_target = null;
+
+        m_count = 0;
+
+        m_input = 0L;
+
+        if (m_bytes.length > JSONResponseBuffer.MAXIMUM_RETAINED)
+        {
+            m_bytes = new byte[CHUNK_SIZE];
+        }
+        m_in_use = false;
+    }
+
+    /**
+     * Picks gzip or deflate from an Accept-Encoding header, by q value with gzip preferred on ties, or null if neither is acceptable.
+     */
+    public static String getAcceptedEncoding(final String accept)
+    {
+        if ((null == accept) || (accept.isEmpty()))
+        {
+            return null;
+        }
+        double gzip = -1;
+
+        double deflate = -1;
+
+        double star = -1;
+
+        int from = 0;
+
+        final int size = accept.length();
+
+        while (from < size)
+        {
+            int next = accept.indexOf(',', from);
+
+            if (next < 0)
+            {
+                next = size;
+            }
+            final int semi = accept.indexOf(';', from);
+
+            final int stop = ((semi >= 0) && (semi < next)) ? semi : next;
+
+            final String name = accept.substring(from, stop).trim();
+
+            final double qval = (stop < next) ? getQValue(accept.substring(stop + 1, next)) : 1.0;
+
+            if (GZIP.equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name))
+            {
+                gzip = Math.max(gzip, qval);
+            }
+            else if (DEFLATE.equalsIgnoreCase(name))
+            {
+                deflate = Math.max(deflate, qval);
+            }
+            else if ("*".equals(name))
+            {
+                star = qval;
+            }
+            from = next + 1;
+        }
+        if (gzip < 0)
+        {
+            gzip = star;
+        }
+        if (deflate < 0)
+        {
+            deflate = star;
+        }
+        if ((gzip > 0) && (gzip >= deflate))
+        {
+            return GZIP;
+        }
+        if (deflate > 0)
+        {
+            return DEFLATE;
+        }
+        return null;
+    }
+
+    private static double getQValue(final String params)
+    {
+        final int indx = params.indexOf("q=");
+
+        if (indx >= 0)
+        {
+            int stop = params.indexOf(';', indx);
+
+            if (stop < 0)
+            {
+                stop = params.length();
+            }
+            try
+            {
+                return Double.parseDouble(params.substring(indx + 2, stop).trim());
+            }
+            catch (NumberFormatException e)
+            {
+                return 0.0;
+            }
+        }
+        return 1.0;
+    }
+}
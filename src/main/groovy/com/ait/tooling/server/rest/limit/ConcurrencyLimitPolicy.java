@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.limit;
+
+import com.ait.tooling.server.rest.ConcurrencyLimit;
+
+/**
+ * ConcurrencyLimitPolicy - Starting, smallest and largest limit, queue size and longest wait of a service's concurrency limiter.
+ */
+public final class ConcurrencyLimitPolicy
+{
+    private final int  m_initial;
+
+    private final int  m_minimum;
+
+    private final int  m_maximum;
+
+    private final int  m_queue;
+
+    private final long m_wait;
+
+    public static ConcurrencyLimitPolicy of(final ConcurrencyLimit limit)
+    {
+        if (null == limit)
+        {
+            return null;
+        }
+        return new ConcurrencyLimitPolicy(limit.initial(), limit.minimum(), limit.maximum(), limit.queue(), limit.timeout());
+    }
+
+    public ConcurrencyLimitPolicy(final int initial, final int minimum, final int maximum, final int queue, final long wait)
+    {
+        m_initial = initial;
+
+        m_minimum = minimum;
+
+        m_maximum = maximum;
+
+        m_queue = queue;
+
+        m_wait = wait;
+    }
+
+    public int getInitialLimit()
+    {
+        return m_initial;
+    }
+
+    public int getMinimumLimit()
+    {
+        return m_minimum;
+    }
+
+    public int getMaximumLimit()
+    {
+        return m_maximum;
+    }
+
+    public int getQueueSize()
+    {
+        return m_queue;
+    }
+
+    /**
+     * Longest wait in the queue, in milliseconds.
+     */
+    public long getMaximumWait()
+    {
+        return m_wait;
+    }
+}
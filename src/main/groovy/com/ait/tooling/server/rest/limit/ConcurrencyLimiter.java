@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * ConcurrencyLimiter - Adaptive limit on concurrent executions of one service, with a bounded wait queue.
+ * <p>
+ * The limit follows TCP Vegas: the shortest latency seen approximates the service without queueing, and
+ * limit * (1 - shortest / latest) estimates how many calls are queued inside the service. The limit grows while that
+ * estimate is small, and shrinks when it is large or when a call fails. Callers past the limit wait in a bounded queue
+ * for a short time, beyond that they are shed at once.
+ */
+public class ConcurrencyLimiter
+{
+    private static final int    PROBE_INTERVAL = 1000;
+
+    private final String        m_name;
+
+    private final int           m_minimum;
+
+    private final int           m_maximum;
+
+    private final int           m_queue;
+
+    private final long          m_wait;
+
+    private volatile double     m_limit;
+
+    private volatile long       m_shortest     = Long.MAX_VALUE;
+
+    private volatile long       m_smoothed     = 0L;
+
+    private int                 m_samples      = 0;
+
+    private final AtomicInteger m_inflight     = new AtomicInteger();
+
+    private final AtomicInteger m_waiting      = new AtomicInteger();
+
+    private final LongAdder     m_shed         = new LongAdder();
+
+    private final ReentrantLock m_update       = new ReentrantLock();
+
+    private final ReentrantLock m_lock         = new ReentrantLock();
+
+    private final Condition     m_available    = m_lock.newCondition();
+
+    public ConcurrencyLimiter(final String name, final ConcurrencyLimitPolicy policy)
+    {
+        this(name, policy.getInitialLimit(), policy.getMinimumLimit(), policy.getMaximumLimit(), policy.getQueueSize(), policy.getMaximumWait());
+    }
+
+    public ConcurrencyLimiter(final String name, final int initial, final int minimum, final int maximum, final int queue, final long wait)
+    {
+        m_name = name;
+
+        m_minimum = Math.max(1, minimum);
+
+        m_maximum = Math.max(m_minimum, maximum);
+
+        m_queue = Math.max(0, queue);
+
+        m_wait = Math.max(0L, wait);
+
+        m_limit = Math.min(m_maximum, Math.max(m_minimum, initial));
+    }
+
+    public String getName()
+    {
+        return m_name;
+    }
+
+    public int getLimit()
+    {
+        return (int) m_limit;
+    }
+
+    public int getInFlight()
+    {
+        return m_inflight.get();
+    }
+
+    public int getQueueDepth()
+    {
+        return m_waiting.get();
+    }
+
+    public long getShedCount()
+    {
+        return m_shed.sum();
+    }
+
+    /**
+     * Returns true when the caller may execute, and must then call {@link #release(long, boolean)}, false when it is shed.
+     */
+    public boolean acquire()
+    {
+        if (tryAcquire())
+        {
+            return true;
+        }
+        if (m_wait < 1L)
+        {
+            m_shed.increment();
+
+            return false;
+        }
+        if (m_waiting.incrementAndGet() > m_queue)
+        {
+            m_waiting.decrementAndGet();
+
+            m_shed.increment();
+
+            return false;
+        }
+        try
+        {
+            m_lock.lock();
+
+            try
+            {
+                long nanos = TimeUnit.MILLISECONDS.toNanos(m_wait);
+
+                while (false == tryAcquire())
+                {
+                    if (nanos <= 0L)
+                    {
+                        m_shed.increment();
+
+                        return false;
+                    }
+                    nanos = m_available.awaitNanos(nanos);
+                }
+                return true;
+            }
+            finally
+            {
+                m_lock.unlock();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+
+            m_shed.increment();
+
+            return false;
+        }
+        finally
+        {
+            m_waiting.decrementAndGet();
+        }
+    }
+
+    private boolean tryAcquire()
+    {
+        for (;;)
+        {
+            final int have = m_inflight.get();
+
+            if (have >= getLimit())
+            {
+                return false;
+            }
+            if (m_inflight.compareAndSet(have, have + 1))
+            {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Ends an execution that took nanos, dropped is true when it failed or timed out, which shrinks the limit.
+     */
+    public void release(final long nanos, final boolean dropped)
+    {
+        final int inflight = m_inflight.getAndDecrement();
+
+        if (m_update.tryLock())
+        {
+            try
+            {
+                update(Math.max(1L, nanos), dropped, inflight);
+            }
+            finally
+            {
+                m_update.unlock();
+            }
+        }
+        if (m_waiting.get() > 0)
+        {
+            m_lock.lock();
+
+            try
+            {
+                m_available.signal();
+            }
+            finally
+            {
+                m_lock.unlock();
+            }
+        }
+    }
+
+    private void update(final long nanos, final boolean dropped, final int inflight)
+    {
+        m_smoothed = (0L == m_smoothed) ? nanos : (m_smoothed - (m_smoothed >> 3) + (nanos >> 3));
+
+        if (++m_samples >= PROBE_INTERVAL)
+        {
+            m_samples = 0;
+
+            m_shortest = nanos;
+        }
+        else if (nanos < m_shortest)
+        {
+            m_shortest = nanos;
+        }
+        final double limit = m_limit;
+
+        final double step = Math.max(1.0, Math.log10(limit));
+
+        double next = limit;
+
+        if (dropped)
+        {
+            next = limit - step;
+        }
+        else
+        {
+            final double queued = limit * (1.0 - ((double) m_shortest / nanos));
+
+            if (queued >= (6.0 * step))
+            {
+                next = limit - step;
+            }
+            else if ((queued <= (3.0 * step)) && ((inflight * 2) >= limit))
+            {
+                next = limit + step;
+            }
+        }
+        m_limit = Math.min(m_maximum, Math.max(m_minimum, next));
+    }
+
+    /**
+     * Seconds a shed caller should wait, the time for the current queue to drain at the current limit, at least one.
+     */
+    public long getRetryAfterSeconds()
+    {
+        final double drain = ((double) m_smoothed) * (m_waiting.get() + 1) / Math.max(1, getLimit());
+
+        return Math.max(1L, (long) Math.ceil(drain / 1000000000.0));
+    }
+
+    @Override
+    public String toString()
+    {
+        return m_name + " limit " + getLimit() + " inflight " + getInFlight() + " queued " + getQueueDepth() + " shed " + getShedCount() + " latency " + (m_smoothed / 1000L) + "us";
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.limit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.ait.tooling.common.api.java.util.StringOps;
+import com.ait.tooling.server.rest.ConcurrencyLimit;
+import com.ait.tooling.server.rest.IRESTService;
+
+/**
+ * ConcurrencyLimiterManager - One {@link ConcurrencyLimiter} per IRESTService, a bulkhead so a degraded service cannot hold every container thread.
+ * <p>
+ * Only services with a {@link IRESTService#getConcurrencyLimit()} policy, normally from {@link ConcurrencyLimit}, are
+ * limited. With LimitAllServices the others are limited too, with the defaults configured here.
+ */
+@ManagedResource
+public class ConcurrencyLimiterManager
+{
+    private static final Logger                             logger     = Logger.getLogger(ConcurrencyLimiterManager.class);
+
+    private final ConcurrentHashMap<String, ServiceLimiter> m_limiters = new ConcurrentHashMap<String, ServiceLimiter>();
+
+    private volatile boolean                                m_enabled  = true;
+
+    private volatile boolean                                m_all      = false;
+
+    private int                                             m_initial  = 20;
+
+    private int                                             m_minimum  = 1;
+
+    private int                                             m_maximum  = 500;
+
+    private int                                             m_queue    = 50;
+
+    private long                                            m_wait     = 100L;
+
+    public ConcurrencyLimiterManager()
+    {
+    }
+
+    @ManagedAttribute(description = "Set concurrency limiting enabled.")
+    public void setEnabled(final boolean enabled)
+    {
+        m_enabled = enabled;
+    }
+
+    @ManagedAttribute(description = "Get concurrency limiting enabled.")
+    public boolean isEnabled()
+    {
+        return m_enabled;
+    }
+
+    @ManagedAttribute(description = "Set limiting of services without a concurrency limit policy, with the default limits.")
+    public void setLimitAllServices(final boolean all)
+    {
+        m_all = all;
+    }
+
+    @ManagedAttribute(description = "Get limiting of services without a concurrency limit policy, with the default limits.")
+    public boolean isLimitAllServices()
+    {
+        return m_all;
+    }
+
+    public void setInitialLimit(final int initial)
+    {
+        m_initial = initial;
+    }
+
+    public void setMinimumLimit(final int minimum)
+    {
+        m_minimum = minimum;
+    }
+
+    public void setMaximumLimit(final int maximum)
+    {
+        m_maximum = maximum;
+    }
+
+    public void setQueueSize(final int queue)
+    {
+        m_queue = queue;
+    }
+
+    public void setMaximumWait(final long wait)
+    {
+        m_wait = wait;
+    }
+
+    /**
+     * Returns the limiter for a service, or null when limiting is disabled or the service is not limited.
+     */
+    public ConcurrencyLimiter getLimiter(final IRESTService service)
+    {
+        if ((false == isEnabled()) || ((null == service.getConcurrencyLimit()) && (false == isLimitAllServices())))
+        {
+            return null;
+        }
+        final String name = service.getName();
+
+        ServiceLimiter limiter = m_limiters.get(name);
+
+        if ((null == limiter) || (limiter.m_service != service))
+        {
+            final ServiceLimiter make = new ServiceLimiter(service, makeLimiter(service));
+
+            if (null == limiter)
+            {
+                limiter = m_limiters.putIfAbsent(name, make);
+
+                if (null == limiter)
+                {
+                    limiter = make;
+
+                    logger.info("ConcurrencyLimiterManager.getLimiter(" + limiter.m_limiter + ")");
+                }
+            }
+            else if (m_limiters.replace(name, limiter, make))
+            {
+                limiter = make;
+            }
+            else
+            {
+                limiter = m_limiters.get(name);
+            }
+        }
+        return limiter.m_limiter;
+    }
+
+    protected ConcurrencyLimiter makeLimiter(final IRESTService service)
+    {
+        final ConcurrencyLimitPolicy policy = service.getConcurrencyLimit();
+
+        if (null != policy)
+        {
+            return new ConcurrencyLimiter(service.getName(), policy);
+        }
+        return new ConcurrencyLimiter(service.getName(), m_initial, m_minimum, m_maximum, m_queue, m_wait);
+    }
+
+    @ManagedAttribute(description = "Get limit, in flight, queue depth and shed count per service.")
+    public List<String> getLimits()
+    {
+        final TreeMap<String, ServiceLimiter> sort = new TreeMap<String, ServiceLimiter>(m_limiters);
+
+        final ArrayList<String> list = new ArrayList<String>(sort.size());
+
+        for (ServiceLimiter limiter : sort.values())
+        {
+            list.add(limiter.m_limiter.toString());
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    @ManagedOperation(description = "Get current limit of one service.")
+    public int getServiceLimit(final String name)
+    {
+        final ServiceLimiter limiter = m_limiters.get(StringOps.requireTrimOrNull(name));
+
+        return (null == limiter) ? -1 : limiter.m_limiter.getLimit();
+    }
+
+    @ManagedOperation(description = "Get queue depth of one service.")
+    public int getServiceQueueDepth(final String name)
+    {
+        final ServiceLimiter limiter = m_limiters.get(StringOps.requireTrimOrNull(name));
+
+        return (null == limiter) ? -1 : limiter.m_limiter.getQueueDepth();
+    }
+
+    @ManagedOperation(description = "Reset all limiters to their initial limits.")
+    public void reset()
+    {
+        m_limiters.clear();
+    }
+
+    private static final class ServiceLimiter
+    {
+        private final IRESTService       m_service;
+
+        private final ConcurrencyLimiter m_limiter;
+
+        ServiceLimiter(final IRESTService service, final ConcurrencyLimiter limiter)
+        {
+            m_service = service;
+
+            m_limiter = limiter;
+        }
+    }
+}
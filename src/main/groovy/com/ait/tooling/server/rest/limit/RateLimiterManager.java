@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.limit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.ait.tooling.common.api.java.util.StringOps;
+import com.ait.tooling.server.rest.IRESTService;
+
+/**
+ * RateLimiterManager - Non-blocking {@link ServiceRateLimiter} per rate limited IRESTService.
+ * <p>
+ * Rate limited services block in IRateLimited.acquire() by default. A service opts into rejection with 429 through
+ * {@link IRESTService#isNonBlockingRateLimit()}, by having a runtime rate set, or for all services with NonBlocking.
+ * A service's rate comes from its IRateLimited configuration unless overridden at runtime.
+ */
+@ManagedResource
+public class RateLimiterManager
+{
+    private static final Logger                             logger      = Logger.getLogger(RateLimiterManager.class);
+
+    private final ConcurrentHashMap<String, ServiceLimiter> m_limiters  = new ConcurrentHashMap<String, ServiceLimiter>();
+
+    private final ConcurrentHashMap<String, double[]>       m_overrides = new ConcurrentHashMap<String, double[]>();
+
+    private volatile boolean                                m_blocking  = true;
+
+    private volatile long                                   m_budget    = 10L;
+
+    public RateLimiterManager()
+    {
+    }
+
+    @ManagedAttribute(description = "Set non-blocking rate limiting for all services, when false only services that opt in reject calls.")
+    public void setNonBlocking(final boolean nonblocking)
+    {
+        m_blocking = (false == nonblocking);
+    }
+
+    @ManagedAttribute(description = "Get non-blocking rate limiting for all services.")
+    public boolean isNonBlocking()
+    {
+        return (false == m_blocking);
+    }
+
+    @ManagedAttribute(description = "Set milliseconds a call may wait for a permit before it is rejected.")
+    public void setWaitBudget(final long budget)
+    {
+        m_budget = Math.max(0L, budget);
+    }
+
+    @ManagedAttribute(description = "Get milliseconds a call may wait for a permit before it is rejected.")
+    public long getWaitBudget()
+    {
+        return m_budget;
+    }
+
+    public long getWaitBudgetNanos()
+    {
+        return TimeUnit.MILLISECONDS.toNanos(m_budget);
+    }
+
+    /**
+     * Returns the rate limiter of a service, or null if the service is not rate limited or blocks for its permits.
+     */
+    public ServiceRateLimiter getLimiter(final IRESTService service)
+    {
+        if (m_blocking && (false == service.isNonBlockingRateLimit()) && (false == m_overrides.containsKey(service.getName())))
+        {
+            return null;
+        }
+        final String name = service.getName();
+
+        ServiceLimiter limiter = m_limiters.get(name);
+
+        if ((null == limiter) || (limiter.m_service != service))
+        {
+            final ServiceLimiter make = new ServiceLimiter(service, makeLimiter(service));
+
+            if (null == limiter)
+            {
+                limiter = m_limiters.putIfAbsent(name, make);
+
+                if (null == limiter)
+                {
+                    limiter = make;
+                }
+            }
+            else if (m_limiters.replace(name, limiter, make))
+            {
+                limiter = make;
+            }
+            else
+            {
+                limiter = m_limiters.get(name);
+            }
+        }
+        return limiter.m_limiter;
+    }
+
+    protected ServiceRateLimiter makeLimiter(final IRESTService service)
+    {
+        final double[] over = m_overrides.get(service.getName());
+
+        if (null != over)
+        {
+            return new ServiceRateLimiter(service.getName(), over[0], (int) over[1]);
+        }
+        final double rate = service.getRateLimit();
+
+        if (rate > 0.0)
+        {
+            logger.info("RateLimiterManager.makeLimiter(" + service.getName() + ") rate " + rate);
+
+            return new ServiceRateLimiter(service.getName(), rate, 0);
+        }
+        return null;
+    }
+
+    @ManagedAttribute(description = "Get rate, burst and limited count per rate limited service.")
+    public List<String> getRates()
+    {
+        final ArrayList<String> list = new ArrayList<String>();
+
+        for (ServiceLimiter limiter : new TreeMap<String, ServiceLimiter>(m_limiters).values())
+        {
+            if (null != limiter.m_limiter)
+            {
+                list.add(limiter.m_limiter.toString());
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    @ManagedOperation(description = "Set permits per second and burst of one service, a burst of 0 allows one second of permits.")
+    public void setServiceRate(final String name, final double rate, final int burst)
+    {
+        final String find = StringOps.requireTrimOrNull(name);
+
+        if ((false == (rate > 0.0)) || Double.isInfinite(rate))
+        {
+            throw new IllegalArgumentException("rate must be positive " + rate);
+        }
+        m_overrides.put(find, new double[] { rate, burst });
+
+        final ServiceLimiter limiter = m_limiters.get(find);
+
+        if ((null != limiter) && (null != limiter.m_limiter))
+        {
+            limiter.m_limiter.setRate(rate, burst);
+        }
+        else
+        {
+            m_limiters.remove(find);
+        }
+        logger.info("RateLimiterManager.setServiceRate(" + find + ") rate " + rate + " burst " + burst);
+    }
+
+    @ManagedOperation(description = "Remove the runtime rate of one service, restoring its configured rate.")
+    public void clearServiceRate(final String name)
+    {
+        final String find = StringOps.requireTrimOrNull(name);
+
+        m_overrides.remove(find);
+
+        m_limiters.remove(find);
+    }
+
+    private static final class ServiceLimiter
+    {
+        private final IRESTService       m_service;
+
+        private final ServiceRateLimiter m_limiter;
+
+        ServiceLimiter(final IRESTService service, final ServiceRateLimiter limiter)
+        {
+            m_service = service;
+
+            m_limiter = limiter;
+        }
+    }
+}
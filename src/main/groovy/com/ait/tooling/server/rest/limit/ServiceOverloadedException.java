@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.limit;
+
+import javax.servlet.http.HttpServletResponse;
+
+import com.ait.tooling.server.rest.RESTException;
+
+/**
+ * ServiceOverloadedException - A call shed by a limiter, answered with 503, or 429 when rate limited, and a Retry-After header.
+ */
+public class ServiceOverloadedException extends RESTException
+{
+    private static final long serialVersionUID     = 3190536541920398871L;
+
+    public static final int   SC_TOO_MANY_REQUESTS = 429;
+
+    private final long        m_retry;
+
+    public ServiceOverloadedException(final String reason, final long retry)
+    {
+        this(reason, HttpServletResponse.SC_SERVICE_UNAVAILABLE, retry);
+    }
+
+    public ServiceOverloadedException(final String reason, final int code, final long retry)
+    {
+        super(reason, code);
+
+        m_retry = Math.max(1L, retry);
+    }
+
+    public long getRetryAfterSeconds()
+    {
+        return m_retry;
+    }
+}
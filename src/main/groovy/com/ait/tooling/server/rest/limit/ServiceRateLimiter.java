@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ServiceRateLimiter - Non-blocking rate limiter, the generic cell rate algorithm over one atomic timestamp.
+ * <p>
+ * The limiter keeps the theoretical arrival time of the next permit. A permit is granted while that time is no more than
+ * the burst tolerance ahead of now, otherwise the caller learns exactly how long until one is free, which is the Retry-After.
+ */
+public class ServiceRateLimiter
+{
+    private final String     m_name;
+
+    private volatile double  m_rate;
+
+    private volatile int     m_burst;
+
+    private volatile long    m_interval;
+
+    private volatile long    m_tolerance;
+
+    private final AtomicLong m_arrival = new AtomicLong(System.nanoTime());
+
+    private final LongAdder  m_limited = new LongAdder();
+
+    public ServiceRateLimiter(final String name, final double rate, final int burst)
+    {
+        m_name = name;
+
+        setRate(rate, burst);
+    }
+
+    public String getName()
+    {
+        return m_name;
+    }
+
+    /**
+     * Sets permits per second and how many permits may be taken at once, a burst below one allows one second of permits.
+     */
+    public synchronized void setRate(final double rate, final int burst)
+    {
+        if ((false == (rate > 0.0)) || Double.isInfinite(rate))
+        {
+            throw new IllegalArgumentException("rate must be positive " + rate);
+        }
+        m_rate = rate;
+
+        m_burst = (burst > 0) ? burst : (int) Math.max(1L, (long) Math.ceil(rate));
+
+        m_interval = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1L) / rate));
+
+        m_tolerance = m_interval * (m_burst - 1);
+    }
+
+    public double getRate()
+    {
+        return m_rate;
+    }
+
+    public int getBurst()
+    {
+        return m_burst;
+    }
+
+    public long getLimitedCount()
+    {
+        return m_limited.sum();
+    }
+
+    /**
+     * Takes a permit, waiting at most budget nanoseconds for it. Returns 0 when a permit was taken, else the nanoseconds until one is free.
+     */
+    public long tryAcquire(final long budget)
+    {
+        for (;;)
+        {
+            final long now = System.nanoTime();
+
+            final long interval = m_interval;
+
+            final long arrival = m_arrival.get();
+
+            final long wait = arrival - m_tolerance - now;
+
+            if (wait > budget)
+            {
+                m_limited.increment();
+
+                return wait;
+            }
+            if (m_arrival.compareAndSet(arrival, Math.max(arrival, now) + interval))
+            {
+                if (wait > 0L)
+                {
+                    try
+                    {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return 0L;
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return m_name + " rate " + m_rate + " burst " + m_burst + " limited " + getLimitedCount();
+    }
+}
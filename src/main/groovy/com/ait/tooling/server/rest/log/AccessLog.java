@@ -0,0 +1,508 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.log;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * AccessLog - Structured access log of REST calls, written to a rolling file by one background thread.
+ * <p>
+ * Request threads only put the event into a pre-sized {@link AccessLogRing}, which allocates nothing and never blocks. When
+ * the ring is full the event is dropped and counted. Calls below 500 may be sampled, server errors are always kept. Each
+ * line is one JSON object: time, method, binding, status, ms, bytes and user when known.
+ */
+@ManagedResource
+public class AccessLog implements Closeable
+{
+    private static final Logger    logger           = Logger.getLogger(AccessLog.class);
+
+    public static final int        DEFAULT_CAPACITY = 8192;
+
+    private volatile boolean       m_enabled        = false;
+
+    private volatile double        m_sample         = 1.0;
+
+    private String                 m_file           = "logs/rest-access.log";
+
+    private int                    m_capacity       = DEFAULT_CAPACITY;
+
+    private long                   m_max_size       = 64L * 1024L * 1024L;
+
+    private int                    m_max_files      = 5;
+
+    private long                   m_flush_interval = 1000L;
+
+    private volatile boolean       m_closed         = false;
+
+    private volatile AccessLogRing m_ring;
+
+    private Thread                 m_thread;
+
+    private final LongAdder        m_dropped        = new LongAdder();
+
+    private final LongAdder        m_sampled        = new LongAdder();
+
+    private volatile long          m_written;
+
+    private Writer                 m_out;
+
+    private long                   m_size;
+
+    public AccessLog()
+    {
+    }
+
+    @ManagedAttribute(description = "Set access logging enabled.")
+    public void setEnabled(final boolean enabled)
+    {
+        m_enabled = enabled;
+    }
+
+    @ManagedAttribute(description = "Get access logging enabled.")
+    public boolean isEnabled()
+    {
+        return m_enabled;
+    }
+
+    /**
+     * Fraction of calls below status 500 that are logged, from 0 to 1.
+     */
+    @ManagedAttribute(description = "Set fraction of calls below status 500 that are logged.")
+    public void setSampleRate(final double sample)
+    {
+        m_sample = Math.max(0.0, Math.min(1.0, sample));
+    }
+
+    @ManagedAttribute(description = "Get fraction of calls below status 500 that are logged.")
+    public double getSampleRate()
+    {
+        return m_sample;
+    }
+
+    public void setFile(final String file)
+    {
+        m_file = file;
+    }
+
+    @ManagedAttribute(description = "Get access log file.")
+    public String getFile()
+    {
+        return m_file;
+    }
+
+    /**
+     * Events the ring holds, rounded up to a power of two, only read before the first event.
+     */
+    public void setCapacity(final int capacity)
+    {
+        m_capacity = Math.max(2, capacity);
+    }
+
+    @ManagedAttribute(description = "Get access log ring capacity.")
+    public int getCapacity()
+    {
+        final AccessLogRing ring = m_ring;
+
+        return (null == ring) ? m_capacity : ring.getCapacity();
+    }
+
+    public void setMaxFileSize(final long size)
+    {
+        m_max_size = Math.max(1024L, size);
+    }
+
+    @ManagedAttribute(description = "Get bytes at which the access log file is rolled.")
+    public long getMaxFileSize()
+    {
+        return m_max_size;
+    }
+
+    public void setMaxFiles(final int files)
+    {
+        m_max_files = Math.max(1, files);
+    }
+
+    @ManagedAttribute(description = "Get number of rolled access log files kept.")
+    public int getMaxFiles()
+    {
+        return m_max_files;
+    }
+
+    public void setFlushInterval(final long interval)
+    {
+        m_flush_interval = Math.max(1L, interval);
+    }
+
+    @ManagedAttribute(description = "Get most milliseconds written events wait before they are flushed to the file.")
+    public long getFlushInterval()
+    {
+        return m_flush_interval;
+    }
+
+    @ManagedAttribute(description = "Get access log events dropped because the ring was full or the file failed.")
+    public long getDroppedCount()
+    {
+        return m_dropped.sum();
+    }
+
+    @ManagedAttribute(description = "Get access log events left out by sampling.")
+    public long getSampledOutCount()
+    {
+        return m_sampled.sum();
+    }
+
+    @ManagedAttribute(description = "Get access log events written.")
+    public long getWrittenCount()
+    {
+        return m_written;
+    }
+
+    @ManagedAttribute(description = "Get access log events waiting to be written.")
+    public int getPendingCount()
+    {
+        final AccessLogRing ring = m_ring;
+
+        return (null == ring) ? 0 : ring.size();
+    }
+
+    /**
+     * Records one call, nanos is its latency and bytes its response body size, without blocking.
+     */
+    public void record(final String method, final String bind, final int code, final long nanos, final long bytes, final String user)
+    {
+        if ((false == m_enabled) || (m_closed))
+        {
+            return;
+        }
+        final double sample = m_sample;
+
+        if ((code < 500) && (sample < 1.0) && (ThreadLocalRandom.current().nextDouble() >= sample))
+        {
+            m_sampled.increment();
+
+            return;
+        }
+        AccessLogRing ring = m_ring;
+
+        if (null == ring)
+        {
+            ring = start();
+        }
+        if (false == ring.offer(System.currentTimeMillis(), method, bind, code, nanos, bytes, user))
+        {
+            m_dropped.increment();
+        }
+    }
+
+    private synchronized AccessLogRing start()
+    {
+        AccessLogRing ring = m_ring;
+
+        if (null == ring)
+        {
+            ring = new AccessLogRing(m_capacity);
+
+            m_thread = new Thread(() -> run(), "RESTAccessLog");
+
+            m_thread.setDaemon(true);
+
+            m_ring = ring;
+
+            m_thread.start();
+
+            logger.info("AccessLog.start(" + m_file + ") capacity " + ring.getCapacity());
+        }
+        return ring;
+    }
+
+    private void run()
+    {
+        final AccessLogRing ring = m_ring;
+
+        final AccessLogEvent event = new AccessLogEvent();
+
+        final StringBuilder line = new StringBuilder(256);
+
+        final long interval = TimeUnit.MILLISECONDS.toNanos(m_flush_interval);
+
+        long flushed = System.nanoTime();
+
+        boolean dirty = false;
+
+        while (true)
+        {
+            final boolean closed = m_closed;
+
+            int count = 0;
+
+            while ((count < 1024) && (ring.poll(event)))
+            {
+                write(event, line);
+
+                dirty = true;
+
+                count++;
+            }
+            if ((dirty) && ((0 == count) || ((System.nanoTime() - flushed) >= interval)))
+            {
+                flush();
+
+                dirty = false;
+
+                flushed = System.nanoTime();
+            }
+            if (0 == count)
+            {
+                if (closed)
+                {
+                    break;
+                }
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(10L));
+            }
+        }
+        closeFile();
+    }
+
+    private void write(final AccessLogEvent event, final StringBuilder line)
+    {
+        line.setLength(0);
+
+        line.append("{\"time\":\"");
+
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(event.getTime()), line);
+
+        line.append("\",\"method\":");
+
+        quote(line, event.getMethod());
+
+        line.append(",\"binding\":");
+
+        quote(line, event.getRequestBinding());
+
+        line.append(",\"status\":").append(event.getCode()).append(",\"ms\":");
+
+        final long micros = event.getNanos() / 1000L;
+
+        line.append(micros / 1000L).append('.');
+
+        final long frac = micros % 1000L;
+
+        if (frac < 100L)
+        {
+            line.append('0');
+        }
+        if (frac < 10L)
+        {
+            line.append('0');
+        }
+        line.append(frac).append(",\"bytes\":").append(event.getBytes());
+
+        if (null != event.getUserID())
+        {
+            line.append(",\"user\":");
+
+            quote(line, event.getUserID());
+        }
+        line.append("}\n");
+
+        try
+        {
+            if (null == m_out)
+            {
+                open();
+            }
+            m_out.append(line);
+
+            m_size += line.length();
+
+            m_written++;
+
+            if (m_size >= m_max_size)
+            {
+                roll();
+            }
+        }
+        catch (IOException e)
+        {
+            m_dropped.increment();
+
+            if (null != m_out)
+            {
+                logger.error("AccessLog.write(" + m_file + ") ERROR ", e);
+
+                closeFile();
+            }
+        }
+    }
+
+    private static void quote(final StringBuilder line, final String text)
+    {
+        if (null == text)
+        {
+            line.append("null");
+
+            return;
+        }
+        line.append('"');
+
+        final int leng = text.length();
+
+        for (int i = 0; i < leng; i++)
+        {
+            final char c = text.charAt(i);
+
+            if ((c == '"') || (c == '\\'))
+            {
+                line.append('\\').append(c);
+            }
+            else if (c < ' ')
+            {
+                line.append(String.format("\\u%04x", (int) c));
+            }
+            else
+            {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private void open() throws IOException
+    {
+        final File file = new File(m_file);
+
+        final File parent = file.getAbsoluteFile().getParentFile();
+
+        if ((null != parent) && (false == parent.isDirectory()) && (false == parent.mkdirs()))
+        {
+            throw new IOException("can not create " + parent);
+        }
+        m_size = file.length();
+
+        m_out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    /**
+     * Renames file.N-1 to file.N down to file to file.1, the oldest is deleted, then starts a new file.
+     */
+    private void roll() throws IOException
+    {
+        closeFile();
+
+        final File oldest = new File(m_file + "." + m_max_files);
+
+        if (oldest.exists() && (false == oldest.delete()))
+        {
+            logger.error("AccessLog.roll() can not delete " + oldest);
+        }
+        for (int i = m_max_files - 1; i >= 1; i--)
+        {
+            final File from = new File(m_file + "." + i);
+
+            if (from.exists() && (false == from.renameTo(new File(m_file + "." + (i + 1)))))
+            {
+                logger.error("AccessLog.roll() can not rename " + from);
+            }
+        }
+        final File file = new File(m_file);
+
+        if (file.exists() && (false == file.renameTo(new File(m_file + ".1"))))
+        {
+            logger.error("AccessLog.roll() can not rename " + file);
+        }
+        open();
+    }
+
+    private void flush()
+    {
+        if (null != m_out)
+        {
+            try
+            {
+                m_out.flush();
+            }
+            catch (IOException e)
+            {
+                logger.error("AccessLog.flush(" + m_file + ") ERROR ", e);
+
+                closeFile();
+            }
+        }
+    }
+
+    private void closeFile()
+    {
+        if (null != m_out)
+        {
+            try
+            {
+                m_out.close();
+            }
+            catch (IOException e)
+            {
+                logger.error("AccessLog.closeFile(" + m_file + ") ERROR ", e);
+            }
+            m_out = null;
+        }
+    }
+
+    /**
+     * Stops taking events, then waits for the ones already taken to be written.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        m_closed = true;
+
+        final Thread thread;
+
+        synchronized (this)
+        {
+            thread = m_thread;
+        }
+        if (null != thread)
+        {
+            LockSupport.unpark(thread);
+
+            try
+            {
+                thread.join(5000L);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
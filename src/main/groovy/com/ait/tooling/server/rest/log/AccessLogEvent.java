@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.log;
+
+/**
+ * AccessLogEvent - One access log event read from an {@link AccessLogRing}, reused by the reader for every event.
+ */
+public final class AccessLogEvent
+{
+    long   m_time;
+
+    long   m_nanos;
+
+    long   m_bytes;
+
+    int    m_code;
+
+    String m_method;
+
+    String m_bind;
+
+    String m_user;
+
+    public AccessLogEvent()
+    {
+    }
+
+    /**
+     * Wall clock time the call ended, in epoch milliseconds.
+     */
+    public long getTime()
+    {
+        return m_time;
+    }
+
+    public long getNanos()
+    {
+        return m_nanos;
+    }
+
+    /**
+     * Response body bytes before compression, 0 when nothing was written.
+     */
+    public long getBytes()
+    {
+        return m_bytes;
+    }
+
+    public int getCode()
+    {
+        return m_code;
+    }
+
+    public String getMethod()
+    {
+        return m_method;
+    }
+
+    public String getRequestBinding()
+    {
+        return m_bind;
+    }
+
+    public String getUserID()
+    {
+        return m_user;
+    }
+}
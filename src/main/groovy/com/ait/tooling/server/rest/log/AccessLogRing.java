@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * AccessLogRing - Bounded, pre-sized ring of access log events, written by many threads and read by one.
+ * <p>
+ * Events are held in parallel arrays, so offering one allocates nothing. A writer claims a slot with one compare and set
+ * and publishes it with an ordered store. When the ring is full the event is refused instead of waiting for the reader.
+ */
+public final class AccessLogRing
+{
+    private final int             m_mask;
+
+    private final long[]          m_time;
+
+    private final long[]          m_nanos;
+
+    private final long[]          m_bytes;
+
+    private final int[]           m_code;
+
+    private final String[]        m_method;
+
+    private final String[]        m_bind;
+
+    private final String[]        m_user;
+
+    private final AtomicLongArray m_published;
+
+    private final AtomicLong      m_head = new AtomicLong();
+
+    private volatile long         m_tail;
+
+    /**
+     * Creates a ring holding capacity events, rounded up to a power of two.
+     */
+    public AccessLogRing(final int capacity)
+    {
+        final int size = Integer.highestOneBit(Math.max(2, Math.min(capacity, 1 << 30)) * 2 - 1);
+
+        m_mask = size - 1;
+
+        m_time = new long[size];
+
+        m_nanos = new long[size];
+
+        m_bytes = new long[size];
+
+        m_code = new int[size];
+
+        m_method = new String[size];
+
+        m_bind = new String[size];
+
+        m_user = new String[size];
+
+        m_published = new AtomicLongArray(size);
+    }
+
+    public int getCapacity()
+    {
+        return m_mask + 1;
+    }
+
+    /**
+     * Number of events waiting to be read, approximate while writers are active.
+     */
+    public int size()
+    {
+        return (int) Math.max(0L, m_head.get() - m_tail);
+    }
+
+    /**
+     * Adds an event, false if the ring is full and the event was dropped.
+     */
+    public boolean offer(final long time, final String method, final String bind, final int code, final long nanos, final long bytes, final String user)
+    {
+        long head;
+
+        do
+        {
+            head = m_head.get();
+
+            if ((head - m_tail) > m_mask)
+            {
+                return false;
+            }
+        }
+        while (false == m_head.compareAndSet(head, head + 1L));
+
+        final int slot = (int) head & m_mask;
+
+        m_time[slot] = time;
+
+        m_method[slot] = method;
+
+        m_bind[slot] = bind;
+
+        m_code[slot] = code;
+
+        m_nanos[slot] = nanos;
+
+        m_bytes[slot] = bytes;
+
+        m_user[slot] = user;
+
+        m_published.lazySet(slot, head + 1L);
+
+        return true;
+    }
+
+    /**
+     * Moves the oldest event into event, false if there is none published yet. Only one thread may poll.
+     */
+    public boolean poll(final AccessLogEvent event)
+    {
+        final long tail = m_tail;
+
+        final int slot = (int) tail & m_mask;
+
+        if (m_published.get(slot) != (tail + 1L))
+        {
+            return false;
+        }
+        event.m_time = m_time[slot];
+
+        event.m_method = m_method[slot];
+
+        event.m_bind = m_bind[slot];
+
+        event.m_code = m_code[slot];
+
+        event.m_nanos = m_nanos[slot];
+
+        event.m_bytes = m_bytes[slot];
+
+        event.m_user = m_user[slot];
+
+        m_method[slot] = null;
+
+        m_bind[slot] = null;
+
+        m_user[slot] = null;
+
+        m_tail = tail + 1L;
+
+        return true;
+    }
+}
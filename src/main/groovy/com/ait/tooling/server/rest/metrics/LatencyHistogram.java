@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram - Lock-free log-linear histogram of latencies in microseconds, in the style of HdrHistogram.
+ * <p>
+ * Values below 32 get a bucket each, above that every power of two is split into 16 linear buckets, which bounds the
+ * relative error of a reported percentile to about 6%. Bucket counts are striped by thread so concurrent recorders
+ * rarely touch the same cache line, and recording never allocates.
+ */
+public final class LatencyHistogram
+{
+    private static final int        SUB_BITS       = 5;
+
+    private static final int        SUB_COUNT      = 1 << SUB_BITS;
+
+    private static final int        HALF_COUNT     = SUB_COUNT >> 1;
+
+    private static final int        MAXIMUM_BITS   = 36;
+
+    public static final long        MAXIMUM_MICROS = (1L << MAXIMUM_BITS) - 1L;
+
+    public static final int         BUCKET_COUNT   = SUB_COUNT + ((MAXIMUM_BITS - SUB_BITS) * HALF_COUNT);
+
+    private static final int        STRIPE_COUNT   = stripes();
+
+    private final AtomicLongArray[] m_stripes;
+
+    private final LongAdder         m_count        = new LongAdder();
+
+    private final LongAdder         m_total        = new LongAdder();
+
+    private final LongAccumulator   m_maximum      = new LongAccumulator(Math::max, 0L);
+
+    public LatencyHistogram()
+    {
+        m_stripes = new AtomicLongArray[STRIPE_COUNT];
+
+        for (int i = 0; i < STRIPE_COUNT; i++)
+        {
+            m_stripes[i] = new AtomicLongArray(BUCKET_COUNT);
+        }
+    }
+
+    private static int stripes()
+    {
+        int size = 1;
+
+        final int cpus = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+        while (size < cpus)
+        {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    public static int getBucketIndex(long micros)
+    {
+        if (micros < SUB_COUNT)
+        {
+            return (int) Math.max(0L, micros);
+        }
+        if (micros > MAXIMUM_MICROS)
+        {
+            micros = MAXIMUM_MICROS;
+        }
+        final int shift = (63 - Long.numberOfLeadingZeros(micros)) - (SUB_BITS - 1);
+
+        return SUB_COUNT + ((shift - 1) * HALF_COUNT) + ((int) (micros >>> shift) - HALF_COUNT);
+    }
+
+    /**
+     * Returns the largest value that falls in a bucket, percentiles report this so they never understate latency.
+     */
+    public static long getBucketHighestValue(final int indx)
+    {
+        if (indx < SUB_COUNT)
+        {
+            return indx;
+        }
+        final int shift = ((indx - SUB_COUNT) / HALF_COUNT) + 1;
+
+        final long part = ((indx - SUB_COUNT) % HALF_COUNT) + HALF_COUNT;
+
+        return ((part + 1L) << shift) - 1L;
+    }
+
+    public void recordNanos(final long nanos)
+    {
+        record(Math.max(0L, nanos) / 1000L);
+    }
+
+    public void record(final long micros)
+    {
+        m_stripes[(int) Thread.currentThread().getId() & (STRIPE_COUNT - 1)].incrementAndGet(getBucketIndex(micros));
+
+        m_count.increment();
+
+        m_total.add(micros);
+
+        m_maximum.accumulate(micros);
+    }
+
+    public long getCount()
+    {
+        return m_count.sum();
+    }
+
+    public long getTotalMicros()
+    {
+        return m_total.sum();
+    }
+
+    public long getMaximumMicros()
+    {
+        return m_maximum.get();
+    }
+
+    public Snapshot getSnapshot()
+    {
+        final long[] counts = new long[BUCKET_COUNT];
+
+        for (AtomicLongArray stripe : m_stripes)
+        {
+            for (int i = 0; i < BUCKET_COUNT; i++)
+            {
+                counts[i] += stripe.get(i);
+            }
+        }
+        return new Snapshot(counts, getTotalMicros(), getMaximumMicros());
+    }
+
+    /**
+     * Snapshot - Point in time copy of the bucket counts, bucket reads are not atomic across stripes.
+     */
+    public static final class Snapshot
+    {
+        private final long[] m_counts;
+
+        private final long   m_count;
+
+        private final long   m_total;
+
+        private final long   m_maximum;
+
+        Snapshot(final long[] counts, final long total, final long maximum)
+        {
+            long count = 0L;
+
+            for (long c : counts)
+            {
+                count += c;
+            }
+            m_count = count;
+
+            m_total = total;
+
+            m_counts = counts;
+
+            m_maximum = maximum;
+        }
+
+        public long getCount()
+        {
+            return m_count;
+        }
+
+        public long getTotalMicros()
+        {
+            return m_total;
+        }
+
+        public long getMaximumMicros()
+        {
+            return m_maximum;
+        }
+
+        public double getMeanMicros()
+        {
+            if (m_count < 1L)
+            {
+                return 0.0;
+            }
+            return ((double) m_total) / m_count;
+        }
+
+        /**
+         * Returns the latency in microseconds at a percentile, 0.0 to 100.0, capped at the maximum recorded value.
+         */
+        public long getPercentileMicros(final double percentile)
+        {
+            if (m_count < 1L)
+            {
+                return 0L;
+            }
+            final long rank = Math.max(1L, (long) Math.ceil((Math.min(100.0, Math.max(0.0, percentile)) / 100.0) * m_count));
+
+            long seen = 0L;
+
+            for (int i = 0; i < m_counts.length; i++)
+            {
+                seen += m_counts[i];
+
+                if (seen >= rank)
+                {
+                    return Math.min(getBucketHighestValue(i), m_maximum);
+                }
+            }
+            return m_maximum;
+        }
+    }
+}
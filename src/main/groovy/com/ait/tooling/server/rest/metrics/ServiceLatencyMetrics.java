@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * ServiceLatencyMetrics - Latency histograms per request binding and HTTP status code.
+ * <p>
+ * Lookups on the request path are a map read and an array read, histograms are only created the first time
+ * a binding answers with a given status.
+ */
+public class ServiceLatencyMetrics
+{
+    public static final String                                METRIC_NAME = "rest_service_latency_seconds";
+
+    private static final double[]                             QUANTILES   = { 0.5, 0.9, 0.99, 0.999 };
+
+    private static final int                                  FIRST_CODE  = 100;
+
+    private static final int                                  LAST_CODE   = 599;
+
+    private final ConcurrentHashMap<String, StatusHistograms> m_metrics   = new ConcurrentHashMap<String, StatusHistograms>();
+
+    public ServiceLatencyMetrics()
+    {
+    }
+
+    public void record(final String bind, final int code, final long nanos)
+    {
+        if (null == bind)
+        {
+            return;
+        }
+        StatusHistograms status = m_metrics.get(bind);
+
+        if (null == status)
+        {
+            status = m_metrics.computeIfAbsent(bind, name -> new StatusHistograms());
+        }
+        status.get(code).recordNanos(nanos);
+    }
+
+    public LatencyHistogram getHistogram(final String bind, final int code)
+    {
+        final StatusHistograms status = m_metrics.get(bind);
+
+        if (null == status)
+        {
+            return null;
+        }
+        return status.find(code);
+    }
+
+    public void clear()
+    {
+        m_metrics.clear();
+    }
+
+    /**
+     * Returns one line per binding and status, with count, mean and percentiles in milliseconds.
+     */
+    public List<String> getSummary()
+    {
+        final ArrayList<String> list = new ArrayList<String>();
+
+        for (Map.Entry<String, TreeMap<Integer, LatencyHistogram>> entry : getSortedHistograms().entrySet())
+        {
+            for (Map.Entry<Integer, LatencyHistogram> hist : entry.getValue().entrySet())
+            {
+                final LatencyHistogram.Snapshot snap = hist.getValue().getSnapshot();
+
+                list.add(entry.getKey() + " status " + hist.getKey() + " count " + snap.getCount() + " mean " + millis(Math.round(snap.getMeanMicros())) + " p50 " + millis(snap.getPercentileMicros(50.0)) + " p99 " + millis(snap.getPercentileMicros(99.0)) + " p999 " + millis(snap.getPercentileMicros(99.9)) + " max " + millis(snap.getMaximumMicros()) + " ms");
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Writes all histograms as a Prometheus summary, in the text exposition format version 0.0.4.
+     */
+    public void writePrometheus(final Appendable out) throws IOException
+    {
+        out.append("# HELP ").append(METRIC_NAME).append(" REST service latency by binding and status, including response writing.\n");
+
+        out.append("# TYPE ").append(METRIC_NAME).append(" summary\n");
+
+        for (Map.Entry<String, TreeMap<Integer, LatencyHistogram>> entry : getSortedHistograms().entrySet())
+        {
+            final String bind = escape(entry.getKey());
+
+            for (Map.Entry<Integer, LatencyHistogram> hist : entry.getValue().entrySet())
+            {
+                final LatencyHistogram.Snapshot snap = hist.getValue().getSnapshot();
+
+                final String labels = "binding=\"" + bind + "\",status=\"" + hist.getKey() + "\"";
+
+                for (double quantile : QUANTILES)
+                {
+                    out.append(METRIC_NAME).append('{').append(labels).append(",quantile=\"").append(Double.toString(quantile)).append("\"} ").append(seconds(snap.getPercentileMicros(quantile * 100.0))).append('\n');
+                }
+                out.append(METRIC_NAME).append("_sum{").append(labels).append("} ").append(seconds(snap.getTotalMicros())).append('\n');
+
+                out.append(METRIC_NAME).append("_count{").append(labels).append("} ").append(Long.toString(snap.getCount())).append('\n');
+            }
+        }
+    }
+
+    private TreeMap<String, TreeMap<Integer, LatencyHistogram>> getSortedHistograms()
+    {
+        final TreeMap<String, TreeMap<Integer, LatencyHistogram>> sort = new TreeMap<String, TreeMap<Integer, LatencyHistogram>>();
+
+        for (Map.Entry<String, StatusHistograms> entry : m_metrics.entrySet())
+        {
+            final TreeMap<Integer, LatencyHistogram> codes = new TreeMap<Integer, LatencyHistogram>();
+
+            final StatusHistograms status = entry.getValue();
+
+            for (int code = FIRST_CODE; code <= LAST_CODE; code++)
+            {
+                final LatencyHistogram hist = status.find(code);
+
+                if (null != hist)
+                {
+                    codes.put(code, hist);
+                }
+            }
+            if (false == codes.isEmpty())
+            {
+                sort.put(entry.getKey(), codes);
+            }
+        }
+        return sort;
+    }
+
+    private static String millis(final long micros)
+    {
+        return String.format("%.3f", micros / 1000.0);
+    }
+
+    private static String seconds(final long micros)
+    {
+        return Double.toString(micros / 1000000.0);
+    }
+
+    private static String escape(final String valu)
+    {
+        return valu.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class StatusHistograms
+    {
+        private final AtomicReferenceArray<LatencyHistogram> m_codes = new AtomicReferenceArray<LatencyHistogram>(LAST_CODE - FIRST_CODE + 1);
+
+        private static int index(final int code)
+        {
+            return Math.min(LAST_CODE, Math.max(FIRST_CODE, code)) - FIRST_CODE;
+        }
+
+        LatencyHistogram find(final int code)
+        {
+            return m_codes.get(index(code));
+        }
+
+        LatencyHistogram get(final int code)
+        {
+            final int indx = index(code);
+
+            LatencyHistogram hist = m_codes.get(indx);
+
+            if (null == hist)
+            {
+                m_codes.compareAndSet(indx, null, new LatencyHistogram());
+
+                hist = m_codes.get(indx);
+            }
+            return hist;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.routing;
+
+import java.util.Objects;
+
+import com.ait.tooling.server.core.json.JSONObject;
+import com.ait.tooling.server.rest.IRESTService;
+
+/**
+ * RequestRouteMatch - Result of matching a request path against a {@link RequestRouteTable}.
+ * Literal routes share one immutable instance, only templated routes allocate per match.
+ */
+public final class RequestRouteMatch
+{
+    private static final String[] NO_VALUES = new String[0];
+
+    private final String          m_bind;
+
+    private final String[]        m_names;
+
+    private final String[]        m_values;
+
+    private final IRESTService    m_service;
+
+    RequestRouteMatch(final IRESTService service, final String bind, final String[] names)
+    {
+        this(service, bind, names, NO_VALUES);
+    }
+
+    RequestRouteMatch(final IRESTService service, final String bind, final String[] names, final String[] values)
+    {
+        m_bind = Objects.requireNonNull(bind);
+
+        m_names = Objects.requireNonNull(names);
+
+        m_values = Objects.requireNonNull(values);
+
+        m_service = Objects.requireNonNull(service);
+    }
+
+    RequestRouteMatch copy()
+    {
+        return new RequestRouteMatch(m_service, m_bind, m_names, new String[m_names.length]);
+    }
+
+    void setPathParameter(final int indx, final String value)
+    {
+        m_values[indx] = value;
+    }
+
+    public IRESTService getService()
+    {
+        return m_service;
+    }
+
+    public String getRequestBinding()
+    {
+        return m_bind;
+    }
+
+    public boolean isTemplate()
+    {
+        return (m_names.length > 0);
+    }
+
+    public String getPathParameter(final String name)
+    {
+        for (int i = 0; i < m_values.length; i++)
+        {
+            if (m_names[i].equals(name))
+            {
+                return m_values[i];
+            }
+        }
+        return null;
+    }
+
+    public JSONObject getPathParameters()
+    {
+        final JSONObject params = new JSONObject();
+
+        for (int i = 0; i < m_values.length; i++)
+        {
+            params.put(m_names[i], m_values[i]);
+        }
+        return params;
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.routing;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import com.ait.tooling.server.rest.IRESTService;
+
+/**
+ * RequestRouteTable - Immutable segment trie over request bindings, built once from the registry.
+ * <p>
+ * Each level indexes its literal segments in an open addressed hash table, so a request path can be
+ * matched in place, hashing and comparing regions of the path without creating any intermediate Strings.
+ * A segment written as <code>{name}</code> matches any single path segment, literal segments are
+ * always preferred over template segments at the same level.
+ * <p>
+ * Paths containing whitespace are not matched here, callers fall back to
+ * {@link com.ait.tooling.server.rest.support.spring.IRESTContext#fixRequestBinding(String)}.
+ */
+public final class RequestRouteTable
+{
+    private static final Logger    logger = Logger.getLogger(RequestRouteTable.class);
+
+    private static final String    RPC    = ".rpc";
+
+    private final int              m_size;
+
+    private final RouteNode        m_root;
+
+    public static final RequestRouteTable EMPTY = new RequestRouteTable(new LinkedHashMap<String, IRESTService>());
+
+    public RequestRouteTable(final Map<String, IRESTService> bindings)
+    {
+        final RouteBuilder root = new RouteBuilder();
+
+        int size = 0;
+
+        for (Map.Entry<String, IRESTService> entry : bindings.entrySet())
+        {
+            if (root.add(entry.getKey(), entry.getValue()))
+            {
+                size++;
+            }
+        }
+        m_size = size;
+
+        m_root = root.build();
+    }
+
+    public int size()
+    {
+        return m_size;
+    }
+
+    public RequestRouteMatch match(final String path)
+    {
+        if (null == path)
+        {
+            return null;
+        }
+        return find(m_root, path, 0, path.length(), 0);
+    }
+
+    private static RequestRouteMatch find(final RouteNode node, final String path, int from, final int end, final int pdepth)
+    {
+        while ((from < end) && (path.charAt(from) == '/'))
+        {
+            from++;
+        }
+        if (from >= end)
+        {
+            return node.terminal();
+        }
+        int next = path.indexOf('/', from);
+
+        if ((next < 0) || (next > end))
+        {
+            next = end;
+        }
+        int stop = next;
+
+        if (isTrailing(path, next, end) && ((stop - from) > RPC.length()) && path.regionMatches(stop - RPC.length(), RPC, 0, RPC.length()))
+        {
+            stop -= RPC.length();
+        }
+        int hash = 0;
+
+        for (int i = from; i < stop; i++)
+        {
+            final char c = path.charAt(i);
+
+            if (Character.isWhitespace(c))
+            {
+                return null;
+            }
+            hash = 31 * hash + c;
+        }
+        final RouteNode lite = node.child(path, from, stop - from, hash);
+
+        if (null != lite)
+        {
+            final RequestRouteMatch match = find(lite, path, next, end, pdepth);
+
+            if (null != match)
+            {
+                return match;
+            }
+        }
+        if (null != node.m_param)
+        {
+            final RequestRouteMatch match = find(node.m_param, path, next, end, pdepth + 1);
+
+            if (null != match)
+            {
+                match.setPathParameter(pdepth, path.substring(from, stop));
+
+                return match;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isTrailing(final String path, int from, final int end)
+    {
+        for (; from < end; from++)
+        {
+            if (path.charAt(from) != '/')
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(final int hash)
+    {
+        return (hash ^ (hash >>> 16));
+    }
+
+    private static final class RouteNode
+    {
+        private final String[]          m_keys;
+
+        private final RouteNode[]       m_next;
+
+        private final int               m_mask;
+
+        private final RouteNode         m_param;
+
+        private final RequestRouteMatch m_match;
+
+        RouteNode(final String[] keys, final RouteNode[] next, final RouteNode param, final RequestRouteMatch match)
+        {
+            m_keys = keys;
+
+            m_next = next;
+
+            m_mask = keys.length - 1;
+
+            m_param = param;
+
+            m_match = match;
+        }
+
+        RouteNode child(final String path, final int from, final int leng, final int hash)
+        {
+            if (m_keys.length == 0)
+            {
+                return null;
+            }
+            int indx = spread(hash) & m_mask;
+
+            String key;
+
+            while (null != (key = m_keys[indx]))
+            {
+                if ((key.length() == leng) && key.regionMatches(0, path, from, leng))
+                {
+                    return m_next[indx];
+                }
+                indx = (indx + 1) & m_mask;
+            }
+            return null;
+        }
+
+        RequestRouteMatch terminal()
+        {
+            if ((null == m_match) || (false == m_match.isTemplate()))
+            {
+                return m_match;
+            }
+            return m_match.copy();
+        }
+    }
+
+    private static final class RouteBuilder
+    {
+        private IRESTService                             m_service;
+
+        private String                                   m_bind;
+
+        private String[]                                 m_names;
+
+        private RouteBuilder                             m_param;
+
+        private final LinkedHashMap<String, RouteBuilder> m_children = new LinkedHashMap<String, RouteBuilder>();
+
+        boolean add(final String bind, final IRESTService service)
+        {
+            if ((null == bind) || (null == service))
+            {
+                return false;
+            }
+            final ArrayList<String> names = new ArrayList<String>();
+
+            RouteBuilder node = this;
+
+            for (String part : bind.split("/"))
+            {
+                if (part.isEmpty())
+                {
+                    continue;
+                }
+                if ((part.length() > 2) && part.startsWith("{") && part.endsWith("}"))
+                {
+                    names.add(part.substring(1, part.length() - 1));
+
+                    if (null == node.m_param)
+                    {
+                        node.m_param = new RouteBuilder();
+                    }
+                    node = node.m_param;
+                }
+                else
+                {
+                    RouteBuilder next = node.m_children.get(part);
+
+                    if (null == next)
+                    {
+                        next = new RouteBuilder();
+
+                        node.m_children.put(part, next);
+                    }
+                    node = next;
+                }
+            }
+            if (null != node.m_service)
+            {
+                logger.error("RequestRouteTable.add(" + bind + ") conflicts with " + node.m_bind + ", ignored");
+
+                return false;
+            }
+            node.m_bind = bind;
+
+            node.m_service = service;
+
+            node.m_names = names.toArray(new String[names.size()]);
+
+            return true;
+        }
+
+        RouteNode build()
+        {
+            int size = 1;
+
+            while (size < (m_children.size() * 2))
+            {
+                size <<= 1;
+            }
+            if (m_children.isEmpty())
+            {
+                size = 0;
+            }
+            final String[] keys = new String[size];
+
+            final RouteNode[] next = new RouteNode[size];
+
+            for (Map.Entry<String, RouteBuilder> entry : m_children.entrySet())
+            {
+                final String key = entry.getKey();
+
+                int indx = spread(key.hashCode()) & (size - 1);
+
+                while (null != keys[indx])
+                {
+                    indx = (indx + 1) & (size - 1);
+                }
+                keys[indx] = key;
+
+                next[indx] = entry.getValue().build();
+            }
+            final RouteNode param = (null == m_param) ? null : m_param.build();
+
+            final RequestRouteMatch match = (null == m_service) ? null : new RequestRouteMatch(m_service, m_bind, m_names);
+
+            return new RouteNode(keys, next, param, match);
+        }
+    }
+}
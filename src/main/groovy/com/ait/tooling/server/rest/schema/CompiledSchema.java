@@ -0,0 +1,825 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.schema;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * CompiledSchema - A JSON schema compiled once into a tree of checks, so validation is a walk of the value with no schema lookups.
+ * <p>
+ * Supports type, enum, const, properties, required, additionalProperties, items, minItems, maxItems, minLength, maxLength, pattern,
+ * minimum, maximum, exclusiveMinimum, exclusiveMaximum, multipleOf, allOf, anyOf, oneOf and not. Other keywords are ignored.
+ */
+public final class CompiledSchema
+{
+    public static final int            MAXIMUM_ERRORS = 16;
+
+    public static final CompiledSchema ANY            = new CompiledSchema(new Check[0]);
+
+    private static final Check[]       NO_CHECKS      = new Check[0];
+
+    private static final List<String>  NO_ERRORS      = Collections.emptyList();
+
+    private final Check[]              m_checks;
+
+    private CompiledSchema(final Check[] checks)
+    {
+        m_checks = checks;
+    }
+
+    public static CompiledSchema compile(final Map<String, ?> schema)
+    {
+        if ((null == schema) || (schema.isEmpty()))
+        {
+            return ANY;
+        }
+        return new CompiledSchema(compileChecks(schema));
+    }
+
+    /**
+     * True if this schema accepts every value.
+     */
+    public boolean isTrivial()
+    {
+        return (0 == m_checks.length);
+    }
+
+    public boolean isValid(final Object value)
+    {
+        return validate(value).isEmpty();
+    }
+
+    /**
+     * Returns at most {@link #MAXIMUM_ERRORS} messages, each prefixed with the path of the failing value, empty if the value is valid.
+     */
+    public List<String> validate(final Object value)
+    {
+        if (isTrivial())
+        {
+            return NO_ERRORS;
+        }
+        final Errors errors = new Errors();
+
+        checkAll(m_checks, value, null, errors);
+
+        return (null == errors.m_list) ? NO_ERRORS : Collections.unmodifiableList(errors.m_list);
+    }
+
+    private static void checkAll(final Check[] checks, final Object value, final Path path, final Errors errors)
+    {
+        for (Check check : checks)
+        {
+            if (errors.isFull())
+            {
+                return;
+            }
+            check.check(value, path, errors);
+        }
+    }
+
+    private static boolean matches(final Check[] checks, final Object value)
+    {
+        final Errors errors = new Errors(1);
+
+        checkAll(checks, value, null, errors);
+
+        return (null == errors.m_list);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Check[] compileChecks(final Object node)
+    {
+        if (false == (node instanceof Map))
+        {
+            return NO_CHECKS;
+        }
+        final Map<String, Object> schema = (Map<String, Object>) node;
+
+        final ArrayList<Check> list = new ArrayList<Check>();
+
+        final Object type = schema.get("type");
+
+        if (type instanceof String)
+        {
+            list.add(new TypeCheck(Collections.singletonList((String) type)));
+        }
+        else if (type instanceof List)
+        {
+            final ArrayList<String> types = new ArrayList<String>();
+
+            for (Object item : (List<Object>) type)
+            {
+                if (item instanceof String)
+                {
+                    types.add((String) item);
+                }
+            }
+            if (false == types.isEmpty())
+            {
+                list.add(new TypeCheck(types));
+            }
+        }
+        if (schema.containsKey("const"))
+        {
+            list.add(new EnumCheck(Collections.singletonList(schema.get("const"))));
+        }
+        final Object enums = schema.get("enum");
+
+        if (enums instanceof List)
+        {
+            list.add(new EnumCheck((List<Object>) enums));
+        }
+        final Check object = ObjectCheck.make(schema);
+
+        if (null != object)
+        {
+            list.add(object);
+        }
+        final Check array = ArrayCheck.make(schema);
+
+        if (null != array)
+        {
+            list.add(array);
+        }
+        final Check string = StringCheck.make(schema);
+
+        if (null != string)
+        {
+            list.add(string);
+        }
+        final Check number = NumberCheck.make(schema);
+
+        if (null != number)
+        {
+            list.add(number);
+        }
+        final Object allof = schema.get("allOf");
+
+        if (allof instanceof List)
+        {
+            for (Object item : (List<Object>) allof)
+            {
+                final Check[] checks = compileChecks(item);
+
+                if (checks.length > 0)
+                {
+                    list.add((value, path, errors) -> checkAll(checks, value, path, errors));
+                }
+            }
+        }
+        final Object anyof = schema.get("anyOf");
+
+        if (anyof instanceof List)
+        {
+            list.add(new CombineCheck("anyOf", compileList((List<Object>) anyof), false));
+        }
+        final Object oneof = schema.get("oneOf");
+
+        if (oneof instanceof List)
+        {
+            list.add(new CombineCheck("oneOf", compileList((List<Object>) oneof), true));
+        }
+        if (schema.containsKey("not"))
+        {
+            final Check[] checks = compileChecks(schema.get("not"));
+
+            list.add((value, path, errors) -> {
+
+                if (matches(checks, value))
+                {
+                    errors.add(path, "must not match schema");
+                }
+            });
+        }
+        return list.toArray(new Check[list.size()]);
+    }
+
+    private static Check[][] compileList(final List<Object> list)
+    {
+        final Check[][] checks = new Check[list.size()][];
+
+        for (int i = 0; i < checks.length; i++)
+        {
+            checks[i] = compileChecks(list.get(i));
+        }
+        return checks;
+    }
+
+    private static boolean isInteger(final Object value)
+    {
+        if ((value instanceof Integer) || (value instanceof Long) || (value instanceof Short) || (value instanceof Byte) || (value instanceof BigInteger))
+        {
+            return true;
+        }
+        if (value instanceof Number)
+        {
+            final double dval = ((Number) value).doubleValue();
+
+            return ((false == Double.isInfinite(dval)) && (dval == Math.rint(dval)));
+        }
+        return false;
+    }
+
+    private static boolean isType(final String type, final Object value)
+    {
+        switch (type)
+        {
+            case "object":
+                return (value instanceof Map);
+            case "array":
+                return (value instanceof List);
+            case "string":
+                return (value instanceof CharSequence);
+            case "integer":
+                return isInteger(value);
+            case "number":
+                return (value instanceof Number);
+            case "boolean":
+                return (value instanceof Boolean);
+            case "null":
+                return (null == value);
+            default:
+                return true;
+        }
+    }
+
+    private static boolean isEqual(final Object a, final Object b)
+    {
+        if ((a instanceof Number) && (b instanceof Number))
+        {
+            return (0 == toDecimal((Number) a).compareTo(toDecimal((Number) b)));
+        }
+        return Objects.equals(a, b);
+    }
+
+    private static BigDecimal toDecimal(final Number value)
+    {
+        if (value instanceof BigDecimal)
+        {
+            return (BigDecimal) value;
+        }
+        if (value instanceof BigInteger)
+        {
+            return new BigDecimal((BigInteger) value);
+        }
+        if ((value instanceof Integer) || (value instanceof Long) || (value instanceof Short) || (value instanceof Byte))
+        {
+            return BigDecimal.valueOf(value.longValue());
+        }
+        return BigDecimal.valueOf(value.doubleValue());
+    }
+
+    private static Integer toSize(final Object value)
+    {
+        if (value instanceof Number)
+        {
+            return Integer.valueOf(((Number) value).intValue());
+        }
+        return null;
+    }
+
+    private static Double toDouble(final Object value)
+    {
+        if (value instanceof Number)
+        {
+            return Double.valueOf(((Number) value).doubleValue());
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private static interface Check
+    {
+        public void check(Object value, Path path, Errors errors);
+    }
+
+    private static final class TypeCheck implements Check
+    {
+        private final String[] m_types;
+
+        TypeCheck(final List<String> types)
+        {
+            m_types = types.toArray(new String[types.size()]);
+        }
+
+        @Override
+        public void check(final Object value, final Path path, final Errors errors)
+        {
+            for (String type : m_types)
+            {
+                if (isType(type, value))
+                {
+                    return;
+                }
+            }
+            errors.add(path, "must be of type " + String.join("|", m_types));
+        }
+    }
+
+    private static final class EnumCheck implements Check
+    {
+        private final List<Object> m_values;
+
+        EnumCheck(final List<Object> values)
+        {
+            m_values = new ArrayList<Object>(values);
+        }
+
+        @Override
+        public void check(final Object value, final Path path, final Errors errors)
+        {
+            for (Object item : m_values)
+            {
+                if (isEqual(item, value))
+                {
+                    return;
+                }
+            }
+            errors.add(path, "must be one of " + m_values);
+        }
+    }
+
+    private static final class ObjectCheck implements Check
+    {
+        private final String[]  m_required;
+
+        private final String[]  m_names;
+
+        private final Check[][] m_properties;
+
+        private final boolean   m_additional;
+
+        private final Check[]   m_others;
+
+        @SuppressWarnings("unchecked")
+        private ObjectCheck(final Map<String, Object> schema)
+        {
+            final Object required = schema.get("required");
+
+            final ArrayList<String> list = new ArrayList<String>();
+
+            if (required instanceof List)
+            {
+                for (Object item : (List<Object>) required)
+                {
+                    if (item instanceof String)
+                    {
+                        list.add((String) item);
+                    }
+                }
+            }
+            m_required = list.toArray(new String[list.size()]);
+
+            final Object properties = schema.get("properties");
+
+            if (properties instanceof Map)
+            {
+                final Map<String, Object> props = (Map<String, Object>) properties;
+
+                m_names = props.keySet().toArray(new String[props.size()]);
+
+                m_properties = new Check[m_names.length][];
+
+                for (int i = 0; i < m_names.length; i++)
+                {
+                    m_properties[i] = compileChecks(props.get(m_names[i]));
+                }
+            }
+            else
+            {
+                m_names = new String[0];
+
+                m_properties = new Check[0][];
+            }
+            final Object additional = schema.get("additionalProperties");
+
+            m_additional = (false == Boolean.FALSE.equals(additional));
+
+            m_others = compileChecks(additional);
+        }
+
+        static Check make(final Map<String, Object> schema)
+        {
+            final ObjectCheck check = new ObjectCheck(schema);
+
+            if ((check.m_required.length > 0) || (false == check.m_additional) || (check.m_others.length > 0))
+            {
+                return check;
+            }
+            for (Check[] checks : check.m_properties)
+            {
+                if (checks.length > 0)
+                {
+                    return check;
+                }
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void check(final Object value, final Path path, final Errors errors)
+        {
+            if (false == (value instanceof Map))
+            {
+                return;
+            }
+            final Map<String, Object> map = (Map<String, Object>) value;
+
+            for (String name : m_required)
+            {
+                if (false == map.containsKey(name))
+                {
+                    errors.add(path, "missing required property " + name);
+                }
+            }
+            for (int i = 0; i < m_names.length; i++)
+            {
+                if (m_properties[i].length > 0)
+                {
+                    final Object item = map.get(m_names[i]);
+
+                    if ((null != item) || (map.containsKey(m_names[i])))
+                    {
+                        checkAll(m_properties[i], item, new Path(path, m_names[i], -1), errors);
+                    }
+                }
+            }
+            if ((false == m_additional) || (m_others.length > 0))
+            {
+                HashSet<String> known = null;
+
+                for (Map.Entry<String, Object> entry : map.entrySet())
+                {
+                    if (null == known)
+                    {
+                        known = new HashSet<String>(m_names.length * 2);
+
+                        Collections.addAll(known, m_names);
+                    }
+                    if (false == known.contains(entry.getKey()))
+                    {
+                        if (false == m_additional)
+                        {
+                            errors.add(path, "unexpected property " + entry.getKey());
+                        }
+                        else
+                        {
+                            checkAll(m_others, entry.getValue(), new Path(path, entry.getKey(), -1), errors);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class ArrayCheck implements Check
+    {
+        private final Integer m_min;
+
+        private final Integer m_max;
+
+        private final Check[] m_items;
+
+        private ArrayCheck(final Map<String, Object> schema)
+        {
+            m_min = toSize(schema.get("minItems"));
+
+            m_max = toSize(schema.get("maxItems"));
+
+            m_items = compileChecks(schema.get("items"));
+        }
+
+        static Check make(final Map<String, Object> schema)
+        {
+            final ArrayCheck check = new ArrayCheck(schema);
+
+            if ((null == check.m_min) && (null == check.m_max) && (0 == check.m_items.length))
+            {
+                return null;
+            }
+            return check;
+        }
+
+        @Override
+        public void check(final Object value, final Path path, final Errors errors)
+        {
+            if (false == (value instanceof List))
+            {
+                return;
+            }
+            final List<?> list = (List<?>) value;
+
+            final int size = list.size();
+
+            if ((null != m_min) && (size < m_min.intValue()))
+            {
+                errors.add(path, "must have at least " + m_min + " items");
+            }
+            if ((null != m_max) && (size > m_max.intValue()))
+            {
+                errors.add(path, "must have at most " + m_max + " items");
+            }
+            if (m_items.length > 0)
+            {
+                for (int i = 0; ((i < size) && (false == errors.isFull())); i++)
+                {
+                    checkAll(m_items, list.get(i), new Path(path, null, i), errors);
+                }
+            }
+        }
+    }
+
+    private static final class StringCheck implements Check
+    {
+        private final Integer m_min;
+
+        private final Integer m_max;
+
+        private final Pattern m_pattern;
+
+        private StringCheck(final Map<String, Object> schema)
+        {
+            m_min = toSize(schema.get("minLength"));
+
+            m_max = toSize(schema.get("maxLength"));
+
+            final Object pattern = schema.get("pattern");
+
+            m_pattern = (pattern instanceof String) ? Pattern.compile((String) pattern) : null;
+        }
+
+        static Check make(final Map<String, Object> schema)
+        {
+            final StringCheck check = new StringCheck(schema);
+
+            if ((null == check.m_min) && (null == check.m_max) && (null == check.m_pattern))
+            {
+                return null;
+            }
+            return check;
+        }
+
+        @Override
+        public void check(final Object value, final Path path, final Errors errors)
+        {
+            if (false == (value instanceof CharSequence))
+            {
+                return;
+            }
+            final CharSequence chars = (CharSequence) value;
+
+            if ((null != m_min) || (null != m_max))
+            {
+                final int size = Character.codePointCount(chars, 0, chars.length());
+
+                if ((null != m_min) && (size < m_min.intValue()))
+                {
+                    errors.add(path, "must be at least " + m_min + " characters");
+                }
+                if ((null != m_max) && (size > m_max.intValue()))
+                {
+                    errors.add(path, "must be at most " + m_max + " characters");
+                }
+            }
+            if ((null != m_pattern) && (false == m_pattern.matcher(chars).find()))
+            {
+                errors.add(path, "must match pattern " + m_pattern.pattern());
+            }
+        }
+    }
+
+    private static final class NumberCheck implements Check
+    {
+        private final Double  m_min;
+
+        private final Double  m_max;
+
+        private final boolean m_exmin;
+
+        private final boolean m_exmax;
+
+        private final Double  m_multiple;
+
+        private NumberCheck(final Map<String, Object> schema)
+        {
+            Double min = toDouble(schema.get("minimum"));
+
+            Double max = toDouble(schema.get("maximum"));
+
+            boolean exmin = Boolean.TRUE.equals(schema.get("exclusiveMinimum"));
+
+            boolean exmax = Boolean.TRUE.equals(schema.get("exclusiveMaximum"));
+
+            final Double dmin = toDouble(schema.get("exclusiveMinimum"));
+
+            if ((null != dmin) && ((null == min) || (dmin.doubleValue() >= min.doubleValue())))
+            {
+                min = dmin;
+
+                exmin = true;
+            }
+            final Double dmax = toDouble(schema.get("exclusiveMaximum"));
+
+            if ((null != dmax) && ((null == max) || (dmax.doubleValue() <= max.doubleValue())))
+            {
+                max = dmax;
+
+                exmax = true;
+            }
+            m_min = min;
+
+            m_max = max;
+
+            m_exmin = exmin;
+
+            m_exmax = exmax;
+
+            final Double multiple = toDouble(schema.get("multipleOf"));
+
+            m_multiple = ((null != multiple) && (multiple.doubleValue() > 0)) ? multiple : null;
+        }
+
+        static Check make(final Map<String, Object> schema)
+        {
+            final NumberCheck check = new NumberCheck(schema);
+
+            if ((null == check.m_min) && (null == check.m_max) && (null == check.m_multiple))
+            {
+                return null;
+            }
+            return check;
+        }
+
+        @Override
+        public void check(final Object value, final Path path, final Errors errors)
+        {
+            if (false == (value instanceof Number))
+            {
+                return;
+            }
+            final double dval = ((Number) value).doubleValue();
+
+            if (null != m_min)
+            {
+                if (m_exmin ? (dval <= m_min.doubleValue()) : (dval < m_min.doubleValue()))
+                {
+                    errors.add(path, "must be " + (m_exmin ? "greater than " : "at least ") + m_min);
+                }
+            }
+            if (null != m_max)
+            {
+                if (m_exmax ? (dval >= m_max.doubleValue()) : (dval > m_max.doubleValue()))
+                {
+                    errors.add(path, "must be " + (m_exmax ? "less than " : "at most ") + m_max);
+                }
+            }
+            if (null != m_multiple)
+            {
+                final double quot = dval / m_multiple.doubleValue();
+
+                if (Math.abs(quot - Math.rint(quot)) > 1.0e-9)
+                {
+                    errors.add(path, "must be a multiple of " + m_multiple);
+                }
+            }
+        }
+    }
+
+    private static final class CombineCheck implements Check
+    {
+        private final String    m_name;
+
+        private final Check[][] m_checks;
+
+        private final boolean   m_single;
+
+        CombineCheck(final String name, final Check[][] checks, final boolean single)
+        {
+            m_name = name;
+
+            m_checks = checks;
+
+            m_single = single;
+        }
+
+        @Override
+        public void check(final Object value, final Path path, final Errors errors)
+        {
+            int count = 0;
+
+            for (Check[] checks : m_checks)
+            {
+                if (matches(checks, value))
+                {
+                    count++;
+
+                    if ((false == m_single) || (count > 1))
+                    {
+                        break;
+                    }
+                }
+            }
+            if (m_single ? (1 != count) : (0 == count))
+            {
+                errors.add(path, "must match " + (m_single ? "exactly one" : "at least one") + " schema of " + m_name);
+            }
+        }
+    }
+
+    /**
+     * Path of a value, only turned into a String when an error is reported.
+     */
+    private static final class Path
+    {
+        private final Path   m_parent;
+
+        private final String m_name;
+
+        private final int    m_index;
+
+        Path(final Path parent, final String name, final int index)
+        {
+            m_parent = parent;
+
+            m_name = name;
+
+            m_index = index;
+        }
+
+        static String toString(final Path path)
+        {
+            if (null == path)
+            {
+                return "$";
+            }
+            final StringBuilder buff = new StringBuilder(toString(path.m_parent));
+
+            if (null != path.m_name)
+            {
+                buff.append('.').append(path.m_name);
+            }
+            else
+            {
+                buff.append('[').append(path.m_index).append(']');
+            }
+            return buff.toString();
+        }
+    }
+
+    private static final class Errors
+    {
+        private final int         m_limit;
+
+        private ArrayList<String> m_list;
+
+        Errors()
+        {
+            this(MAXIMUM_ERRORS);
+        }
+
+        Errors(final int limit)
+        {
+            m_limit = limit;
+        }
+
+        boolean isFull()
+        {
+            return ((null != m_list) && (m_list.size() >= m_limit));
+        }
+
+        void add(final Path path, final String message)
+        {
+            if (false == isFull())
+            {
+                if (null == m_list)
+                {
+                    m_list = new ArrayList<String>();
+                }
+                m_list.add(Path.toString(path) + " " + message);
+            }
+        }
+    }
+}
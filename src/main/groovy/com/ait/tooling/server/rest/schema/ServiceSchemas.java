@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.schema;
+
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import com.ait.tooling.server.core.json.JSONObject;
+import com.ait.tooling.server.core.json.parser.JSONParser;
+import com.ait.tooling.server.rest.IRESTService;
+
+/**
+ * ServiceSchemas - The compiled request and response schemas of one service.
+ */
+public final class ServiceSchemas
+{
+    private static final Logger  logger = Logger.getLogger(ServiceSchemas.class);
+
+    private final CompiledSchema m_request;
+
+    private final CompiledSchema m_response;
+
+    public ServiceSchemas(final CompiledSchema request, final CompiledSchema response)
+    {
+        m_request = request;
+
+        m_response = response;
+    }
+
+    /**
+     * Compiles the schemas a service publishes through {@link IRESTService#getSchemas()}, a schema that cannot be compiled accepts everything.
+     * <p>
+     * The published JSON is read back rather than the JSONSchema objects, so what is validated is exactly what clients are told.
+     */
+    public static ServiceSchemas compile(final IRESTService service)
+    {
+        try
+        {
+            final JSONObject schemas = service.getSchemas();
+
+            if (null == schemas)
+            {
+                return new ServiceSchemas(CompiledSchema.ANY, CompiledSchema.ANY);
+            }
+            final JSONObject object = new JSONParser().parse(schemas.toJSONString());
+
+            return new ServiceSchemas(compile(object.get("request")), compile(object.get("response")));
+        }
+        catch (Exception e)
+        {
+            logger.error("ServiceSchemas.compile(" + service.getName() + ") ERROR ", e);
+        }
+        return new ServiceSchemas(CompiledSchema.ANY, CompiledSchema.ANY);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompiledSchema compile(final Object schema)
+    {
+        if (schema instanceof Map)
+        {
+            return CompiledSchema.compile((Map<String, ?>) schema);
+        }
+        return CompiledSchema.ANY;
+    }
+
+    public CompiledSchema getRequestSchema()
+    {
+        return m_request;
+    }
+
+    public CompiledSchema getResponseSchema()
+    {
+        return m_response;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.log4j.Logger;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.ait.tooling.server.core.security.AuthorizationResult;
+import com.ait.tooling.server.rest.IRESTService;
+
+/**
+ * AuthorizationCache - Memoized authorization results per service and RoleSet.
+ * <p>
+ * Reads never lock. The whole table is dropped when the service registry generation changes, or through {@link #clear()}
+ * when role configuration changes.
+ */
+@ManagedResource
+public class AuthorizationCache
+{
+    private static final Logger                                      logger       = Logger.getLogger(AuthorizationCache.class);
+
+    private boolean                                                  m_enabled    = true;
+
+    private int                                                      m_size       = 65536;
+
+    private volatile long                                            m_generation = Long.MIN_VALUE;
+
+    private volatile ConcurrentHashMap<IRESTService, ServiceResults> m_results    = new ConcurrentHashMap<IRESTService, ServiceResults>();
+
+    private final LongAdder                                          m_hits       = new LongAdder();
+
+    private final LongAdder                                          m_miss       = new LongAdder();
+
+    public AuthorizationCache()
+    {
+    }
+
+    public void setEnabled(final boolean enabled)
+    {
+        m_enabled = enabled;
+    }
+
+    @ManagedAttribute(description = "Get authorization cache enabled.")
+    public boolean isEnabled()
+    {
+        return m_enabled;
+    }
+
+    public void setSize(final int size)
+    {
+        m_size = Math.max(1, size);
+    }
+
+    @ManagedAttribute(description = "Get maximum cached results per service.")
+    public int getSize()
+    {
+        return m_size;
+    }
+
+    public AuthorizationResult get(final IRESTService service, final RoleSet roles, final long generation)
+    {
+        if (false == isEnabled())
+        {
+            return null;
+        }
+        if (generation != m_generation)
+        {
+            synchronized (this)
+            {
+                if (generation != m_generation)
+                {
+                    m_results = new ConcurrentHashMap<IRESTService, ServiceResults>();
+
+                    m_generation = generation;
+                }
+            }
+            m_miss.increment();
+
+            return null;
+        }
+        final ServiceResults results = m_results.get(service);
+
+        if (null != results)
+        {
+            final AuthorizationResult result = results.get(roles);
+
+            if (null != result)
+            {
+                m_hits.increment();
+
+                return result;
+            }
+        }
+        m_miss.increment();
+
+        return null;
+    }
+
+    public void put(final IRESTService service, final RoleSet roles, final AuthorizationResult result)
+    {
+        if ((false == isEnabled()) || (null == result))
+        {
+            return;
+        }
+        final ConcurrentHashMap<IRESTService, ServiceResults> table = m_results;
+
+        ServiceResults results = table.get(service);
+
+        if (null == results)
+        {
+            results = table.computeIfAbsent(service, key -> new ServiceResults());
+        }
+        if (results.size() >= m_size)
+        {
+            results.clear();
+        }
+        results.put(roles, result);
+    }
+
+    @ManagedOperation(description = "Clear all cached authorization results.")
+    public void clear()
+    {
+        m_results = new ConcurrentHashMap<IRESTService, ServiceResults>();
+
+        logger.info("AuthorizationCache.clear()");
+    }
+
+    @ManagedAttribute(description = "Get authorization cache hit count.")
+    public long getHitCount()
+    {
+        return m_hits.sum();
+    }
+
+    @ManagedAttribute(description = "Get authorization cache miss count.")
+    public long getMissCount()
+    {
+        return m_miss.sum();
+    }
+
+    private static final class ServiceResults extends ConcurrentHashMap<RoleSet, AuthorizationResult>
+    {
+        private static final long serialVersionUID = 6410945587223409823L;
+    }
+}
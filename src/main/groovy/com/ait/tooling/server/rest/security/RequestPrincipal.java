@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.security;
+
+import com.ait.tooling.server.core.security.session.IServerSession;
+
+/**
+ * RequestPrincipal - Caller identity resolved once per HTTP request from its session, client token or user headers.
+ */
+public final class RequestPrincipal
+{
+    private final IServerSession m_session;
+
+    private final String         m_userid;
+
+    private final String         m_sessid;
+
+    private final RoleSet        m_roles;
+
+    public RequestPrincipal(final IServerSession session, final String userid, final String sessid, final RoleSet roles)
+    {
+        m_session = session;
+
+        m_userid = userid;
+
+        m_sessid = sessid;
+
+        m_roles = roles;
+    }
+
+    public IServerSession getSession()
+    {
+        return m_session;
+    }
+
+    public String getUserID()
+    {
+        return m_userid;
+    }
+
+    public String getSessionID()
+    {
+        return m_sessid;
+    }
+
+    public RoleSet getRoleSet()
+    {
+        return m_roles;
+    }
+}
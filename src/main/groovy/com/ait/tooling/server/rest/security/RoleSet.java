@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.security;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RoleSet - Immutable, interned set of role names held as a bitset.
+ * <p>
+ * Role names are numbered once, process wide, and equal role lists resolve to the same RoleSet instance,
+ * so role checks are bit tests and RoleSets can be compared and used as map keys by identity.
+ */
+public final class RoleSet
+{
+    private static final int                                      MAXIMUM_INTERNED = 4096;
+
+    private static final AtomicInteger                            ROLE_COUNT       = new AtomicInteger();
+
+    private static final ConcurrentHashMap<String, Integer>       ROLE_INDEX       = new ConcurrentHashMap<String, Integer>();
+
+    private static final ConcurrentHashMap<List<String>, RoleSet> INTERNED         = new ConcurrentHashMap<List<String>, RoleSet>();
+
+    public static final RoleSet                                   EMPTY            = new RoleSet(Collections.<String> emptyList(), new long[0]);
+
+    private final long[]                                          m_bits;
+
+    private final List<String>                                    m_roles;
+
+    private final int                                             m_hash;
+
+    public static RoleSet of(final List<String> roles)
+    {
+        if ((null == roles) || (roles.isEmpty()))
+        {
+            return EMPTY;
+        }
+        RoleSet rset = INTERNED.get(roles);
+
+        if (null != rset)
+        {
+            return rset;
+        }
+        final List<String> copy = Collections.unmodifiableList(new ArrayList<String>(roles));
+
+        long[] bits = new long[0];
+
+        for (String role : copy)
+        {
+            if (null != role)
+            {
+                final int indx = index(role);
+
+                if ((indx >> 6) >= bits.length)
+                {
+                    bits = Arrays.copyOf(bits, (indx >> 6) + 1);
+                }
+                bits[indx >> 6] |= (1L << indx);
+            }
+        }
+        if (INTERNED.size() >= MAXIMUM_INTERNED)
+        {
+            INTERNED.clear();
+        }
+        rset = new RoleSet(copy, bits);
+
+        final RoleSet prev = INTERNED.putIfAbsent(copy, rset);
+
+        return (null == prev) ? rset : prev;
+    }
+
+    private static int index(final String role)
+    {
+        final Integer indx = ROLE_INDEX.get(role);
+
+        if (null != indx)
+        {
+            return indx.intValue();
+        }
+        return ROLE_INDEX.computeIfAbsent(role, name -> ROLE_COUNT.getAndIncrement()).intValue();
+    }
+
+    private RoleSet(final List<String> roles, final long[] bits)
+    {
+        m_bits = bits;
+
+        m_roles = roles;
+
+        m_hash = Arrays.hashCode(bits);
+    }
+
+    public List<String> getRoles()
+    {
+        return m_roles;
+    }
+
+    public boolean isEmpty()
+    {
+        return m_roles.isEmpty();
+    }
+
+    public boolean hasRole(final String role)
+    {
+        if (null == role)
+        {
+            return false;
+        }
+        final Integer indx = ROLE_INDEX.get(role);
+
+        if (null == indx)
+        {
+            return false;
+        }
+        return test(indx.intValue());
+    }
+
+    public boolean hasAnyRole(final String... roles)
+    {
+        if (null != roles)
+        {
+            for (String role : roles)
+            {
+                if (hasRole(role))
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public boolean hasAllRoles(final String... roles)
+    {
+        if (null != roles)
+        {
+            for (String role : roles)
+            {
+                if (false == hasRole(role))
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean test(final int indx)
+    {
+        final int word = indx >> 6;
+
+        return ((word < m_bits.length) && (0L != (m_bits[word] & (1L << indx))));
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return m_hash;
+    }
+
+    @Override
+    public boolean equals(final Object other)
+    {
+        if (this == other)
+        {
+            return true;
+        }
+        if (other instanceof RoleSet)
+        {
+            return Arrays.equals(m_bits, ((RoleSet) other).m_bits);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString()
+    {
+        return m_roles.toString();
+    }
+}
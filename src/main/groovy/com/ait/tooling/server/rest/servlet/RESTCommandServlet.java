@@ -16,9 +16,68 @@
 
 package com.ait.tooling.server.rest.servlet;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.log4j.Logger;
+import org.springframework.http.HttpMethod;
+
+import com.ait.tooling.common.api.java.util.StringOps;
+import com.ait.tooling.server.core.json.JSONArray;
+import com.ait.tooling.server.core.json.JSONObject;
+import com.ait.tooling.server.core.security.AuthorizationResult;
+import com.ait.tooling.server.rest.DetachedRequestContext;
+import com.ait.tooling.server.rest.IRESTService;
+import com.ait.tooling.server.rest.RESTException;
+import com.ait.tooling.server.rest.RESTRequestContext;
+import com.ait.tooling.server.rest.limit.ServiceOverloadedException;
+import com.ait.tooling.server.rest.security.RequestPrincipal;
+import com.ait.tooling.server.rest.support.spring.IServiceRegistry;
+
+/**
+ * RESTCommandServlet - Executes the command named in the request body.
+ * <p>
+ * A body of <code>{"batch": [{"id": "a", "command": "name", "request": {...}, "depends": ["b"]}, ...]}</code> runs several
+ * commands in one round trip. Commands without dependencies run in parallel on the REST async executor, a command
+ * with "depends" starts after the commands with those ids, which must appear earlier in the batch, have succeeded.
+ * The reply is <code>{"batch": [{"id": "a", "result": {...}}, {"id": "b", "error": {"code": 403, "reason": "..."}}]}</code>
+ * in request order, an id defaults to the index of its command.
+ * <p>
+ * Each command gets a {@link DetachedRequestContext} holding copies of the caller's headers and parameters, never the
+ * container's request or response. Commands still running when the batch times out are interrupted, and the reply
+ * waits a bounded grace period for them to return. A command that ignores the interrupt is answered with 503 and
+ * left to finish on its executor thread, it can no longer touch the request or the reply.
+ */
 public class RESTCommandServlet extends RESTServlet
 {
-    private static final long serialVersionUID = -4306870300451480785L;
+    private static final long   serialVersionUID       = -4306870300451480785L;
+
+    private static final Logger logger                 = Logger.getLogger(RESTCommandServlet.class);
+
+    public static final int     DEFAULT_MAX_BATCH_SIZE = 64;
+
+    public static final String  MAX_BATCH_SIZE_PARAM   = "rest.max.batch.size";
+
+    public static final int     SC_FAILED_DEPENDENCY   = 424;
+
+    public static final long    BATCH_CLOSE_WAIT       = 1000L;
+
+    private int                 m_max_batch_size       = DEFAULT_MAX_BATCH_SIZE;
 
     public RESTCommandServlet()
     {
@@ -29,9 +88,403 @@ public class RESTCommandServlet extends RESTServlet
         super(rate);
     }
 
+    @Override
+    public void init() throws ServletException
+    {
+        super.init();
+
+        m_max_batch_size = (int) Math.max(1L, Math.min(Integer.MAX_VALUE, getInitParameterAsLong(MAX_BATCH_SIZE_PARAM, DEFAULT_MAX_BATCH_SIZE)));
+    }
+
     @Override
     protected boolean isCommandInBody()
     {
         return true;
     }
+
+    protected int getMaxBatchSize()
+    {
+        return m_max_batch_size;
+    }
+
+    @Override
+    protected void doService(final HttpServletRequest request, final HttpServletResponse response, final boolean read, final HttpMethod type, JSONObject object) throws ServletException, IOException
+    {
+        if ((read) && (null == object) && (isRunning()))
+        {
+            object = readJSON(request, response, type, getMaxRequestBodySize());
+
+            if (null == object)
+            {
+                return;
+            }
+            if (object.isDefined("batch"))
+            {
+                doBatchService(request, response, type, object);
+
+                return;
+            }
+        }
+        super.doService(request, response, read, type, object);
+    }
+
+    protected void doBatchService(final HttpServletRequest request, final HttpServletResponse response, final HttpMethod type, final JSONObject object) throws IOException
+    {
+        final JSONArray batch = object.getAsArray("batch");
+
+        if ((null == batch) || (batch.isEmpty()))
+        {
+            logger.error("empty batch found");
+
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+
+            return;
+        }
+        if (batch.size() > getMaxBatchSize())
+        {
+            logger.error("batch size " + batch.size() + " exceeds " + getMaxBatchSize());
+
+            response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+
+            return;
+        }
+        final RequestPrincipal principal = getRequestPrincipal(request, response);
+
+        if (null == principal)
+        {
+            return;
+        }
+        final int size = batch.size();
+
+        final String[] ids = new String[size];
+
+        final String[] names = new String[size];
+
+        final HashMap<String, Integer> find = new HashMap<String, Integer>(size * 2);
+
+        final ArrayList<CompletableFuture<JSONObject>> futures = new ArrayList<CompletableFuture<JSONObject>>(size);
+
+        final IServiceRegistry registry = getRESTContext().getServiceRegistry();
+
+        final JSONObject headers = getJSONHeadersFromRequest(request);
+
+        final JSONObject params = getJSONParametersFromRequest(request);
+
+        final BatchTracker tracker = new BatchTracker();
+
+        for (int i = 0; i < size; i++)
+        {
+            final Object item = batch.get(i);
+
+            ids[i] = String.valueOf(i);
+
+            if (item instanceof JSONObject)
+            {
+                final JSONObject command = (JSONObject) item;
+
+                if (command.isDefined("id"))
+                {
+                    ids[i] = StringOps.toTrimOrElse(String.valueOf(command.get("id")), ids[i]);
+                }
+                names[i] = StringOps.toTrimOrNull(command.getAsString("command"));
+
+                if (find.containsKey(ids[i]))
+                {
+                    futures.add(failed(new RESTException("duplicate batch id " + ids[i], HttpServletResponse.SC_BAD_REQUEST)));
+                }
+                else
+                {
+                    futures.add(doBatchCommand(tracker, type, registry, principal, headers, params, command, names[i], find, futures));
+                }
+                find.putIfAbsent(ids[i], i);
+            }
+            else
+            {
+                futures.add(failed(new RESTException("batch item " + i + " is not an object", HttpServletResponse.SC_BAD_REQUEST)));
+            }
+        }
+        try
+        {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[size])).get(getAsyncTimeout(), TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException | TimeoutException e)
+        {
+            // individual failures and timeouts are reported per command below
+        }
+        final int left = tracker.close(BATCH_CLOSE_WAIT);
+
+        if (left > 0)
+        {
+            logger.error("batch reply written with " + left + " commands still running");
+        }
+        for (CompletableFuture<JSONObject> future : futures)
+        {
+            // a no-op for finished commands, so a late result can not change a reply already decided
+
+            future.completeExceptionally(new RESTException("service timed out", HttpServletResponse.SC_SERVICE_UNAVAILABLE));
+        }
+        final JSONArray results = new JSONArray();
+
+        for (int i = 0; i < size; i++)
+        {
+            final JSONObject result = new JSONObject("id", ids[i]);
+
+            try
+            {
+                result.set("result", futures.get(i).join());
+            }
+            catch (CompletionException | CancellationException e)
+            {
+                result.set("error", getBatchError(names[i], (null != e.getCause()) ? e.getCause() : e));
+            }
+            results.add(result);
+        }
+        writeJSON(HttpServletResponse.SC_OK, request, response, new JSONObject("batch", results), isStrict(request.getHeader(X_STRICT_JSON_FORMAT_HEADER)), false, null);
+    }
+
+    private CompletableFuture<JSONObject> doBatchCommand(final BatchTracker tracker, final HttpMethod type, final IServiceRegistry registry, final RequestPrincipal principal, final JSONObject headers, final JSONObject params, final JSONObject command, final String name, final HashMap<String, Integer> find, final ArrayList<CompletableFuture<JSONObject>> futures)
+    {
+        if (null == name)
+        {
+            return failed(new RESTException("no command key found", HttpServletResponse.SC_BAD_REQUEST));
+        }
+        IRESTService service = registry.getService(name);
+
+        if (null == service)
+        {
+            service = registry.getBinding(name);
+        }
+        if (null == service)
+        {
+            return failed(new RESTException("service or binding not found " + name, HttpServletResponse.SC_NOT_FOUND));
+        }
+        if (type != service.getRequestMethodType())
+        {
+            return failed(new RESTException("service " + name + " not type " + type, HttpServletResponse.SC_METHOD_NOT_ALLOWED));
+        }
+        final JSONObject object = command.getAsObject("request");
+
+        if (null == object)
+        {
+            return failed(new RESTException("no request key found", HttpServletResponse.SC_BAD_REQUEST));
+        }
+        final AuthorizationResult resp = getAuthorizationResult(registry, service, principal.getRoleSet());
+
+        if (false == resp.isAuthorized())
+        {
+            logger.error("service authorization failed " + name + " for user " + StringOps.toTrimOrElse(principal.getUserID(), UNKNOWN_USER) + " code " + resp.getText());
+
+            return failed(new RESTException("unauthorized " + resp.getText(), HttpServletResponse.SC_FORBIDDEN));
+        }
+        final ArrayList<CompletableFuture<JSONObject>> needs = new ArrayList<CompletableFuture<JSONObject>>();
+
+        if (command.isDefined("depends"))
+        {
+            final JSONArray depends = command.getAsArray("depends");
+
+            if (null != depends)
+            {
+                for (Object need : depends)
+                {
+                    final Integer indx = find.get(String.valueOf(need));
+
+                    if (null == indx)
+                    {
+                        return failed(new RESTException("unknown or later batch dependency " + need, HttpServletResponse.SC_BAD_REQUEST));
+                    }
+                    needs.add(futures.get(indx));
+                }
+            }
+        }
+        final RESTRequestContext context = new DetachedRequestContext(principal.getSession(), principal.getUserID(), principal.getSessionID(), resp.isAdmin(), principal.getRoleSet(), getServletContext(), type, headers, params);
+
+        final IRESTService target = service;
+
+        final Supplier<JSONObject> task = () -> {
+
+            final long time = System.nanoTime();
+
+            try
+            {
+                final JSONObject result = execute(target, context, object);
+
+                recordServiceTime(name, HttpServletResponse.SC_OK, time);
+
+                return result;
+            }
+            catch (RESTException e)
+            {
+                recordServiceTime(name, e.getCode(), time);
+
+                throw new CompletionException(e);
+            }
+            catch (Exception e)
+            {
+                recordServiceTime(name, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, time);
+
+                throw new CompletionException(e);
+            }
+        };
+        if (needs.isEmpty())
+        {
+            return submit(tracker, name, task);
+        }
+        return CompletableFuture.allOf(needs.toArray(new CompletableFuture<?>[needs.size()])).handle((done, thrown) -> thrown).thenCompose(thrown -> {
+
+            if (null != thrown)
+            {
+                return failed(new RESTException("failed dependency for " + name, SC_FAILED_DEPENDENCY));
+            }
+            return submit(tracker, name, task);
+        });
+    }
+
+    private CompletableFuture<JSONObject> submit(final BatchTracker tracker, final String name, final Supplier<JSONObject> task)
+    {
+        final Executor executor = getRESTContext().getAsyncExecutor();
+
+        final CompletableFuture<JSONObject> future = new CompletableFuture<JSONObject>();
+
+        try
+        {
+            executor.execute(() -> {
+
+                if (false == tracker.begin())
+                {
+                    future.completeExceptionally(new RESTException("service timed out", HttpServletResponse.SC_SERVICE_UNAVAILABLE));
+
+                    return;
+                }
+                try
+                {
+                    future.complete(task.get());
+                }
+                catch (CompletionException e)
+                {
+                    future.completeExceptionally((null != e.getCause()) ? e.getCause() : e);
+                }
+                catch (Throwable e)
+                {
+                    future.completeExceptionally(e);
+                }
+                finally
+                {
+                    tracker.end();
+                }
+            });
+            return future;
+        }
+        catch (RejectedExecutionException e)
+        {
+            logger.error("async executor rejected batch command " + name);
+
+            return failed(new RESTException("async executor rejected " + name, HttpServletResponse.SC_SERVICE_UNAVAILABLE));
+        }
+    }
+
+    private JSONObject getBatchError(final String name, final Throwable e)
+    {
+        if (e instanceof RESTException)
+        {
+            final RESTException rest = (RESTException) e;
+
+            if (e instanceof ServiceOverloadedException)
+            {
+                return new JSONObject("code", rest.getCode()).set("reason", rest.getReason()).set("retry_after", ((ServiceOverloadedException) e).getRetryAfterSeconds());
+            }
+            return new JSONObject("code", rest.getCode()).set("reason", rest.getReason());
+        }
+        final String oops = "calling " + name + " error uuid " + getRESTContext().uuid();
+
+        logger.error(oops, e);
+
+        return new JSONObject("code", HttpServletResponse.SC_INTERNAL_SERVER_ERROR).set("reason", oops);
+    }
+
+    private static CompletableFuture<JSONObject> failed(final Throwable e)
+    {
+        final CompletableFuture<JSONObject> future = new CompletableFuture<JSONObject>();
+
+        future.completeExceptionally(e);
+
+        return future;
+    }
+
+    /**
+     * Counts the commands of one batch running on executor threads. After close() no command starts, and close() waits
+     * at most the given milliseconds for the running ones, which it interrupts, to return.
+     */
+    private static final class BatchTracker
+    {
+        private final HashSet<Thread> m_threads = new HashSet<Thread>();
+
+        private boolean               m_closed  = false;
+
+        synchronized boolean begin()
+        {
+            if (m_closed)
+            {
+                return false;
+            }
+            m_threads.add(Thread.currentThread());
+
+            return true;
+        }
+
+        synchronized void end()
+        {
+            m_threads.remove(Thread.currentThread());
+
+            if (m_closed)
+            {
+                // the interrupt was meant for the command, not for the next task of this pooled thread
+
+                Thread.interrupted();
+            }
+            notifyAll();
+        }
+
+        /**
+         * Returns the count of commands still running when the wait ran out, they are no longer waited for.
+         */
+        synchronized int close(final long wait)
+        {
+            m_closed = true;
+
+            for (Thread thread : m_threads)
+            {
+                thread.interrupt();
+            }
+            boolean interrupted = false;
+
+            final long ends = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(wait);
+
+            while (false == m_threads.isEmpty())
+            {
+                final long remaining = TimeUnit.NANOSECONDS.toMillis(ends - System.nanoTime());
+
+                if (remaining <= 0L)
+                {
+                    break;
+                }
+                try
+                {
+                    wait(remaining);
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+            return m_threads.size();
+        }
+    }
 }
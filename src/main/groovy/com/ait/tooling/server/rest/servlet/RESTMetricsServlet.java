@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.servlet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.log4j.Logger;
+
+import com.ait.tooling.server.core.servlet.HTTPServletBase;
+import com.ait.tooling.server.rest.metrics.ServiceLatencyMetrics;
+import com.ait.tooling.server.rest.support.spring.RESTContextInstance;
+
+/**
+ * RESTMetricsServlet - Serves the IRESTService latency histograms in the Prometheus text exposition format.
+ */
+public class RESTMetricsServlet extends HTTPServletBase
+{
+    private static final long   serialVersionUID             = -3518870046151902741L;
+
+    private static final Logger logger                       = Logger.getLogger(RESTMetricsServlet.class);
+
+    public static final String  CONTENT_TYPE_PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    public RESTMetricsServlet()
+    {
+    }
+
+    protected RESTMetricsServlet(final double rate)
+    {
+        super(rate);
+    }
+
+    @Override
+    public void doGet(final HttpServletRequest request, final HttpServletResponse response) throws ServletException, IOException
+    {
+        doNoCache(response);
+
+        if (false == isRunning())
+        {
+            logger.error("server is suspended, refused request");
+
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+
+            return;
+        }
+        final StringBuilder buff = new StringBuilder(8192);
+
+        final ServiceLatencyMetrics metrics = RESTContextInstance.getRESTContextInstance().getServiceRegistry().getLatencyMetrics();
+
+        if (null != metrics)
+        {
+            metrics.writePrometheus(buff);
+        }
+
+        final byte[] body = buff.toString().getBytes(StandardCharsets.UTF_8);
+
+        response.setStatus(HttpServletResponse.SC_OK);
+
+        response.setContentType(CONTENT_TYPE_PROMETHEUS_TEXT);
+
+        response.setContentLength(body.length);
+
+        response.getOutputStream().write(body);
+    }
+}
@@ -17,8 +17,17 @@
 package com.ait.tooling.server.rest.servlet;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -27,7 +36,6 @@ import org.apache.log4j.Logger;
 import org.springframework.http.HttpMethod;
 
 import com.ait.tooling.common.api.java.util.StringOps;
-import com.ait.tooling.server.core.io.NoSyncBufferedWriter;
 import com.ait.tooling.server.core.json.JSONObject;
 import com.ait.tooling.server.core.json.ParserException;
 import com.ait.tooling.server.core.json.parser.JSONParser;
@@ -36,17 +44,115 @@ import com.ait.tooling.server.core.security.session.IServerSession;
 import com.ait.tooling.server.core.security.session.IServerSessionHelper;
 import com.ait.tooling.server.core.security.session.IServerSessionRepository;
 import com.ait.tooling.server.core.servlet.HTTPServletBase;
+import com.ait.tooling.server.rest.IAsyncRESTService;
+import com.ait.tooling.server.rest.IIngestRESTService;
 import com.ait.tooling.server.rest.IRESTService;
+import com.ait.tooling.server.rest.IStreamingRESTService;
 import com.ait.tooling.server.rest.RESTException;
 import com.ait.tooling.server.rest.RESTRequestContext;
+import com.ait.tooling.server.rest.RESTRequestParameters;
+import com.ait.tooling.server.rest.cache.CachedResponse;
+import com.ait.tooling.server.rest.cache.IIdempotencyStore;
+import com.ait.tooling.server.rest.cache.RequestCoalescer;
+import com.ait.tooling.server.rest.cache.ResponseCacheManager;
+import com.ait.tooling.server.rest.codec.IRESTCodec;
+import com.ait.tooling.server.rest.codec.RESTCodecRegistry;
+import com.ait.tooling.server.rest.ingest.IngestBatcher;
+import com.ait.tooling.server.rest.ingest.IngestResult;
+import com.ait.tooling.server.rest.ingest.NDJSONRecordReader;
+import com.ait.tooling.server.rest.ingest.NDJSONRecordReader.RecordTooLargeException;
+import com.ait.tooling.server.rest.io.BoundedInputStream;
+import com.ait.tooling.server.rest.io.CompressionPolicy;
+import com.ait.tooling.server.rest.io.JSONResponseBuffer;
+import com.ait.tooling.server.rest.io.JSONStreamFormat;
+import com.ait.tooling.server.rest.io.JSONStreamWriter;
+import com.ait.tooling.server.rest.io.ResponseDeflater;
+import com.ait.tooling.server.rest.limit.ConcurrencyLimiter;
+import com.ait.tooling.server.rest.limit.ConcurrencyLimiterManager;
+import com.ait.tooling.server.rest.limit.RateLimiterManager;
+import com.ait.tooling.server.rest.limit.ServiceOverloadedException;
+import com.ait.tooling.server.rest.limit.ServiceRateLimiter;
+import com.ait.tooling.server.rest.log.AccessLog;
+import com.ait.tooling.server.rest.metrics.ServiceLatencyMetrics;
+import com.ait.tooling.server.rest.routing.RequestRouteMatch;
+import com.ait.tooling.server.rest.security.AuthorizationCache;
+import com.ait.tooling.server.rest.security.RequestPrincipal;
+import com.ait.tooling.server.rest.security.RoleSet;
+import com.ait.tooling.server.rest.session.ClientTokenSessionCache;
+import com.ait.tooling.server.rest.session.ServerSessionNearCache;
 import com.ait.tooling.server.rest.support.spring.IRESTContext;
+import com.ait.tooling.server.rest.support.spring.IServiceRegistry;
 import com.ait.tooling.server.rest.support.spring.RESTContextInstance;
+import com.google.common.cache.Cache;
+import com.google.common.hash.Hashing;
 
 public class RESTServlet extends HTTPServletBase
 {
-    private static final long   serialVersionUID = 8890049936686095786L;
+    private static final long                            serialVersionUID                = 8890049936686095786L;
+
+    private static final Logger                          logger                          = Logger.getLogger(RESTServlet.class);
+
+    public static final long                             DEFAULT_MAX_REQUEST_BODY_SIZE   = 16L * 1024L * 1024L;
+
+    public static final String                           MAX_REQUEST_BODY_SIZE_PARAM     = "rest.max.request.body.size";
+
+    private static final String                          RESULT_PREFIX                   = "{\"result\":";
+
+    private static final RequestPrincipal                ANONYMOUS                       = new RequestPrincipal(null, null, null, RoleSet.of(IServerSessionHelper.SP_DEFAULT_ROLES_LIST));
+
+    private static final ThreadLocal<JSONParser>         JSON_PARSER                     = ThreadLocal.withInitial(JSONParser::new);
+
+    private static final ThreadLocal<BoundedInputStream> BOUNDED_STREAM                  = ThreadLocal.withInitial(BoundedInputStream::new);
+
+    public static final String                           RESPONSE_STREAM_THRESHOLD_PARAM = "rest.response.stream.threshold";
+
+    protected static final String                        CHARSET_UTF_8                   = "UTF-8";
+
+    protected static final String                        RETRY_AFTER                     = "Retry-After";
+
+    protected static final String                        ETAG                            = "ETag";
+
+    protected static final String                        IF_NONE_MATCH                   = "If-None-Match";
+
+    protected static final String                        CACHE_CONTROL                   = "Cache-Control";
+
+    protected static final String                        ACCEPT                          = "Accept";
+
+    protected static final String                        ACCEPT_ENCODING                 = "Accept-Encoding";
+
+    protected static final String                        VARY                            = "Vary";
+
+    protected static final String                        IDEMPOTENCY_KEY                 = "Idempotency-Key";
+
+    protected static final String                        IDEMPOTENT_REPLAYED             = "Idempotent-Replayed";
+
+    public static final int                              MAX_IDEMPOTENCY_KEY_LENGTH      = 255;
+
+    public static final int                              SC_UNPROCESSABLE_ENTITY         = 422;
+
+    public static final String                           COMPRESSION_THRESHOLD_PARAM     = "rest.compression.threshold";
+
+    public static final String                           COMPRESSION_LEVEL_PARAM         = "rest.compression.level";
+
+    public static final String                           STREAM_FLUSH_INTERVAL_PARAM     = "rest.stream.flush.interval";
+
+    public static final long                             DEFAULT_STREAM_FLUSH_INTERVAL   = 1000L;
+
+    protected static final String                        ACCESS_BINDING_ATTRIBUTE        = RESTServlet.class.getName() + ".binding";
+
+    protected static final String                        ACCESS_USER_ATTRIBUTE           = RESTServlet.class.getName() + ".user";
+
+    protected static final String                        ACCESS_ASYNC_ATTRIBUTE          = RESTServlet.class.getName() + ".async";
+
+    private long                                         m_max_body_size                 = DEFAULT_MAX_REQUEST_BODY_SIZE;
+
+    private int                                          m_stream_threshold              = JSONResponseBuffer.DEFAULT_THRESHOLD;
+
+    private int                                          m_compress_threshold            = CompressionPolicy.DEFAULT_THRESHOLD;
+
+    private int                                          m_compress_level                = CompressionPolicy.DEFAULT_LEVEL;
 
-    private static final Logger logger           = Logger.getLogger(RESTServlet.class);
+    private long                                         m_stream_interval               = DEFAULT_STREAM_FLUSH_INTERVAL;
 
     public RESTServlet()
     {
@@ -57,6 +163,40 @@ public class RESTServlet extends HTTPServletBase
         super(rate);
     }
 
+    @Override
+    public void init() throws ServletException
+    {
+        super.init();
+
+        m_max_body_size = getInitParameterAsLong(MAX_REQUEST_BODY_SIZE_PARAM, DEFAULT_MAX_REQUEST_BODY_SIZE);
+
+        m_stream_threshold = (int) Math.min(Integer.MAX_VALUE, getInitParameterAsLong(RESPONSE_STREAM_THRESHOLD_PARAM, JSONResponseBuffer.DEFAULT_THRESHOLD));
+
+        m_compress_threshold = (int) Math.max(-1L, Math.min(Integer.MAX_VALUE, getInitParameterAsLong(COMPRESSION_THRESHOLD_PARAM, CompressionPolicy.DEFAULT_THRESHOLD)));
+
+        m_compress_level = (int) Math.max(0L, Math.min(Deflater.BEST_COMPRESSION, getInitParameterAsLong(COMPRESSION_LEVEL_PARAM, CompressionPolicy.DEFAULT_LEVEL)));
+
+        m_stream_interval = Math.max(0L, getInitParameterAsLong(STREAM_FLUSH_INTERVAL_PARAM, DEFAULT_STREAM_FLUSH_INTERVAL));
+    }
+
+    protected long getInitParameterAsLong(final String name, final long otherwise)
+    {
+        final String valu = StringOps.toTrimOrNull(getInitParameter(name));
+
+        if (null != valu)
+        {
+            try
+            {
+                return Long.parseLong(valu);
+            }
+            catch (NumberFormatException e)
+            {
+                logger.error("invalid init parameter " + name + "=" + valu);
+            }
+        }
+        return otherwise;
+    }
+
     @Override
     public void doHead(final HttpServletRequest request, final HttpServletResponse response) throws ServletException, IOException
     {
@@ -70,7 +210,7 @@ public class RESTServlet extends HTTPServletBase
     @Override
     public void doGet(final HttpServletRequest request, final HttpServletResponse response) throws ServletException, IOException
     {
-        doService(request, response, false, HttpMethod.GET, getJSONParametersFromRequest(request));
+        doService(request, response, false, HttpMethod.GET, RESTRequestParameters.of(request));
     }
 
     @Override
@@ -108,9 +248,17 @@ public class RESTServlet extends HTTPServletBase
         }
         if (read)
         {
-            object = parseJSON(request, type);
+            if ((isCommandInBody()) && (null == object))
+            {
+                object = readJSON(request, response, type, getMaxRequestBodySize());
+
+                if (null == object)
+                {
+                    return;
+                }
+            }
         }
-        if (null == object)
+        else if (null == object)
         {
             logger.error("passed body is not a JSONObject");
 
@@ -122,6 +270,12 @@ public class RESTServlet extends HTTPServletBase
 
         boolean irpc = false;
 
+        IRESTService service = null;
+
+        RequestRouteMatch route = null;
+
+        final IServiceRegistry registry = getRESTContext().getServiceRegistry();
+
         if ((read) && isCommandInBody())
         {
             irpc = true;
@@ -136,51 +290,73 @@ public class RESTServlet extends HTTPServletBase
 
                 return;
             }
+            service = registry.getService(name);
+
+            if (null == service)
+            {
+                service = registry.getBinding(name);
+            }
         }
         else
         {
-            name = StringOps.toTrimOrNull(request.getPathInfo());
+            final String path = request.getPathInfo();
+
+            route = registry.getRoute(path);
 
-            if (null != name)
+            if (null != route)
             {
-                int indx = name.indexOf("/");
+                service = route.getService();
+
+                name = route.getRequestBinding();
+
+                irpc = (path.indexOf(".rpc") >= 0);
+            }
+            else
+            {
+                name = StringOps.toTrimOrNull(path);
 
-                if (indx >= 0)
-                {
-                    name = StringOps.toTrimOrNull(name.substring(indx + 1));
-                }
                 if (null != name)
                 {
-                    if (name.contains(".rpc"))
+                    int indx = name.indexOf("/");
+
+                    if (indx >= 0)
+                    {
+                        name = StringOps.toTrimOrNull(name.substring(indx + 1));
+                    }
+                    if (null != name)
                     {
-                        irpc = true;
+                        if (name.contains(".rpc"))
+                        {
+                            irpc = true;
+                        }
+                        name = getRESTContext().fixRequestBinding(name);
                     }
-                    name = getRESTContext().fixRequestBinding(name);
                 }
-            }
-            if (null == name)
-            {
-                logger.error("empty service path found");
+                if (null == name)
+                {
+                    logger.error("empty service path found");
 
-                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                    response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
 
-                return;
+                    return;
+                }
+                service = registry.getService(name);
+
+                if (null == service)
+                {
+                    service = registry.getBinding(name);
+                }
             }
         }
-        IRESTService service = getRESTContext().getService(name);
+        request.setAttribute(ACCESS_BINDING_ATTRIBUTE, name);
 
         if (null == service)
         {
-            service = getRESTContext().getBinding(name);
-
-            if (null == service)
-            {
-                logger.error("service or binding not found " + name);
+            logger.error("service or binding not found " + name);
 
-                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
 
-                return;
-            }
+            return;
         }
         if (type != service.getRequestMethodType())
         {
@@ -190,7 +366,29 @@ public class RESTServlet extends HTTPServletBase
 
             return;
         }
-        if ((read) && (irpc))
+        boolean ingest = false;
+
+        if ((read) && (false == isCommandInBody()))
+        {
+            if ((service instanceof IIngestRESTService) && (JSONStreamFormat.isNDJSON(request.getContentType())))
+            {
+                ingest = true;
+
+                object = RESTRequestParameters.of(request);
+            }
+            else
+            {
+                final long limit = service.getMaxRequestBodySize();
+
+                object = readJSON(request, response, type, (limit >= 0) ? limit : getMaxRequestBodySize());
+
+                if (null == object)
+                {
+                    return;
+                }
+            }
+        }
+        if ((read) && (irpc) && (false == ingest))
         {
             if (false == object.isDefined("request"))
             {
@@ -211,6 +409,131 @@ public class RESTServlet extends HTTPServletBase
                 return;
             }
         }
+        final String strict = StringOps.toTrimOrNull(request.getHeader(X_STRICT_JSON_FORMAT_HEADER));
+
+        final RequestPrincipal principal = getRequestPrincipal(request, response);
+
+        if (null == principal)
+        {
+            return;
+        }
+        request.setAttribute(ACCESS_USER_ATTRIBUTE, principal.getUserID());
+
+        final RoleSet rset = principal.getRoleSet();
+
+        final AuthorizationResult resp = getAuthorizationResult(registry, service, rset);
+
+        if (false == resp.isAuthorized())
+        {
+            String userid = principal.getUserID();
+
+            if (null == userid)
+            {
+                userid = UNKNOWN_USER;
+            }
+            logger.error("service authorization failed " + name + " for user " + userid + " code " + resp.getText());
+
+            response.addHeader(WWW_AUTHENTICATE, "unauthorized " + resp.getText());
+
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+
+            return;
+        }
+        final RESTRequestContext context = new RESTRequestContext(principal.getSession(), principal.getUserID(), principal.getSessionID(), resp.isAdmin(), rset, getServletContext(), request, response, type, route);
+
+        if ((false == ingest) && (service instanceof IAsyncRESTService) && (request.isAsyncSupported()))
+        {
+            doAsyncService(request, response, (IAsyncRESTService) service, context, object, name, irpc, isStrict(strict));
+
+            return;
+        }
+        final String path = getRequestPath(request, route, name);
+
+        final long time = System.nanoTime();
+
+        try
+        {
+            if (ingest)
+            {
+                recordServiceTime(name, doIngestService(request, response, (IIngestRESTService) service, context, object, name, isStrict(strict)), time);
+
+                return;
+            }
+            if (service instanceof IStreamingRESTService)
+            {
+                recordServiceTime(name, doStreamingService(request, response, (IStreamingRESTService) service, context, object, name, irpc, isStrict(strict)), time);
+
+                return;
+            }
+            if ((HttpMethod.GET == type) && (false == irpc))
+            {
+                if ((null != service.getResponseCachePolicy()) && (null != getRESTContext().getResponseCacheManager()))
+                {
+                    recordServiceTime(name, doCachedService(request, response, service, context, object, path, rset.getRoles(), isStrict(strict)), time);
+
+                    return;
+                }
+                if ((null != service.getCoalescePolicy()) && (null != getRESTContext().getRequestCoalescer()))
+                {
+                    recordServiceTime(name, doCoalescedService(request, response, service, context, object, path, isStrict(strict)), time);
+
+                    return;
+                }
+            }
+            if ((HttpMethod.POST == type) || (HttpMethod.PUT == type) || (HttpMethod.PATCH == type))
+            {
+                final String ikey = StringOps.toTrimOrNull(request.getHeader(IDEMPOTENCY_KEY));
+
+                if ((null != ikey) && (null != getRESTContext().getIdempotencyStore()))
+                {
+                    recordServiceTime(name, doIdempotentService(request, response, service, context, object, path, ikey, irpc, isStrict(strict)), time);
+
+                    return;
+                }
+            }
+            final JSONObject result = execute(service, context, object);
+
+            writeResult(context, service, response, result, irpc, isStrict(strict));
+
+            recordServiceTime(name, HttpServletResponse.SC_OK, time);
+        }
+        catch (Throwable e)
+        {
+            recordServiceTime(name, writeFailure(context, response, name, e, isStrict(strict)), time);
+        }
+    }
+
+    /**
+     * Returns the binding shared responses are keyed on, the concrete request path for a templated route, so /orders/1 and
+     * /orders/2 never share a response.
+     */
+    protected String getRequestPath(final HttpServletRequest request, final RequestRouteMatch route, final String name)
+    {
+        if ((null != route) && (route.isTemplate()))
+        {
+            final String path = StringOps.toTrimOrNull(request.getPathInfo());
+
+            if (null != path)
+            {
+                return path;
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Returns the session repository of this servlet's session provider domain, or null if sessions are not used.
+     */
+    protected IServerSessionRepository getServerSessionRepository()
+    {
+        return getRESTContext().getServerSessionRepository(getSessionProviderDomainName());
+    }
+
+    /**
+     * Resolves the caller from X-Session-ID, X-Client-API-Token or X-User-ID, on failure the response status is set and null is returned.
+     */
+    protected RequestPrincipal getRequestPrincipal(final HttpServletRequest request, final HttpServletResponse response)
+    {
         IServerSession session = null;
 
         List<String> uroles = IServerSessionHelper.SP_DEFAULT_ROLES_LIST;
@@ -221,15 +544,15 @@ public class RESTServlet extends HTTPServletBase
 
         String ctoken = StringOps.toTrimOrNull(request.getHeader(X_CLIENT_API_TOKEN_HEADER));
 
-        String strict = StringOps.toTrimOrNull(request.getHeader(X_STRICT_JSON_FORMAT_HEADER));
-
         if (null != sessid)
         {
-            final IServerSessionRepository repository = getRESTContext().getServerSessionRepository(getSessionProviderDomainName());
+            final IServerSessionRepository repository = getServerSessionRepository();
 
             if (null != repository)
             {
-                session = repository.getSession(sessid);
+                final ServerSessionNearCache cache = getRESTContext().getSessionNearCache();
+
+                session = (null != cache) ? cache.getSession(repository, sessid) : repository.getSession(sessid);
 
                 if (null == session)
                 {
@@ -239,17 +562,21 @@ public class RESTServlet extends HTTPServletBase
 
                     response.setStatus(HttpServletResponse.SC_FORBIDDEN);
 
-                    return;
+                    return null;
                 }
                 if (session.isExpired())
                 {
+                    if (null != cache)
+                    {
+                        cache.invalidate(sessid);
+                    }
                     logger.error("expired session " + sessid);
 
                     response.addHeader(WWW_AUTHENTICATE, "expired session " + sessid);
 
                     response.setStatus(HttpServletResponse.SC_FORBIDDEN);
 
-                    return;
+                    return null;
                 }
                 uroles = session.getRoles();
 
@@ -260,11 +587,13 @@ public class RESTServlet extends HTTPServletBase
         }
         else if (null != ctoken)
         {
-            final IServerSessionRepository repository = getRESTContext().getServerSessionRepository(getSessionProviderDomainName());
+            final IServerSessionRepository repository = getServerSessionRepository();
 
             if (null != repository)
             {
-                session = repository.createSession(new JSONObject(X_CLIENT_API_TOKEN_HEADER, ctoken));
+                final ClientTokenSessionCache cache = getRESTContext().getClientTokenSessionCache();
+
+                session = (null != cache) ? cache.getSession(repository, ctoken) : repository.createSession(new JSONObject(X_CLIENT_API_TOKEN_HEADER, ctoken));
 
                 if (null == session)
                 {
@@ -274,17 +603,23 @@ public class RESTServlet extends HTTPServletBase
 
                     response.setStatus(HttpServletResponse.SC_FORBIDDEN);
 
-                    return;
+                    return null;
                 }
                 if (session.isExpired())
                 {
-                    logger.error("expired session " + sessid);
+                    if (null != cache)
+                    {
+                        cache.invalidate(ctoken);
+                    }
+                    final String expired = StringOps.toTrimOrElse(session.getId(), ctoken);
 
-                    response.addHeader(WWW_AUTHENTICATE, "expired session " + sessid);
+                    logger.error("expired session " + expired);
+
+                    response.addHeader(WWW_AUTHENTICATE, "expired session " + expired);
 
                     response.setStatus(HttpServletResponse.SC_FORBIDDEN);
 
-                    return;
+                    return null;
                 }
                 uroles = session.getRoles();
 
@@ -297,82 +632,968 @@ public class RESTServlet extends HTTPServletBase
         {
             uroles = IServerSessionHelper.SP_DEFAULT_ROLES_LIST;
         }
-        final AuthorizationResult resp = isAuthorized(service, uroles);
-
-        if (false == resp.isAuthorized())
+        if ((null == session) && (null == userid) && (null == sessid) && (uroles == IServerSessionHelper.SP_DEFAULT_ROLES_LIST))
         {
-            if (null == userid)
-            {
-                userid = UNKNOWN_USER;
-            }
-            logger.error("service authorization failed " + name + " for user " + userid + " code " + resp.getText());
-
-            response.addHeader(WWW_AUTHENTICATE, "unauthorized " + resp.getText());
-
-            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
-
-            return;
+            return ANONYMOUS;
         }
-        final RESTRequestContext context = new RESTRequestContext(session, userid, sessid, resp.isAdmin(), uroles, getServletContext(), request, response, type);
-
-        try
-        {
-            final long time = System.nanoTime();
+        return new RequestPrincipal(session, userid, sessid, RoleSet.of(uroles));
+    }
 
-            final long tick = System.currentTimeMillis();
+    /**
+     * Executes a service inside its concurrency limit, a call over the limit that cannot wait is shed with {@link ServiceOverloadedException}.
+     */
+    protected JSONObject execute(final IRESTService service, final RESTRequestContext context, final JSONObject object) throws Exception
+    {
+        validateRequest(service, object);
 
-            service.acquire();
+        final ConcurrencyLimiter limiter = acquire(service);
 
-            final JSONObject result = service.execute(context, object);
+        final long time = System.nanoTime();
 
-            final long fast = System.nanoTime() - time;
+        Throwable thrown = null;
 
-            final long done = System.currentTimeMillis() - tick;
+        try
+        {
+            return validateResponse(service, service.execute(context, object));
+        }
+        catch (Throwable e)
+        {
+            thrown = e;
 
-            if (done < 1)
-            {
-                logger.info("calling service " + name + " took " + fast + " nano's");
-            }
-            else
-            {
-                logger.info("calling service " + name + " took " + done + " ms's");
-            }
-            if (false == context.isClosed())
-            {
-                if (irpc)
-                {
-                    writeJSON(HttpServletResponse.SC_OK, response, new JSONObject("result", result), isStrict(strict));
-                }
-                else
-                {
-                    writeJSON(HttpServletResponse.SC_OK, response, result, isStrict(strict));
-                }
-            }
+            throw e;
         }
-        catch (RESTException e)
+        finally
         {
-            if (false == context.isClosed())
-            {
-                writeJSON(e.getCode(), response, new JSONObject("error", new JSONObject("code", e.getCode()).set("reason", e.getReason())), isStrict(strict));
-            }
+            release(service, limiter, time, thrown);
         }
-        catch (Throwable e)
+    }
+
+    /**
+     * Rejects a request body that does not match the service's compiled request schema with 400, before any limiter permit is taken.
+     * <p>
+     * Query parameters are not validated, their values are all strings and reading them would decode every parameter.
+     */
+    protected void validateRequest(final IRESTService service, final JSONObject object) throws RESTException
+    {
+        if ((null == object) || (object instanceof RESTRequestParameters) || (service instanceof IIngestRESTService))
         {
-            final String oops = "calling " + name + " error uuid " + getRESTContext().uuid();
+            return;
+        }
+        final IServiceRegistry registry = getRESTContext().getServiceRegistry();
 
-            logger.error(oops, e);
+        if (registry.isValidateRequests())
+        {
+            final List<String> errors = registry.getSchemas(service).getRequestSchema().validate(object);
 
-            if (false == context.isClosed())
+            if (false == errors.isEmpty())
             {
-                writeJSON(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, response, new JSONObject("error", new JSONObject("code", HttpServletResponse.SC_INTERNAL_SERVER_ERROR).set("reason", oops)), isStrict(strict));
+                throw new RESTException("invalid request " + errors, HttpServletResponse.SC_BAD_REQUEST);
             }
         }
     }
 
-    protected boolean isStrict(String strict)
+    /**
+     * Fails a response that does not match the service's compiled response schema with 500, only when response validation is switched on.
+     */
+    protected JSONObject validateResponse(final IRESTService service, final JSONObject result) throws RESTException
     {
-        strict = StringOps.toTrimOrNull(strict);
-
+        if (null == result)
+        {
+            return result;
+        }
+        final IServiceRegistry registry = getRESTContext().getServiceRegistry();
+
+        if (registry.isValidateResponses())
+        {
+            final List<String> errors = registry.getSchemas(service).getResponseSchema().validate(result);
+
+            if (false == errors.isEmpty())
+            {
+                logger.error("service " + service.getName() + " invalid response " + errors);
+
+                throw new RESTException("invalid response " + errors, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the call in flight with the registry, then takes a rate permit, without blocking past the wait budget unless
+     * non-blocking mode is off, then a concurrency permit. A service that was replaced or removed meanwhile is answered with 503.
+     */
+    protected ConcurrencyLimiter acquire(final IRESTService service) throws ServiceOverloadedException
+    {
+        final IServiceRegistry registry = getRESTContext().getServiceRegistry();
+
+        if (false == registry.enter(service))
+        {
+            throw new ServiceOverloadedException("service " + service.getName() + " is being replaced", 1L);
+        }
+        try
+        {
+            return acquireLimits(service);
+        }
+        catch (ServiceOverloadedException | RuntimeException e)
+        {
+            registry.leave(service);
+
+            throw e;
+        }
+    }
+
+    private ConcurrencyLimiter acquireLimits(final IRESTService service) throws ServiceOverloadedException
+    {
+        final RateLimiterManager manager = getRESTContext().getRateLimiterManager();
+
+        final ServiceRateLimiter rate = (null != manager) ? manager.getLimiter(service) : null;
+
+        if (null == rate)
+        {
+            service.acquire();
+        }
+        else
+        {
+            final long wait = rate.tryAcquire(manager.getWaitBudgetNanos());
+
+            if (wait > 0L)
+            {
+                throw new ServiceOverloadedException("service " + service.getName() + " rate limited", ServiceOverloadedException.SC_TOO_MANY_REQUESTS, (wait + 999999999L) / 1000000000L);
+            }
+        }
+        final ConcurrencyLimiterManager limits = getRESTContext().getConcurrencyLimiterManager();
+
+        final ConcurrencyLimiter limiter = (null != limits) ? limits.getLimiter(service) : null;
+
+        if ((null != limiter) && (false == limiter.acquire()))
+        {
+            throw new ServiceOverloadedException("service " + service.getName() + " overloaded", limiter.getRetryAfterSeconds());
+        }
+        return limiter;
+    }
+
+    /**
+     * Releases a limiter acquired at time, server errors count as dropped calls and shrink the limit, client errors do not.
+     */
+    protected void release(final IRESTService service, final ConcurrencyLimiter limiter, final long time, Throwable thrown)
+    {
+        getRESTContext().getServiceRegistry().leave(service);
+
+        if (null != limiter)
+        {
+            if ((thrown instanceof CompletionException) && (null != thrown.getCause()))
+            {
+                thrown = thrown.getCause();
+            }
+            limiter.release(System.nanoTime() - time, (null != thrown) && ((false == (thrown instanceof RESTException)) || (((RESTException) thrown).getCode() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR)));
+        }
+    }
+
+    /**
+     * Authorization results only depend on the service and the caller's roles, so they are memoized until the registry changes.
+     */
+    protected AuthorizationResult getAuthorizationResult(final IServiceRegistry registry, final IRESTService service, final RoleSet rset)
+    {
+        final AuthorizationCache cache = getRESTContext().getAuthorizationCache();
+
+        if (null == cache)
+        {
+            return isAuthorized(service, rset.getRoles());
+        }
+        final long generation = registry.getGeneration();
+
+        AuthorizationResult resp = cache.get(service, rset, generation);
+
+        if (null == resp)
+        {
+            resp = isAuthorized(service, rset.getRoles());
+
+            cache.put(service, rset, resp);
+        }
+        return resp;
+    }
+
+    protected int doCachedService(final HttpServletRequest request, final HttpServletResponse response, final IRESTService service, final RESTRequestContext context, final JSONObject object, final String path, final List<String> uroles, final boolean strict) throws Exception
+    {
+        final ResponseCacheManager manager = getRESTContext().getResponseCacheManager();
+
+        final Cache<String, CachedResponse> cache = manager.getCache(service);
+
+        final IRESTCodec codec = getResponseCodec(request, response);
+
+        final String key = (null == codec) ? manager.getKey(service, request, path, uroles, strict) : manager.getKey(service, request, path, uroles, strict) + "#" + codec.getContentType();
+
+        CachedResponse cached = manager.get(cache, key);
+
+        if (null == cached)
+        {
+            final RequestCoalescer coalescer = getRESTContext().getRequestCoalescer();
+
+            if ((null != service.getCoalescePolicy()) && (null != coalescer))
+            {
+                cached = coalescer.execute(key, () -> getSharedResponse(service, context, object, strict, false, codec, null));
+            }
+            else
+            {
+                cached = getSharedResponse(service, context, object, strict, false, codec, null);
+            }
+            if (null == cached)
+            {
+                return HttpServletResponse.SC_OK;
+            }
+            cache.put(key, cached);
+        }
+        return writeCached(request, response, service, cached);
+    }
+
+    /**
+     * Streams a service's items as a JSON array, NDJSON or Server-Sent Events, holding at most one chunk of output.
+     * <p>
+     * A failure before any item is written is answered as usual, after that the status is already sent, so NDJSON and
+     * Server-Sent Events end with an error item and a JSON array is ended where it stopped.
+     */
+    protected int doStreamingService(final HttpServletRequest request, final HttpServletResponse response, final IStreamingRESTService service, final RESTRequestContext context, final JSONObject object, final String name, final boolean irpc, final boolean strict) throws Exception
+    {
+        validateRequest(service, object);
+
+        final ConcurrencyLimiter limiter = acquire(service);
+
+        final long from = System.nanoTime();
+
+        final JSONStreamFormat format = JSONStreamFormat.of(request.getHeader(ACCEPT));
+
+        Throwable thrown = null;
+
+        doNoCache(response);
+
+        response.setStatus(HttpServletResponse.SC_OK);
+
+        response.setContentType(format.getContentType());
+
+        response.setCharacterEncoding(CHARSET_UTF_8);
+
+        final JSONResponseBuffer buff = JSONResponseBuffer.acquire();
+
+        try
+        {
+            final JSONStreamWriter writer = new JSONStreamWriter(buff.open(response, JSONResponseBuffer.INITIAL_CAPACITY), format, strict, irpc, getStreamFlushInterval());
+
+            try
+            {
+                service.stream(context, object, writer);
+            }
+            catch (Throwable e)
+            {
+                thrown = e;
+
+                if ((0L == writer.getCount()) && (false == response.isCommitted()))
+                {
+                    throw e;
+                }
+                final int code = (e instanceof RESTException) ? ((RESTException) e).getCode() : HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+
+                final String oops = (e instanceof RESTException) ? ((RESTException) e).getReason() : "calling " + name + " error uuid " + getRESTContext().uuid();
+
+                logger.error("streaming " + name + " failed after " + writer.getCount() + " items " + oops, e);
+
+                if (false == writer.isClosed())
+                {
+                    try
+                    {
+                        writer.close(new JSONObject("error", new JSONObject("code", code).set("reason", oops)));
+
+                        buff.finish();
+                    }
+                    catch (IOException x)
+                    {
+                        logger.error("streaming " + name + " close error", x);
+                    }
+                }
+                return code;
+            }
+            writer.close();
+
+            buff.finish();
+
+            return HttpServletResponse.SC_OK;
+        }
+        finally
+        {
+            buff.release();
+
+            release(service, limiter, from, thrown);
+        }
+    }
+
+    protected long getStreamFlushInterval()
+    {
+        return m_stream_interval;
+    }
+
+    /**
+     * Reads an NDJSON upload record by record and hands it to the service in batches, then writes the ingest summary.
+     * <p>
+     * Only the service's own {@link com.ait.tooling.server.rest.MaxRequestBodySize} bounds the upload, the servlet's body size
+     * bounds each record. Records that are not valid JSON, are too large or do not match the request schema are rejected on
+     * their own. A failed batch ends the ingest, once batches have been taken the summary is still written, with the error.
+     */
+    protected int doIngestService(final HttpServletRequest request, final HttpServletResponse response, final IIngestRESTService service, final RESTRequestContext context, final JSONObject object, final String name, final boolean strict) throws Exception
+    {
+        final ConcurrencyLimiter limiter = acquire(service);
+
+        final long from = System.nanoTime();
+
+        final IServiceRegistry registry = getRESTContext().getServiceRegistry();
+
+        final IngestBatcher batcher = new IngestBatcher(service, context, object, registry.isValidateRequests() ? registry.getSchemas(service).getRequestSchema() : null);
+
+        final BoundedInputStream stream = BOUNDED_STREAM.get();
+
+        Throwable thrown = null;
+
+        try
+        {
+            final JSONParser parser = JSON_PARSER.get();
+
+            final NDJSONRecordReader reader = new NDJSONRecordReader(stream.reset(request.getInputStream(), service.getMaxRequestBodySize()), getMaxIngestRecordSize());
+
+            while (true)
+            {
+                final String text;
+
+                try
+                {
+                    text = reader.next();
+                }
+                catch (RecordTooLargeException e)
+                {
+                    batcher.reject(e.getLine(), e.getMessage());
+
+                    continue;
+                }
+                if (null == text)
+                {
+                    break;
+                }
+                JSONObject record = null;
+
+                try
+                {
+                    record = parser.parse(text);
+                }
+                catch (ParserException e)
+                {
+                    batcher.reject(reader.getLine(), "record is not valid JSON");
+
+                    continue;
+                }
+                batcher.offer(record, reader.getLine());
+            }
+            batcher.finish();
+        }
+        catch (Exception e)
+        {
+            final Exception fail = stream.isExceeded() ? new RESTException("request body exceeds " + stream.getLimit() + " bytes", HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE) : e;
+
+            thrown = fail;
+
+            final IngestResult result = batcher.getResult();
+
+            if ((0L == result.getBatchCount()) || (response.isCommitted()))
+            {
+                throw fail;
+            }
+            final int code = (fail instanceof RESTException) ? ((RESTException) fail).getCode() : HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+
+            final String oops = (fail instanceof RESTException) ? ((RESTException) fail).getReason() : "calling " + name + " error uuid " + getRESTContext().uuid();
+
+            logger.error("ingest " + name + " failed after " + result.getAcceptedCount() + " records " + oops, fail);
+
+            writeJSON(code, request, response, result.toJSONObject().set("error", new JSONObject("code", code).set("reason", oops)), strict, false, service);
+
+            return code;
+        }
+        finally
+        {
+            stream.clear();
+
+            release(service, limiter, from, thrown);
+        }
+        writeJSON(HttpServletResponse.SC_OK, request, response, batcher.getResult().toJSONObject(), strict, false, service);
+
+        return HttpServletResponse.SC_OK;
+    }
+
+    /**
+     * Largest single NDJSON record in bytes, the servlet's request body size.
+     */
+    protected int getMaxIngestRecordSize()
+    {
+        final long size = getMaxRequestBodySize();
+
+        return ((size < 0) || (size > Integer.MAX_VALUE)) ? Integer.MAX_VALUE : (int) size;
+    }
+
+    /**
+     * Identical concurrent GET calls, same request path, parameters, format and roles, share one execution and its serialized response.
+     */
+    protected int doCoalescedService(final HttpServletRequest request, final HttpServletResponse response, final IRESTService service, final RESTRequestContext context, final JSONObject object, final String path, final boolean strict) throws Exception
+    {
+        final StringBuilder buff = ResponseCacheManager.appendRoles(ResponseCacheManager.getRequestKey(request, path, strict), context.getRoles());
+
+        final IRESTCodec codec = getResponseCodec(request, response);
+
+        if (null != codec)
+        {
+            buff.append('#').append(codec.getContentType());
+        }
+
+        if (service.getCoalescePolicy().isKeyedByUser())
+        {
+            ResponseCacheManager.appendEscaped(buff.append("#user,"), context.getUserID());
+        }
+        final CachedResponse shared = getRESTContext().getRequestCoalescer().execute(buff.toString(), () -> getSharedResponse(service, context, object, strict, false, codec, null));
+
+        if (null == shared)
+        {
+            return HttpServletResponse.SC_OK;
+        }
+        doNoCache(response);
+
+        response.setStatus(shared.getCode());
+
+        writeShared(request, response, service, shared);
+
+        return shared.getCode();
+    }
+
+    /**
+     * Answers a POST, PUT or PATCH carrying an Idempotency-Key at most once per key, caller and request path.
+     * <p>
+     * The serialized response of the first successful execution is kept in the {@link IIdempotencyStore} with a hash of its
+     * request body and replayed to retries, a retry arriving while the first call is still running waits for it. A key reused
+     * with a different body is rejected with 422. Failures are not kept, so a retry after a failure executes again.
+     */
+    protected int doIdempotentService(final HttpServletRequest request, final HttpServletResponse response, final IRESTService service, final RESTRequestContext context, final JSONObject object, final String path, final String ikey, final boolean irpc, final boolean strict) throws Exception
+    {
+        if (ikey.length() > MAX_IDEMPOTENCY_KEY_LENGTH)
+        {
+            throw new RESTException(IDEMPOTENCY_KEY + " longer than " + MAX_IDEMPOTENCY_KEY_LENGTH, HttpServletResponse.SC_BAD_REQUEST);
+        }
+        final IRESTCodec codec = getResponseCodec(request, response);
+
+        final String print = getRequestFingerprint(object, strict);
+
+        final StringBuilder buff = new StringBuilder(128).append("#idempotent,").append(request.getMethod()).append(',');
+
+        ResponseCacheManager.appendEscaped(buff, path);
+
+        if (irpc)
+        {
+            buff.append(",irpc");
+        }
+        ResponseCacheManager.appendEscaped(ResponseCacheManager.appendEscaped(buff.append("#user,"), context.getUserID()).append('#'), ikey);
+
+        if (null != codec)
+        {
+            buff.append('#').append(codec.getContentType());
+        }
+        final String key = buff.toString();
+
+        final IIdempotencyStore store = getRESTContext().getIdempotencyStore();
+
+        final boolean[] executed = new boolean[1];
+
+        CachedResponse shared = store.get(key);
+
+        if (null == shared)
+        {
+            final Callable<CachedResponse> call = () -> {
+
+                CachedResponse resp = store.get(key);
+
+                if (null == resp)
+                {
+                    resp = getSharedResponse(service, context, object, strict, irpc, codec, print);
+
+                    executed[0] = true;
+
+                    if (null != resp)
+                    {
+                        store.put(key, resp);
+                    }
+                }
+                return resp;
+            };
+            final RequestCoalescer coalescer = getRESTContext().getRequestCoalescer();
+
+            shared = (null != coalescer) ? coalescer.execute(key, call) : call.call();
+        }
+        if (null == shared)
+        {
+            return HttpServletResponse.SC_OK;
+        }
+        if (false == print.equals(shared.getFingerprint()))
+        {
+            throw new RESTException(IDEMPOTENCY_KEY + " reused with a different request", SC_UNPROCESSABLE_ENTITY);
+        }
+        doNoCache(response);
+
+        if (false == executed[0])
+        {
+            response.setHeader(IDEMPOTENT_REPLAYED, "true");
+        }
+        response.setStatus(shared.getCode());
+
+        writeShared(request, response, service, shared);
+
+        return shared.getCode();
+    }
+
+    /**
+     * Hash of a request body, so a key reused with a different body is rejected instead of answered with another call's response.
+     */
+    protected String getRequestFingerprint(final JSONObject object, final boolean strict) throws IOException
+    {
+        if (null == object)
+        {
+            return "";
+        }
+        final JSONResponseBuffer buff = JSONResponseBuffer.acquire();
+
+        try
+        {
+            object.writeJSONString(buff, strict);
+
+            return Hashing.murmur3_128().hashBytes(buff.getBuffer(), 0, buff.size()).toString();
+        }
+        finally
+        {
+            buff.release();
+        }
+    }
+
+    /**
+     * Executes a service and serializes its result for sharing, or returns null if the service wrote its own response. The
+     * result is wrapped in a result object for irpc calls, print is the fingerprint of the request, or null.
+     */
+    protected CachedResponse getSharedResponse(final IRESTService service, final RESTRequestContext context, final JSONObject object, final boolean strict, final boolean wrap, final IRESTCodec codec, final String print) throws Exception
+    {
+        final JSONObject result = execute(service, context, object);
+
+        if (context.isClosed())
+        {
+            return null;
+        }
+        if (null != codec)
+        {
+            return new CachedResponse(HttpServletResponse.SC_OK, toCodecBytes(wrap ? new JSONObject("result", result) : result, codec), codec.getContentType(), print);
+        }
+        return new CachedResponse(HttpServletResponse.SC_OK, toJSONBytes(result, strict, wrap), null, print);
+    }
+
+    /**
+     * Answers with a cached response, or 304 when If-None-Match lists its ETag. The encoding is negotiated first, so the 304
+     * carries the same Vary and the ETag of the encoding that would have been sent.
+     */
+    protected int writeCached(final HttpServletRequest request, final HttpServletResponse response, final IRESTService service, final CachedResponse cached) throws IOException
+    {
+        response.setHeader(CACHE_CONTROL, "private, no-cache");
+
+        final String encoding = getSharedEncoding(request, response, service, cached);
+
+        if (getCompressionThreshold(service) < 0)
+        {
+            response.addHeader(VARY, ACCEPT_ENCODING);
+        }
+        response.setHeader(ETAG, cached.getETag(encoding));
+
+        if (cached.isMatch(request.getHeader(IF_NONE_MATCH), encoding))
+        {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+
+            return HttpServletResponse.SC_NOT_MODIFIED;
+        }
+        response.setStatus(cached.getCode());
+
+        writeSharedBody(response, service, cached, encoding);
+
+        return cached.getCode();
+    }
+
+    /**
+     * Writes an already serialized body, compressed when negotiated, the encoded form is kept with the shared response for reuse.
+     */
+    protected void writeShared(final HttpServletRequest request, final HttpServletResponse response, final IRESTService service, final CachedResponse shared) throws IOException
+    {
+        writeSharedBody(response, service, shared, getSharedEncoding(request, response, service, shared));
+    }
+
+    /**
+     * Returns the Content-Encoding a shared body is sent with, or null when it is sent as is.
+     */
+    protected String getSharedEncoding(final HttpServletRequest request, final HttpServletResponse response, final IRESTService service, final CachedResponse shared)
+    {
+        final String encoding = getContentEncoding(request, response, service);
+
+        if ((null != encoding) && (shared.getBody().length >= getCompressionThreshold(service)))
+        {
+            return encoding;
+        }
+        return null;
+    }
+
+    private void writeSharedBody(final HttpServletResponse response, final IRESTService service, final CachedResponse shared, final String encoding) throws IOException
+    {
+        byte[] body = shared.getBody();
+
+        if (null == shared.getContentType())
+        {
+            response.setContentType(CONTENT_TYPE_APPLICATION_JSON);
+
+            response.setCharacterEncoding(CHARSET_UTF_8);
+        }
+        else
+        {
+            response.setContentType(shared.getContentType());
+        }
+        if (null != encoding)
+        {
+            body = shared.getEncodedBody(encoding, getCompressionLevel(service));
+
+            response.setHeader(JSONResponseBuffer.CONTENT_ENCODING, encoding);
+        }
+        response.setContentLength(body.length);
+
+        response.getOutputStream().write(body);
+
+        JSONResponseBuffer.addSentBytes(shared.getBody().length);
+    }
+
+    /**
+     * Returns the smallest response in bytes that a service compresses, or -1 if its responses are never compressed.
+     */
+    protected int getCompressionThreshold(final IRESTService service)
+    {
+        final CompressionPolicy policy = (null == service) ? null : service.getCompressionPolicy();
+
+        if (null == policy)
+        {
+            return m_compress_threshold;
+        }
+        if (false == policy.isEnabled())
+        {
+            return -1;
+        }
+        if (policy.getThreshold() >= 0)
+        {
+            return policy.getThreshold();
+        }
+        return (m_compress_threshold >= 0) ? m_compress_threshold : CompressionPolicy.ENABLED_THRESHOLD;
+    }
+
+    protected int getCompressionLevel(final IRESTService service)
+    {
+        final CompressionPolicy policy = (null == service) ? null : service.getCompressionPolicy();
+
+        if ((null == policy) || (policy.getLevel() < 0))
+        {
+            return m_compress_level;
+        }
+        return policy.getLevel();
+    }
+
+    /**
+     * Negotiates a binary codec from Accept, or null for JSON text, and adds Vary whenever codecs are registered.
+     */
+    protected IRESTCodec getResponseCodec(final HttpServletRequest request, final HttpServletResponse response)
+    {
+        if (null == request)
+        {
+            return null;
+        }
+        final RESTCodecRegistry codecs = getRESTContext().getCodecRegistry();
+
+        if ((null == codecs) || (codecs.isEmpty()))
+        {
+            return null;
+        }
+        response.addHeader(VARY, ACCEPT);
+
+        return codecs.getResponseCodec(request.getHeader(ACCEPT));
+    }
+
+    /**
+     * Negotiates gzip or deflate from Accept-Encoding, and adds Vary whenever the service's responses may be compressed.
+     */
+    protected String getContentEncoding(final HttpServletRequest request, final HttpServletResponse response, final IRESTService service)
+    {
+        if ((null == request) || (getCompressionThreshold(service) < 0))
+        {
+            return null;
+        }
+        response.addHeader(VARY, ACCEPT_ENCODING);
+
+        return ResponseDeflater.getAcceptedEncoding(request.getHeader(ACCEPT_ENCODING));
+    }
+
+    protected byte[] toCodecBytes(final JSONObject output, final IRESTCodec codec) throws IOException
+    {
+        final JSONResponseBuffer buff = JSONResponseBuffer.acquire();
+
+        try
+        {
+            codec.encode(output, buff.getOutputStream());
+
+            return buff.toByteArray();
+        }
+        finally
+        {
+            buff.release();
+        }
+    }
+
+    protected byte[] toJSONBytes(final JSONObject output, final boolean strict, final boolean wrap) throws IOException
+    {
+        final JSONResponseBuffer buff = JSONResponseBuffer.acquire();
+
+        try
+        {
+            writeJSONString(buff, output, strict, wrap);
+
+            return buff.toByteArray();
+        }
+        finally
+        {
+            buff.release();
+        }
+    }
+
+    protected void doAsyncService(final HttpServletRequest request, final HttpServletResponse response, final IAsyncRESTService service, final RESTRequestContext context, final JSONObject object, final String name, final boolean irpc, final boolean strict)
+    {
+        final AsyncContext async = request.startAsync(request, response);
+
+        request.setAttribute(ACCESS_ASYNC_ATTRIBUTE, Boolean.TRUE);
+
+        final AtomicBoolean done = new AtomicBoolean(false);
+
+        final long time = System.nanoTime();
+
+        async.setTimeout(getAsyncTimeout());
+
+        async.addListener(new AsyncListener()
+        {
+            @Override
+            public void onTimeout(final AsyncEvent event) throws IOException
+            {
+                if (done.compareAndSet(false, true))
+                {
+                    logger.error("calling service " + name + " timed out");
+
+                    try
+                    {
+                        JSONResponseBuffer.takeSentBytes();
+
+                        recordServiceTime(name, writeFailure(context, response, name, new RESTException("service timed out", HttpServletResponse.SC_SERVICE_UNAVAILABLE), strict), time);
+                    }
+                    finally
+                    {
+                        logAccess(request, response, time);
+
+                        async.complete();
+                    }
+                }
+            }
+
+            @Override
+            public void onError(final AsyncEvent event) throws IOException
+            {
+                if (done.compareAndSet(false, true))
+                {
+                    logger.error("calling service " + name + " async error", event.getThrowable());
+
+                    logAccess(request, response, time);
+
+                    async.complete();
+                }
+            }
+
+            @Override
+            public void onComplete(final AsyncEvent event) throws IOException
+            {
+            }
+
+            @Override
+            public void onStartAsync(final AsyncEvent event) throws IOException
+            {
+            }
+        });
+        try
+        {
+            getRESTContext().getAsyncExecutor().execute(() -> {
+
+                final ConcurrencyLimiter limiter;
+
+                try
+                {
+                    validateRequest(service, object);
+
+                    limiter = acquire(service);
+                }
+                catch (Throwable e)
+                {
+                    doAsyncComplete(async, done, context, service, response, name, irpc, strict, null, e, time);
+
+                    return;
+                }
+                final long from = System.nanoTime();
+
+                try
+                {
+                    service.executeAsync(context, object).whenComplete((result, thrown) -> {
+
+                        release(service, limiter, from, thrown);
+
+                        if (null == thrown)
+                        {
+                            try
+                            {
+                                validateResponse(service, result);
+                            }
+                            catch (Throwable e)
+                            {
+                                thrown = e;
+                            }
+                        }
+                        doAsyncComplete(async, done, context, service, response, name, irpc, strict, result, thrown, time);
+                    });
+                }
+                catch (Throwable e)
+                {
+                    release(service, limiter, from, e);
+
+                    doAsyncComplete(async, done, context, service, response, name, irpc, strict, null, e, time);
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            if (done.compareAndSet(false, true))
+            {
+                logger.error("async executor rejected service " + name);
+
+                response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+
+                recordServiceTime(name, HttpServletResponse.SC_SERVICE_UNAVAILABLE, time);
+
+                logAccess(request, response, time);
+
+                async.complete();
+            }
+        }
+    }
+
+    private void doAsyncComplete(final AsyncContext async, final AtomicBoolean done, final RESTRequestContext context, final IRESTService service, final HttpServletResponse response, final String name, final boolean irpc, final boolean strict, final JSONObject result, Throwable thrown, final long time)
+    {
+        if (false == done.compareAndSet(false, true))
+        {
+            return;
+        }
+        JSONResponseBuffer.takeSentBytes();
+
+        try
+        {
+            if ((thrown instanceof CompletionException) && (null != thrown.getCause()))
+            {
+                thrown = thrown.getCause();
+            }
+            if (null == thrown)
+            {
+                writeResult(context, service, response, result, irpc, strict);
+
+                recordServiceTime(name, HttpServletResponse.SC_OK, time);
+            }
+            else
+            {
+                recordServiceTime(name, writeFailure(context, response, name, thrown, strict), time);
+            }
+        }
+        catch (Throwable e)
+        {
+            logger.error("calling service " + name + " async write error", e);
+        }
+        finally
+        {
+            logAccess((HttpServletRequest) async.getRequest(), response, time);
+
+            async.complete();
+        }
+    }
+
+    protected long getAsyncTimeout()
+    {
+        return 30000L;
+    }
+
+    /**
+     * Records the latency since time, from System.nanoTime(), into the registry histograms for this binding and status.
+     */
+    protected void recordServiceTime(final String name, final int code, final long time)
+    {
+        final ServiceLatencyMetrics metrics = getRESTContext().getServiceRegistry().getLatencyMetrics();
+
+        if (null != metrics)
+        {
+            metrics.record(name, code, System.nanoTime() - time);
+        }
+    }
+
+    protected void writeResult(final RESTRequestContext context, final HttpServletResponse response, final JSONObject result, final boolean irpc, final boolean strict) throws IOException
+    {
+        writeResult(context, null, response, result, irpc, strict);
+    }
+
+    protected void writeResult(final RESTRequestContext context, final IRESTService service, final HttpServletResponse response, final JSONObject result, final boolean irpc, final boolean strict) throws IOException
+    {
+        if (false == context.isClosed())
+        {
+            writeJSON(HttpServletResponse.SC_OK, context.getServletRequest(), response, result, strict, irpc, service);
+        }
+    }
+
+    protected int writeFailure(final RESTRequestContext context, final HttpServletResponse response, final String name, final Throwable e, final boolean strict) throws IOException
+    {
+        if (e instanceof RESTException)
+        {
+            final RESTException rest = (RESTException) e;
+
+            if (e instanceof ServiceOverloadedException)
+            {
+                response.setHeader(RETRY_AFTER, Long.toString(((ServiceOverloadedException) e).getRetryAfterSeconds()));
+            }
+            if (false == context.isClosed())
+            {
+                writeJSON(rest.getCode(), context.getServletRequest(), response, new JSONObject("error", new JSONObject("code", rest.getCode()).set("reason", rest.getReason())), strict, false, null);
+            }
+            return rest.getCode();
+        }
+        else
+        {
+            final String oops = "calling " + name + " error uuid " + getRESTContext().uuid();
+
+            logger.error(oops, e);
+
+            if (false == context.isClosed())
+            {
+                writeJSON(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, context.getServletRequest(), response, new JSONObject("error", new JSONObject("code", HttpServletResponse.SC_INTERNAL_SERVER_ERROR).set("reason", oops)), strict, false, null);
+            }
+            return HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        }
+    }
+
+    protected boolean isStrict(String strict)
+    {
+        strict = StringOps.toTrimOrNull(strict);
+
         if ((null != strict) && ("true".equalsIgnoreCase(strict)))
         {
             return true;
@@ -385,38 +1606,108 @@ public class RESTServlet extends HTTPServletBase
         return false;
     }
 
+    protected long getMaxRequestBodySize()
+    {
+        return m_max_body_size;
+    }
+
+    protected JSONObject readJSON(final HttpServletRequest request, final HttpServletResponse response, final HttpMethod type, final long limit)
+    {
+        try
+        {
+            final JSONObject object = parseJSON(request, type, limit);
+
+            if (null == object)
+            {
+                logger.error("passed body is not a JSONObject");
+
+                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+            return object;
+        }
+        catch (RESTException e)
+        {
+            logger.error(e.getReason());
+
+            response.setStatus(e.getCode());
+
+            return null;
+        }
+    }
+
     protected JSONObject parseJSON(final HttpServletRequest request, final HttpMethod type)
+    {
+        try
+        {
+            return parseJSON(request, type, getMaxRequestBodySize());
+        }
+        catch (RESTException e)
+        {
+            logger.error(e.getReason());
+
+            return null;
+        }
+    }
+
+    protected JSONObject parseJSON(final HttpServletRequest request, final HttpMethod type, final long limit) throws RESTException
     {
         if (isMethodJSON(type))
         {
-            final int leng = request.getContentLength();
+            final long leng = request.getContentLengthLong();
 
-            if (leng > 0)
+            if (leng == 0)
             {
-                final JSONParser parser = new JSONParser();
+                logger.error("empty body on " + type.name());
 
-                try
+                return new JSONObject();
+            }
+            if ((limit >= 0) && (leng > limit))
+            {
+                throw new RESTException("request body of " + leng + " exceeds " + limit + " bytes", HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            }
+            final BoundedInputStream stream = BOUNDED_STREAM.get();
+
+            try
+            {
+                stream.reset(request.getInputStream(), limit);
+
+                if ((leng < 0) && (stream.isEmpty()))
                 {
-                    return parser.parse(request.getInputStream());
+                    return new JSONObject();
                 }
-                catch (ParserException e)
-                {
-                    logger.error("ParserException", e);
+                final RESTCodecRegistry codecs = getRESTContext().getCodecRegistry();
 
-                    return null;
+                final IRESTCodec codec = (null != codecs) ? codecs.getRequestCodec(request.getContentType()) : null;
+
+                if (null != codec)
+                {
+                    return codec.decode(stream);
                 }
-                catch (IOException e)
+                return JSON_PARSER.get().parse(stream);
+            }
+            catch (ParserException e)
+            {
+                if (stream.isExceeded())
                 {
-                    logger.error("IOException", e);
-
-                    return null;
+                    throw new RESTException("request body exceeds " + limit + " bytes", HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
                 }
+                logger.error("ParserException", e);
+
+                return null;
             }
-            if (leng == 0)
+            catch (IOException e)
             {
-                logger.error("empty body on " + type.name());
+                if (stream.isExceeded())
+                {
+                    throw new RESTException("request body exceeds " + limit + " bytes", HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+                }
+                logger.error("IOException", e);
 
-                return new JSONObject();
+                return null;
+            }
+            finally
+            {
+                stream.clear();
             }
         }
         return new JSONObject();
@@ -448,20 +1739,91 @@ public class RESTServlet extends HTTPServletBase
     }
 
     protected void writeJSON(final int code, final HttpServletResponse response, final JSONObject output, final boolean strict) throws IOException
+    {
+        writeJSON(code, response, output, strict, false);
+    }
+
+    /**
+     * Writes output, when wrap is true inside a {"result":...} envelope written around it, so no wrapping JSONObject is built.
+     */
+    protected void writeJSON(final int code, final HttpServletResponse response, final JSONObject output, final boolean strict, final boolean wrap) throws IOException
+    {
+        writeJSON(code, null, response, output, strict, wrap, null);
+    }
+
+    /**
+     * Writes output compressed when the request accepts it and it reaches the service's, or else the servlet's, compression threshold.
+     */
+    protected void writeJSON(final int code, final HttpServletRequest request, final HttpServletResponse response, final JSONObject output, final boolean strict, final boolean wrap, final IRESTService service) throws IOException
     {
         doNoCache(response);
 
         response.setStatus(code);
 
-        response.setContentType(CONTENT_TYPE_APPLICATION_JSON);
+        final IRESTCodec codec = getResponseCodec(request, response);
+
+        if (null == codec)
+        {
+            response.setContentType(CONTENT_TYPE_APPLICATION_JSON);
+
+            response.setCharacterEncoding(CHARSET_UTF_8);
+        }
+        else
+        {
+            response.setContentType(codec.getContentType());
+        }
+        final JSONResponseBuffer buff = JSONResponseBuffer.acquire();
+
+        try
+        {
+            buff.open(response, getResponseStreamThreshold());
+
+            final String encoding = getContentEncoding(request, response, service);
 
-        response.getWriter().flush();
+            if (null != encoding)
+            {
+                buff.compress(encoding, getCompressionThreshold(service), getCompressionLevel(service));
+            }
+            if (null == codec)
+            {
+                writeJSONString(buff, output, strict, wrap);
+            }
+            else
+            {
+                codec.encode(wrap ? new JSONObject("result", output) : output, buff.getOutputStream());
+            }
 
-        final NoSyncBufferedWriter buff = new NoSyncBufferedWriter(response.getWriter(), 1024);
+            buff.finish();
+        }
+        finally
+        {
+            buff.release();
+        }
+    }
 
-        output.writeJSONString(buff, strict);
+    public static void writeJSONString(final Writer out, final JSONObject output, final boolean strict, final boolean wrap) throws IOException
+    {
+        if (wrap)
+        {
+            out.write(RESULT_PREFIX);
+        }
+        if (null == output)
+        {
+            out.write("null");
+        }
+        else
+        {
+            output.writeJSONString(out, strict);
+        }
+        if (wrap)
+        {
+            out.write('}');
+        }
+    }
 
-        buff.flush();
+    protected int getResponseStreamThreshold()
+    {
+        return m_stream_threshold;
     }
 
     protected final IRESTContext getRESTContext()
@@ -469,15 +1831,48 @@ public class RESTServlet extends HTTPServletBase
         return RESTContextInstance.getRESTContextInstance();
     }
 
+    /**
+     * Hands the finished call to the access log, this never blocks and is a no-op when the access log is disabled.
+     */
+    protected void logAccess(final HttpServletRequest request, final HttpServletResponse response, final long time)
+    {
+        final AccessLog log = getRESTContext().getAccessLog();
+
+        if ((null != log) && (log.isEnabled()))
+        {
+            Object bind = request.getAttribute(ACCESS_BINDING_ATTRIBUTE);
+
+            if (null == bind)
+            {
+                bind = request.getPathInfo();
+            }
+            log.record(request.getMethod(), (String) bind, response.getStatus(), System.nanoTime() - time, JSONResponseBuffer.takeSentBytes(), (String) request.getAttribute(ACCESS_USER_ATTRIBUTE));
+        }
+    }
+
     @Override
     public void service(final HttpServletRequest request, final HttpServletResponse response) throws ServletException, IOException
     {
-        if ("PATCH".equalsIgnoreCase(request.getMethod()))
+        final long time = System.nanoTime();
+
+        JSONResponseBuffer.takeSentBytes();
+
+        try
         {
-            doPatch(request, response);
+            if ("PATCH".equalsIgnoreCase(request.getMethod()))
+            {
+                doPatch(request, response);
 
-            return;
+                return;
+            }
+            super.service(request, response);
+        }
+        finally
+        {
+            if (null == request.getAttribute(ACCESS_ASYNC_ATTRIBUTE))
+            {
+                logAccess(request, response, time);
+            }
         }
-        super.service(request, response);
     }
 }
\ No newline at end of file
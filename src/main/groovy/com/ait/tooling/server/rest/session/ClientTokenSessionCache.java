@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.session;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.log4j.Logger;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.ait.tooling.server.core.json.JSONObject;
+import com.ait.tooling.server.core.security.session.IServerSession;
+import com.ait.tooling.server.core.security.session.IServerSessionRepository;
+import com.ait.tooling.server.core.servlet.HTTPServletBase;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * ClientTokenSessionCache - Reuses one session per X-Client-API-Token instead of creating a session for every request.
+ * <p>
+ * A session is reused until it expires or reaches its maximum age. Once it is within the refresh window of its maximum
+ * age, one caller replaces it with a newly created session while the others keep using the current one.
+ */
+@ManagedResource
+public class ClientTokenSessionCache
+{
+    private static final Logger                logger    = Logger.getLogger(ClientTokenSessionCache.class);
+
+    private boolean                            m_enabled = true;
+
+    private long                               m_max_age = 300000L;
+
+    private long                               m_refresh = 30000L;
+
+    private long                               m_size    = 10000L;
+
+    private volatile Cache<String, TokenEntry> m_cache;
+
+    private final LongAdder                    m_hits    = new LongAdder();
+
+    private final LongAdder                    m_made    = new LongAdder();
+
+    public ClientTokenSessionCache()
+    {
+        rebuild();
+    }
+
+    public void setEnabled(final boolean enabled)
+    {
+        m_enabled = enabled;
+    }
+
+    @ManagedAttribute(description = "Get token session cache enabled.")
+    public boolean isEnabled()
+    {
+        return m_enabled;
+    }
+
+    /**
+     * Maximum age in milliseconds of a reused token session.
+     */
+    public void setMaxAge(final long age)
+    {
+        m_max_age = Math.max(1000L, age);
+
+        rebuild();
+    }
+
+    @ManagedAttribute(description = "Get maximum token session age in milliseconds.")
+    public long getMaxAge()
+    {
+        return m_max_age;
+    }
+
+    /**
+     * Window in milliseconds before the maximum age in which a token session is replaced.
+     */
+    public void setRefreshAhead(final long refresh)
+    {
+        m_refresh = Math.max(0L, refresh);
+    }
+
+    @ManagedAttribute(description = "Get token session refresh ahead in milliseconds.")
+    public long getRefreshAhead()
+    {
+        return m_refresh;
+    }
+
+    public void setSize(final long size)
+    {
+        m_size = Math.max(1L, size);
+
+        rebuild();
+    }
+
+    @ManagedAttribute(description = "Get maximum cached tokens.")
+    public long getSize()
+    {
+        return m_size;
+    }
+
+    private void rebuild()
+    {
+        m_cache = CacheBuilder.newBuilder().maximumSize(m_size).expireAfterWrite(m_max_age, TimeUnit.MILLISECONDS).build();
+    }
+
+    public IServerSession getSession(final IServerSessionRepository repository, final String token)
+    {
+        Objects.requireNonNull(repository);
+
+        if ((false == isEnabled()) || (null == token))
+        {
+            return create(repository, token);
+        }
+        final long now = System.currentTimeMillis();
+
+        final TokenEntry entry = m_cache.getIfPresent(token);
+
+        if (null == entry)
+        {
+            return load(repository, token, now);
+        }
+        if ((entry.m_repository == repository) && (false == entry.m_session.isExpired()))
+        {
+            if ((now - entry.m_time) < (m_max_age - m_refresh))
+            {
+                m_hits.increment();
+
+                return entry.m_session;
+            }
+            if (false == entry.m_refresh.compareAndSet(false, true))
+            {
+                m_hits.increment();
+
+                return entry.m_session;
+            }
+        }
+        final IServerSession session = create(repository, token);
+
+        final ConcurrentMap<String, TokenEntry> map = m_cache.asMap();
+
+        if ((null != session) && (false == session.isExpired()))
+        {
+            map.replace(token, entry, new TokenEntry(repository, session, now));
+        }
+        else
+        {
+            map.remove(token, entry);
+        }
+        return session;
+    }
+
+    private IServerSession load(final IServerSessionRepository repository, final String token, final long now)
+    {
+        try
+        {
+            return m_cache.get(token, () -> {
+
+                final IServerSession session = create(repository, token);
+
+                if ((null == session) || (session.isExpired()))
+                {
+                    throw new RejectedTokenException(session);
+                }
+                return new TokenEntry(repository, session, now);
+
+            }).m_session;
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RejectedTokenException)
+            {
+                return ((RejectedTokenException) e.getCause()).m_session;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        catch (UncheckedExecutionException e)
+        {
+            final Throwable cause = e.getCause();
+
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
+    private IServerSession create(final IServerSessionRepository repository, final String token)
+    {
+        m_made.increment();
+
+        return repository.createSession(new JSONObject(HTTPServletBase.X_CLIENT_API_TOKEN_HEADER, token));
+    }
+
+    public void invalidate(final String token)
+    {
+        if (null != token)
+        {
+            m_cache.invalidate(token);
+        }
+    }
+
+    @ManagedOperation(description = "Invalidate all token sessions.")
+    public void invalidateAll()
+    {
+        m_cache.invalidateAll();
+
+        logger.info("ClientTokenSessionCache.invalidateAll()");
+    }
+
+    @ManagedAttribute(description = "Get cached token count.")
+    public long getCachedCount()
+    {
+        return m_cache.size();
+    }
+
+    @ManagedAttribute(description = "Get reused token session count.")
+    public long getHitCount()
+    {
+        return m_hits.sum();
+    }
+
+    @ManagedAttribute(description = "Get created token session count.")
+    public long getCreatedCount()
+    {
+        return m_made.sum();
+    }
+
+    private static final class RejectedTokenException extends Exception
+    {
+        private static final long              serialVersionUID = -2617542410352985404L;
+
+        private final transient IServerSession m_session;
+
+        RejectedTokenException(final IServerSession session)
+        {
+            super(null, null, false, false);
+
+            m_session = session;
+        }
+    }
+
+    private static final class TokenEntry
+    {
+        private final IServerSessionRepository m_repository;
+
+        private final IServerSession           m_session;
+
+        private final long                     m_time;
+
+        private final AtomicBoolean            m_refresh = new AtomicBoolean(false);
+
+        TokenEntry(final IServerSessionRepository repository, final IServerSession session, final long time)
+        {
+            m_repository = repository;
+
+            m_session = session;
+
+            m_time = time;
+        }
+    }
+}
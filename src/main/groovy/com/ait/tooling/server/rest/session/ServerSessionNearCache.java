@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.session;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.log4j.Logger;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.ait.tooling.common.api.java.util.StringOps;
+import com.ait.tooling.server.core.security.session.IServerSession;
+import com.ait.tooling.server.core.security.session.IServerSessionRepository;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * ServerSessionNearCache - Short lived local cache of IServerSession lookups in front of an IServerSessionRepository.
+ * <p>
+ * Unknown session ids are remembered for a shorter time, so repeated lookups of bad ids do not reach the repository.
+ * Call {@link #invalidate(String)} on logout, expired sessions are dropped when they are found.
+ */
+@ManagedResource
+public class ServerSessionNearCache
+{
+    private static final Logger                  logger    = Logger.getLogger(ServerSessionNearCache.class);
+
+    private boolean                              m_enabled = true;
+
+    private long                                 m_ttl     = 5000L;
+
+    private long                                 m_neg_ttl = 2000L;
+
+    private long                                 m_size    = 10000L;
+
+    private volatile Cache<String, SessionEntry> m_cache;
+
+    private volatile Cache<String, Boolean>      m_unknown;
+
+    private final LongAdder                      m_hits    = new LongAdder();
+
+    private final LongAdder                      m_miss    = new LongAdder();
+
+    private final LongAdder                      m_negs    = new LongAdder();
+
+    public ServerSessionNearCache()
+    {
+        rebuild();
+    }
+
+    public void setEnabled(final boolean enabled)
+    {
+        m_enabled = enabled;
+    }
+
+    @ManagedAttribute(description = "Get near cache enabled.")
+    public boolean isEnabled()
+    {
+        return m_enabled;
+    }
+
+    /**
+     * Time to live of cached sessions in milliseconds.
+     */
+    public void setTimeToLive(final long ttl)
+    {
+        m_ttl = Math.max(1L, ttl);
+
+        rebuild();
+    }
+
+    @ManagedAttribute(description = "Get cached session time to live in milliseconds.")
+    public long getTimeToLive()
+    {
+        return m_ttl;
+    }
+
+    /**
+     * Time to live of unknown session ids in milliseconds, 0 disables negative caching.
+     */
+    public void setNegativeTimeToLive(final long ttl)
+    {
+        m_neg_ttl = Math.max(0L, ttl);
+
+        rebuild();
+    }
+
+    @ManagedAttribute(description = "Get unknown session time to live in milliseconds.")
+    public long getNegativeTimeToLive()
+    {
+        return m_neg_ttl;
+    }
+
+    public void setSize(final long size)
+    {
+        m_size = Math.max(1L, size);
+
+        rebuild();
+    }
+
+    @ManagedAttribute(description = "Get maximum cached sessions.")
+    public long getSize()
+    {
+        return m_size;
+    }
+
+    private void rebuild()
+    {
+        m_cache = CacheBuilder.newBuilder().maximumSize(m_size).expireAfterWrite(m_ttl, TimeUnit.MILLISECONDS).build();
+
+        m_unknown = CacheBuilder.newBuilder().maximumSize(m_size).expireAfterWrite(Math.max(1L, m_neg_ttl), TimeUnit.MILLISECONDS).build();
+    }
+
+    public IServerSession getSession(final IServerSessionRepository repository, final String sessid)
+    {
+        Objects.requireNonNull(repository);
+
+        if ((false == isEnabled()) || (null == sessid))
+        {
+            return repository.getSession(sessid);
+        }
+        final SessionEntry entry = m_cache.getIfPresent(sessid);
+
+        if ((null != entry) && (entry.m_repository == repository))
+        {
+            if (false == entry.m_session.isExpired())
+            {
+                m_hits.increment();
+
+                return entry.m_session;
+            }
+            m_cache.invalidate(sessid);
+        }
+        if ((m_neg_ttl > 0) && (null != m_unknown.getIfPresent(sessid)))
+        {
+            m_negs.increment();
+
+            return null;
+        }
+        m_miss.increment();
+
+        final IServerSession session = repository.getSession(sessid);
+
+        if (null == session)
+        {
+            if (m_neg_ttl > 0)
+            {
+                m_unknown.put(sessid, Boolean.TRUE);
+            }
+            return null;
+        }
+        if (false == session.isExpired())
+        {
+            m_cache.put(sessid, new SessionEntry(repository, session));
+        }
+        return session;
+    }
+
+    @ManagedOperation(description = "Invalidate one cached session.")
+    public void invalidate(final String sessid)
+    {
+        final String id = StringOps.toTrimOrNull(sessid);
+
+        if (null != id)
+        {
+            m_cache.invalidate(id);
+
+            m_unknown.invalidate(id);
+        }
+    }
+
+    @ManagedOperation(description = "Invalidate all cached sessions.")
+    public void invalidateAll()
+    {
+        m_cache.invalidateAll();
+
+        m_unknown.invalidateAll();
+
+        logger.info("ServerSessionNearCache.invalidateAll()");
+    }
+
+    @ManagedAttribute(description = "Get cached session count.")
+    public long getCachedCount()
+    {
+        return m_cache.size();
+    }
+
+    @ManagedAttribute(description = "Get near cache hit count.")
+    public long getHitCount()
+    {
+        return m_hits.sum();
+    }
+
+    @ManagedAttribute(description = "Get near cache miss count.")
+    public long getMissCount()
+    {
+        return m_miss.sum();
+    }
+
+    @ManagedAttribute(description = "Get unknown session hit count.")
+    public long getUnknownHitCount()
+    {
+        return m_negs.sum();
+    }
+
+    private static final class SessionEntry
+    {
+        private final IServerSessionRepository m_repository;
+
+        private final IServerSession           m_session;
+
+        SessionEntry(final IServerSessionRepository repository, final IServerSession session)
+        {
+            m_repository = repository;
+
+            m_session = session;
+        }
+    }
+}
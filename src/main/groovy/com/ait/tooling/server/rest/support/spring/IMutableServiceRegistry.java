@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.support.spring;
+
+import com.ait.tooling.server.rest.IRESTService;
+
+/**
+ * IMutableServiceRegistry - A registry whose services can be added, replaced and removed while requests are served.
+ */
+public interface IMutableServiceRegistry extends IServiceRegistry
+{
+    /**
+     * Adds a service, or replaces the service of the same name, and returns the replaced service or null.
+     */
+    public IRESTService register(IRESTService service);
+
+    /**
+     * Removes a service by name and returns it, or null if there is no such service.
+     */
+    public IRESTService deregister(String name);
+}
@@ -17,9 +17,22 @@
 package com.ait.tooling.server.rest.support.spring;
 
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import com.ait.tooling.server.core.support.spring.IServerContext;
 import com.ait.tooling.server.rest.IRESTService;
+import com.ait.tooling.server.rest.cache.IIdempotencyStore;
+import com.ait.tooling.server.rest.cache.RequestCoalescer;
+import com.ait.tooling.server.rest.cache.ResponseCacheManager;
+import com.ait.tooling.server.rest.codec.RESTCodecRegistry;
+import com.ait.tooling.server.rest.limit.ConcurrencyLimiterManager;
+import com.ait.tooling.server.rest.limit.RateLimiterManager;
+import com.ait.tooling.server.rest.log.AccessLog;
+import com.ait.tooling.server.rest.security.AuthorizationCache;
+import com.ait.tooling.server.rest.session.ClientTokenSessionCache;
+import com.ait.tooling.server.rest.session.ServerSessionNearCache;
+import com.ait.tooling.server.rest.routing.RequestRouteMatch;
 
 public interface IRESTContext extends IServerContext
 {
@@ -27,9 +40,73 @@ public interface IRESTContext extends IServerContext
 
     public IRESTService getBinding(String bind);
 
+    public default RequestRouteMatch getRoute(final String path)
+    {
+        return getServiceRegistry().getRoute(path);
+    }
+
     public String fixRequestBinding(String bind);
 
     public IServiceRegistry getServiceRegistry();
-    
+
     public List<IRESTService> getServices();
+
+    public default Executor getAsyncExecutor()
+    {
+        return ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Returns the response caches, or null if responses are never cached. Like this one, the optional beans below turn
+     * their feature off when null.
+     */
+    public default ResponseCacheManager getResponseCacheManager()
+    {
+        return null;
+    }
+
+    public default ServerSessionNearCache getSessionNearCache()
+    {
+        return null;
+    }
+
+    public default ClientTokenSessionCache getClientTokenSessionCache()
+    {
+        return null;
+    }
+
+    public default AuthorizationCache getAuthorizationCache()
+    {
+        return null;
+    }
+
+    public default RequestCoalescer getRequestCoalescer()
+    {
+        return null;
+    }
+
+    public default IIdempotencyStore getIdempotencyStore()
+    {
+        return null;
+    }
+
+    public default ConcurrencyLimiterManager getConcurrencyLimiterManager()
+    {
+        return null;
+    }
+
+    public default RateLimiterManager getRateLimiterManager()
+    {
+        return null;
+    }
+
+    public default RESTCodecRegistry getCodecRegistry()
+    {
+        return null;
+    }
+
+    public default AccessLog getAccessLog()
+    {
+        return null;
+    }
 }
@@ -20,6 +20,9 @@ import java.io.Closeable;
 import java.util.List;
 
 import com.ait.tooling.server.rest.IRESTService;
+import com.ait.tooling.server.rest.metrics.ServiceLatencyMetrics;
+import com.ait.tooling.server.rest.routing.RequestRouteMatch;
+import com.ait.tooling.server.rest.schema.ServiceSchemas;
 
 public interface IServiceRegistry extends Closeable
 {
@@ -27,9 +30,57 @@ public interface IServiceRegistry extends Closeable
 
     public IRESTService getBinding(String bind);
 
+    /**
+     * Resolves a request path against the route table, or null to resolve it by binding name.
+     */
+    public default RequestRouteMatch getRoute(final String path)
+    {
+        return null;
+    }
+
     public List<String> getServiceNames();
 
     public List<String> getRequestBindings();
 
     public List<IRESTService> getServices();
+
+    public default long getGeneration()
+    {
+        return 0L;
+    }
+
+    /**
+     * Per binding latency histograms, or null if none are kept.
+     */
+    public default ServiceLatencyMetrics getLatencyMetrics()
+    {
+        return null;
+    }
+
+    public default ServiceSchemas getSchemas(final IRESTService service)
+    {
+        return null;
+    }
+
+    public default boolean isValidateRequests()
+    {
+        return false;
+    }
+
+    public default boolean isValidateResponses()
+    {
+        return false;
+    }
+
+    /**
+     * Admits a call into a service, false if the service is retired, every enter that returns true is paired with a leave.
+     */
+    public default boolean enter(final IRESTService service)
+    {
+        return true;
+    }
+
+    public default void leave(final IRESTService service)
+    {
+    }
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.support.spring;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * RESTAsyncExecutor - Executor for IAsyncRESTService calls and other work taken off the container threads.
+ * <p>
+ * Uses a virtual-thread-per-task executor when requested and the JVM supports it, otherwise a bounded
+ * thread pool that rejects work once its queue is full.
+ */
+@ManagedResource
+public class RESTAsyncExecutor implements Executor, Closeable
+{
+    private static final Logger      logger    = Logger.getLogger(RESTAsyncExecutor.class);
+
+    private int                      m_threads = Math.max(8, Runtime.getRuntime().availableProcessors() * 8);
+
+    private int                      m_queue   = 1024;
+
+    private boolean                  m_virtual = false;
+
+    private volatile ExecutorService m_executor;
+
+    public RESTAsyncExecutor()
+    {
+    }
+
+    public void setThreads(final int threads)
+    {
+        m_threads = Math.max(1, threads);
+    }
+
+    @ManagedAttribute(description = "Get maximum pool threads.")
+    public int getThreads()
+    {
+        return m_threads;
+    }
+
+    public void setQueueSize(final int queue)
+    {
+        m_queue = Math.max(1, queue);
+    }
+
+    @ManagedAttribute(description = "Get maximum queued tasks.")
+    public int getQueueSize()
+    {
+        return m_queue;
+    }
+
+    public void setVirtual(final boolean virtual)
+    {
+        m_virtual = virtual;
+    }
+
+    @ManagedAttribute(description = "Get virtual threads requested.")
+    public boolean isVirtual()
+    {
+        return m_virtual;
+    }
+
+    @ManagedAttribute(description = "Get active task count.")
+    public int getActiveCount()
+    {
+        final ExecutorService executor = m_executor;
+
+        if (executor instanceof ThreadPoolExecutor)
+        {
+            return ((ThreadPoolExecutor) executor).getActiveCount();
+        }
+        return -1;
+    }
+
+    @ManagedAttribute(description = "Get queued task count.")
+    public int getQueuedCount()
+    {
+        final ExecutorService executor = m_executor;
+
+        if (executor instanceof ThreadPoolExecutor)
+        {
+            return ((ThreadPoolExecutor) executor).getQueue().size();
+        }
+        return -1;
+    }
+
+    @Override
+    public void execute(final Runnable command)
+    {
+        getExecutorService().execute(command);
+    }
+
+    protected ExecutorService getExecutorService()
+    {
+        ExecutorService executor = m_executor;
+
+        if (null == executor)
+        {
+            synchronized (this)
+            {
+                executor = m_executor;
+
+                if (null == executor)
+                {
+                    m_executor = executor = makeExecutorService();
+                }
+            }
+        }
+        return executor;
+    }
+
+    protected ExecutorService makeExecutorService()
+    {
+        if (isVirtual())
+        {
+            try
+            {
+                final Method make = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+
+                logger.info("RESTAsyncExecutor using virtual threads");
+
+                return (ExecutorService) make.invoke(null);
+            }
+            catch (Exception e)
+            {
+                logger.warn("RESTAsyncExecutor virtual threads not supported, using pool of " + getThreads());
+            }
+        }
+        final AtomicInteger count = new AtomicInteger();
+
+        final ThreadFactory factory = new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(final Runnable runnable)
+            {
+                final Thread thread = new Thread(runnable, "RESTAsyncExecutor-" + count.incrementAndGet());
+
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        };
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(getThreads(), getThreads(), 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(getQueueSize()), factory, new ThreadPoolExecutor.AbortPolicy());
+
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        final ExecutorService executor = m_executor;
+
+        if (null != executor)
+        {
+            m_executor = null;
+
+            executor.shutdown();
+
+            try
+            {
+                if (false == executor.awaitTermination(30, TimeUnit.SECONDS))
+                {
+                    executor.shutdownNow();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                executor.shutdownNow();
+
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -18,14 +18,31 @@ package com.ait.tooling.server.rest.support.spring;
 
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 import com.ait.tooling.common.api.java.util.StringOps;
 import com.ait.tooling.server.core.support.spring.ServerContextInstance;
 import com.ait.tooling.server.rest.IRESTService;
+import com.ait.tooling.server.rest.cache.IIdempotencyStore;
+import com.ait.tooling.server.rest.cache.RequestCoalescer;
+import com.ait.tooling.server.rest.cache.ResponseCacheManager;
+import com.ait.tooling.server.rest.codec.RESTCodecRegistry;
+import com.ait.tooling.server.rest.limit.ConcurrencyLimiterManager;
+import com.ait.tooling.server.rest.limit.RateLimiterManager;
+import com.ait.tooling.server.rest.log.AccessLog;
+import com.ait.tooling.server.rest.security.AuthorizationCache;
+import com.ait.tooling.server.rest.session.ClientTokenSessionCache;
+import com.ait.tooling.server.rest.session.ServerSessionNearCache;
+import com.ait.tooling.server.rest.routing.RequestRouteMatch;
 
 public class RESTContextInstance extends ServerContextInstance implements IRESTContext
 {
-    private static final RESTContextInstance INSTANCE = new RESTContextInstance();
+    private static final RESTContextInstance        INSTANCE   = new RESTContextInstance();
+
+    private volatile IServiceRegistry               m_registry = null;
+
+    private final ConcurrentHashMap<String, Object> m_beans    = new ConcurrentHashMap<String, Object>();
 
     public static final RESTContextInstance getRESTContextInstance()
     {
@@ -39,9 +56,50 @@ public class RESTContextInstance extends ServerContextInstance implements IRESTC
     @Override
     public IServiceRegistry getServiceRegistry()
     {
+        final IServiceRegistry registry = m_registry;
+
+        if (null != registry)
+        {
+            return registry;
+        }
         return Objects.requireNonNull(getBeanSafely("RESTServiceRegistry", IServiceRegistry.class), "RESTServiceRegistry is null, initialization error.");
     }
 
+    void setServiceRegistry(final IServiceRegistry registry)
+    {
+        m_registry = registry;
+    }
+
+    void clearServiceRegistry(final IServiceRegistry registry)
+    {
+        if (m_registry == registry)
+        {
+            m_registry = null;
+
+            m_beans.clear();
+        }
+    }
+
+    /**
+     * Resolves a bean of this module once per registry lifetime, the request path calls these on every request.
+     */
+    protected <B> B getRESTBean(final String name, final Class<B> type)
+    {
+        final Object bean = m_beans.get(name);
+
+        if (type.isInstance(bean))
+        {
+            return type.cast(bean);
+        }
+        final B make = Objects.requireNonNull(getBeanSafely(name, type), name + " is null, initialization error.");
+
+        if (null != m_registry)
+        {
+            m_beans.put(name, make);
+        }
+        return make;
+    }
+
     @Override
     public IRESTService getService(final String name)
     {
@@ -54,6 +112,12 @@ public class RESTContextInstance extends ServerContextInstance implements IRESTC
         return getServiceRegistry().getBinding(Objects.requireNonNull(bind));
     }
 
+    @Override
+    public RequestRouteMatch getRoute(final String path)
+    {
+        return getServiceRegistry().getRoute(path);
+    }
+
     @Override
     public String fixRequestBinding(String bind)
     {
@@ -61,34 +125,113 @@ public class RESTContextInstance extends ServerContextInstance implements IRESTC
 
         if (null != bind)
         {
-            String temp = bind.replaceAll("//", "/").replaceAll("\\s", "");
+            final int leng = bind.length();
 
-            while (false == temp.equals(bind))
-            {
-                bind = temp;
+            final StringBuilder buff = new StringBuilder(leng + 1).append('/');
 
-                temp = bind.replaceAll("//", "/");
-            }
-            if (false == bind.startsWith("/"))
+            for (int i = 0; i < leng; i++)
             {
-                bind = "/" + bind;
+                final char c = bind.charAt(i);
+
+                if (isRegexSpace(c))
+                {
+                    continue;
+                }
+                if ((c == '/') && (buff.charAt(buff.length() - 1) == '/'))
+                {
+                    continue;
+                }
+                buff.append(c);
             }
-            if (bind.endsWith("/"))
+            int last = buff.length();
+
+            if ((last > 0) && (buff.charAt(last - 1) == '/'))
             {
-                bind = bind.substring(0, bind.length() - 1);
+                buff.setLength(--last);
             }
-            if (bind.endsWith(".rpc"))
+            if ((last >= 4) && (buff.lastIndexOf(".rpc") == (last - 4)))
             {
-                bind = bind.substring(0, bind.length() - 4);
+                buff.setLength(last - 4);
             }
-            bind = StringOps.toTrimOrNull(bind);
+            bind = StringOps.toTrimOrNull(buff.toString());
         }
         return bind;
     }
 
+    private static boolean isRegexSpace(final char c)
+    {
+        return ((c == ' ') || (c == '\t') || (c == '\n') || (c == '\u000B') || (c == '\f') || (c == '\r'));
+    }
+
     @Override
     public List<IRESTService> getServices()
     {
         return getServiceRegistry().getServices();
     }
+
+    @Override
+    public Executor getAsyncExecutor()
+    {
+        return getRESTBean("RESTAsyncExecutor", Executor.class);
+    }
+
+    @Override
+    public ResponseCacheManager getResponseCacheManager()
+    {
+        return getRESTBean("RESTResponseCacheManager", ResponseCacheManager.class);
+    }
+
+    @Override
+    public ServerSessionNearCache getSessionNearCache()
+    {
+        return getRESTBean("RESTSessionNearCache", ServerSessionNearCache.class);
+    }
+
+    @Override
+    public ClientTokenSessionCache getClientTokenSessionCache()
+    {
+        return getRESTBean("RESTClientTokenSessionCache", ClientTokenSessionCache.class);
+    }
+
+    @Override
+    public AuthorizationCache getAuthorizationCache()
+    {
+        return getRESTBean("RESTAuthorizationCache", AuthorizationCache.class);
+    }
+
+    @Override
+    public RequestCoalescer getRequestCoalescer()
+    {
+        return getRESTBean("RESTRequestCoalescer", RequestCoalescer.class);
+    }
+
+    @Override
+    public IIdempotencyStore getIdempotencyStore()
+    {
+        return getRESTBean("RESTIdempotencyStore", IIdempotencyStore.class);
+    }
+
+    @Override
+    public ConcurrencyLimiterManager getConcurrencyLimiterManager()
+    {
+        return getRESTBean("RESTConcurrencyLimiterManager", ConcurrencyLimiterManager.class);
+    }
+
+    @Override
+    public RateLimiterManager getRateLimiterManager()
+    {
+        return getRESTBean("RESTRateLimiterManager", RateLimiterManager.class);
+    }
+
+    @Override
+    public RESTCodecRegistry getCodecRegistry()
+    {
+        return getRESTBean("RESTCodecRegistry", RESTCodecRegistry.class);
+    }
+
+    @Override
+    public AccessLog getAccessLog()
+    {
+        return getRESTBean("RESTAccessLog", AccessLog.class);
+    }
 }
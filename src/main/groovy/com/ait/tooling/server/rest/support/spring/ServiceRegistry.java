@@ -19,94 +19,355 @@ package com.ait.tooling.server.rest.support.spring;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.log4j.Logger;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
 import org.springframework.jmx.export.annotation.ManagedResource;
 
 import com.ait.tooling.common.api.java.util.StringOps;
 import com.ait.tooling.server.rest.IRESTService;
+import com.ait.tooling.server.rest.index.IndexedRESTService;
+import com.ait.tooling.server.rest.index.RESTServiceIndex;
+import com.ait.tooling.server.rest.index.RESTServiceIndex.RESTServiceEntry;
+import com.ait.tooling.server.rest.metrics.ServiceLatencyMetrics;
+import com.ait.tooling.server.rest.routing.RequestRouteMatch;
+import com.ait.tooling.server.rest.routing.RequestRouteTable;
+import com.ait.tooling.server.rest.schema.ServiceSchemas;
 
 /**
  * ServiceRegistry - Registry of all IRESTService services found in the application.
+ * <p>
+ * Services, bindings and routes are held in an immutable snapshot published through an AtomicReference, so lookups on the
+ * request path never lock. Changes build and publish a new snapshot. A replaced or removed service is closed in the background
+ * once its in-flight calls, counted through {@link #enter(IRESTService)} and {@link #leave(IRESTService)}, have finished or
+ * the drain timeout has passed, so a change never waits for the calls it retires.
+ * <p>
+ * Singleton service beans listed in a {@link RESTServiceIndex} are registered from the index without being created, and
+ * created when first resolved, or all at once in the background after the context is refreshed when warming is on. Service
+ * beans must be lazy-init for Spring itself not to create them at startup.
  */
 @ManagedResource
-public class ServiceRegistry implements IServiceRegistry, BeanFactoryAware
+public class ServiceRegistry implements IMutableServiceRegistry, BeanFactoryAware, ApplicationListener<ContextRefreshedEvent>
 {
-    private static final Logger                       logger     = Logger.getLogger(ServiceRegistry.class);
+    private static final Logger                                   logger                = Logger.getLogger(ServiceRegistry.class);
 
-    private final LinkedHashMap<String, IRESTService> m_services = new LinkedHashMap<String, IRESTService>();
+    public static final long                                      DEFAULT_DRAIN_TIMEOUT = 30000L;
 
-    private final LinkedHashMap<String, IRESTService> m_bindings = new LinkedHashMap<String, IRESTService>();
+    private final AtomicReference<ServiceSnapshot>                m_snapshot            = new AtomicReference<ServiceSnapshot>(new ServiceSnapshot(Collections.<IRESTService> emptyList(), Collections.<IRESTService, InFlight> emptyMap(), 0L));
+
+    private final ConcurrentHashMap<IRESTService, InFlight>       m_draining            = new ConcurrentHashMap<IRESTService, InFlight>();
+
+    private final ServiceLatencyMetrics                           m_metrics             = new ServiceLatencyMetrics();
+
+    private final ConcurrentHashMap<IRESTService, ServiceSchemas> m_schemas             = new ConcurrentHashMap<IRESTService, ServiceSchemas>();
+
+    private boolean                                               m_vrequest            = true;
+
+    private boolean                                               m_vresponse           = false;
+
+    private long                                                  m_drain               = DEFAULT_DRAIN_TIMEOUT;
+
+    private boolean                                               m_lazy                = true;
+
+    private boolean                                               m_warm                = false;
+
+    private AutowireCapableBeanFactory                            m_factory;
 
     public ServiceRegistry()
     {
     }
 
+    /**
+     * Adds a service at startup, a service whose name is taken is still found by its binding if that is free.
+     */
     protected void addService(final IRESTService service)
     {
-        if (null != service)
+        if (null == service)
+        {
+            logger.error("ServiceRegistry.addService(null)");
+
+            return;
+        }
+        synchronized (m_snapshot)
         {
-            String name = StringOps.toTrimOrNull(service.getName());
+            final ServiceSnapshot last = m_snapshot.get();
 
-            if (null != name)
-            {
-                if (null == m_services.get(name))
-                {
-                    m_services.put(name, service);
+            final ArrayList<IRESTService> list = new ArrayList<IRESTService>(last.m_list);
 
-                    logger.info("ServiceRegistry.addService(" + name + ") Registered");
-                }
-                else
-                {
-                    logger.error("ServiceRegistry.addService(" + name + ") Duplicate ignored");
-                }
+            list.add(service);
+
+            publish(list, last);
+        }
+    }
+
+    /**
+     * Adds a service, or replaces the service of the same name, and returns the replaced service, which is closed once drained.
+     */
+    @Override
+    public IRESTService register(final IRESTService service)
+    {
+        final String name = StringOps.requireTrimOrNull(Objects.requireNonNull(service).getName());
+
+        IRESTService last = null;
+
+        InFlight drain = null;
+
+        synchronized (m_snapshot)
+        {
+            final ServiceSnapshot prev = m_snapshot.get();
+
+            final ArrayList<IRESTService> list = new ArrayList<IRESTService>(prev.m_list);
+
+            last = prev.m_services.get(name);
+
+            if (last == service)
+            {
+                return null;
+            }
+            if (null == last)
+            {
+                list.add(service);
             }
             else
             {
-                logger.error("ServiceRegistry.addService(" + service.getClass().getSimpleName() + ") has null or empty name.");
+                list.set(list.indexOf(last), service);
+
+                drain = retire(last, prev);
             }
-            String bind = StringOps.toTrimOrNull(service.getRequestBinding());
+            m_schemas.put(service, ServiceSchemas.compile(service));
+
+            publish(list, prev);
+        }
+        logger.info("ServiceRegistry.register(" + name + ") " + ((null == last) ? "Registered" : "Replaced"));
 
-            if (null != bind)
+        if (null != last)
+        {
+            drainLater(last, drain);
+        }
+        return last;
+    }
+
+    /**
+     * Removes a service by name and returns it, or null if there is no such service. The service is closed once drained.
+     */
+    @Override
+    public IRESTService deregister(String name)
+    {
+        name = StringOps.toTrimOrNull(name);
+
+        if (null == name)
+        {
+            return null;
+        }
+        IRESTService last = null;
+
+        InFlight drain = null;
+
+        synchronized (m_snapshot)
+        {
+            final ServiceSnapshot prev = m_snapshot.get();
+
+            last = prev.m_services.get(name);
+
+            if (null == last)
             {
-                if (null == m_bindings.get(bind))
-                {
-                    m_bindings.put(bind, service);
+                return null;
+            }
+            final ArrayList<IRESTService> list = new ArrayList<IRESTService>(prev.m_list);
 
-                    logger.info("ServiceRegistry.addService(" + bind + ") Binding Registered");
-                }
-                else
-                {
-                    logger.error("ServiceRegistry.addService(" + bind + ") Duplicate binding ignored");
-                }
+            list.remove(last);
+
+            drain = retire(last, prev);
+
+            publish(list, prev);
+        }
+        logger.info("ServiceRegistry.deregister(" + name + ") Removed");
+
+        drainLater(last, drain);
+
+        return last;
+    }
+
+    @ManagedOperation(description = "Create a service bean of a class and register it, replacing the service of the same name.")
+    public String registerServiceClass(final String type) throws ClassNotFoundException
+    {
+        final AutowireCapableBeanFactory factory = m_factory;
+
+        if (null == factory)
+        {
+            throw new IllegalStateException("no bean factory");
+        }
+        final Class<?> claz = Class.forName(StringOps.requireTrimOrNull(type), true, Thread.currentThread().getContextClassLoader());
+
+        if (false == IRESTService.class.isAssignableFrom(claz))
+        {
+            throw new IllegalArgumentException(type + " is not an IRESTService");
+        }
+        final IRESTService service = (IRESTService) factory.createBean(claz);
+
+        register(service);
+
+        return service.getName();
+    }
+
+    @ManagedOperation(description = "Drain, close and remove a service by name.")
+    public boolean deregisterService(final String name)
+    {
+        return (null != deregister(name));
+    }
+
+    private void publish(final List<IRESTService> list, final ServiceSnapshot prev)
+    {
+        final ServiceSnapshot next = new ServiceSnapshot(list, prev.m_inflight, prev.m_generation + 1L);
+
+        m_snapshot.set(next);
+
+        for (IRESTService service : prev.m_inflight.keySet())
+        {
+            if (false == next.m_inflight.containsKey(service))
+            {
+                m_schemas.remove(service);
             }
-            if ((null != name) && (null == bind))
+        }
+    }
+
+    /**
+     * Moves a service's in-flight count to the draining table, before the snapshot without it is published, so enter always finds it.
+     */
+    private InFlight retire(final IRESTService service, final ServiceSnapshot prev)
+    {
+        final InFlight flight = prev.m_inflight.get(service);
+
+        m_draining.put(service, flight);
+
+        return flight;
+    }
+
+    /**
+     * Drains and closes a retired service on its own daemon thread, retiring is rare and a drain may wait for the full timeout.
+     */
+    private void drainLater(final IRESTService service, final InFlight flight)
+    {
+        flight.m_retired = true;
+
+        final Thread thread = new Thread(() -> drain(service, flight), "ServiceRegistry.drain(" + service.getName() + ")");
+
+        thread.setDaemon(true);
+
+        thread.start();
+    }
+
+    private void drain(final IRESTService service, final InFlight flight)
+    {
+        final long stop = System.currentTimeMillis() + getDrainTimeout();
+
+        boolean interrupted = false;
+
+        while ((flight.m_count.get() > 0) && (System.currentTimeMillis() < stop))
+        {
+            try
+            {
+                Thread.sleep(10L);
+            }
+            catch (InterruptedException e)
             {
-                bind = "/" + name;
+                interrupted = true;
 
-                if (null == m_bindings.get(bind))
-                {
-                    m_bindings.put(bind, service);
+                break;
+            }
+        }
+        final int left = flight.m_count.get();
 
-                    logger.info("ServiceRegistry.addService(" + bind + ") Binding Registered");
-                }
-                else
-                {
-                    logger.error("ServiceRegistry.addService(" + bind + ") Duplicate binding ignored");
-                }
+        if (left > 0)
+        {
+            logger.warn("ServiceRegistry.drain(" + service.getName() + ") closing with " + left + " calls in flight");
+        }
+        m_draining.remove(service, flight);
+
+        try
+        {
+            service.close();
+        }
+        catch (Exception e)
+        {
+            logger.error("ServiceRegistry.drain(" + service.getName() + ") ERROR ", e);
+        }
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Counts a call into a service, false if the service has been replaced or removed and must not be called.
+     */
+    @Override
+    public boolean enter(final IRESTService service)
+    {
+        InFlight flight = m_snapshot.get().m_inflight.get(service);
+
+        if (null == flight)
+        {
+            flight = m_draining.get(service);
+
+            if (null == flight)
+            {
+                return false;
             }
         }
-        else
+        flight.m_count.incrementAndGet();
+
+        if (flight.m_retired)
         {
-            logger.error("ServiceRegistry.addService(null)");
+            flight.m_count.decrementAndGet();
+
+            return false;
         }
+        return true;
+    }
+
+    @Override
+    public void leave(final IRESTService service)
+    {
+        InFlight flight = m_snapshot.get().m_inflight.get(service);
+
+        if (null == flight)
+        {
+            flight = m_draining.get(service);
+        }
+        if (null != flight)
+        {
+            flight.m_count.decrementAndGet();
+        }
+    }
+
+    @ManagedAttribute(description = "Set milliseconds a replaced or removed service is given to finish its calls before it is closed.")
+    public void setDrainTimeout(final long drain)
+    {
+        m_drain = Math.max(0L, drain);
+    }
+
+    @ManagedAttribute(description = "Get milliseconds a replaced or removed service is given to finish its calls before it is closed.")
+    public long getDrainTimeout()
+    {
+        return m_drain;
     }
 
     @Override
@@ -116,7 +377,7 @@ public class ServiceRegistry implements IServiceRegistry, BeanFactoryAware
 
         if (null != name)
         {
-            return m_services.get(name);
+            return resolve(m_snapshot.get().m_services.get(name));
         }
         return null;
     }
@@ -132,29 +393,228 @@ public class ServiceRegistry implements IServiceRegistry, BeanFactoryAware
             {
                 bind = "/" + bind;
             }
-            return m_bindings.get(bind);
+            return resolve(m_snapshot.get().m_bindings.get(bind));
         }
         return null;
     }
 
+    @Override
+    public RequestRouteMatch getRoute(final String path)
+    {
+        final RequestRouteMatch match = getRouteTable().match(path);
+
+        if ((null != match) && (match.getService() instanceof IndexedRESTService))
+        {
+            resolve(match.getService());
+
+            return getRouteTable().match(path);
+        }
+        return match;
+    }
+
+    /**
+     * Returns the service itself, an indexed service not created yet is created and swapped into a new snapshot first.
+     */
+    protected IRESTService resolve(final IRESTService service)
+    {
+        if (false == (service instanceof IndexedRESTService))
+        {
+            return service;
+        }
+        final IndexedRESTService lazy = (IndexedRESTService) service;
+
+        final IRESTService make = lazy.getService();
+
+        synchronized (m_snapshot)
+        {
+            final ServiceSnapshot prev = m_snapshot.get();
+
+            final int indx = prev.m_list.indexOf(lazy);
+
+            if (indx >= 0)
+            {
+                if ((false == lazy.getName().equals(make.getName())) || (false == Objects.equals(lazy.getRequestBinding(), make.getRequestBinding())) || (lazy.getRequestMethodType() != make.getRequestMethodType()))
+                {
+                    logger.warn("ServiceRegistry.resolve(" + lazy.getName() + ") index is stale for " + lazy.getEntry().getClassName());
+                }
+                final ArrayList<IRESTService> list = new ArrayList<IRESTService>(prev.m_list);
+
+                list.set(indx, make);
+
+                m_schemas.put(make, ServiceSchemas.compile(make));
+
+                publish(list, prev);
+
+                logger.info("ServiceRegistry.resolve(" + make.getName() + ") Created");
+            }
+        }
+        return make;
+    }
+
+    @ManagedAttribute(description = "Set creation of indexed service beans on first call instead of at startup.")
+    public void setLazyServices(final boolean lazy)
+    {
+        m_lazy = lazy;
+    }
+
+    @ManagedAttribute(description = "Get creation of indexed service beans on first call instead of at startup.")
+    public boolean isLazyServices()
+    {
+        return m_lazy;
+    }
+
+    @ManagedAttribute(description = "Set creation of indexed service beans in the background once the context is refreshed.")
+    public void setWarmServices(final boolean warm)
+    {
+        m_warm = warm;
+    }
+
+    @ManagedAttribute(description = "Get creation of indexed service beans in the background once the context is refreshed.")
+    public boolean isWarmServices()
+    {
+        return m_warm;
+    }
+
+    @ManagedAttribute(description = "Get names of indexed services whose beans have not been created yet.")
+    public List<String> getLazyServiceNames()
+    {
+        final ArrayList<String> list = new ArrayList<String>();
+
+        for (IRESTService service : m_snapshot.get().m_list)
+        {
+            if (service instanceof IndexedRESTService)
+            {
+                list.add(service.getName());
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    @ManagedOperation(description = "Create all indexed service beans not created yet, in parallel.")
+    public void warmServices()
+    {
+        for (IRESTService service : m_snapshot.get().m_list)
+        {
+            if (service instanceof IndexedRESTService)
+            {
+                CompletableFuture.runAsync(() -> resolve(service)).whenComplete((none, thrown) -> {
+
+                    if (null != thrown)
+                    {
+                        logger.error("ServiceRegistry.warmServices(" + service.getName() + ") ERROR ", thrown);
+                    }
+                });
+            }
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(final ContextRefreshedEvent event)
+    {
+        if (isWarmServices())
+        {
+            warmServices();
+        }
+    }
+
+    protected RequestRouteTable getRouteTable()
+    {
+        return m_snapshot.get().m_routes;
+    }
+
     @Override
     @ManagedAttribute(description = "Get IRESTService names.")
     public List<String> getServiceNames()
     {
-        return Collections.unmodifiableList(new ArrayList<String>(m_services.keySet()));
+        return Collections.unmodifiableList(new ArrayList<String>(m_snapshot.get().m_services.keySet()));
     }
 
     @Override
     @ManagedAttribute(description = "Get IRESTService RequestBindings.")
     public List<String> getRequestBindings()
     {
-        return Collections.unmodifiableList(new ArrayList<String>(m_bindings.keySet()));
+        return Collections.unmodifiableList(new ArrayList<String>(m_snapshot.get().m_bindings.keySet()));
     }
 
     @Override
     public List<IRESTService> getServices()
     {
-        return Collections.unmodifiableList(new ArrayList<IRESTService>(m_services.values()));
+        return Collections.unmodifiableList(new ArrayList<IRESTService>(m_snapshot.get().m_services.values()));
+    }
+
+    @Override
+    @ManagedAttribute(description = "Get registry generation, changes whenever services change.")
+    public long getGeneration()
+    {
+        return m_snapshot.get().m_generation;
+    }
+
+    @Override
+    public ServiceLatencyMetrics getLatencyMetrics()
+    {
+        return m_metrics;
+    }
+
+    @ManagedAttribute(description = "Get IRESTService latencies by binding and status, p50 p99 p999 in ms.")
+    public List<String> getServiceLatencies()
+    {
+        return m_metrics.getSummary();
+    }
+
+    @ManagedOperation(description = "Clear IRESTService latencies.")
+    public void clearServiceLatencies()
+    {
+        m_metrics.clear();
+    }
+
+    @Override
+    public ServiceSchemas getSchemas(final IRESTService service)
+    {
+        final ServiceSchemas schemas = m_schemas.get(service);
+
+        if (null != schemas)
+        {
+            return schemas;
+        }
+        return m_schemas.computeIfAbsent(service, ServiceSchemas::compile);
+    }
+
+    protected void compileSchemas()
+    {
+        for (IRESTService service : getServices())
+        {
+            if (false == (service instanceof IndexedRESTService))
+            {
+                m_schemas.put(service, ServiceSchemas.compile(service));
+            }
+        }
+        logger.info("ServiceRegistry.compileSchemas(" + m_schemas.size() + ") Schemas compiled");
+    }
+
+    @ManagedAttribute(description = "Set validation of requests against request schemas.")
+    public void setValidateRequests(final boolean validate)
+    {
+        m_vrequest = validate;
+    }
+
+    @Override
+    @ManagedAttribute(description = "Get validation of requests against request schemas.")
+    public boolean isValidateRequests()
+    {
+        return m_vrequest;
+    }
+
+    @ManagedAttribute(description = "Set validation of responses against response schemas, meant for staging.")
+    public void setValidateResponses(final boolean validate)
+    {
+        m_vresponse = validate;
+    }
+
+    @Override
+    @ManagedAttribute(description = "Get validation of responses against response schemas.")
+    public boolean isValidateResponses()
+    {
+        return m_vresponse;
     }
 
     @Override
@@ -162,16 +622,59 @@ public class ServiceRegistry implements IServiceRegistry, BeanFactoryAware
     {
         if (factory instanceof DefaultListableBeanFactory)
         {
-            for (IRESTService service : ((DefaultListableBeanFactory) factory).getBeansOfType(IRESTService.class).values())
+            final DefaultListableBeanFactory beans = (DefaultListableBeanFactory) factory;
+
+            m_factory = beans;
+
+            final RESTServiceIndex index = isLazyServices() ? RESTServiceIndex.load(beans.getBeanClassLoader()) : new RESTServiceIndex(Collections.<RESTServiceEntry> emptyList());
+
+            int lazy = 0;
+
+            synchronized (m_snapshot)
             {
-                addService(service);
+                final ServiceSnapshot last = m_snapshot.get();
+
+                final ArrayList<IRESTService> list = new ArrayList<IRESTService>(last.m_list);
+
+                if (index.isEmpty())
+                {
+                    list.addAll(beans.getBeansOfType(IRESTService.class).values());
+                }
+                else
+                {
+                    for (String bean : beans.getBeanNamesForType(IRESTService.class, true, false))
+                    {
+                        final Class<?> type = beans.getType(bean);
+
+                        final RESTServiceEntry entry = (null == type) ? null : index.getEntry(type.getName());
+
+                        if ((null != entry) && (beans.isSingleton(bean)))
+                        {
+                            list.add(new IndexedRESTService(entry, RESTContextInstance.getRESTContextInstance().fixRequestBinding(entry.getRequestBinding()), make -> beans.getBean(bean, IRESTService.class)));
+
+                            lazy++;
+                        }
+                        else
+                        {
+                            list.add(beans.getBean(bean, IRESTService.class));
+                        }
+                    }
+                }
+                publish(list, last);
             }
+            logger.info("ServiceRegistry.setBeanFactory(" + getServiceNames() + ") Registered, " + lazy + " from index, " + getRouteTable().size() + " routes compiled");
+
+            compileSchemas();
+
+            RESTContextInstance.getRESTContextInstance().setServiceRegistry(this);
         }
     }
 
     @Override
     public void close() throws IOException
     {
+        RESTContextInstance.getRESTContextInstance().clearServiceRegistry(this);
+
         for (IRESTService service : getServices())
         {
             if (null != service)
@@ -189,4 +692,87 @@ public class ServiceRegistry implements IServiceRegistry, BeanFactoryAware
             }
         }
     }
+
+    private static final class InFlight
+    {
+        private final AtomicInteger m_count = new AtomicInteger();
+
+        private volatile boolean    m_retired;
+    }
+
+    /**
+     * ServiceSnapshot - One immutable generation of the registry, services keep their in-flight counts across generations.
+     */
+    private static final class ServiceSnapshot
+    {
+        private final List<IRESTService>              m_list;
+
+        private final Map<String, IRESTService>       m_services;
+
+        private final Map<String, IRESTService>       m_bindings;
+
+        private final Map<IRESTService, InFlight>     m_inflight;
+
+        private final RequestRouteTable               m_routes;
+
+        private final long                            m_generation;
+
+        ServiceSnapshot(final List<IRESTService> list, final Map<IRESTService, InFlight> prev, final long generation)
+        {
+            final LinkedHashMap<String, IRESTService> services = new LinkedHashMap<String, IRESTService>();
+
+            final LinkedHashMap<String, IRESTService> bindings = new LinkedHashMap<String, IRESTService>();
+
+            final IdentityHashMap<IRESTService, InFlight> inflight = new IdentityHashMap<IRESTService, InFlight>();
+
+            for (IRESTService service : list)
+            {
+                final String name = StringOps.toTrimOrNull(service.getName());
+
+                if (null == name)
+                {
+                    logger.error("ServiceRegistry.addService(" + service.getClass().getSimpleName() + ") has null or empty name.");
+                }
+                else if (null == services.get(name))
+                {
+                    services.put(name, service);
+                }
+                else
+                {
+                    logger.error("ServiceRegistry.addService(" + name + ") Duplicate ignored");
+                }
+                String bind = StringOps.toTrimOrNull(service.getRequestBinding());
+
+                if ((null != name) && (null == bind))
+                {
+                    bind = "/" + name;
+                }
+                if (null != bind)
+                {
+                    if (null == bindings.get(bind))
+                    {
+                        bindings.put(bind, service);
+                    }
+                    else
+                    {
+                        logger.error("ServiceRegistry.addService(" + bind + ") Duplicate binding ignored");
+                    }
+                }
+                final InFlight flight = prev.get(service);
+
+                inflight.put(service, (null == flight) ? new InFlight() : flight);
+            }
+            m_list = Collections.unmodifiableList(new ArrayList<IRESTService>(list));
+
+            m_services = Collections.unmodifiableMap(services);
+
+            m_bindings = Collections.unmodifiableMap(bindings);
+
+            m_inflight = Collections.unmodifiableMap(inflight);
+
+            m_routes = new RequestRouteTable(bindings);
+
+            m_generation = generation;
+        }
+    }
 }
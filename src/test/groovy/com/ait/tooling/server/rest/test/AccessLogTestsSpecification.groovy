@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import java.nio.file.Files
+
+import com.ait.tooling.server.rest.log.AccessLog
+import com.ait.tooling.server.rest.log.AccessLogEvent
+import com.ait.tooling.server.rest.log.AccessLogRing
+
+import spock.lang.Specification
+
+class AccessLogTestsSpecification extends Specification
+{
+    static File folder()
+    {
+        def make = Files.createTempDirectory("rest-access").toFile()
+
+        make.deleteOnExit()
+
+        make
+    }
+
+    static AccessLog make(File file)
+    {
+        def log = new AccessLog()
+
+        log.setFile(file.getPath())
+
+        log.setEnabled(true)
+
+        log
+    }
+
+    def "test ring capacity is rounded up to a power of two"()
+    {
+        expect:
+        new AccessLogRing(1).getCapacity() == 2
+        new AccessLogRing(8).getCapacity() == 8
+        new AccessLogRing(100).getCapacity() == 128
+    }
+
+    def "test events are read in the order they were offered"()
+    {
+        setup:
+        def ring = new AccessLogRing(4)
+        def event = new AccessLogEvent()
+        ring.offer(1L, "GET", "/one", 200, 1000L, 10L, "u1")
+        ring.offer(2L, "POST", "/two", 500, 2000L, 20L, null)
+        def size = ring.size()
+
+        expect:
+        size == 2
+        ring.poll(event)
+        event.getTime() == 1L
+        event.getMethod() == "GET"
+        event.getRequestBinding() == "/one"
+        event.getCode() == 200
+        event.getNanos() == 1000L
+        event.getBytes() == 10L
+        event.getUserID() == "u1"
+        ring.poll(event)
+        event.getRequestBinding() == "/two"
+        event.getUserID() == null
+        ring.poll(event) == false
+        ring.size() == 0
+    }
+
+    def "test full ring refuses events until one is read"()
+    {
+        setup:
+        def ring = new AccessLogRing(2)
+        def event = new AccessLogEvent()
+
+        expect:
+        ring.offer(1L, "GET", "/one", 200, 0L, 0L, null)
+        ring.offer(2L, "GET", "/two", 200, 0L, 0L, null)
+        ring.offer(3L, "GET", "/three", 200, 0L, 0L, null) == false
+        ring.poll(event)
+        ring.offer(4L, "GET", "/four", 200, 0L, 0L, null)
+        ring.poll(event)
+        event.getTime() == 2L
+        ring.poll(event)
+        event.getTime() == 4L
+    }
+
+    def "test events of many writers are all read once and in order per writer"()
+    {
+        setup:
+        def ring = new AccessLogRing(64)
+        def count = 20000
+        def last = new long[4]
+        def read = 0
+        def ordered = true
+        def writers = (0..<4).collect { long indx ->
+            Thread.start {
+                for (long i = 1L; i <= count; i++)
+                {
+                    while (false == ring.offer(i, "GET", "/ring", 200, indx, 0L, null))
+                    {
+                        Thread.yield()
+                    }
+                }
+            }
+        }
+        def event = new AccessLogEvent()
+        while (read < (count * 4))
+        {
+            if (ring.poll(event))
+            {
+                def indx = (int) event.getNanos()
+                ordered = ordered && (event.getTime() == last[indx] + 1L)
+                last[indx] = event.getTime()
+                read++
+            }
+        }
+        writers*.join()
+
+        expect:
+        ordered
+        last.every { it == count }
+        ring.poll(event) == false
+    }
+
+    def "test calls are written as JSON lines"()
+    {
+        setup:
+        def file = new File(folder(), "access.log")
+        def log = make(file)
+        log.record("GET", "/users/{id}", 200, 1234567L, 42L, "bob")
+        log.record("POST", "/say \"hi\"", 500, 5000L, 0L, null)
+        log.close()
+        def lines = file.readLines("UTF-8")
+
+        expect:
+        lines.size() == 2
+        lines[0].startsWith('{"time":"')
+        lines[0].endsWith('","method":"GET","binding":"/users/{id}","status":200,"ms":1.234,"bytes":42,"user":"bob"}')
+        lines[1].endsWith('","method":"POST","binding":"/say \\"hi\\"","status":500,"ms":0.005,"bytes":0}')
+        log.getWrittenCount() == 2L
+        log.getDroppedCount() == 0L
+    }
+
+    def "test disabled log records nothing"()
+    {
+        setup:
+        def file = new File(folder(), "access.log")
+        def log = make(file)
+        log.setEnabled(false)
+        log.record("GET", "/one", 200, 0L, 0L, null)
+        log.close()
+
+        expect:
+        file.exists() == false
+        log.getWrittenCount() == 0L
+    }
+
+    def "test sampling keeps server errors"()
+    {
+        setup:
+        def file = new File(folder(), "access.log")
+        def log = make(file)
+        log.setSampleRate(0.0)
+        log.record("GET", "/one", 200, 0L, 0L, null)
+        log.record("GET", "/two", 404, 0L, 0L, null)
+        log.record("GET", "/three", 503, 0L, 0L, null)
+        log.close()
+        def lines = file.readLines("UTF-8")
+
+        expect:
+        lines.size() == 1
+        lines[0].contains('"status":503')
+        log.getSampledOutCount() == 2L
+    }
+
+    def "test full ring drops and counts events"()
+    {
+        setup:
+        def file = new File(folder(), "access.log")
+        def log = make(file)
+        log.setCapacity(2)
+        1000.times { log.record("GET", "/drop", 200, 0L, 0L, null) }
+        log.close()
+
+        expect:
+        log.getWrittenCount() + log.getDroppedCount() == 1000L
+        log.getCapacity() == 2
+    }
+
+    def "test file is rolled when it reaches its maximum size"()
+    {
+        setup:
+        def root = folder()
+        def file = new File(root, "access.log")
+        def log = make(file)
+        log.setMaxFileSize(1024L)
+        log.setMaxFiles(2)
+        200.times { log.record("GET", "/roll/" + it, 200, 0L, 0L, null) }
+        log.close()
+
+        expect:
+        log.getWrittenCount() + log.getDroppedCount() == 200L
+        file.exists()
+        new File(root, "access.log.1").exists()
+        new File(root, "access.log.2").exists()
+        new File(root, "access.log.3").exists() == false
+        new File(root, "access.log.1").length() >= 1024L
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import java.lang.management.ManagementFactory
+
+import org.springframework.http.HttpMethod
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+import org.springframework.stereotype.Service
+
+import com.ait.tooling.server.core.json.JSONObject
+import com.ait.tooling.server.rest.IRESTRequestContext
+import com.ait.tooling.server.rest.IRESTService
+import com.ait.tooling.server.rest.RESTServiceSupport
+import com.ait.tooling.server.rest.RequestBinding
+import com.ait.tooling.server.rest.RequestMethod
+import com.ait.tooling.server.rest.servlet.RESTServlet
+
+import groovy.transform.CompileStatic
+import spock.lang.Requires
+
+@Requires({ AllocationTestsSpecification.isAllocationCounted() })
+class AllocationTestsSpecification extends RESTServletTestsSpecification
+{
+    static final int  WARMUP = 20000
+
+    static final int  COUNTS = 50000
+
+    static final long BUDGET = 4096L
+
+    @Override
+    List<IRESTService> getTestServices()
+    {
+        [new NoOpService()]
+    }
+
+    @CompileStatic
+    static boolean isAllocationCounted()
+    {
+        def bean = ManagementFactory.getThreadMXBean()
+
+        (bean instanceof com.sun.management.ThreadMXBean) && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+    }
+
+    @CompileStatic
+    static long getAllocatedBytes()
+    {
+        ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId())
+    }
+
+    @CompileStatic
+    static void dispatch(final RESTServlet target, final MockHttpServletRequest request, final boolean call)
+    {
+        final MockHttpServletResponse response = new MockHttpServletResponse()
+
+        if (call)
+        {
+            target.service(request, response)
+        }
+    }
+
+    /**
+     * Bytes allocated per dispatch, with call false only the mock response is made, so the difference is the servlet's own.
+     */
+    @CompileStatic
+    static double getBytesPerCall(final RESTServlet target, final MockHttpServletRequest request, final boolean call)
+    {
+        for (int i = 0; i < WARMUP; i++)
+        {
+            dispatch(target, request, call)
+        }
+        final long from = getAllocatedBytes()
+
+        for (int i = 0; i < COUNTS; i++)
+        {
+            dispatch(target, request, call)
+        }
+        (getAllocatedBytes() - from) / (double) COUNTS
+    }
+
+    def "test no-op GET through doService stays within its allocation budget"()
+    {
+        setup:
+        def noop = request("GET", NoOpService.BINDING)
+        def response = call(noop)
+        def bytes = getBytesPerCall(servlet, noop, true) - getBytesPerCall(servlet, noop, false)
+
+        expect:
+        response.getStatus() == 200
+        bytes < BUDGET
+    }
+
+    @Service(NoOpService.NAME)
+    @RequestMethod(HttpMethod.GET)
+    @RequestBinding(NoOpService.BINDING)
+    static class NoOpService extends RESTServiceSupport
+    {
+        static final String     NAME    = "NoOpService"
+
+        static final String     BINDING = "/test/noop"
+
+        static final JSONObject RESULT  = new JSONObject()
+
+        @Override
+        public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            RESULT
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+
+import org.springframework.http.HttpMethod
+import org.springframework.mock.web.MockHttpServletResponse
+import org.springframework.stereotype.Service
+
+import com.ait.tooling.server.core.json.JSONObject
+import com.ait.tooling.server.rest.AsyncRESTServiceSupport
+import com.ait.tooling.server.rest.IRESTRequestContext
+import com.ait.tooling.server.rest.IRESTService
+import com.ait.tooling.server.rest.RESTException
+import com.ait.tooling.server.rest.RequestBinding
+import com.ait.tooling.server.rest.RequestMethod
+
+class AsyncServiceTestsSpecification extends RESTServletTestsSpecification
+{
+    @Override
+    List<IRESTService> getTestServices()
+    {
+        [new AsyncEchoService(), new AsyncThrowingService(), new AsyncFailedService(), new AsyncRefusingService()]
+    }
+
+    MockHttpServletResponse async(String path)
+    {
+        def get = request("GET", path)
+
+        get.setAsyncSupported(true)
+
+        def response = call(get)
+
+        def stop = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L)
+
+        while ((get.isAsyncStarted()) && (System.nanoTime() < stop))
+        {
+            Thread.sleep(1L)
+        }
+        response
+    }
+
+    def "test async result is written when the future completes"()
+    {
+        setup:
+        def response = async(AsyncEchoService.BINDING)
+
+        expect:
+        response.getStatus() == 200
+        response.getContentAsString().contains('"async"')
+    }
+
+    def "test async service runs inline without async support"()
+    {
+        setup:
+        def response = call(request("GET", AsyncEchoService.BINDING))
+
+        expect:
+        response.getStatus() == 200
+        response.getContentAsString().contains('"async"')
+    }
+
+    def "test unchecked exception from executeAsync completes with 500"()
+    {
+        setup:
+        def response = async(AsyncThrowingService.BINDING)
+
+        expect:
+        response.getStatus() == 500
+    }
+
+    def "test failed future completes with its status"()
+    {
+        setup:
+        def response = async(AsyncFailedService.BINDING)
+
+        expect:
+        response.getStatus() == 409
+    }
+
+    def "test unchecked exception during admission completes with 500"()
+    {
+        setup:
+        def response = async(AsyncRefusingService.BINDING)
+
+        expect:
+        response.getStatus() == 500
+        AsyncRefusingService.CALLS == 0
+    }
+
+    @Service(AsyncEchoService.NAME)
+    @RequestMethod(HttpMethod.GET)
+    @RequestBinding(AsyncEchoService.BINDING)
+    static class AsyncEchoService extends AsyncRESTServiceSupport
+    {
+        static final String NAME    = "AsyncEchoService"
+
+        static final String BINDING = "/test/async/echo"
+
+        @Override
+        public CompletableFuture<JSONObject> executeAsync(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            CompletableFuture.supplyAsync({ new JSONObject("async", true) })
+        }
+    }
+
+    @Service(AsyncThrowingService.NAME)
+    @RequestMethod(HttpMethod.GET)
+    @RequestBinding(AsyncThrowingService.BINDING)
+    static class AsyncThrowingService extends AsyncRESTServiceSupport
+    {
+        static final String NAME    = "AsyncThrowingService"
+
+        static final String BINDING = "/test/async/throwing"
+
+        @Override
+        public CompletableFuture<JSONObject> executeAsync(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            throw new IllegalStateException("broken")
+        }
+    }
+
+    @Service(AsyncFailedService.NAME)
+    @RequestMethod(HttpMethod.GET)
+    @RequestBinding(AsyncFailedService.BINDING)
+    static class AsyncFailedService extends AsyncRESTServiceSupport
+    {
+        static final String NAME    = "AsyncFailedService"
+
+        static final String BINDING = "/test/async/failed"
+
+        @Override
+        public CompletableFuture<JSONObject> executeAsync(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            failed(new RESTException("refused", 409))
+        }
+    }
+
+    @Service(AsyncRefusingService.NAME)
+    @RequestMethod(HttpMethod.GET)
+    @RequestBinding(AsyncRefusingService.BINDING)
+    static class AsyncRefusingService extends AsyncRESTServiceSupport
+    {
+        static final String NAME    = "AsyncRefusingService"
+
+        static final String BINDING = "/test/async/refusing"
+
+        static int          CALLS   = 0
+
+        @Override
+        public void acquire()
+        {
+            throw new IllegalStateException("admission broken")
+        }
+
+        @Override
+        public CompletableFuture<JSONObject> executeAsync(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            CALLS++
+
+            completed(new JSONObject("async", true))
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import org.springframework.http.HttpMethod
+import org.springframework.stereotype.Service
+
+import com.ait.tooling.server.core.json.JSONObject
+import com.ait.tooling.server.rest.IRESTRequestContext
+import com.ait.tooling.server.rest.IRESTService
+import com.ait.tooling.server.rest.RESTServiceSupport
+import com.ait.tooling.server.rest.RequestBinding
+import com.ait.tooling.server.rest.RequestMethod
+import com.ait.tooling.server.rest.security.AuthorizationCache
+import com.ait.tooling.server.rest.security.RoleSet
+
+class AuthorizationCacheTestsSpecification extends RESTServletTestsSpecification
+{
+    @Override
+    List<IRESTService> getTestServices()
+    {
+        [new AuthorizedService()]
+    }
+
+    def "test equal role lists are interned to one role set"()
+    {
+        setup:
+        def rset = RoleSet.of(["USER", "ADMIN"])
+
+        expect:
+        rset.is(RoleSet.of(["USER", "ADMIN"]))
+        rset.is(RoleSet.of(new LinkedList<String>(["USER", "ADMIN"])))
+        rset.getRoles() == ["USER", "ADMIN"]
+        rset.toString() == "[USER, ADMIN]"
+    }
+
+    def "test empty and null role lists are the empty role set"()
+    {
+        expect:
+        RoleSet.of(null).is(RoleSet.EMPTY)
+        RoleSet.of([]).is(RoleSet.EMPTY)
+        RoleSet.EMPTY.isEmpty()
+        RoleSet.EMPTY.hasRole("USER") == false
+    }
+
+    def "test role checks are answered from the bitset"()
+    {
+        setup:
+        def rset = RoleSet.of(["USER", "ADMIN"])
+
+        expect:
+        rset.hasRole("USER")
+        rset.hasRole("ADMIN")
+        rset.hasRole("GUEST") == false
+        rset.hasRole("NEVER_NUMBERED_ROLE") == false
+        rset.hasRole(null) == false
+        rset.hasAnyRole("GUEST", "ADMIN")
+        rset.hasAnyRole("GUEST") == false
+        rset.hasAllRoles("USER", "ADMIN")
+        rset.hasAllRoles("USER", "GUEST") == false
+    }
+
+    def "test role sets of the same roles in another order are equal"()
+    {
+        setup:
+        def rset = RoleSet.of(["USER", "ADMIN"])
+        def swap = RoleSet.of(["ADMIN", "USER"])
+
+        expect:
+        rset == swap
+        rset.hashCode() == swap.hashCode()
+        rset != RoleSet.of(["USER"])
+    }
+
+    def "test role sets past one word of roles"()
+    {
+        setup:
+        def names = (0..<100).collect { "ROLE_WIDE_" + it }
+        def rset = RoleSet.of(names)
+
+        expect:
+        names.every { rset.hasRole(it) }
+        RoleSet.of(names.subList(0, 1)).hasRole(names[99]) == false
+    }
+
+    def "test disabled cache answers nothing"()
+    {
+        setup:
+        def cache = new AuthorizationCache()
+        cache.setEnabled(false)
+
+        expect:
+        cache.get(new AuthorizedService(), RoleSet.EMPTY, 0L) == null
+        cache.getMissCount() == 0L
+    }
+
+    def "test authorization result is memoized per service and role set"()
+    {
+        setup:
+        def cache = getRESTContext().getAuthorizationCache()
+        cache.clear()
+        def registry = getRESTContext().getServiceRegistry()
+        def service = registry.getService(AuthorizedService.NAME)
+        def rset = RoleSet.of(["USER"])
+        def hits = cache.getHitCount()
+        def first = servlet.getAuthorizationResult(registry, service, rset)
+        def again = servlet.getAuthorizationResult(registry, service, RoleSet.of(["USER"]))
+
+        expect:
+        first.isAuthorized()
+        again.is(first)
+        cache.getHitCount() == hits + 1L
+        cache.get(service, rset, registry.getGeneration()).is(first)
+    }
+
+    def "test registry generation change drops cached results"()
+    {
+        setup:
+        def cache = getRESTContext().getAuthorizationCache()
+        cache.clear()
+        def registry = getRESTContext().getServiceRegistry()
+        def service = registry.getService(AuthorizedService.NAME)
+        def rset = RoleSet.of(["USER"])
+        servlet.getAuthorizationResult(registry, service, rset)
+
+        expect:
+        cache.get(service, rset, registry.getGeneration() + 1L) == null
+        cache.get(service, rset, registry.getGeneration()) == null
+    }
+
+    @Service(AuthorizedService.NAME)
+    @RequestMethod(HttpMethod.GET)
+    @RequestBinding(AuthorizedService.BINDING)
+    static class AuthorizedService extends RESTServiceSupport
+    {
+        static final String NAME    = "AuthorizedService"
+
+        static final String BINDING = "/test/authorized"
+
+        @Override
+        public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            new JSONObject()
+        }
+    }
+}
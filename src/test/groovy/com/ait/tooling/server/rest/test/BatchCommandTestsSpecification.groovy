@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import org.springframework.http.HttpMethod
+import org.springframework.mock.web.MockHttpServletResponse
+import org.springframework.stereotype.Service
+
+import com.ait.tooling.server.core.json.JSONArray
+import com.ait.tooling.server.core.json.JSONObject
+import com.ait.tooling.server.core.json.parser.JSONParser
+import com.ait.tooling.server.rest.DetachedRequestContext
+import com.ait.tooling.server.rest.IRESTRequestContext
+import com.ait.tooling.server.rest.IRESTService
+import com.ait.tooling.server.rest.RESTException
+import com.ait.tooling.server.rest.RESTServiceSupport
+import com.ait.tooling.server.rest.RequestBinding
+import com.ait.tooling.server.rest.RequestMethod
+import com.ait.tooling.server.rest.security.RoleSet
+import com.ait.tooling.server.rest.servlet.RESTCommandServlet
+
+class BatchCommandTestsSpecification extends RESTServletTestsSpecification
+{
+    RESTCommandServlet command
+
+    @Override
+    List<IRESTService> getTestServices()
+    {
+        [new EchoCommandService(), new FailCommandService(), new StubbornCommandService()]
+    }
+
+    def setup()
+    {
+        command = makeServlet(RESTCommandServlet, [(RESTCommandServlet.MAX_BATCH_SIZE_PARAM): "4"])
+    }
+
+    def cleanup()
+    {
+        command.destroy()
+    }
+
+    static DetachedRequestContext detached(JSONObject headers, JSONObject params)
+    {
+        new DetachedRequestContext(null, "user", "sess", false, RoleSet.of(["USER"]), null, HttpMethod.POST, headers, params)
+    }
+
+    static String echo(String id, String text, List<String> depends = null)
+    {
+        def item = new JSONObject("id", id).set("command", EchoCommandService.NAME).set("request", new JSONObject("text", text))
+
+        if (null != depends)
+        {
+            def list = new JSONArray()
+
+            list.addAll(depends)
+
+            item.set("depends", list)
+        }
+        item.toJSONString()
+    }
+
+    static String fail(String id)
+    {
+        new JSONObject("id", id).set("command", FailCommandService.NAME).set("request", new JSONObject()).toJSONString()
+    }
+
+    MockHttpServletResponse batch(List<String> items)
+    {
+        call(command, request("POST", "/", '{"batch":[' + items.join(",") + ']}'))
+    }
+
+    static JSONArray results(MockHttpServletResponse response)
+    {
+        new JSONParser().parse(response.getContentAsString()).getAsArray("batch")
+    }
+
+    def "test detached headers are matched ignoring case"()
+    {
+        setup:
+        def list = new JSONArray()
+        list.add("gzip")
+        list.add("br")
+        def context = detached(new JSONObject("X-Trace-Id", "abc").set("Accept-Encoding", list), null)
+
+        expect:
+        context.getHeader("x-trace-id") == "abc"
+        context.getHeader("X-TRACE-ID") == "abc"
+        context.getHeader("accept-encoding") == "gzip"
+        context.getHeader("X-Missing") == null
+        context.getHeader(null) == null
+    }
+
+    def "test detached context copies the caller's headers and parameters"()
+    {
+        setup:
+        def headers = new JSONObject("X-Trace-Id", "abc")
+        def params = new JSONObject("page", "2")
+        def context = detached(headers, params)
+        headers.put("X-Trace-Id", "xyz")
+        params.put("page", "3")
+
+        expect:
+        context.getHeader("X-Trace-Id") == "abc"
+        context.getParameter("page") == "2"
+        context.getParameter("size") == null
+        context.getParameter(null) == null
+    }
+
+    def "test detached context holds no servlet request or response"()
+    {
+        setup:
+        def context = detached(null, null)
+
+        expect:
+        context.getServletRequest() == null
+        context.getServletResponse() == null
+        context.getJSONHeaders().isEmpty()
+        context.getJSONParameters().isEmpty()
+    }
+
+    def "test batch results are returned in request order with their ids"()
+    {
+        setup:
+        def response = batch([echo("a", "one"), echo("b", "two")])
+        def list = results(response)
+
+        expect:
+        response.getStatus() == 200
+        list.size() == 2
+        list[0].id == "a"
+        list[0].result.text == "one"
+        list[1].id == "b"
+        list[1].result.text == "two"
+    }
+
+    def "test batch items without an id are keyed by position"()
+    {
+        setup:
+        def list = results(batch(['{"command":"' + EchoCommandService.NAME + '","request":{"text":"one"}}']))
+
+        expect:
+        list[0].id == "0"
+        list[0].result.text == "one"
+    }
+
+    def "test unknown command fails only its own item"()
+    {
+        setup:
+        def response = batch(['{"id":"x","command":"NoSuchService","request":{}}', echo("a", "one")])
+        def list = results(response)
+
+        expect:
+        response.getStatus() == 200
+        list[0].error.code == 404
+        list[1].result.text == "one"
+    }
+
+    def "test failed command fails its dependents with 424"()
+    {
+        setup:
+        def list = results(batch([fail("f"), echo("a", "one", ["f"]), echo("b", "two")]))
+
+        expect:
+        list[0].error.code == 409
+        list[0].error.reason == "refused"
+        list[1].error.code == RESTCommandServlet.SC_FAILED_DEPENDENCY
+        list[2].result.text == "two"
+    }
+
+    def "test dependent command runs after its dependency"()
+    {
+        setup:
+        def list = results(batch([echo("a", "one"), echo("b", "two", ["a"])]))
+
+        expect:
+        list[0].result.text == "one"
+        list[1].result.text == "two"
+    }
+
+    def "test duplicate and forward references are rejected with 400"()
+    {
+        setup:
+        def list = results(batch([echo("a", "one", ["b"]), echo("b", "two"), echo("b", "three")]))
+
+        expect:
+        list[0].error.code == 400
+        list[1].result.text == "two"
+        list[2].error.code == 400
+    }
+
+    def "test empty batch is rejected with 400"()
+    {
+        setup:
+        def response = batch([])
+
+        expect:
+        response.getStatus() == 400
+    }
+
+    def "test batch over the size limit is rejected with 413"()
+    {
+        setup:
+        def response = batch((1..5).collect { echo("i" + it, "x") })
+
+        expect:
+        command.getMaxBatchSize() == 4
+        response.getStatus() == 413
+    }
+
+    def "test body without a batch key runs as a single command"()
+    {
+        setup:
+        def response = call(command, request("POST", "/", '{"command":"' + EchoCommandService.NAME + '","request":{"text":"one"}}'))
+
+        expect:
+        response.getStatus() == 200
+        response.getContentAsString().contains('"one"')
+    }
+
+    def "test command ignoring the interrupt is answered with 503 without being waited for"()
+    {
+        setup:
+        StubbornCommandService.RELEASE = new CountDownLatch(1)
+        def quick = makeServlet(QuickCommandServlet, [:])
+        def item = new JSONObject("id", "s").set("command", StubbornCommandService.NAME).set("request", new JSONObject()).toJSONString()
+        def start = System.nanoTime()
+        def response = call(quick, request("POST", "/", '{"batch":[' + item + ',' + echo("a", "one") + ']}'))
+        def taken = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        def list = results(response)
+
+        expect:
+        response.getStatus() == 200
+        list[0].error.code == 503
+        list[1].result.text == "one"
+        taken < RESTCommandServlet.BATCH_CLOSE_WAIT + 4000L
+
+        cleanup:
+        StubbornCommandService.RELEASE.countDown()
+        quick.destroy()
+    }
+
+    static class QuickCommandServlet extends RESTCommandServlet
+    {
+        @Override
+        protected long getAsyncTimeout()
+        {
+            500L
+        }
+    }
+
+    @Service(EchoCommandService.NAME)
+    @RequestMethod(HttpMethod.POST)
+    @RequestBinding(EchoCommandService.BINDING)
+    static class EchoCommandService extends RESTServiceSupport
+    {
+        static final String NAME    = "EchoCommandService"
+
+        static final String BINDING = "/test/batch/echo"
+
+        @Override
+        public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            object
+        }
+    }
+
+    @Service(FailCommandService.NAME)
+    @RequestMethod(HttpMethod.POST)
+    @RequestBinding(FailCommandService.BINDING)
+    static class FailCommandService extends RESTServiceSupport
+    {
+        static final String NAME    = "FailCommandService"
+
+        static final String BINDING = "/test/batch/fail"
+
+        @Override
+        public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            throw new RESTException("refused", 409)
+        }
+    }
+
+    @Service(StubbornCommandService.NAME)
+    @RequestMethod(HttpMethod.POST)
+    @RequestBinding(StubbornCommandService.BINDING)
+    static class StubbornCommandService extends RESTServiceSupport
+    {
+        static final String   NAME    = "StubbornCommandService"
+
+        static final String   BINDING = "/test/batch/stubborn"
+
+        static CountDownLatch RELEASE = new CountDownLatch(0)
+
+        @Override
+        public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            final long ends = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L)
+
+            while ((RELEASE.getCount() > 0L) && (System.nanoTime() < ends))
+            {
+                try
+                {
+                    RELEASE.await(10L, TimeUnit.MILLISECONDS)
+                }
+                catch (InterruptedException e)
+                {
+                    // ignored on purpose, this command outlives its batch
+                }
+            }
+            new JSONObject("done", true)
+        }
+    }
+}
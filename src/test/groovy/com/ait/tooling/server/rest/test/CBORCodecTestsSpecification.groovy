@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import org.springframework.http.HttpMethod
+import org.springframework.stereotype.Service
+
+import com.ait.tooling.server.core.json.JSONArray
+import com.ait.tooling.server.core.json.JSONObject
+import com.ait.tooling.server.rest.IRESTRequestContext
+import com.ait.tooling.server.rest.IRESTService
+import com.ait.tooling.server.rest.RESTServiceSupport
+import com.ait.tooling.server.rest.RequestBinding
+import com.ait.tooling.server.rest.RequestMethod
+import com.ait.tooling.server.rest.codec.CBORCodec
+import com.ait.tooling.server.rest.codec.IRESTCodec
+import com.ait.tooling.server.rest.codec.RESTCodecRegistry
+
+class CBORCodecTestsSpecification extends RESTServletTestsSpecification
+{
+    @Override
+    List<IRESTService> getTestServices()
+    {
+        [new CBOREchoService()]
+    }
+
+    static byte[] encode(JSONObject object)
+    {
+        def stream = new ByteArrayOutputStream()
+
+        new CBORCodec().encode(object, stream)
+
+        stream.toByteArray()
+    }
+
+    static JSONObject decode(byte[] bytes)
+    {
+        new CBORCodec().decode(new ByteArrayInputStream(bytes))
+    }
+
+    static byte[] bytes(List<Integer> list)
+    {
+        list.collect { (byte) it } as byte[]
+    }
+
+    static JSONObject sample()
+    {
+        def list = new JSONArray()
+        list.add(1)
+        list.add("two")
+        list.add(null)
+        list.add(new JSONObject("deep", true))
+        new JSONObject("text", "hello").set("unicode", "grüße ☃").set("int", 42).set("negative", -7).set("long", 5000000000L).set("big", new BigInteger("123456789012345678901234567890")).set("double", 3.5d).set("yes", true).set("no", false).set("none", null).set("list", list).set("map", new JSONObject("a", "b"))
+    }
+
+    def "test values round trip through CBOR"()
+    {
+        setup:
+        def object = sample()
+        def result = decode(encode(object))
+
+        expect:
+        result == object
+        result.int instanceof Integer
+        result.long instanceof Long
+        result.big instanceof BigInteger
+        result.double instanceof Double
+        result.list instanceof JSONArray
+        result.map instanceof JSONObject
+    }
+
+    def "test encoding follows RFC 7049"()
+    {
+        expect:
+        encode(new JSONObject("a", 1)) == bytes([0xa1, 0x61, 0x61, 0x01])
+        encode(new JSONObject("a", -1)) == bytes([0xa1, 0x61, 0x61, 0x20])
+        encode(new JSONObject("a", 500)) == bytes([0xa1, 0x61, 0x61, 0x19, 0x01, 0xf4])
+        encode(new JSONObject("a", true)) == bytes([0xa1, 0x61, 0x61, 0xf5])
+        encode(new JSONObject("a", null)) == bytes([0xa1, 0x61, 0x61, 0xf6])
+        encode(new JSONObject("a", 1.5d)) == bytes([0xa1, 0x61, 0x61, 0xfb, 0x3f, 0xf8, 0, 0, 0, 0, 0, 0])
+    }
+
+    def "test integers decode as the narrowest type"()
+    {
+        setup:
+        def result = decode(encode(new JSONObject("small", 1L).set("large", 5000000000L).set("short", (short) 3)))
+
+        expect:
+        result.small == 1
+        result.small instanceof Integer
+        result.large instanceof Long
+        result.short instanceof Integer
+    }
+
+    def "test indefinite lengths are decoded"()
+    {
+        setup:
+        def result = decode(bytes([0xbf, 0x61, 0x61, 0x9f, 0x01, 0x02, 0xff, 0x61, 0x62, 0x7f, 0x62, 0x68, 0x69, 0x61, 0x21, 0xff, 0xff]))
+
+        expect:
+        result.a == [1, 2]
+        result.b == "hi!"
+    }
+
+    def "test half and single floats decode as doubles"()
+    {
+        setup:
+        def result = decode(bytes([0xa2, 0x61, 0x68, 0xf9, 0x3c, 0x00, 0x61, 0x73, 0xfa, 0x3f, 0xc0, 0x00, 0x00]))
+
+        expect:
+        result.h == 1.0d
+        result.h instanceof Double
+        result.s == 1.5d
+    }
+
+    def "test byte strings decode as Base64 text"()
+    {
+        expect:
+        decode(bytes([0xa1, 0x61, 0x62, 0x42, 0x01, 0x02])).b == "AQI="
+    }
+
+    def "test long text spans the buffer"()
+    {
+        setup:
+        def ascii = 'x' * 20000
+        def other = 'é' * 20000
+        def result = decode(encode(new JSONObject("ascii", ascii).set("other", other)))
+
+        expect:
+        result.ascii == ascii
+        result.other == other
+    }
+
+    def "test truncated body is an error"()
+    {
+        when:
+        decode(bytes([0xa1, 0x61, 0x61]))
+
+        then:
+        thrown(IOException)
+    }
+
+    def "test forged length fails without a large allocation"()
+    {
+        when:
+        decode(bytes([0xa1, 0x61, 0x61, 0x5a, 0x7f, 0xff, 0xff, 0xff, 0x01]))
+
+        then:
+        thrown(IOException)
+    }
+
+    def "test body that is not a map is an error"()
+    {
+        when:
+        decode(bytes([0x83, 0x01, 0x02, 0x03]))
+
+        then:
+        thrown(IOException)
+    }
+
+    def "test nesting past the maximum depth is an error"()
+    {
+        setup:
+        def object = new JSONObject()
+        def last = object
+        (CBORCodec.MAXIMUM_DEPTH + 1).times {
+            def next = new JSONObject()
+            last.put("n", next)
+            last = next
+        }
+
+        when:
+        encode(object)
+
+        then:
+        thrown(IOException)
+    }
+
+    def "test request codec is chosen by Content-Type"()
+    {
+        setup:
+        def registry = new RESTCodecRegistry()
+
+        expect:
+        registry.isEmpty() == false
+        registry.getContentTypes() == [CBORCodec.CONTENT_TYPE]
+        registry.getRequestCodec("application/cbor") instanceof CBORCodec
+        registry.getRequestCodec("Application/CBOR; charset=binary") instanceof CBORCodec
+        registry.getRequestCodec("application/json") == null
+        registry.getRequestCodec(null) == null
+    }
+
+    def "test response codec is chosen by Accept preference"()
+    {
+        setup:
+        def registry = new RESTCodecRegistry()
+
+        expect:
+        registry.getResponseCodec("application/cbor") instanceof CBORCodec
+        registry.getResponseCodec("application/json;q=0.5, application/cbor") instanceof CBORCodec
+        registry.getResponseCodec("application/json, application/cbor;q=0.5") == null
+        registry.getResponseCodec("*/*") == null
+        registry.getResponseCodec("text/html") == null
+        registry.getResponseCodec(null) == null
+    }
+
+    def "test added codecs are keyed by lower case type"()
+    {
+        setup:
+        def registry = new RESTCodecRegistry()
+        def codec = [getContentType: { "Application/X-Test" }] as IRESTCodec
+        registry.addCodec(codec)
+
+        expect:
+        registry.getContentTypes() == [CBORCodec.CONTENT_TYPE, "application/x-test"]
+        registry.getRequestCodec("application/x-test").is(codec)
+    }
+
+    def "test CBOR request is answered in CBOR"()
+    {
+        setup:
+        def request = request("POST", CBOREchoService.BINDING)
+        request.setContentType(CBORCodec.CONTENT_TYPE)
+        request.setContent(encode(new JSONObject("text", "hello").set("count", 3)))
+        request.addHeader("Accept", CBORCodec.CONTENT_TYPE)
+        def response = call(request)
+
+        expect:
+        response.getStatus() == 200
+        response.getContentType().startsWith(CBORCodec.CONTENT_TYPE)
+        response.getHeaders("Vary").contains("Accept")
+        decode(response.getContentAsByteArray()) == new JSONObject("text", "hello").set("count", 3)
+    }
+
+    def "test CBOR request is answered in JSON when JSON is accepted"()
+    {
+        setup:
+        def request = request("POST", CBOREchoService.BINDING)
+        request.setContentType(CBORCodec.CONTENT_TYPE)
+        request.setContent(encode(new JSONObject("text", "hello")))
+        request.addHeader("Accept", "application/json")
+        def response = call(request)
+
+        expect:
+        response.getStatus() == 200
+        response.getContentAsString().contains('"hello"')
+    }
+
+    def "test malformed CBOR request is rejected like malformed JSON"()
+    {
+        setup:
+        def request = request("POST", CBOREchoService.BINDING)
+        request.setContentType(CBORCodec.CONTENT_TYPE)
+        request.setContent(bytes([0xa1, 0x61]))
+        def response = call(request)
+
+        expect:
+        response.getStatus() == 500
+    }
+
+    @Service(CBOREchoService.NAME)
+    @RequestMethod(HttpMethod.POST)
+    @RequestBinding(CBOREchoService.BINDING)
+    static class CBOREchoService extends RESTServiceSupport
+    {
+        static final String NAME    = "CBOREchoService"
+
+        static final String BINDING = "/test/cbor/echo"
+
+        @Override
+        public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            object
+        }
+    }
+}
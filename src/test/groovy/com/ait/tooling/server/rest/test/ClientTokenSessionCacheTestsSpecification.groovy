@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+
+import com.ait.tooling.server.core.json.JSONObject
+import com.ait.tooling.server.core.security.session.IServerSession
+import com.ait.tooling.server.core.security.session.IServerSessionRepository
+import com.ait.tooling.server.rest.servlet.RESTServlet
+import com.ait.tooling.server.rest.session.ClientTokenSessionCache
+
+class ClientTokenSessionCacheTestsSpecification extends RESTServletTestsSpecification
+{
+    static class Repository
+    {
+        boolean expired = false
+
+        boolean reject = false
+
+        int made = 0
+
+        IServerSessionRepository make()
+        {
+            [createSession: { JSONObject keys ->
+                    if (reject)
+                    {
+                        return null
+                    }
+                    made++
+                    def sessid = "s" + made
+                    def ended = expired
+                    [getId: { sessid }, isExpired: { ended }] as IServerSession
+                }] as IServerSessionRepository
+        }
+    }
+
+    def "test one session is reused per token"()
+    {
+        setup:
+        def cache = new ClientTokenSessionCache()
+        def store = new Repository()
+        def repository = store.make()
+        def one = cache.getSession(repository, "token")
+        def two = cache.getSession(repository, "token")
+
+        expect:
+        one.is(two)
+        store.made == 1
+        cache.getHitCount() == 1L
+        cache.getCreatedCount() == 1L
+        cache.getCachedCount() == 1L
+    }
+
+    def "test each token has its own session"()
+    {
+        setup:
+        def cache = new ClientTokenSessionCache()
+        def store = new Repository()
+        def repository = store.make()
+
+        expect:
+        cache.getSession(repository, "one").getId() != cache.getSession(repository, "two").getId()
+        store.made == 2
+    }
+
+    def "test expired sessions are not reused"()
+    {
+        setup:
+        def cache = new ClientTokenSessionCache()
+        def store = new Repository()
+        store.expired = true
+        def repository = store.make()
+        cache.getSession(repository, "token")
+        cache.getSession(repository, "token")
+
+        expect:
+        store.made == 2
+        cache.getCachedCount() == 0L
+    }
+
+    def "test rejected tokens are not cached"()
+    {
+        setup:
+        def cache = new ClientTokenSessionCache()
+        def store = new Repository()
+        store.reject = true
+        def repository = store.make()
+
+        expect:
+        cache.getSession(repository, "token") == null
+        cache.getCachedCount() == 0L
+    }
+
+    def "test a session in the refresh window is replaced"()
+    {
+        setup:
+        def cache = new ClientTokenSessionCache()
+        cache.setMaxAge(1000L)
+        cache.setRefreshAhead(1000L)
+        def store = new Repository()
+        def repository = store.make()
+        def one = cache.getSession(repository, "token")
+        def two = cache.getSession(repository, "token")
+
+        expect:
+        one.is(two) == false
+        store.made == 2
+        cache.getCachedCount() == 1L
+    }
+
+    def "test invalidate drops a token session"()
+    {
+        setup:
+        def cache = new ClientTokenSessionCache()
+        def store = new Repository()
+        def repository = store.make()
+        cache.getSession(repository, "token")
+        cache.invalidate("token")
+        cache.getSession(repository, "token")
+
+        expect:
+        store.made == 2
+    }
+
+    def "test a disabled cache creates a session per call"()
+    {
+        setup:
+        def cache = new ClientTokenSessionCache()
+        cache.setEnabled(false)
+        def store = new Repository()
+        def repository = store.make()
+        cache.getSession(repository, "token")
+        cache.getSession(repository, "token")
+
+        expect:
+        store.made == 2
+        cache.getCachedCount() == 0L
+    }
+
+    def "test concurrent callers share one new session"()
+    {
+        setup:
+        def cache = new ClientTokenSessionCache()
+        def store = new Repository()
+        def repository = store.make()
+        def found = Collections.synchronizedSet(new HashSet())
+        def threads = (1..8).collect {
+            Thread.start {
+                50.times {
+                    found << cache.getSession(repository, "token").getId()
+                }
+            }
+        }
+        threads*.join()
+
+        expect:
+        found.size() == 1
+        store.made == 1
+    }
+
+    def "test expired token session is reported by its session id"()
+    {
+        setup:
+        getRESTContext().getClientTokenSessionCache().invalidateAll()
+        def tokens = makeServlet(TokenServlet, [:])
+        tokens.repository = new Repository(expired: true).make()
+        def request = new MockHttpServletRequest("GET", "/rest/test")
+        request.addHeader(RESTServlet.X_CLIENT_API_TOKEN_HEADER, "token")
+        def response = new MockHttpServletResponse()
+        def principal = tokens.getRequestPrincipal(request, response)
+
+        expect:
+        principal == null
+        response.getStatus() == 403
+        response.getHeader(RESTServlet.WWW_AUTHENTICATE) == "expired session s1"
+
+        cleanup:
+        tokens.destroy()
+    }
+
+    static class TokenServlet extends RESTServlet
+    {
+        IServerSessionRepository repository
+
+        @Override
+        protected IServerSessionRepository getServerSessionRepository()
+        {
+            repository
+        }
+    }
+}
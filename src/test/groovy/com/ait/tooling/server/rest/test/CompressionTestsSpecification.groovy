@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import java.util.zip.GZIPInputStream
+import java.util.zip.InflaterInputStream
+
+import org.springframework.http.HttpMethod
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.stereotype.Service
+
+import com.ait.tooling.server.core.json.JSONObject
+import com.ait.tooling.server.rest.CompressResponse
+import com.ait.tooling.server.rest.IRESTRequestContext
+import com.ait.tooling.server.rest.IRESTService
+import com.ait.tooling.server.rest.RESTServiceSupport
+import com.ait.tooling.server.rest.RequestBinding
+import com.ait.tooling.server.rest.RequestMethod
+import com.ait.tooling.server.rest.io.CompressionPolicy
+import com.ait.tooling.server.rest.io.ResponseDeflater
+import com.ait.tooling.server.rest.servlet.RESTServlet
+
+class CompressionTestsSpecification extends RESTServletTestsSpecification
+{
+    RESTServlet compress
+
+    @Override
+    List<IRESTService> getTestServices()
+    {
+        [new SizedService(), new NeverCompressService(), new EagerCompressService(), new OptInCompressService()]
+    }
+
+    def setup()
+    {
+        compress = makeServlet(RESTServlet, [(RESTServlet.COMPRESSION_THRESHOLD_PARAM): "2048"])
+    }
+
+    def cleanup()
+    {
+        compress.destroy()
+    }
+
+    MockHttpServletRequest sized(String path, int size, String accept)
+    {
+        def request = request("GET", path)
+
+        request.addParameter("size", String.valueOf(size))
+
+        if (null != accept)
+        {
+            request.addHeader("Accept-Encoding", accept)
+        }
+        request
+    }
+
+    static byte[] deflate(String encoding, byte[] body)
+    {
+        def deflater = ResponseDeflater.acquire(encoding, 6)
+
+        try
+        {
+            deflater.open(null)
+            deflater.write(body, 0, body.length)
+            deflater.finish()
+            deflater.toByteArray()
+        }
+        finally
+        {
+            deflater.release()
+        }
+    }
+
+    def "test accepted encoding follows q values"()
+    {
+        expect:
+        ResponseDeflater.getAcceptedEncoding("gzip") == "gzip"
+        ResponseDeflater.getAcceptedEncoding("deflate") == "deflate"
+        ResponseDeflater.getAcceptedEncoding("gzip;q=0.5, deflate") == "deflate"
+        ResponseDeflater.getAcceptedEncoding("deflate;q=0.9, gzip;q=0.8") == "deflate"
+        ResponseDeflater.getAcceptedEncoding("br, GZIP;q=0.1") == "gzip"
+        ResponseDeflater.getAcceptedEncoding("x-gzip") == "gzip"
+    }
+
+    def "test gzip is preferred when q values tie"()
+    {
+        expect:
+        ResponseDeflater.getAcceptedEncoding("deflate, gzip") == "gzip"
+        ResponseDeflater.getAcceptedEncoding("gzip;q=0.5, deflate;q=0.5") == "gzip"
+        ResponseDeflater.getAcceptedEncoding("*") == "gzip"
+    }
+
+    def "test encodings with q of zero or none known are refused"()
+    {
+        expect:
+        ResponseDeflater.getAcceptedEncoding(null) == null
+        ResponseDeflater.getAcceptedEncoding("") == null
+        ResponseDeflater.getAcceptedEncoding("identity") == null
+        ResponseDeflater.getAcceptedEncoding("br") == null
+        ResponseDeflater.getAcceptedEncoding("gzip;q=0") == null
+        ResponseDeflater.getAcceptedEncoding("gzip;q=0, deflate;q=0") == null
+        ResponseDeflater.getAcceptedEncoding("*;q=0, deflate;q=0.3") == "deflate"
+        ResponseDeflater.getAcceptedEncoding("gzip;q=bad") == null
+    }
+
+    def "test gzip output decompresses to the input"()
+    {
+        setup:
+        def body = ('{"text":"' + ('abc' * 2000) + '"}').getBytes("UTF-8")
+        def gzip = deflate(ResponseDeflater.GZIP, body)
+
+        expect:
+        gzip.length < body.length
+        new GZIPInputStream(new ByteArrayInputStream(gzip)).getBytes() == body
+    }
+
+    def "test deflate output decompresses to the input"()
+    {
+        setup:
+        def body = ('{"text":"' + ('abc' * 2000) + '"}').getBytes("UTF-8")
+        def zlib = deflate(ResponseDeflater.DEFLATE, body)
+
+        expect:
+        zlib.length < body.length
+        new InflaterInputStream(new ByteArrayInputStream(zlib)).getBytes() == body
+    }
+
+    def "test deflater writes to a target stream"()
+    {
+        setup:
+        def body = "hello hello hello".getBytes("UTF-8")
+        def target = new ByteArrayOutputStream()
+        def deflater = ResponseDeflater.acquire(ResponseDeflater.GZIP, 1)
+        deflater.open(target)
+        deflater.write(body, 0, body.length)
+        deflater.finish()
+        deflater.release()
+
+        expect:
+        deflater.size() == 0
+        new GZIPInputStream(new ByteArrayInputStream(target.toByteArray())).getBytes() == body
+    }
+
+    def "test deflater in use is not handed out twice"()
+    {
+        setup:
+        def first = ResponseDeflater.acquire(ResponseDeflater.GZIP, 6)
+        def other = ResponseDeflater.acquire(ResponseDeflater.GZIP, 6)
+        other.release()
+        first.release()
+        def again = ResponseDeflater.acquire(ResponseDeflater.GZIP, 6)
+        again.release()
+
+        expect:
+        first.is(other) == false
+        again.is(first)
+        first.getEncoding() == "gzip"
+    }
+
+    def "test unsupported encoding is an error"()
+    {
+        when:
+        ResponseDeflater.acquire("br", 6)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "test compression policy is kept within bounds"()
+    {
+        setup:
+        def policy = new CompressionPolicy(true, -5, 12)
+        def inherit = new CompressionPolicy(true, 16, -3)
+
+        expect:
+        CompressionPolicy.of(null) == null
+        policy.getThreshold() == -1
+        policy.getLevel() == 9
+        inherit.getThreshold() == 16
+        inherit.getLevel() == -1
+    }
+
+    def "test compression is off unless configured"()
+    {
+        setup:
+        def response = call(sized(SizedService.BINDING, 4096, "gzip"))
+
+        expect:
+        CompressionPolicy.DEFAULT_THRESHOLD == -1
+        response.getStatus() == 200
+        response.getHeader("Content-Encoding") == null
+        response.getHeaders("Vary").contains("Accept-Encoding") == false
+        response.getContentAsString().contains('x' * 4096)
+    }
+
+    def "test response over the threshold is compressed"()
+    {
+        setup:
+        def response = call(compress, sized(SizedService.BINDING, 4096, "gzip, deflate"))
+
+        expect:
+        response.getStatus() == 200
+        response.getHeader("Content-Encoding") == "gzip"
+        response.getHeaders("Vary").contains("Accept-Encoding")
+        new String(new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray())).getBytes(), "UTF-8").contains('x' * 4096)
+    }
+
+    def "test deflate is used when gzip is not accepted"()
+    {
+        setup:
+        def response = call(compress, sized(SizedService.BINDING, 4096, "deflate"))
+
+        expect:
+        response.getHeader("Content-Encoding") == "deflate"
+        new String(new InflaterInputStream(new ByteArrayInputStream(response.getContentAsByteArray())).getBytes(), "UTF-8").contains('x' * 4096)
+    }
+
+    def "test response under the threshold is not compressed"()
+    {
+        setup:
+        def response = call(compress, sized(SizedService.BINDING, 100, "gzip"))
+
+        expect:
+        response.getStatus() == 200
+        response.getHeader("Content-Encoding") == null
+        response.getHeaders("Vary").contains("Accept-Encoding")
+        response.getContentAsString().contains('x' * 100)
+    }
+
+    def "test response is not compressed without Accept-Encoding"()
+    {
+        setup:
+        def response = call(compress, sized(SizedService.BINDING, 4096, null))
+
+        expect:
+        response.getHeader("Content-Encoding") == null
+        response.getContentAsString().contains('x' * 4096)
+    }
+
+    def "test servlet threshold applies to services without their own"()
+    {
+        setup:
+        def eager = makeServlet(RESTServlet, [(RESTServlet.COMPRESSION_THRESHOLD_PARAM): "64"])
+        def response = call(eager, sized(SizedService.BINDING, 100, "gzip"))
+
+        expect:
+        response.getHeader("Content-Encoding") == "gzip"
+
+        cleanup:
+        eager.destroy()
+    }
+
+    def "test service can turn compression off"()
+    {
+        setup:
+        def response = call(compress, sized(NeverCompressService.BINDING, 4096, "gzip"))
+
+        expect:
+        response.getHeader("Content-Encoding") == null
+        response.getHeaders("Vary").contains("Accept-Encoding") == false
+    }
+
+    def "test service threshold takes precedence over the servlet threshold"()
+    {
+        setup:
+        def response = call(compress, sized(EagerCompressService.BINDING, 100, "gzip"))
+
+        expect:
+        response.getHeader("Content-Encoding") == "gzip"
+    }
+
+    def "test service can turn compression on without a servlet threshold"()
+    {
+        setup:
+        def large = call(sized(OptInCompressService.BINDING, 4096, "gzip"))
+        def small = call(sized(OptInCompressService.BINDING, 100, "gzip"))
+
+        expect:
+        CompressionPolicy.ENABLED_THRESHOLD == 2048
+        large.getHeader("Content-Encoding") == "gzip"
+        small.getHeader("Content-Encoding") == null
+        small.getHeaders("Vary").contains("Accept-Encoding")
+    }
+
+    @Service(SizedService.NAME)
+    @RequestMethod(HttpMethod.GET)
+    @RequestBinding(SizedService.BINDING)
+    static class SizedService extends RESTServiceSupport
+    {
+        static final String NAME    = "SizedService"
+
+        static final String BINDING = "/test/gzip/sized"
+
+        @Override
+        public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            new JSONObject("text", 'x' * Integer.parseInt(context.getParameter("size")))
+        }
+    }
+
+    @Service(NeverCompressService.NAME)
+    @RequestMethod(HttpMethod.GET)
+    @RequestBinding(NeverCompressService.BINDING)
+    @CompressResponse(enabled = false)
+    static class NeverCompressService extends SizedService
+    {
+        static final String NAME    = "NeverCompressService"
+
+        static final String BINDING = "/test/gzip/never"
+    }
+
+    @Service(EagerCompressService.NAME)
+    @RequestMethod(HttpMethod.GET)
+    @RequestBinding(EagerCompressService.BINDING)
+    @CompressResponse(threshold = 16)
+    static class EagerCompressService extends SizedService
+    {
+        static final String NAME    = "EagerCompressService"
+
+        static final String BINDING = "/test/gzip/eager"
+    }
+
+    @Service(OptInCompressService.NAME)
+    @RequestMethod(HttpMethod.GET)
+    @RequestBinding(OptInCompressService.BINDING)
+    @CompressResponse
+    static class OptInCompressService extends SizedService
+    {
+        static final String NAME    = "OptInCompressService"
+
+        static final String BINDING = "/test/gzip/optin"
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import org.springframework.http.HttpMethod
+import org.springframework.stereotype.Service
+
+import com.ait.tooling.server.core.json.JSONObject
+import com.ait.tooling.server.rest.ConcurrencyLimit
+import com.ait.tooling.server.rest.IRESTRequestContext
+import com.ait.tooling.server.rest.IRESTService
+import com.ait.tooling.server.rest.RESTServiceSupport
+import com.ait.tooling.server.rest.RequestBinding
+import com.ait.tooling.server.rest.RequestMethod
+import com.ait.tooling.server.rest.limit.ConcurrencyLimitPolicy
+import com.ait.tooling.server.rest.limit.ConcurrencyLimiter
+import com.ait.tooling.server.rest.limit.ConcurrencyLimiterManager
+
+class ConcurrencyLimitTestsSpecification extends RESTServletTestsSpecification
+{
+    @Override
+    List<IRESTService> getTestServices()
+    {
+        [new OneAtATimeService()]
+    }
+
+    static IRESTService service(String name, ConcurrencyLimitPolicy policy)
+    {
+        [getName: { name }, getConcurrencyLimit: { policy }] as IRESTService
+    }
+
+    def "test limiter admits calls up to its limit and sheds the rest"()
+    {
+        setup:
+        def limiter = new ConcurrencyLimiter("test", 2, 1, 4, 0, 0L)
+
+        expect:
+        limiter.acquire()
+        limiter.acquire()
+        limiter.acquire() == false
+        limiter.getInFlight() == 2
+        limiter.getShedCount() == 1L
+    }
+
+    def "test released permit admits the next call"()
+    {
+        setup:
+        def limiter = new ConcurrencyLimiter("test", 1, 1, 1, 0, 0L)
+        limiter.acquire()
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(5L), false)
+
+        expect:
+        limiter.getInFlight() == 0
+        limiter.acquire()
+    }
+
+    def "test queued call waits for a release"()
+    {
+        setup:
+        def limiter = new ConcurrencyLimiter("test", 1, 1, 1, 1, 5000L)
+        limiter.acquire()
+        def admitted = null
+        def waiter = Thread.start {
+            admitted = limiter.acquire()
+        }
+        while (limiter.getQueueDepth() < 1)
+        {
+            Thread.sleep(1L)
+        }
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(5L), false)
+        waiter.join(5000L)
+
+        expect:
+        admitted == true
+        limiter.getInFlight() == 1
+        limiter.getQueueDepth() == 0
+        limiter.getShedCount() == 0L
+    }
+
+    def "test queued call is shed when its wait runs out"()
+    {
+        setup:
+        def limiter = new ConcurrencyLimiter("test", 1, 1, 1, 1, 20L)
+        limiter.acquire()
+
+        expect:
+        limiter.acquire() == false
+        limiter.getQueueDepth() == 0
+        limiter.getShedCount() == 1L
+    }
+
+    def "test call is shed at once when the queue is full"()
+    {
+        setup:
+        def limiter = new ConcurrencyLimiter("test", 1, 1, 1, 1, 5000L)
+        limiter.acquire()
+        def waiter = Thread.start {
+            limiter.acquire()
+        }
+        while (limiter.getQueueDepth() < 1)
+        {
+            Thread.sleep(1L)
+        }
+        def start = System.nanoTime()
+        def admitted = limiter.acquire()
+        def taken = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(5L), false)
+        waiter.join(5000L)
+
+        expect:
+        admitted == false
+        taken < 1000L
+        limiter.getShedCount() == 1L
+    }
+
+    def "test failed calls shrink the limit down to the minimum"()
+    {
+        setup:
+        def limiter = new ConcurrencyLimiter("test", 10, 2, 20, 0, 0L)
+        limiter.acquire()
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(5L), true)
+        def once = limiter.getLimit()
+        20.times {
+            limiter.acquire()
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(5L), true)
+        }
+
+        expect:
+        once == 9
+        limiter.getLimit() == 2
+    }
+
+    def "test initial limit is kept within the bounds"()
+    {
+        expect:
+        new ConcurrencyLimiter("test", 0, 3, 8, 0, 0L).getLimit() == 3
+        new ConcurrencyLimiter("test", 99, 3, 8, 0, 0L).getLimit() == 8
+        new ConcurrencyLimiter("test", new ConcurrencyLimitPolicy(5, 1, 10, 0, 0L)).getLimit() == 5
+    }
+
+    def "test retry after is at least one second"()
+    {
+        setup:
+        def limiter = new ConcurrencyLimiter("test", 1, 1, 1, 0, 0L)
+
+        expect:
+        limiter.getRetryAfterSeconds() == 1L
+    }
+
+    def "test policy is read from the annotation"()
+    {
+        setup:
+        def policy = ConcurrencyLimitPolicy.of(OneAtATimeService.getAnnotation(ConcurrencyLimit))
+
+        expect:
+        ConcurrencyLimitPolicy.of(null) == null
+        policy.getInitialLimit() == 1
+        policy.getMaximumLimit() == 1
+        policy.getQueueSize() == 0
+        policy.getMaximumWait() == 0L
+    }
+
+    def "test manager limits only services with a policy"()
+    {
+        setup:
+        def manager = new ConcurrencyLimiterManager()
+        def plain = service("plain", null)
+        def limited = service("limited", new ConcurrencyLimitPolicy(3, 1, 5, 0, 0L))
+
+        expect:
+        manager.getLimiter(plain) == null
+        manager.getLimiter(limited).getLimit() == 3
+        manager.getServiceLimit("limited") == 3
+        manager.getServiceLimit("plain") == -1
+    }
+
+    def "test manager limits every service when asked"()
+    {
+        setup:
+        def manager = new ConcurrencyLimiterManager()
+        manager.setLimitAllServices(true)
+        manager.setInitialLimit(7)
+
+        expect:
+        manager.getLimiter(service("plain", null)).getLimit() == 7
+    }
+
+    def "test disabled manager limits nothing"()
+    {
+        setup:
+        def manager = new ConcurrencyLimiterManager()
+        manager.setEnabled(false)
+
+        expect:
+        manager.getLimiter(service("limited", new ConcurrencyLimitPolicy(3, 1, 5, 0, 0L))) == null
+    }
+
+    def "test manager keeps one limiter per service instance"()
+    {
+        setup:
+        def manager = new ConcurrencyLimiterManager()
+        def first = service("limited", new ConcurrencyLimitPolicy(3, 1, 5, 0, 0L))
+        def again = manager.getLimiter(first)
+        def other = service("limited", new ConcurrencyLimitPolicy(4, 1, 5, 0, 0L))
+
+        expect:
+        manager.getLimiter(first).is(again)
+        manager.getLimiter(other).getLimit() == 4
+        manager.getLimiter(other).is(again) == false
+    }
+
+    def "test call over the limit is answered with 503 and Retry-After"()
+    {
+        setup:
+        OneAtATimeService.LATCH = new CountDownLatch(1)
+        def limiter = getRESTContext().getConcurrencyLimiterManager().getLimiter(getRESTContext().getServiceRegistry().getService(OneAtATimeService.NAME))
+        def first = null
+        def holder = Thread.start {
+            first = call(request("GET", OneAtATimeService.BINDING))
+        }
+        while (limiter.getInFlight() < 1)
+        {
+            Thread.sleep(1L)
+        }
+        def shed = call(request("GET", OneAtATimeService.BINDING))
+        OneAtATimeService.LATCH.countDown()
+        holder.join(5000L)
+
+        expect:
+        shed.getStatus() == 503
+        shed.getHeader("Retry-After") != null
+        first.getStatus() == 200
+    }
+
+    @Service(OneAtATimeService.NAME)
+    @RequestMethod(HttpMethod.GET)
+    @RequestBinding(OneAtATimeService.BINDING)
+    @ConcurrencyLimit(initial = 1, minimum = 1, maximum = 1, queue = 0, timeout = 0L)
+    static class OneAtATimeService extends RESTServiceSupport
+    {
+        static final String   NAME    = "OneAtATimeService"
+
+        static final String   BINDING = "/test/limit/one"
+
+        static CountDownLatch LATCH   = new CountDownLatch(0)
+
+        @Override
+        public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            LATCH.await(5L, TimeUnit.SECONDS)
+
+            new JSONObject("done", true)
+        }
+    }
+}
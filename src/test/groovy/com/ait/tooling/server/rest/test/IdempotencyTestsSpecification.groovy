@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.springframework.http.HttpMethod
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.stereotype.Service
+
+import com.ait.tooling.server.core.json.JSONObject
+import com.ait.tooling.server.rest.IRESTRequestContext
+import com.ait.tooling.server.rest.IRESTService
+import com.ait.tooling.server.rest.RESTException
+import com.ait.tooling.server.rest.RESTServiceSupport
+import com.ait.tooling.server.rest.RequestBinding
+import com.ait.tooling.server.rest.RequestMethod
+import com.ait.tooling.server.rest.cache.CachedResponse
+import com.ait.tooling.server.rest.cache.IdempotencyStore
+import com.ait.tooling.server.rest.servlet.RESTCommandServlet
+import com.ait.tooling.server.rest.servlet.RESTServlet
+
+class IdempotencyTestsSpecification extends RESTServletTestsSpecification
+{
+    @Override
+    List<IRESTService> getTestServices()
+    {
+        [new OrderService(), new OrderItemService()]
+    }
+
+    def setup()
+    {
+        OrderService.CALLS.set(0)
+
+        OrderService.FAIL.set(false)
+
+        OrderItemService.CALLS.set(0)
+
+        ((IdempotencyStore) getRESTContext().getIdempotencyStore()).clear()
+    }
+
+    MockHttpServletRequest order(String key, String text)
+    {
+        def post = request("POST", OrderService.BINDING, '{"text":"' + text + '"}')
+
+        if (null != key)
+        {
+            post.addHeader("Idempotency-Key", key)
+        }
+        post
+    }
+
+    MockHttpServletRequest keyed(String body, String key)
+    {
+        def post = request("POST", "/", body)
+
+        post.addHeader("Idempotency-Key", key)
+
+        post
+    }
+
+    MockHttpServletRequest item(String id, String key, String text)
+    {
+        def put = request("PUT", "/test/idempotent/items/" + id, '{"text":"' + text + '"}')
+
+        put.addHeader("Idempotency-Key", key)
+
+        put
+    }
+
+    def "test store counts hits, misses and puts"()
+    {
+        setup:
+        def store = new IdempotencyStore()
+        def resp = new CachedResponse(200, '{"a":1}'.getBytes("UTF-8"), null, "print")
+        def miss = store.get("key")
+        store.put("key", resp)
+        def hit = store.get("key")
+
+        expect:
+        miss == null
+        hit.is(resp)
+        store.getMissCount() == 1L
+        store.getHitCount() == 1L
+        store.getPutCount() == 1L
+        store.getStoredResponseCount() == 1L
+    }
+
+    def "test cleared store forgets its responses"()
+    {
+        setup:
+        def store = new IdempotencyStore()
+        store.put("key", new CachedResponse(200, new byte[0]))
+        store.clear()
+
+        expect:
+        store.get("key") == null
+        store.getStoredResponseCount() == 0L
+    }
+
+    def "test store keeps at most its size"()
+    {
+        setup:
+        def store = new IdempotencyStore()
+        store.setSize(1L)
+        store.put("one", new CachedResponse(200, new byte[0]))
+        store.put("two", new CachedResponse(200, new byte[0]))
+
+        expect:
+        store.getStoredResponseCount() == 1L
+        store.get("two") != null
+    }
+
+    def "test store settings are at least one"()
+    {
+        setup:
+        def store = new IdempotencyStore()
+        store.setTTL(0L)
+        store.setSize(-1L)
+
+        expect:
+        new IdempotencyStore().getTTL() == IdempotencyStore.DEFAULT_TTL
+        new IdempotencyStore().getSize() == IdempotencyStore.DEFAULT_SIZE
+        store.getTTL() == 1L
+        store.getSize() == 1L
+    }
+
+    def "test cached response keeps the request fingerprint"()
+    {
+        expect:
+        new CachedResponse(200, new byte[0], null, "print").getFingerprint() == "print"
+        new CachedResponse(200, new byte[0]).getFingerprint() == null
+    }
+
+    def "test retry with the same key is replayed"()
+    {
+        setup:
+        def first = call(order("order-1", "book"))
+        def retry = call(order("order-1", "book"))
+
+        expect:
+        first.getStatus() == 200
+        first.getHeader("Idempotent-Replayed") == null
+        retry.getStatus() == 200
+        retry.getHeader("Idempotent-Replayed") == "true"
+        retry.getContentAsString() == first.getContentAsString()
+        retry.getContentAsString().contains('"call":1')
+        OrderService.CALLS.get() == 1
+    }
+
+    def "test key reused with a different body is rejected with 422"()
+    {
+        setup:
+        def first = call(order("order-2", "book"))
+        def reused = call(order("order-2", "lamp"))
+
+        expect:
+        first.getStatus() == 200
+        reused.getStatus() == RESTServlet.SC_UNPROCESSABLE_ENTITY
+        OrderService.CALLS.get() == 1
+    }
+
+    def "test different keys execute separately"()
+    {
+        setup:
+        call(order("order-3", "book"))
+        def other = call(order("order-4", "book"))
+
+        expect:
+        other.getHeader("Idempotent-Replayed") == null
+        OrderService.CALLS.get() == 2
+    }
+
+    def "test calls without a key always execute"()
+    {
+        setup:
+        call(order(null, "book"))
+        def again = call(order(null, "book"))
+
+        expect:
+        again.getHeader("Idempotent-Replayed") == null
+        OrderService.CALLS.get() == 2
+    }
+
+    def "test failed call is not kept so a retry executes"()
+    {
+        setup:
+        OrderService.FAIL.set(true)
+        def failed = call(order("order-5", "book"))
+        def retry = call(order("order-5", "book"))
+
+        expect:
+        failed.getStatus() == 409
+        retry.getStatus() == 200
+        retry.getHeader("Idempotent-Replayed") == null
+        OrderService.CALLS.get() == 2
+    }
+
+    def "test overlong key is rejected with 400"()
+    {
+        setup:
+        def response = call(order('k' * (RESTServlet.MAX_IDEMPOTENCY_KEY_LENGTH + 1), "book"))
+
+        expect:
+        response.getStatus() == 400
+        OrderService.CALLS.get() == 0
+    }
+
+    def "test same key on another id of a templated route executes"()
+    {
+        setup:
+        def first = call(item("1", "item-1", "book"))
+        def other = call(item("2", "item-1", "book"))
+        def changed = call(item("3", "item-1", "lamp"))
+        def retry = call(item("1", "item-1", "book"))
+
+        expect:
+        first.getStatus() == 200
+        other.getStatus() == 200
+        other.getHeader("Idempotent-Replayed") == null
+        other.getContentAsString().contains('"id":"2"')
+        changed.getStatus() == 200
+        changed.getHeader("Idempotent-Replayed") == null
+        retry.getHeader("Idempotent-Replayed") == "true"
+        retry.getContentAsString().contains('"id":"1"')
+        OrderItemService.CALLS.get() == 3
+    }
+
+    def "test command servlet replays the wrapped result"()
+    {
+        setup:
+        def command = makeServlet(RESTCommandServlet, [:])
+        def body = '{"command":"' + OrderService.NAME + '","request":{"text":"book"}}'
+        def first = call(command, request("POST", "/", body))
+        def keyed = call(command, keyed(body, "order-6"))
+        def retry = call(command, keyed(body, "order-6"))
+        def plain = call(order("order-6", "book"))
+
+        expect:
+        first.getContentAsString().contains('"result"')
+        keyed.getContentAsString().contains('"result"')
+        retry.getHeader("Idempotent-Replayed") == "true"
+        retry.getContentAsString() == keyed.getContentAsString()
+        plain.getHeader("Idempotent-Replayed") == null
+        plain.getContentAsString().contains('"result"') == false
+        OrderService.CALLS.get() == 3
+
+        cleanup:
+        command.destroy()
+    }
+
+    @Service(OrderService.NAME)
+    @RequestMethod(HttpMethod.POST)
+    @RequestBinding(OrderService.BINDING)
+    static class OrderService extends RESTServiceSupport
+    {
+        static final String        NAME    = "OrderService"
+
+        static final String        BINDING = "/test/idempotent/order"
+
+        static final AtomicInteger CALLS   = new AtomicInteger()
+
+        static final AtomicBoolean FAIL    = new AtomicBoolean()
+
+        @Override
+        public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            final int call = CALLS.incrementAndGet()
+
+            if (FAIL.getAndSet(false))
+            {
+                throw new RESTException("conflict", 409)
+            }
+            new JSONObject("call", call).set("text", object.getAsString("text"))
+        }
+    }
+
+    @Service(OrderItemService.NAME)
+    @RequestMethod(HttpMethod.PUT)
+    @RequestBinding(OrderItemService.BINDING)
+    static class OrderItemService extends RESTServiceSupport
+    {
+        static final String        NAME    = "OrderItemService"
+
+        static final String        BINDING = "/test/idempotent/items/{id}"
+
+        static final AtomicInteger CALLS   = new AtomicInteger()
+
+        @Override
+        public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            CALLS.incrementAndGet()
+
+            new JSONObject("id", context.getPathParameter("id")).set("text", object.getAsString("text"))
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import javax.servlet.ServletOutputStream
+import javax.servlet.http.HttpServletResponse
+
+import com.ait.tooling.server.rest.io.JSONResponseBuffer
+
+import spock.lang.Specification
+
+class JSONResponseBufferTestsSpecification extends Specification
+{
+    static class Response
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream()
+
+        int length = -1
+
+        HttpServletResponse make()
+        {
+            def stream = [write: { int b -> bytes.write(b) }] as ServletOutputStream
+
+            [setContentLength: { int size -> length = size }, getOutputStream: { stream }] as HttpServletResponse
+        }
+    }
+
+    static byte[] encode(String text)
+    {
+        def buff = new JSONResponseBuffer()
+
+        buff.write(text)
+
+        buff.toByteArray()
+    }
+
+    def "test ASCII is written byte for byte"()
+    {
+        expect:
+        encode('{"name":"rest"}') == '{"name":"rest"}'.getBytes("UTF-8")
+    }
+
+    def "test two and three byte characters match the JDK encoder"()
+    {
+        setup:
+        def text = "café £ € 中文"
+
+        expect:
+        encode(text) == text.getBytes("UTF-8")
+    }
+
+    def "test surrogate pairs are encoded as four bytes"()
+    {
+        setup:
+        def text = "smile 😀!"
+
+        expect:
+        encode(text) == text.getBytes("UTF-8")
+        encode(text).length == 11
+    }
+
+    def "test surrogate pair split across writes is encoded as four bytes"()
+    {
+        setup:
+        def buff = new JSONResponseBuffer()
+        buff.write((int) ('\ud83d' as char))
+        buff.write("\ude00")
+
+        expect:
+        buff.toByteArray() == "😀".getBytes("UTF-8")
+    }
+
+    def "test lone surrogates are replaced"()
+    {
+        expect:
+        new String(encode("a\ude00b"), "UTF-8") == "a?b"
+        new String(encode("a\ud83db"), "UTF-8") == "a?b"
+    }
+
+    def "test buffer grows past its initial capacity"()
+    {
+        setup:
+        def text = "€" * (JSONResponseBuffer.INITIAL_CAPACITY)
+        def buff = new JSONResponseBuffer()
+        buff.write(text)
+
+        expect:
+        buff.size() == JSONResponseBuffer.INITIAL_CAPACITY * 3
+        buff.toByteArray() == text.getBytes("UTF-8")
+    }
+
+    def "test small output is sent with an exact length"()
+    {
+        setup:
+        def response = new Response()
+        def buff = new JSONResponseBuffer().open(response.make(), JSONResponseBuffer.DEFAULT_THRESHOLD)
+        buff.write('{"price":"€1"}')
+        buff.finish()
+
+        expect:
+        buff.isStreaming() == false
+        response.length == '{"price":"€1"}'.getBytes("UTF-8").length
+        new String(response.bytes.toByteArray(), "UTF-8") == '{"price":"€1"}'
+    }
+
+    def "test output past the threshold is streamed without a length"()
+    {
+        setup:
+        def response = new Response()
+        def text = "x" * (JSONResponseBuffer.INITIAL_CAPACITY * 3)
+        def buff = new JSONResponseBuffer().open(response.make(), JSONResponseBuffer.INITIAL_CAPACITY)
+        buff.write(text)
+        buff.write(text)
+        buff.finish()
+
+        expect:
+        buff.isStreaming()
+        response.length == -1
+        buff.getTotalBytes() == text.length() * 2
+        response.bytes.toByteArray().length == text.length() * 2
+    }
+
+    def "test buffers are pooled per thread"()
+    {
+        setup:
+        def buff = JSONResponseBuffer.acquire()
+        def nest = JSONResponseBuffer.acquire()
+        nest.release()
+        buff.release()
+
+        expect:
+        false == buff.is(nest)
+        JSONResponseBuffer.acquire().is(buff)
+        JSONResponseBuffer.acquire().is(nest) == false
+
+        cleanup:
+        buff.release()
+    }
+
+    def "test released buffers drop large arrays"()
+    {
+        setup:
+        def buff = JSONResponseBuffer.acquire()
+        buff.write("x" * (JSONResponseBuffer.MAXIMUM_RETAINED + 1))
+        buff.release()
+
+        expect:
+        buff.size() == 0
+        buff.getBuffer().length == JSONResponseBuffer.INITIAL_CAPACITY
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import org.springframework.http.HttpMethod
+import org.springframework.stereotype.Service
+
+import com.ait.tooling.server.core.json.JSONObject
+import com.ait.tooling.server.rest.IRESTRequestContext
+import com.ait.tooling.server.rest.IRESTService
+import com.ait.tooling.server.rest.RESTException
+import com.ait.tooling.server.rest.RequestBinding
+import com.ait.tooling.server.rest.RequestMethod
+import com.ait.tooling.server.rest.StreamingRESTServiceSupport
+import com.ait.tooling.server.rest.io.IJSONStreamWriter
+import com.ait.tooling.server.rest.io.JSONResponseBuffer
+import com.ait.tooling.server.rest.io.JSONStreamFormat
+import com.ait.tooling.server.rest.io.JSONStreamWriter
+
+class JSONStreamWriterTestsSpecification extends RESTServletTestsSpecification
+{
+    @Override
+    List<IRESTService> getTestServices()
+    {
+        [new CountingStreamService(), new FailingStreamService()]
+    }
+
+    static String frame(JSONStreamFormat format, boolean wrap, Closure<Void> body)
+    {
+        def buff = new JSONResponseBuffer()
+
+        def writer = new JSONStreamWriter(buff, format, true, wrap, 0L)
+
+        body.call(writer)
+
+        new String(buff.toByteArray(), "UTF-8")
+    }
+
+    def "test format is picked from the Accept header"()
+    {
+        expect:
+        JSONStreamFormat.of(null) == JSONStreamFormat.ARRAY
+        JSONStreamFormat.of("application/json") == JSONStreamFormat.ARRAY
+        JSONStreamFormat.of("application/x-ndjson") == JSONStreamFormat.NDJSON
+        JSONStreamFormat.of("application/jsonl, */*") == JSONStreamFormat.NDJSON
+        JSONStreamFormat.of("text/event-stream") == JSONStreamFormat.SSE
+        JSONStreamFormat.isNDJSON("application/x-jsonlines")
+        JSONStreamFormat.isNDJSON("application/json") == false
+    }
+
+    def "test items are framed as a JSON array"()
+    {
+        setup:
+        def text = frame(JSONStreamFormat.ARRAY, false) { writer ->
+            writer.write(new JSONObject("id", 1))
+            writer.write(new JSONObject("id", 2))
+            writer.close()
+        }
+
+        expect:
+        text == '[{"id":1},{"id":2}]'
+    }
+
+    def "test empty stream is an empty array"()
+    {
+        expect:
+        frame(JSONStreamFormat.ARRAY, false) { writer -> writer.close() } == '[]'
+        frame(JSONStreamFormat.ARRAY, true) { writer -> writer.close() } == '{"result":[]}'
+        frame(JSONStreamFormat.NDJSON, true) { writer -> writer.close() } == ''
+    }
+
+    def "test wrapped array is written inside a result envelope"()
+    {
+        setup:
+        def text = frame(JSONStreamFormat.ARRAY, true) { writer ->
+            writer.write(new JSONObject("id", 1))
+            writer.close()
+        }
+
+        expect:
+        text == '{"result":[{"id":1}]}'
+    }
+
+    def "test items are framed as NDJSON lines"()
+    {
+        setup:
+        def text = frame(JSONStreamFormat.NDJSON, false) { writer ->
+            writer.write(new JSONObject("id", 1))
+            writer.write(null)
+            writer.close()
+        }
+
+        expect:
+        text == '{"id":1}\nnull\n'
+    }
+
+    def "test items and named events are framed as Server-Sent Events"()
+    {
+        setup:
+        def text = frame(JSONStreamFormat.SSE, false) { writer ->
+            writer.write(new JSONObject("id", 1))
+            writer.event("done\nnow", new JSONObject("id", 2))
+            writer.close()
+        }
+
+        expect:
+        text == 'data: {"id":1}\n\nevent: done now\ndata: {"id":2}\n\n'
+    }
+
+    def "test failure is written as the last item of NDJSON and Server-Sent Events"()
+    {
+        setup:
+        def text = frame(JSONStreamFormat.NDJSON, false) { writer ->
+            writer.write(new JSONObject("id", 1))
+            writer.close(new JSONObject("error", "oops"))
+        }
+        def next = frame(JSONStreamFormat.SSE, false) { writer ->
+            writer.close(new JSONObject("error", "oops"))
+        }
+        def last = frame(JSONStreamFormat.ARRAY, false) { writer ->
+            writer.write(new JSONObject("id", 1))
+            writer.close(new JSONObject("error", "oops"))
+        }
+
+        expect:
+        text == '{"id":1}\n{"error":"oops"}\n'
+        next == 'event: error\ndata: {"error":"oops"}\n\n'
+        last == '[{"id":1}]'
+    }
+
+    def "test closed stream refuses more items"()
+    {
+        setup:
+        def writer = new JSONStreamWriter(new JSONResponseBuffer(), JSONStreamFormat.NDJSON, true, false, 0L)
+        writer.write(new JSONObject("id", 1))
+        writer.close()
+
+        when:
+        writer.write(new JSONObject("id", 2))
+
+        then:
+        thrown(IOException)
+        writer.isClosed()
+        writer.getCount() == 1L
+    }
+
+    def "test servlet streams as a JSON array by default"()
+    {
+        setup:
+        def get = request("GET", CountingStreamService.BINDING)
+        get.setParameter("count", "3")
+        def response = call(get)
+
+        expect:
+        response.getStatus() == 200
+        response.getContentType().startsWith("application/json")
+        response.getContentAsString() == '[{"id":0},{"id":1},{"id":2}]'
+    }
+
+    def "test servlet streams NDJSON when accepted"()
+    {
+        setup:
+        def get = request("GET", CountingStreamService.BINDING)
+        get.setParameter("count", "2")
+        get.addHeader("Accept", "application/x-ndjson")
+        def response = call(get)
+
+        expect:
+        response.getStatus() == 200
+        response.getContentType().startsWith("application/x-ndjson")
+        response.getContentAsString() == '{"id":0}\n{"id":1}\n'
+    }
+
+    def "test servlet streams past one chunk of output"()
+    {
+        setup:
+        def get = request("GET", CountingStreamService.BINDING)
+        get.setParameter("count", "5000")
+        get.addHeader("Accept", "application/x-ndjson")
+        def response = call(get)
+
+        expect:
+        response.getStatus() == 200
+        response.getContentAsString().split("\n").length == 5000
+    }
+
+    def "test failure after items is written as an error event"()
+    {
+        setup:
+        def get = request("GET", FailingStreamService.BINDING)
+        get.addHeader("Accept", "text/event-stream")
+        def response = call(get)
+        def text = response.getContentAsString()
+
+        expect:
+        response.getStatus() == 200
+        text.startsWith('data: {"id":0}\n\n')
+        text.contains('event: error\ndata: {"error":{"code":409,"reason":"stopped"}}\n\n')
+    }
+
+    def "test failure before any item is answered with its status"()
+    {
+        setup:
+        def get = request("GET", FailingStreamService.BINDING)
+        get.setParameter("count", "0")
+
+        expect:
+        call(get).getStatus() == 409
+    }
+
+    @Service(CountingStreamService.NAME)
+    @RequestMethod(HttpMethod.GET)
+    @RequestBinding(CountingStreamService.BINDING)
+    static class CountingStreamService extends StreamingRESTServiceSupport
+    {
+        static final String NAME    = "CountingStreamService"
+
+        static final String BINDING = "/test/stream/count"
+
+        @Override
+        public void stream(final IRESTRequestContext context, final JSONObject object, final IJSONStreamWriter writer) throws Exception
+        {
+            final long count = context.getParameterAsLong("count", 0L)
+
+            for (long i = 0L; i < count; i++)
+            {
+                writer.write(new JSONObject("id", i))
+            }
+        }
+    }
+
+    @Service(FailingStreamService.NAME)
+    @RequestMethod(HttpMethod.GET)
+    @RequestBinding(FailingStreamService.BINDING)
+    static class FailingStreamService extends StreamingRESTServiceSupport
+    {
+        static final String NAME    = "FailingStreamService"
+
+        static final String BINDING = "/test/stream/fail"
+
+        @Override
+        public void stream(final IRESTRequestContext context, final JSONObject object, final IJSONStreamWriter writer) throws Exception
+        {
+            final long count = context.getParameterAsLong("count", 1L)
+
+            for (long i = 0L; i < count; i++)
+            {
+                writer.write(new JSONObject("id", i))
+            }
+            throw new RESTException("stopped", 409)
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import com.ait.tooling.server.rest.metrics.LatencyHistogram
+import com.ait.tooling.server.rest.metrics.ServiceLatencyMetrics
+
+import spock.lang.Specification
+
+class LatencyHistogramTestsSpecification extends Specification
+{
+    static List<Long> samples()
+    {
+        def list = (0L..<2048L).toList()
+
+        long valu = 2048L
+
+        while (valu < LatencyHistogram.MAXIMUM_MICROS)
+        {
+            list << valu - 1L << valu << valu + 1L << valu + (valu >> 1)
+
+            valu <<= 1
+        }
+        list << LatencyHistogram.MAXIMUM_MICROS
+    }
+
+    def "test small values get a bucket each"()
+    {
+        expect:
+        (0..<32).every { LatencyHistogram.getBucketIndex(it) == it && LatencyHistogram.getBucketHighestValue(it) == it }
+        LatencyHistogram.getBucketIndex(-5L) == 0
+    }
+
+    def "test every value falls in the bucket whose range holds it"()
+    {
+        expect:
+        samples().every { long valu ->
+            def indx = LatencyHistogram.getBucketIndex(valu)
+            (LatencyHistogram.getBucketHighestValue(indx) >= valu) && ((indx == 0) || (LatencyHistogram.getBucketHighestValue(indx - 1) < valu))
+        }
+    }
+
+    def "test bucket error is bounded to one sixteenth"()
+    {
+        expect:
+        samples().every { long valu -> (LatencyHistogram.getBucketHighestValue(LatencyHistogram.getBucketIndex(valu)) - valu) <= (valu >> 4) }
+    }
+
+    def "test values past the maximum land in the last bucket"()
+    {
+        expect:
+        LatencyHistogram.getBucketIndex(LatencyHistogram.MAXIMUM_MICROS) == LatencyHistogram.BUCKET_COUNT - 1
+        LatencyHistogram.getBucketIndex(Long.MAX_VALUE) == LatencyHistogram.BUCKET_COUNT - 1
+    }
+
+    def "test percentiles of a snapshot"()
+    {
+        setup:
+        def hist = new LatencyHistogram()
+        (1L..100L).each { hist.record(it * 10L) }
+        def snap = hist.getSnapshot()
+
+        expect:
+        snap.getCount() == 100L
+        snap.getTotalMicros() == 50500L
+        snap.getMeanMicros() == 505.0d
+        snap.getMaximumMicros() == 1000L
+        snap.getPercentileMicros(0.0) == 10L
+        snap.getPercentileMicros(50.0) >= 500L
+        snap.getPercentileMicros(50.0) <= 500L + (500L >> 4)
+        snap.getPercentileMicros(99.0) >= 990L
+        snap.getPercentileMicros(100.0) == 1000L
+    }
+
+    def "test empty snapshot reports zero"()
+    {
+        setup:
+        def snap = new LatencyHistogram().getSnapshot()
+
+        expect:
+        snap.getCount() == 0L
+        snap.getMeanMicros() == 0.0d
+        snap.getPercentileMicros(99.0) == 0L
+    }
+
+    def "test nanos are recorded as micros"()
+    {
+        setup:
+        def hist = new LatencyHistogram()
+        hist.recordNanos(2500L)
+        hist.recordNanos(-1L)
+
+        expect:
+        hist.getCount() == 2L
+        hist.getTotalMicros() == 2L
+        hist.getMaximumMicros() == 2L
+    }
+
+    def "test recording from many threads loses no counts"()
+    {
+        setup:
+        def hist = new LatencyHistogram()
+        def threads = (1..8).collect {
+            Thread.start {
+                10000.times { hist.record(it % 5000) }
+            }
+        }
+        threads*.join()
+
+        expect:
+        hist.getCount() == 80000L
+        hist.getSnapshot().getCount() == 80000L
+    }
+
+    def "test histograms are kept per binding and status"()
+    {
+        setup:
+        def metrics = new ServiceLatencyMetrics()
+        metrics.record("/test/one", 200, 1000000L)
+        metrics.record("/test/one", 200, 3000000L)
+        metrics.record("/test/one", 404, 1000000L)
+        metrics.record(null, 200, 1000000L)
+
+        expect:
+        metrics.getHistogram("/test/one", 200).getCount() == 2L
+        metrics.getHistogram("/test/one", 404).getCount() == 1L
+        metrics.getHistogram("/test/one", 500) == null
+        metrics.getHistogram("/test/two", 200) == null
+        metrics.getSummary().size() == 2
+        metrics.getSummary()[0].startsWith("/test/one status 200 count 2 mean 2.000")
+    }
+
+    def "test histograms are written in the Prometheus text format"()
+    {
+        setup:
+        def metrics = new ServiceLatencyMetrics()
+        metrics.record("/test/\"quoted\"", 200, 2000000L)
+        def text = new StringBuilder()
+        metrics.writePrometheus(text)
+        def lines = text.toString().split("\n") as List
+
+        expect:
+        lines[0] == "# HELP rest_service_latency_seconds REST service latency by binding and status, including response writing."
+        lines[1] == "# TYPE rest_service_latency_seconds summary"
+        lines.contains('rest_service_latency_seconds{binding="/test/\\"quoted\\"",status="200",quantile="0.5"} 0.002')
+        lines.contains('rest_service_latency_seconds_sum{binding="/test/\\"quoted\\"",status="200"} 0.002')
+        lines.contains('rest_service_latency_seconds_count{binding="/test/\\"quoted\\"",status="200"} 1')
+        lines.size() == 8
+    }
+}
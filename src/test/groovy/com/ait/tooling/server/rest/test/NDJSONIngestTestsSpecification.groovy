@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import org.springframework.http.HttpMethod
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.stereotype.Service
+
+import com.ait.tooling.server.core.json.JSONObject
+import com.ait.tooling.server.core.json.parser.JSONParser
+import com.ait.tooling.server.core.json.schema.JSONSchema
+import com.ait.tooling.server.rest.BatchIngest
+import com.ait.tooling.server.rest.IIngestRESTService
+import com.ait.tooling.server.rest.IRESTRequestContext
+import com.ait.tooling.server.rest.IRESTService
+import com.ait.tooling.server.rest.IngestRESTServiceSupport
+import com.ait.tooling.server.rest.RESTException
+import com.ait.tooling.server.rest.RequestBinding
+import com.ait.tooling.server.rest.RequestMethod
+import com.ait.tooling.server.rest.ingest.IngestBatch
+import com.ait.tooling.server.rest.ingest.IngestBatcher
+import com.ait.tooling.server.rest.ingest.IngestPolicy
+import com.ait.tooling.server.rest.ingest.IngestResult
+import com.ait.tooling.server.rest.ingest.NDJSONRecordReader
+import com.ait.tooling.server.rest.ingest.NDJSONRecordReader.RecordTooLargeException
+import com.ait.tooling.server.rest.schema.CompiledSchema
+
+class NDJSONIngestTestsSpecification extends RESTServletTestsSpecification
+{
+    @Override
+    List<IRESTService> getTestServices()
+    {
+        [new RecordIngestService()]
+    }
+
+    def setup()
+    {
+        RecordIngestService.IDS.clear()
+    }
+
+    static NDJSONRecordReader reader(String text, int limit = 1024)
+    {
+        new NDJSONRecordReader(new ByteArrayInputStream(text.getBytes("UTF-8")), limit)
+    }
+
+    static List<String> records(NDJSONRecordReader reader)
+    {
+        def list = []
+
+        def text = reader.next()
+
+        while (null != text)
+        {
+            list << text
+
+            text = reader.next()
+        }
+        list
+    }
+
+    static IIngestRESTService service(int size, Closure ingest)
+    {
+        [getName: { "ingest" }, getIngestPolicy: { new IngestPolicy(size, 10) }, ingest: ingest] as IIngestRESTService
+    }
+
+    MockHttpServletRequest ndjson(List<String> lines)
+    {
+        def request = request("POST", RecordIngestService.BINDING, lines.join("\n") + "\n")
+
+        request.setContentType("application/x-ndjson")
+
+        request
+    }
+
+    static JSONObject summary(def response)
+    {
+        new JSONParser().parse(response.getContentAsString())
+    }
+
+    def "test reader returns one record per line"()
+    {
+        setup:
+        def read = reader('{"a":1}\n{"a":2}\r\n\n   \n{"a":3}')
+        def list = records(read)
+
+        expect:
+        list == ['{"a":1}', '{"a":2}', '{"a":3}']
+        read.getLine() == 5L
+        read.next() == null
+    }
+
+    def "test reader skips a leading byte order mark"()
+    {
+        setup:
+        def read = reader('﻿{"a":1}\n{"a":2}\n')
+
+        expect:
+        read.next() == '{"a":1}'
+        read.getLine() == 1L
+        read.next() == '{"a":2}'
+        read.getLine() == 2L
+    }
+
+    def "test reader skips a record over the limit and carries on"()
+    {
+        setup:
+        def read = reader('{"a":1}\n{"text":"' + ('x' * 100) + '"}\n{"a":3}\n', 32)
+
+        when:
+        read.next()
+        read.next()
+
+        then:
+        def e = thrown(RecordTooLargeException)
+        e.getLine() == 2L
+        read.next() == '{"a":3}'
+        read.getLine() == 3L
+    }
+
+    def "test reader joins a record that spans its buffer"()
+    {
+        setup:
+        def text = '{"text":"' + ('x' * 20000) + '"}'
+        def read = reader(text + '\n{"a":2}', 32768)
+
+        expect:
+        read.next() == text
+        read.next() == '{"a":2}'
+    }
+
+    def "test records are handed over in batches of the policy size"()
+    {
+        setup:
+        def sizes = []
+        def batcher = new IngestBatcher(service(2, { c, o, IngestBatch b -> sizes << b.size() }), null, null, null)
+        (1..5).each {
+            batcher.offer(new JSONObject("id", it), it)
+        }
+        def result = batcher.finish()
+
+        expect:
+        sizes == [2, 2, 1]
+        result.getRecordCount() == 5L
+        result.getAcceptedCount() == 5L
+        result.getRejectedCount() == 0L
+        result.getBatchCount() == 3L
+    }
+
+    def "test records that are not objects or fail the schema never reach the service"()
+    {
+        setup:
+        def seen = []
+        def schema = CompiledSchema.compile([type: "object", required: ["id"]])
+        def batcher = new IngestBatcher(service(10, { c, o, IngestBatch b -> seen.addAll(b.getRecords()) }), null, null, schema)
+        batcher.offer(new JSONObject("id", 1), 1L)
+        batcher.offer("text", 2L)
+        batcher.offer(new JSONObject("name", "x"), 3L)
+        batcher.reject(4L, "record is not valid JSON")
+        def result = batcher.finish()
+        def errors = result.toJSONObject().errors
+
+        expect:
+        seen.size() == 1
+        result.getRecordCount() == 4L
+        result.getAcceptedCount() == 1L
+        result.getRejectedCount() == 3L
+        errors*.line == [2L, 3L, 4L]
+        errors[0].reason == "record is not a JSON object"
+        errors[1].reason.startsWith("invalid record")
+    }
+
+    def "test service rejects single records of a batch"()
+    {
+        setup:
+        def batcher = new IngestBatcher(service(3, { c, o, IngestBatch b ->
+            b.reject(1, "no")
+            b.reject(1, "again")
+        }), null, null, null)
+        (1..3).each {
+            batcher.offer(new JSONObject("id", it), it * 10L)
+        }
+        def result = batcher.finish()
+
+        expect:
+        result.getAcceptedCount() == 2L
+        result.getRejectedCount() == 1L
+        result.toJSONObject().errors == [new JSONObject("line", 20L).set("reason", "no")]
+    }
+
+    def "test failed callback rejects its batch and ends the ingest"()
+    {
+        setup:
+        def batcher = new IngestBatcher(service(2, { c, o, IngestBatch b ->
+            if (b.getIndex() > 0L)
+            {
+                throw new RESTException("store down", 503)
+            }
+        }), null, null, null)
+
+        when:
+        (1..4).each {
+            batcher.offer(new JSONObject("id", it), it)
+        }
+
+        then:
+        def e = thrown(RESTException)
+        e.getCode() == 503
+        batcher.getResult().getAcceptedCount() == 2L
+        batcher.getResult().getRejectedCount() == 2L
+        batcher.getResult().getBatchCount() == 2L
+        batcher.getResult().toJSONObject().errors*.reason == ["store down", "store down"]
+    }
+
+    def "test error list is bounded and marked truncated"()
+    {
+        setup:
+        def result = new IngestResult(2)
+        (1..5).each {
+            result.reject(it, "bad")
+        }
+        def json = result.toJSONObject()
+
+        expect:
+        result.getRejectedCount() == 5L
+        json.errors.size() == 2
+        json.truncated == true
+        new IngestResult(2).toJSONObject().containsKey("truncated") == false
+    }
+
+    def "test ingest policy is kept within bounds"()
+    {
+        expect:
+        IngestPolicy.of(null).is(IngestPolicy.DEFAULT)
+        new IngestPolicy(0, -1).getBatchSize() == 1
+        new IngestPolicy(0, -1).getMaxErrors() == 0
+    }
+
+    def "test NDJSON upload is ingested with per record errors"()
+    {
+        setup:
+        def response = call(ndjson(['{"id":1}', '{"id":2}', 'not json', '{"name":"x"}', '{"id":-3}', '{"id":4}']))
+        def json = summary(response)
+
+        expect:
+        response.getStatus() == 200
+        json.records == 6
+        json.accepted == 3
+        json.rejected == 3
+        json.batches == 2
+        json.errors*.line == [3, 4, 5]
+        json.errors[0].reason == "record is not valid JSON"
+        json.errors[2].reason == "negative id"
+        RecordIngestService.IDS == [1, 2, -3, 4]
+    }
+
+    def "test failed batch after accepted batches still returns the summary"()
+    {
+        setup:
+        def response = call(ndjson(['{"id":1}', '{"id":2}', '{"id":3,"fail":true}', '{"id":4}', '{"id":5}']))
+        def json = summary(response)
+
+        expect:
+        response.getStatus() == 503
+        json.accepted == 2
+        json.error.code == 503
+        json.error.reason == "store down"
+        RecordIngestService.IDS == [1, 2, 3, 4]
+    }
+
+    def "test failed first batch is answered as an error"()
+    {
+        setup:
+        def response = call(ndjson(['{"id":1,"fail":true}', '{"id":2}']))
+
+        expect:
+        response.getStatus() == 503
+    }
+
+    def "test JSON records body goes through execute"()
+    {
+        setup:
+        def response = call(request("POST", RecordIngestService.BINDING, '{"records":[{"id":1},{"id":2},7]}'))
+        def json = summary(response)
+
+        expect:
+        response.getStatus() == 200
+        json.accepted == 2
+        json.rejected == 1
+        json.errors[0].line == 3
+    }
+
+    @Service(RecordIngestService.NAME)
+    @RequestMethod(HttpMethod.POST)
+    @RequestBinding(RecordIngestService.BINDING)
+    @BatchIngest(size = 2, errors = 10)
+    static class RecordIngestService extends IngestRESTServiceSupport
+    {
+        static final String       NAME    = "RecordIngestService"
+
+        static final String       BINDING = "/test/ingest/records"
+
+        static final List<Object> IDS     = Collections.synchronizedList([])
+
+        @Override
+        public void ingest(final IRESTRequestContext context, final JSONObject object, final IngestBatch batch) throws Exception
+        {
+            boolean fail = false
+
+            for (int i = 0; i < batch.size(); i++)
+            {
+                final JSONObject record = batch.get(i)
+
+                IDS << record.get("id")
+
+                if (record.get("fail"))
+                {
+                    fail = true
+                }
+                else if (record.get("id") < 0)
+                {
+                    batch.reject(i, "negative id")
+                }
+            }
+            if (fail)
+            {
+                throw new RESTException("store down", 503)
+            }
+        }
+
+        @Override
+        public JSONSchema getRequestSchema()
+        {
+            jsonSchema(type: "object", properties: [id: [type: "integer"]], required: ["id"])
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+import org.springframework.mock.web.MockServletConfig
+import org.springframework.mock.web.MockServletContext
+
+import com.ait.tooling.server.core.support.spring.testing.IServerCoreTesting.TestingOps
+import com.ait.tooling.server.core.support.spring.testing.spock.ServerCoreSpecification
+import com.ait.tooling.server.rest.IRESTService
+import com.ait.tooling.server.rest.servlet.RESTServlet
+import com.ait.tooling.server.rest.support.spring.IMutableServiceRegistry
+import com.ait.tooling.server.rest.support.spring.IRESTContext
+import com.ait.tooling.server.rest.support.spring.RESTContextInstance
+
+import spock.lang.Shared
+
+abstract class RESTServletTestsSpecification extends ServerCoreSpecification
+{
+    @Shared
+    RESTServlet servlet
+
+    def setupSpec()
+    {
+        TestingOps.setupServerCoreDefault(["classpath:/com/ait/tooling/server/rest/config/RESTApplicationContext.xml", "classpath:/com/ait/tooling/server/core/config/CoreApplicationContext.xml"])
+
+        getTestServices().each { service ->
+            ((IMutableServiceRegistry) getRESTContext().getServiceRegistry()).register(service)
+        }
+        servlet = makeServlet(RESTServlet, [:])
+    }
+
+    def cleanupSpec()
+    {
+        servlet.destroy()
+
+        TestingOps.closeServerCoreDefault()
+    }
+
+    List<IRESTService> getTestServices()
+    {
+        []
+    }
+
+    IRESTContext getRESTContext()
+    {
+        RESTContextInstance.getRESTContextInstance()
+    }
+
+    def <S extends RESTServlet> S makeServlet(Class<S> type, Map<String, String> params)
+    {
+        def config = new MockServletConfig(new MockServletContext(), type.getSimpleName())
+
+        params.each { name, valu ->
+            config.addInitParameter(name, valu)
+        }
+        def make = type.newInstance()
+
+        make.init(config)
+
+        make
+    }
+
+    MockHttpServletRequest request(String method, String path, String body = null)
+    {
+        prepare(new MockHttpServletRequest(method, "/rest" + path), path, body)
+    }
+
+    MockHttpServletRequest prepare(MockHttpServletRequest request, String path, String body)
+    {
+        request.setServletPath("/rest")
+
+        request.setPathInfo(path)
+
+        if (null != body)
+        {
+            request.setContentType("application/json")
+
+            request.setCharacterEncoding("UTF-8")
+
+            request.setContent(body.getBytes("UTF-8"))
+        }
+        request
+    }
+
+    MockHttpServletResponse call(MockHttpServletRequest request)
+    {
+        call(servlet, request)
+    }
+
+    MockHttpServletResponse call(RESTServlet target, MockHttpServletRequest request)
+    {
+        def response = new MockHttpServletResponse()
+
+        target.service(request, response)
+
+        response
+    }
+}
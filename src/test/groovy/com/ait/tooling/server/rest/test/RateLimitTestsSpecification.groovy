@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import java.util.concurrent.TimeUnit
+
+import org.springframework.http.HttpMethod
+import org.springframework.stereotype.Service
+
+import com.ait.tooling.server.core.json.JSONObject
+import com.ait.tooling.server.rest.IRESTRequestContext
+import com.ait.tooling.server.rest.IRESTService
+import com.ait.tooling.server.rest.NonBlockingRateLimit
+import com.ait.tooling.server.rest.RESTServiceSupport
+import com.ait.tooling.server.rest.RequestBinding
+import com.ait.tooling.server.rest.RequestMethod
+import com.ait.tooling.server.rest.limit.RateLimiterManager
+import com.ait.tooling.server.rest.limit.ServiceOverloadedException
+import com.ait.tooling.server.rest.limit.ServiceRateLimiter
+
+class RateLimitTestsSpecification extends RESTServletTestsSpecification
+{
+    @Override
+    List<IRESTService> getTestServices()
+    {
+        [new PacedService()]
+    }
+
+    static IRESTService service(String name, double rate, boolean nonblocking)
+    {
+        [getName: { name }, getRateLimit: { rate }, isNonBlockingRateLimit: { nonblocking }] as IRESTService
+    }
+
+    def "test limiter grants its burst and then reports the wait"()
+    {
+        setup:
+        def limiter = new ServiceRateLimiter("test", 10.0d, 3)
+
+        expect:
+        limiter.tryAcquire(0L) == 0L
+        limiter.tryAcquire(0L) == 0L
+        limiter.tryAcquire(0L) == 0L
+        limiter.tryAcquire(0L) > 0L
+        limiter.getLimitedCount() == 1L
+    }
+
+    def "test wait for the next permit is at most one interval"()
+    {
+        setup:
+        def limiter = new ServiceRateLimiter("test", 1.0d, 1)
+        limiter.tryAcquire(0L)
+        def wait = limiter.tryAcquire(0L)
+
+        expect:
+        wait > 0L
+        wait <= TimeUnit.SECONDS.toNanos(1L)
+    }
+
+    def "test permit within the wait budget is granted after waiting"()
+    {
+        setup:
+        def limiter = new ServiceRateLimiter("test", 100.0d, 1)
+        limiter.tryAcquire(0L)
+
+        expect:
+        limiter.tryAcquire(TimeUnit.MILLISECONDS.toNanos(500L)) == 0L
+        limiter.getLimitedCount() == 0L
+    }
+
+    def "test burst below one allows one second of permits"()
+    {
+        expect:
+        new ServiceRateLimiter("test", 5.0d, 0).getBurst() == 5
+        new ServiceRateLimiter("test", 0.5d, 0).getBurst() == 1
+        new ServiceRateLimiter("test", 5.0d, 2).getBurst() == 2
+    }
+
+    def "test rate must be positive"()
+    {
+        when:
+        new ServiceRateLimiter("test", 0.0d, 1)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "test rate limited services block by default"()
+    {
+        setup:
+        def manager = new RateLimiterManager()
+
+        expect:
+        manager.isNonBlocking() == false
+        manager.getLimiter(service("paced", 5.0d, false)) == null
+    }
+
+    def "test service opts into non-blocking rate limiting"()
+    {
+        setup:
+        def manager = new RateLimiterManager()
+
+        expect:
+        manager.getLimiter(service("paced", 5.0d, true)).getRate() == 5.0d
+        manager.getLimiter(service("free", 0.0d, true)) == null
+    }
+
+    def "test non-blocking applies to every rate limited service when set"()
+    {
+        setup:
+        def manager = new RateLimiterManager()
+        manager.setNonBlocking(true)
+
+        expect:
+        manager.getLimiter(service("paced", 5.0d, false)).getRate() == 5.0d
+        manager.getLimiter(service("free", 0.0d, false)) == null
+    }
+
+    def "test runtime rate opts a service in until cleared"()
+    {
+        setup:
+        def manager = new RateLimiterManager()
+        def paced = service("paced", 5.0d, false)
+        manager.setServiceRate("paced", 20.0d, 4)
+        def limiter = manager.getLimiter(paced)
+        manager.clearServiceRate("paced")
+
+        expect:
+        limiter.getRate() == 20.0d
+        limiter.getBurst() == 4
+        manager.getLimiter(paced) == null
+    }
+
+    def "test runtime rate must be positive"()
+    {
+        setup:
+        def manager = new RateLimiterManager()
+
+        when:
+        manager.setServiceRate("paced", -1.0d, 1)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "test annotation marks a service non-blocking"()
+    {
+        expect:
+        new PacedService().isNonBlockingRateLimit()
+    }
+
+    def "test call over the rate is answered with 429 and Retry-After"()
+    {
+        setup:
+        def manager = getRESTContext().getRateLimiterManager()
+        manager.setServiceRate(PacedService.NAME, 1.0d, 1)
+        def first = call(request("GET", PacedService.BINDING))
+        def limited = call(request("GET", PacedService.BINDING))
+
+        expect:
+        first.getStatus() == 200
+        limited.getStatus() == ServiceOverloadedException.SC_TOO_MANY_REQUESTS
+        limited.getHeader("Retry-After") == "1"
+
+        cleanup:
+        manager.clearServiceRate(PacedService.NAME)
+    }
+
+    @Service(PacedService.NAME)
+    @RequestMethod(HttpMethod.GET)
+    @RequestBinding(PacedService.BINDING)
+    @NonBlockingRateLimit
+    static class PacedService extends RESTServiceSupport
+    {
+        static final String NAME    = "PacedService"
+
+        static final String BINDING = "/test/limit/paced"
+
+        @Override
+        public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            new JSONObject("done", true)
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import org.springframework.http.HttpMethod
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.stereotype.Service
+
+import com.ait.tooling.server.core.json.JSONObject
+import com.ait.tooling.server.rest.IRESTRequestContext
+import com.ait.tooling.server.rest.IRESTService
+import com.ait.tooling.server.rest.MaxRequestBodySize
+import com.ait.tooling.server.rest.RESTServiceSupport
+import com.ait.tooling.server.rest.RequestBinding
+import com.ait.tooling.server.rest.RequestMethod
+import com.ait.tooling.server.rest.io.BoundedInputStream
+import com.ait.tooling.server.rest.io.BoundedInputStream.BodyTooLargeException
+import com.ait.tooling.server.rest.servlet.RESTServlet
+
+class RequestBodyTestsSpecification extends RESTServletTestsSpecification
+{
+    @Override
+    List<IRESTService> getTestServices()
+    {
+        [new SmallBodyService(), new AnyBodyService()]
+    }
+
+    static String body(int size)
+    {
+        '{"text":"' + ('x' * (size - 11)) + '"}'
+    }
+
+    MockHttpServletRequest unsized(String path, String body)
+    {
+        def request = new MockHttpServletRequest("POST", "/rest" + path) {
+
+            @Override
+            public int getContentLength()
+            {
+                -1
+            }
+
+            @Override
+            public long getContentLengthLong()
+            {
+                -1L
+            }
+        }
+        prepare(request, path, body)
+    }
+
+    def "test bounded stream reads up to its limit"()
+    {
+        setup:
+        def stream = new BoundedInputStream(new ByteArrayInputStream(new byte[64]), 64L)
+
+        expect:
+        stream.read(new byte[128], 0, 128) == 64
+        stream.read() == -1
+        stream.getCount() == 64L
+        stream.isExceeded() == false
+    }
+
+    def "test bounded stream fails past its limit"()
+    {
+        setup:
+        def stream = new BoundedInputStream(new ByteArrayInputStream(new byte[65]), 64L)
+
+        when:
+        stream.read(new byte[128], 0, 128)
+
+        then:
+        thrown(BodyTooLargeException)
+        stream.isExceeded()
+    }
+
+    def "test bounded stream without a limit reads everything"()
+    {
+        setup:
+        def stream = new BoundedInputStream(new ByteArrayInputStream(new byte[4096]), -1L)
+
+        expect:
+        stream.skip(8192L) == 4096L
+        stream.isExceeded() == false
+    }
+
+    def "test bounded stream peeks for an empty body"()
+    {
+        setup:
+        def none = new BoundedInputStream(new ByteArrayInputStream(new byte[0]), 8L)
+        def some = new BoundedInputStream(new ByteArrayInputStream([7, 8] as byte[]), 8L)
+
+        expect:
+        none.isEmpty()
+        some.isEmpty() == false
+        some.read() == 7
+        some.read() == 8
+        some.read() == -1
+        some.getCount() == 2L
+    }
+
+    def "test body within the service limit is read"()
+    {
+        setup:
+        def response = call(request("POST", SmallBodyService.BINDING, body(64)))
+
+        expect:
+        response.getStatus() == 200
+        response.getContentAsString().contains('"length":53')
+    }
+
+    def "test declared length over the service limit is rejected with 413"()
+    {
+        setup:
+        def response = call(request("POST", SmallBodyService.BINDING, body(65)))
+
+        expect:
+        response.getStatus() == 413
+    }
+
+    def "test streamed body over the service limit is rejected with 413"()
+    {
+        setup:
+        def response = call(unsized(SmallBodyService.BINDING, body(4096)))
+
+        expect:
+        response.getStatus() == 413
+    }
+
+    def "test servlet limit applies to services without their own"()
+    {
+        setup:
+        def small = makeServlet(RESTServlet, [(RESTServlet.MAX_REQUEST_BODY_SIZE_PARAM): "32"])
+        def under = call(small, request("POST", AnyBodyService.BINDING, body(32)))
+        def over = call(small, request("POST", AnyBodyService.BINDING, body(33)))
+
+        expect:
+        under.getStatus() == 200
+        over.getStatus() == 413
+
+        cleanup:
+        small.destroy()
+    }
+
+    def "test service limit takes precedence over the servlet limit"()
+    {
+        setup:
+        def small = makeServlet(RESTServlet, [(RESTServlet.MAX_REQUEST_BODY_SIZE_PARAM): "32"])
+        def response = call(small, unsized(SmallBodyService.BINDING, body(64)))
+
+        expect:
+        small.getMaxRequestBodySize() == 32L
+        response.getStatus() == 200
+
+        cleanup:
+        small.destroy()
+    }
+
+    @Service(SmallBodyService.NAME)
+    @RequestMethod(HttpMethod.POST)
+    @RequestBinding(SmallBodyService.BINDING)
+    @MaxRequestBodySize(64L)
+    static class SmallBodyService extends RESTServiceSupport
+    {
+        static final String NAME    = "SmallBodyService"
+
+        static final String BINDING = "/test/body/small"
+
+        @Override
+        public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            new JSONObject("length", object.getAsString("text").length())
+        }
+    }
+
+    @Service(AnyBodyService.NAME)
+    @RequestMethod(HttpMethod.POST)
+    @RequestBinding(AnyBodyService.BINDING)
+    static class AnyBodyService extends RESTServiceSupport
+    {
+        static final String NAME    = "AnyBodyService"
+
+        static final String BINDING = "/test/body/any"
+
+        @Override
+        public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            object
+        }
+    }
+}
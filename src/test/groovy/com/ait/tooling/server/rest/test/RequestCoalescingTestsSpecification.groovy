@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.springframework.http.HttpMethod
+import org.springframework.stereotype.Service
+
+import com.ait.tooling.server.core.json.JSONObject
+import com.ait.tooling.server.rest.CoalesceRequests
+import com.ait.tooling.server.rest.IRESTRequestContext
+import com.ait.tooling.server.rest.IRESTService
+import com.ait.tooling.server.rest.RESTException
+import com.ait.tooling.server.rest.RESTServiceSupport
+import com.ait.tooling.server.rest.RequestBinding
+import com.ait.tooling.server.rest.RequestMethod
+import com.ait.tooling.server.rest.cache.CachedResponse
+import com.ait.tooling.server.rest.cache.CoalescePolicy
+import com.ait.tooling.server.rest.cache.RequestCoalescer
+
+class RequestCoalescingTestsSpecification extends RESTServletTestsSpecification
+{
+    @Override
+    List<IRESTService> getTestServices()
+    {
+        [new CoalescedItemService()]
+    }
+
+    static CachedResponse response(String text)
+    {
+        new CachedResponse(200, text.getBytes("UTF-8"))
+    }
+
+    static void waitFor(Closure<Boolean> test)
+    {
+        while (false == test.call())
+        {
+            Thread.sleep(1L)
+        }
+    }
+
+    def "test policy is read from the annotation"()
+    {
+        expect:
+        CoalescePolicy.of(null) == null
+        CoalescePolicy.of(CoalescedItemService.getAnnotation(CoalesceRequests)).isKeyedByUser() == false
+    }
+
+    def "test identical call in flight is shared"()
+    {
+        setup:
+        def coalescer = new RequestCoalescer()
+        def gate = new CountDownLatch(1)
+        def calls = new AtomicInteger()
+        def first = null
+        def other = null
+        def leader = Thread.start {
+            first = coalescer.execute("/items/1") {
+                calls.incrementAndGet()
+                gate.await(5L, TimeUnit.SECONDS)
+                response("one")
+            }
+        }
+        waitFor { coalescer.getInFlightCount() == 1 }
+        def waiter = Thread.start {
+            other = coalescer.execute("/items/1") {
+                calls.incrementAndGet()
+                response("again")
+            }
+        }
+        waitFor { waiter.getState() == Thread.State.TIMED_WAITING }
+        gate.countDown()
+        leader.join(5000L)
+        waiter.join(5000L)
+
+        expect:
+        first.is(other)
+        calls.get() == 1
+        coalescer.getExecutedCount() == 1L
+        coalescer.getSharedCount() == 1L
+        coalescer.getInFlightCount() == 0
+    }
+
+    def "test calls with different keys are not shared"()
+    {
+        setup:
+        def coalescer = new RequestCoalescer()
+
+        expect:
+        new String(coalescer.execute("/items/1") { response("one") }.getBody(), "UTF-8") == "one"
+        new String(coalescer.execute("/items/2") { response("two") }.getBody(), "UTF-8") == "two"
+        coalescer.getExecutedCount() == 2L
+        coalescer.getSharedCount() == 0L
+    }
+
+    def "test failure of the call in flight is shared"()
+    {
+        setup:
+        def coalescer = new RequestCoalescer()
+        def gate = new CountDownLatch(1)
+        def thrown = null
+        def leader = Thread.start {
+            try
+            {
+                coalescer.execute("/items/1") {
+                    gate.await(5L, TimeUnit.SECONDS)
+                    throw new RESTException("refused", 409)
+                }
+            }
+            catch (Exception e)
+            {
+            }
+        }
+        waitFor { coalescer.getInFlightCount() == 1 }
+        def waiter = Thread.start {
+            try
+            {
+                coalescer.execute("/items/1") { response("again") }
+            }
+            catch (Exception e)
+            {
+                thrown = e
+            }
+        }
+        waitFor { waiter.getState() == Thread.State.TIMED_WAITING }
+        gate.countDown()
+        leader.join(5000L)
+        waiter.join(5000L)
+
+        expect:
+        thrown instanceof RESTException
+        thrown.getCode() == 409
+    }
+
+    def "test waiter gives up with 503"()
+    {
+        setup:
+        def coalescer = new RequestCoalescer()
+        coalescer.setWaitTimeout(20L)
+        def gate = new CountDownLatch(1)
+        def leader = Thread.start {
+            coalescer.execute("/items/1") {
+                gate.await(5L, TimeUnit.SECONDS)
+                response("one")
+            }
+        }
+        waitFor { coalescer.getInFlightCount() == 1 }
+
+        when:
+        coalescer.execute("/items/1") { response("again") }
+
+        then:
+        def e = thrown(RESTException)
+        e.getCode() == 503
+
+        cleanup:
+        gate.countDown()
+        leader.join(5000L)
+    }
+
+    def "test concurrent calls to one template with two ids are not shared"()
+    {
+        setup:
+        CoalescedItemService.BOTH = new CountDownLatch(2)
+        CoalescedItemService.CALLS.set(0)
+        def one = null
+        def two = null
+        def first = Thread.start {
+            one = call(request("GET", "/test/coalesced/1"))
+        }
+        def other = Thread.start {
+            two = call(request("GET", "/test/coalesced/2"))
+        }
+        first.join(10000L)
+        other.join(10000L)
+
+        expect:
+        one.getStatus() == 200
+        two.getStatus() == 200
+        one.getContentAsString().contains('"id":"1"')
+        two.getContentAsString().contains('"id":"2"')
+        CoalescedItemService.CALLS.get() == 2
+    }
+
+    @Service(CoalescedItemService.NAME)
+    @RequestMethod(HttpMethod.GET)
+    @RequestBinding(CoalescedItemService.BINDING)
+    @CoalesceRequests
+    static class CoalescedItemService extends RESTServiceSupport
+    {
+        static final String        NAME    = "CoalescedItemService"
+
+        static final String        BINDING = "/test/coalesced/{id}"
+
+        static final AtomicInteger CALLS   = new AtomicInteger()
+
+        static CountDownLatch      BOTH    = new CountDownLatch(0)
+
+        @Override
+        public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            CALLS.incrementAndGet()
+
+            BOTH.countDown()
+
+            BOTH.await(5L, TimeUnit.SECONDS)
+
+            new JSONObject("id", context.getPathParameter("id"))
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import org.springframework.http.HttpMethod
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.stereotype.Service
+
+import com.ait.tooling.server.core.json.JSONArray
+import com.ait.tooling.server.core.json.JSONObject
+import com.ait.tooling.server.rest.IRESTRequestContext
+import com.ait.tooling.server.rest.IRESTService
+import com.ait.tooling.server.rest.RESTRequestParameters
+import com.ait.tooling.server.rest.RESTServiceSupport
+import com.ait.tooling.server.rest.RequestBinding
+import com.ait.tooling.server.rest.RequestMethod
+
+class RequestParametersTestsSpecification extends RESTServletTestsSpecification
+{
+    @Override
+    List<IRESTService> getTestServices()
+    {
+        [new ParametersService()]
+    }
+
+    static MockHttpServletRequest query(Map<String, List<String>> params)
+    {
+        def make = new MockHttpServletRequest("GET", "/rest/test/params")
+
+        params.each { name, list ->
+            make.setParameter(name, list as String[])
+        }
+        make
+    }
+
+    def "test parameters are shared per request"()
+    {
+        setup:
+        def get = query([:])
+
+        expect:
+        RESTRequestParameters.of(get).is(RESTRequestParameters.of(get))
+        false == RESTRequestParameters.of(get).is(RESTRequestParameters.of(query([:])))
+    }
+
+    def "test reading one parameter does not decode the others"()
+    {
+        setup:
+        def params = RESTRequestParameters.of(query([id: ["42"], name: ["rest"]]))
+
+        expect:
+        params.get("id") == "42"
+        params.containsKey("name")
+        params.containsKey("none") == false
+        params.get("none") == null
+        params.getOrDefault("none", "else") == "else"
+        params.getParameter("id") == "42"
+        params.isComplete() == false
+    }
+
+    def "test repeated parameters are decoded as an array"()
+    {
+        setup:
+        def params = RESTRequestParameters.of(query([tag: ["a", "b"]]))
+
+        expect:
+        params.get("tag") instanceof JSONArray
+        params.get("tag") == ["a", "b"]
+        params.getParameter("tag") == "a"
+        params.isComplete() == false
+    }
+
+    def "test map operations decode the whole request once"()
+    {
+        setup:
+        def params = RESTRequestParameters.of(query([id: ["42"], name: ["rest"]]))
+        params.get("id")
+
+        expect:
+        params.size() == 2
+        params.isComplete()
+        params.keySet() == ["id", "name"] as Set
+        params.get("name") == "rest"
+    }
+
+    def "test values put before completion are kept"()
+    {
+        setup:
+        def params = RESTRequestParameters.of(query([id: ["42"]]))
+        params.put("id", "43")
+
+        expect:
+        params.isComplete()
+        params.get("id") == "43"
+        params.size() == 1
+    }
+
+    def "test parameters of no request are empty"()
+    {
+        setup:
+        def params = RESTRequestParameters.of(null)
+
+        expect:
+        params.isComplete()
+        params.isEmpty()
+        params.get("id") == null
+    }
+
+    def "test service reads parameters and headers without building the parameter object"()
+    {
+        setup:
+        def get = request("GET", ParametersService.BINDING)
+        get.setParameter("id", "42")
+        get.setParameter("flag", "true")
+        get.setParameter("size", "big")
+        get.addHeader("X-Test-Header", "header")
+        def response = call(get)
+        def result = response.getContentAsString()
+
+        expect:
+        response.getStatus() == 200
+        result.contains('"id":"42"')
+        result.contains('"count":-1')
+        result.contains('"size":-1')
+        result.contains('"flag":true')
+        result.contains('"header":"header"')
+        result.contains('"complete":false')
+        result.contains('"shared":true')
+    }
+
+    @Service(ParametersService.NAME)
+    @RequestMethod(HttpMethod.GET)
+    @RequestBinding(ParametersService.BINDING)
+    static class ParametersService extends RESTServiceSupport
+    {
+        static final String NAME    = "ParametersService"
+
+        static final String BINDING = "/test/params"
+
+        @Override
+        public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            def result = new JSONObject()
+
+            result.put("id", context.getParameter("id"))
+
+            result.put("count", context.getParameterAsLong("count", -1L))
+
+            result.put("size", context.getParameterAsLong("size", -1L))
+
+            result.put("flag", context.getParameterAsBoolean("flag", false))
+
+            result.put("header", context.getHeader("X-Test-Header"))
+
+            result.put("complete", ((RESTRequestParameters) object).isComplete())
+
+            result.put("shared", context.getJSONParameters().is(object))
+
+            result
+        }
+    }
+}
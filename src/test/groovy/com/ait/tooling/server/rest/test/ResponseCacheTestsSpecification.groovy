@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.zip.GZIPInputStream
+
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.stereotype.Service
+
+import com.ait.tooling.server.core.json.JSONObject
+import com.ait.tooling.server.rest.CompressResponse
+import com.ait.tooling.server.rest.IRESTRequestContext
+import com.ait.tooling.server.rest.IRESTService
+import com.ait.tooling.server.rest.RESTServiceSupport
+import com.ait.tooling.server.rest.RequestBinding
+import com.ait.tooling.server.rest.ResponseCache
+import com.ait.tooling.server.rest.cache.CachedResponse
+import com.ait.tooling.server.rest.cache.ResponseCacheManager
+
+import spock.lang.Shared
+
+class ResponseCacheTestsSpecification extends RESTServletTestsSpecification
+{
+    @Shared
+    CachedTestService cached = new CachedTestService()
+
+    @Shared
+    CachedItemService items = new CachedItemService()
+
+    @Override
+    List<IRESTService> getTestServices()
+    {
+        [cached, items]
+    }
+
+    def setup()
+    {
+        getRESTContext().getResponseCacheManager().clear()
+
+        cached.m_calls.set(0)
+
+        items.m_calls.set(0)
+    }
+
+    static byte[] gunzip(byte[] body)
+    {
+        new GZIPInputStream(new ByteArrayInputStream(body)).getBytes()
+    }
+
+    def "test ETag is a quoted hash of the body"()
+    {
+        setup:
+        def resp = new CachedResponse(200, '{"a":1}'.getBytes("UTF-8"))
+        def same = new CachedResponse(200, '{"a":1}'.getBytes("UTF-8"))
+        def diff = new CachedResponse(200, '{"a":2}'.getBytes("UTF-8"))
+
+        expect:
+        resp.getETag().startsWith('"')
+        resp.getETag().endsWith('"')
+        resp.getETag() == same.getETag()
+        resp.getETag() != diff.getETag()
+        resp.getETag(null) == resp.getETag()
+    }
+
+    def "test ETag depends on the content encoding"()
+    {
+        setup:
+        def resp = new CachedResponse(200, '{"a":1}'.getBytes("UTF-8"))
+        def etag = resp.getETag()
+
+        expect:
+        resp.getETag("gzip") == etag.substring(0, etag.length() - 1) + '-gzip"'
+        resp.getETag("deflate") == etag.substring(0, etag.length() - 1) + '-deflate"'
+        resp.getETag("gzip") != resp.getETag("deflate")
+    }
+
+    def "test If-None-Match only matches the ETag of the same encoding"()
+    {
+        setup:
+        def resp = new CachedResponse(200, '{"a":1}'.getBytes("UTF-8"))
+
+        expect:
+        resp.isMatch(resp.getETag())
+        resp.isMatch('"other", ' + resp.getETag())
+        resp.isMatch('*')
+        resp.isMatch(null) == false
+        resp.isMatch('"other"') == false
+        resp.isMatch(resp.getETag("gzip"), "gzip")
+        resp.isMatch(resp.getETag("gzip")) == false
+        resp.isMatch(resp.getETag(), "gzip") == false
+    }
+
+    def "test encoded body decompresses to the body"()
+    {
+        setup:
+        def body = ('{"text":"' + ('abc' * 1000) + '"}').getBytes("UTF-8")
+        def resp = new CachedResponse(200, body)
+        def gzip = resp.getEncodedBody("gzip", 6)
+
+        expect:
+        gzip.length < body.length
+        gunzip(gzip) == body
+        resp.getEncodedBody("gzip", 6).is(gzip)
+    }
+
+    def "test key separators are escaped"()
+    {
+        expect:
+        ResponseCacheManager.appendEscaped(new StringBuilder(), "a&b=c#d,e?f%g").toString() == "a%26b%3Dc%23d%2Ce%3Ff%25g"
+        ResponseCacheManager.appendEscaped(new StringBuilder("x"), null).toString() == "x"
+    }
+
+    def "test roles are sorted into the key"()
+    {
+        expect:
+        ResponseCacheManager.appendRoles(new StringBuilder(), ["USER", "ADMIN"]).toString() == "#roles,ADMIN,USER"
+        ResponseCacheManager.appendRoles(new StringBuilder(), ["A,B"]).toString() == "#roles,A%2CB"
+    }
+
+    def "test request keys sort parameters and can not be forged"()
+    {
+        setup:
+        def one = new MockHttpServletRequest("GET", "/rest/x")
+        one.addParameter("b", "2")
+        one.addParameter("a", "1")
+        def two = new MockHttpServletRequest("GET", "/rest/x")
+        two.addParameter("a", "1")
+        two.addParameter("b", "2")
+        def forged = new MockHttpServletRequest("GET", "/rest/x")
+        forged.addParameter("a", "1&b=2")
+
+        expect:
+        ResponseCacheManager.getRequestKey(one, "/x", false).toString() == "/x?a=1&b=2"
+        ResponseCacheManager.getRequestKey(two, "/x", false).toString() == "/x?a=1&b=2"
+        ResponseCacheManager.getRequestKey(forged, "/x", false).toString() == "/x?a=1%26b%3D2"
+        ResponseCacheManager.getRequestKey(one, "/x", true).toString() == "/x?a=1&b=2#strict"
+    }
+
+    def "test cached responses are served without executing again"()
+    {
+        setup:
+        def one = call(request("GET", CachedTestService.BINDING))
+        def two = call(request("GET", CachedTestService.BINDING))
+
+        expect:
+        one.getStatus() == 200
+        two.getStatus() == 200
+        one.getContentAsString() == two.getContentAsString()
+        one.getHeader("ETag") == two.getHeader("ETag")
+        one.getHeader("Cache-Control") == "private, no-cache"
+        cached.m_calls.get() == 1
+    }
+
+    def "test parameter order does not change the cached response"()
+    {
+        setup:
+        def one = request("GET", CachedTestService.BINDING)
+        one.addParameter("b", "2")
+        one.addParameter("a", "1")
+        def two = request("GET", CachedTestService.BINDING)
+        two.addParameter("a", "1")
+        two.addParameter("b", "2")
+        call(one)
+        call(two)
+
+        expect:
+        cached.m_calls.get() == 1
+    }
+
+    def "test matching If-None-Match is answered with 304 and Vary"()
+    {
+        setup:
+        def etag = call(request("GET", CachedTestService.BINDING)).getHeader("ETag")
+        def revalidate = request("GET", CachedTestService.BINDING)
+        revalidate.addHeader("If-None-Match", etag)
+        def response = call(revalidate)
+
+        expect:
+        response.getStatus() == 304
+        response.getHeader("ETag") == etag
+        response.getHeaders("Vary").contains("Accept-Encoding")
+        response.getContentAsByteArray().length == 0
+    }
+
+    def "test gzip responses carry their own ETag"()
+    {
+        setup:
+        def plain = call(request("GET", CachedTestService.BINDING))
+        def accept = request("GET", CachedTestService.BINDING)
+        accept.addHeader("Accept-Encoding", "gzip")
+        def gzip = call(accept)
+        def revalidate = request("GET", CachedTestService.BINDING)
+        revalidate.addHeader("Accept-Encoding", "gzip")
+        revalidate.addHeader("If-None-Match", plain.getHeader("ETag"))
+        def stale = call(revalidate)
+        def matched = request("GET", CachedTestService.BINDING)
+        matched.addHeader("Accept-Encoding", "gzip")
+        matched.addHeader("If-None-Match", gzip.getHeader("ETag"))
+
+        expect:
+        gzip.getStatus() == 200
+        gzip.getHeader("Content-Encoding") == "gzip"
+        gzip.getHeader("ETag") == plain.getHeader("ETag").replaceAll('"$', '-gzip"')
+        new String(gunzip(gzip.getContentAsByteArray()), "UTF-8") == plain.getContentAsString()
+        stale.getStatus() == 200
+        call(matched).getStatus() == 304
+        cached.m_calls.get() == 1
+    }
+
+    def "test templated routes are cached per concrete path"()
+    {
+        setup:
+        def one = call(request("GET", "/test/items/1"))
+        def two = call(request("GET", "/test/items/2"))
+        def again = call(request("GET", "/test/items/1"))
+
+        expect:
+        one.getStatus() == 200
+        two.getStatus() == 200
+        one.getContentAsString().contains('"id":"1"')
+        two.getContentAsString().contains('"id":"2"')
+        one.getHeader("ETag") != two.getHeader("ETag")
+        again.getContentAsString() == one.getContentAsString()
+        again.getHeader("ETag") == one.getHeader("ETag")
+        items.m_calls.get() == 2
+    }
+
+    @Service(CachedTestService.NAME)
+    @RequestBinding(CachedTestService.BINDING)
+    @ResponseCache(ttl = 60L, size = 16L)
+    @CompressResponse
+    static class CachedTestService extends RESTServiceSupport
+    {
+        static final String NAME    = "CachedTestService"
+
+        static final String BINDING = "/test/cached"
+
+        final AtomicInteger m_calls = new AtomicInteger()
+
+        @Override
+        public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            new JSONObject("call", m_calls.incrementAndGet()).set("text", 'cached ' * 1024)
+        }
+    }
+
+    @Service(CachedItemService.NAME)
+    @RequestBinding(CachedItemService.BINDING)
+    @ResponseCache(ttl = 60L, size = 16L)
+    static class CachedItemService extends RESTServiceSupport
+    {
+        static final String NAME    = "CachedItemService"
+
+        static final String BINDING = "/test/items/{id}"
+
+        final AtomicInteger m_calls = new AtomicInteger()
+
+        @Override
+        public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            m_calls.incrementAndGet()
+
+            new JSONObject("id", context.getPathParameter("id"))
+        }
+    }
+}
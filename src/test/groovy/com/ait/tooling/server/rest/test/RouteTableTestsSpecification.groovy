@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import com.ait.tooling.server.rest.IRESTService
+import com.ait.tooling.server.rest.routing.RequestRouteTable
+
+import spock.lang.Specification
+
+class RouteTableTestsSpecification extends Specification
+{
+    def "test literal routes ignore extra slashes"()
+    {
+        setup:
+        def serv = Stub(IRESTService)
+        def table = new RequestRouteTable(['/users/list': serv])
+
+        expect:
+        table.size() == 1
+        table.match('/users/list').getService().is(serv)
+        table.match('/users/list').getRequestBinding() == '/users/list'
+        table.match('users/list/').getService().is(serv)
+        table.match('//users//list').getService().is(serv)
+        table.match('/users/list').isTemplate() == false
+    }
+
+    def "test paths that are not routes do not match"()
+    {
+        setup:
+        def table = new RequestRouteTable(['/users/list': Stub(IRESTService)])
+
+        expect:
+        table.match(null) == null
+        table.match('/') == null
+        table.match('/users') == null
+        table.match('/users/list/more') == null
+        table.match('/users/lis') == null
+        table.match('/users/li st') == null
+    }
+
+    def "test template segments bind path parameters"()
+    {
+        setup:
+        def serv = Stub(IRESTService)
+        def table = new RequestRouteTable(['/users/{id}/orders/{order}': serv])
+        def match = table.match('/users/42/orders/7')
+
+        expect:
+        match.getService().is(serv)
+        match.isTemplate()
+        match.getRequestBinding() == '/users/{id}/orders/{order}'
+        match.getPathParameter('id') == '42'
+        match.getPathParameter('order') == '7'
+        match.getPathParameter('none') == null
+        match.getPathParameters()['id'] == '42'
+        match.getPathParameters()['order'] == '7'
+    }
+
+    def "test each template match has its own parameters"()
+    {
+        setup:
+        def table = new RequestRouteTable(['/users/{id}': Stub(IRESTService)])
+        def one = table.match('/users/1')
+        def two = table.match('/users/2')
+
+        expect:
+        one.is(two) == false
+        one.getPathParameter('id') == '1'
+        two.getPathParameter('id') == '2'
+    }
+
+    def "test literal segments are preferred over templates"()
+    {
+        setup:
+        def list = Stub(IRESTService)
+        def user = Stub(IRESTService)
+        def table = new RequestRouteTable(['/users/{id}': user, '/users/list': list])
+
+        expect:
+        table.size() == 2
+        table.match('/users/list').getService().is(list)
+        table.match('/users/lists').getService().is(user)
+        table.match('/users/lists').getPathParameter('id') == 'lists'
+    }
+
+    def "test a failed literal branch falls back to a template"()
+    {
+        setup:
+        def lite = Stub(IRESTService)
+        def temp = Stub(IRESTService)
+        def table = new RequestRouteTable(['/a/b/c': lite, '/a/{x}/d': temp])
+        def match = table.match('/a/b/d')
+
+        expect:
+        table.match('/a/b/c').getService().is(lite)
+        match.getService().is(temp)
+        match.getPathParameter('x') == 'b'
+    }
+
+    def "test rpc suffix is ignored on the last segment"()
+    {
+        setup:
+        def list = Stub(IRESTService)
+        def user = Stub(IRESTService)
+        def table = new RequestRouteTable(['/users/list': list, '/users/{id}': user])
+
+        expect:
+        table.match('/users/list.rpc').getService().is(list)
+        table.match('/users/42.rpc').getPathParameter('id') == '42'
+        table.match('/users.rpc/list') == null
+    }
+
+    def "test conflicting bindings keep the first route"()
+    {
+        setup:
+        def one = Stub(IRESTService)
+        def two = Stub(IRESTService)
+        def table = new RequestRouteTable(['/items/{x}': one, '/items/{y}': two])
+
+        expect:
+        table.size() == 1
+        table.match('/items/9').getService().is(one)
+        table.match('/items/9').getPathParameter('x') == '9'
+    }
+
+    def "test many literal routes all match"()
+    {
+        setup:
+        def serv = (0..<200).collectEntries { ['/bulk/route' + it, Stub(IRESTService)] }
+        def table = new RequestRouteTable(serv)
+
+        expect:
+        table.size() == 200
+        serv.every { bind, service -> table.match(bind).getService().is(service) }
+        table.match('/bulk/route200') == null
+    }
+}
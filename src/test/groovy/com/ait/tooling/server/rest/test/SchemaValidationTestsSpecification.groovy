@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import org.springframework.http.HttpMethod
+import org.springframework.stereotype.Service
+
+import com.ait.tooling.server.core.json.JSONObject
+import com.ait.tooling.server.core.json.schema.JSONSchema
+import com.ait.tooling.server.rest.IRESTRequestContext
+import com.ait.tooling.server.rest.IRESTService
+import com.ait.tooling.server.rest.RESTServiceSupport
+import com.ait.tooling.server.rest.RequestBinding
+import com.ait.tooling.server.rest.RequestMethod
+import com.ait.tooling.server.rest.schema.CompiledSchema
+import com.ait.tooling.server.rest.schema.ServiceSchemas
+import com.ait.tooling.server.rest.support.spring.ServiceRegistry
+
+class SchemaValidationTestsSpecification extends RESTServletTestsSpecification
+{
+    static final Map PERSON = [type: "object", properties: [name: [type: "string", minLength: 1], age: [type: "integer", minimum: 0]], required: ["name"], additionalProperties: false]
+
+    @Override
+    List<IRESTService> getTestServices()
+    {
+        [new PersonService(), new PersonQueryService()]
+    }
+
+    ServiceRegistry getRegistry()
+    {
+        (ServiceRegistry) getRESTContext().getServiceRegistry()
+    }
+
+    def "test empty schema accepts everything"()
+    {
+        setup:
+        def schema = CompiledSchema.compile([:])
+
+        expect:
+        schema.is(CompiledSchema.ANY)
+        schema.isTrivial()
+        schema.isValid(null)
+        schema.isValid("text")
+        CompiledSchema.compile(null).isTrivial()
+    }
+
+    def "test valid object has no errors"()
+    {
+        setup:
+        def schema = CompiledSchema.compile(PERSON)
+
+        expect:
+        schema.isTrivial() == false
+        schema.validate([name: "Bob", age: 42]).isEmpty()
+        schema.isValid([name: "Bob"])
+    }
+
+    def "test errors are prefixed with the path of the failing value"()
+    {
+        setup:
+        def errors = CompiledSchema.compile(PERSON).validate([age: -1, nick: "B"])
+
+        expect:
+        errors.contains("\$ missing required property name")
+        errors.contains("\$.age must be at least 0.0")
+        errors.contains("\$ unexpected property nick")
+        errors.size() == 3
+    }
+
+    def "test types are checked"()
+    {
+        setup:
+        def schema = CompiledSchema.compile(PERSON)
+
+        expect:
+        schema.validate("Bob") == ["\$ must be of type object"]
+        schema.validate([name: 7]) == ["\$.name must be of type string"]
+        schema.isValid([name: "Bob", age: 4.0d])
+        schema.isValid([name: "Bob", age: 4.5d]) == false
+    }
+
+    def "test array items are checked with their index"()
+    {
+        setup:
+        def schema = CompiledSchema.compile([type: "array", items: [type: "string", pattern: "^[a-z]+\$"], maxItems: 3])
+
+        expect:
+        schema.isValid(["a", "b"])
+        schema.validate(["a", "B"]) == ["\$[1] must match pattern ^[a-z]+\$"]
+        schema.validate(["a", "b", "c", "d"]) == ["\$ must have at most 3 items"]
+    }
+
+    def "test exclusive bounds accept both draft forms"()
+    {
+        setup:
+        def older = CompiledSchema.compile([minimum: 0, exclusiveMinimum: true])
+        def newer = CompiledSchema.compile([exclusiveMaximum: 10])
+
+        expect:
+        older.isValid(0) == false
+        older.isValid(1)
+        newer.isValid(10) == false
+        newer.isValid(9.5d)
+    }
+
+    def "test combinators are checked"()
+    {
+        setup:
+        def any = CompiledSchema.compile([anyOf: [[type: "string"], [type: "integer"]]])
+        def one = CompiledSchema.compile([oneOf: [[type: "number"], [type: "integer"]]])
+        def not = CompiledSchema.compile([not: [type: "null"]])
+
+        expect:
+        any.isValid("a")
+        any.isValid(1)
+        any.isValid(true) == false
+        one.isValid(1.5d)
+        one.isValid(1) == false
+        not.isValid(null) == false
+        not.isValid(0)
+    }
+
+    def "test enum and const compare numbers by value"()
+    {
+        setup:
+        def schema = CompiledSchema.compile([enum: [1, "one"]])
+
+        expect:
+        schema.isValid(1L)
+        schema.isValid(1.0d)
+        schema.isValid("one")
+        schema.isValid(2) == false
+        CompiledSchema.compile([const: "x"]).validate("y") == ["\$ must be one of [x]"]
+    }
+
+    def "test error count is bounded"()
+    {
+        setup:
+        def errors = CompiledSchema.compile([type: "array", items: [type: "string"]]).validate((1..40).toList())
+
+        expect:
+        errors.size() == CompiledSchema.MAXIMUM_ERRORS
+    }
+
+    def "test service schemas are compiled from what the service publishes"()
+    {
+        setup:
+        def schemas = ServiceSchemas.compile(new PersonService())
+
+        expect:
+        schemas.getRequestSchema().isValid([name: "Bob"])
+        schemas.getRequestSchema().isValid([age: 1]) == false
+        schemas.getResponseSchema().isValid([name: "Bob"])
+    }
+
+    def "test valid request body is served"()
+    {
+        setup:
+        def response = call(request("POST", PersonService.BINDING, '{"name":"Bob","age":42}'))
+
+        expect:
+        response.getStatus() == 200
+    }
+
+    def "test invalid request body is rejected with 400"()
+    {
+        setup:
+        def response = call(request("POST", PersonService.BINDING, '{"age":-1}'))
+
+        expect:
+        registry.isValidateRequests()
+        response.getStatus() == 400
+    }
+
+    def "test invalid request body is served when validation is off"()
+    {
+        setup:
+        registry.setValidateRequests(false)
+        def response = call(request("POST", PersonService.BINDING, '{"age":1}'))
+
+        expect:
+        response.getStatus() == 200
+
+        cleanup:
+        registry.setValidateRequests(true)
+    }
+
+    def "test query parameters are not validated"()
+    {
+        setup:
+        def response = call(request("GET", PersonQueryService.BINDING))
+
+        expect:
+        response.getStatus() == 200
+    }
+
+    def "test invalid response fails with 500 when response validation is on"()
+    {
+        setup:
+        registry.setValidateResponses(true)
+        def response = call(request("POST", PersonService.BINDING, '{"name":"Bob","age":42}'))
+        def broken = call(request("GET", PersonQueryService.BINDING))
+
+        expect:
+        response.getStatus() == 200
+        broken.getStatus() == 500
+
+        cleanup:
+        registry.setValidateResponses(false)
+    }
+
+    @Service(PersonService.NAME)
+    @RequestMethod(HttpMethod.POST)
+    @RequestBinding(PersonService.BINDING)
+    static class PersonService extends RESTServiceSupport
+    {
+        static final String NAME    = "PersonService"
+
+        static final String BINDING = "/test/schema/person"
+
+        @Override
+        public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            object
+        }
+
+        @Override
+        public JSONSchema getRequestSchema()
+        {
+            jsonSchema(PERSON)
+        }
+
+        @Override
+        public JSONSchema getResponseSchema()
+        {
+            jsonSchema(PERSON)
+        }
+    }
+
+    @Service(PersonQueryService.NAME)
+    @RequestMethod(HttpMethod.GET)
+    @RequestBinding(PersonQueryService.BINDING)
+    static class PersonQueryService extends RESTServiceSupport
+    {
+        static final String NAME    = "PersonQueryService"
+
+        static final String BINDING = "/test/schema/query"
+
+        @Override
+        public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+        {
+            new JSONObject("age", "old")
+        }
+
+        @Override
+        public JSONSchema getRequestSchema()
+        {
+            jsonSchema(PERSON)
+        }
+
+        @Override
+        public JSONSchema getResponseSchema()
+        {
+            jsonSchema(PERSON)
+        }
+    }
+}
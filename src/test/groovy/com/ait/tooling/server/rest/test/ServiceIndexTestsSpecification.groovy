@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import java.nio.file.Files
+import java.util.concurrent.atomic.AtomicInteger
+
+import javax.tools.ToolProvider
+
+import org.springframework.http.HttpMethod
+
+import com.ait.tooling.server.rest.IRESTService
+import com.ait.tooling.server.rest.index.IndexedRESTService
+import com.ait.tooling.server.rest.index.RESTServiceIndex
+import com.ait.tooling.server.rest.index.RESTServiceIndex.RESTServiceEntry
+import com.ait.tooling.server.rest.index.RESTServiceIndexProcessor
+import com.ait.tooling.server.rest.support.spring.ServiceRegistry
+
+import spock.lang.Specification
+
+class ServiceIndexTestsSpecification extends Specification
+{
+    static final String INDEXED = '''package indexed;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+
+import com.ait.tooling.server.core.json.JSONObject;
+import com.ait.tooling.server.rest.IRESTRequestContext;
+import com.ait.tooling.server.rest.RESTServiceSupport;
+import com.ait.tooling.server.rest.RequestBinding;
+import com.ait.tooling.server.rest.RequestMethod;
+
+@Service("IndexedEchoService")
+@RequestMethod(HttpMethod.POST)
+@RequestBinding("/indexed/echo")
+public class IndexedEchoService extends RESTServiceSupport
+{
+    @Override
+    public JSONObject execute(final IRESTRequestContext context, final JSONObject object) throws Exception
+    {
+        return object;
+    }
+}
+'''
+
+    List<String> closed = Collections.synchronizedList([])
+
+    IRESTService service(String name, String bind = null)
+    {
+        [getName: { name }, getRequestBinding: { bind }, getRequestMethodType: { HttpMethod.GET }, getSchemas: { null }, close: { closed << name }] as IRESTService
+    }
+
+    static File folder()
+    {
+        def make = Files.createTempDirectory("rest-index").toFile()
+
+        make.deleteOnExit()
+
+        make
+    }
+
+    def "test index lines are read from the class path"()
+    {
+        setup:
+        def root = folder()
+        def file = new File(root, RESTServiceIndex.RESOURCE)
+        file.getParentFile().mkdirs()
+        file.setText("# class\tname\tbinding\tmethod\n\ntest.UsersService\tusers\t/users/{id}\tGET\ntest.PlainService\tplain\t\tPOST\nbad line\ntest.BadMethod\tbad\t\tFETCH\n", "UTF-8")
+        def read = RESTServiceIndex.load(new URLClassLoader([root.toURI().toURL()] as URL[], (ClassLoader) null))
+
+        expect:
+        read.getEntries().size() == 2
+        read.getEntry("test.UsersService").getName() == "users"
+        read.getEntry("test.UsersService").getRequestBinding() == "/users/{id}"
+        read.getEntry("test.PlainService").getRequestBinding() == null
+        read.getEntry("test.PlainService").getRequestMethodType() == HttpMethod.POST
+        read.getEntry("test.BadMethod") == null
+    }
+
+    def "test missing index is empty"()
+    {
+        expect:
+        RESTServiceIndex.load(new URLClassLoader([folder().toURI().toURL()] as URL[], (ClassLoader) null)).isEmpty()
+    }
+
+    def "test entry is written back as the line it was read from"()
+    {
+        setup:
+        def entry = new RESTServiceEntry("test.UsersService", "users", "/users/{id}", null)
+
+        expect:
+        entry.getRequestMethodType() == HttpMethod.GET
+        entry.toLine() == "test.UsersService\tusers\t/users/{id}\tGET"
+        new RESTServiceEntry("test.PlainService", "plain", " ", HttpMethod.PUT).toLine() == "test.PlainService\tplain\t\tPUT"
+    }
+
+    def "test indexed service answers routing questions without creating the bean"()
+    {
+        setup:
+        def calls = new AtomicInteger()
+        def lazy = new IndexedRESTService(new RESTServiceEntry("test.UsersService", "users", "/users/{id}", HttpMethod.GET), "/users/{id}", { entry ->
+            calls.incrementAndGet()
+            service("users", "/users/{id}")
+        })
+
+        expect:
+        lazy.getName() == "users"
+        lazy.getRequestBinding() == "/users/{id}"
+        lazy.getRequestMethodType() == HttpMethod.GET
+        lazy.isCreated() == false
+        calls.get() == 0
+    }
+
+    def "test indexed service creates the bean once"()
+    {
+        setup:
+        def calls = new AtomicInteger()
+        def lazy = new IndexedRESTService(new RESTServiceEntry("test.UsersService", "users", null, HttpMethod.GET), "users", { entry ->
+            calls.incrementAndGet()
+            service("users")
+        })
+        def make = lazy.getService()
+
+        expect:
+        lazy.getService().is(make)
+        lazy.isCreated()
+        calls.get() == 1
+    }
+
+    def "test indexed service not created is not closed"()
+    {
+        setup:
+        def lazy = new IndexedRESTService(new RESTServiceEntry("test.UsersService", "users", null, HttpMethod.GET), "users", { entry -> service("users") })
+        lazy.close()
+        def make = new IndexedRESTService(new RESTServiceEntry("test.PlainService", "plain", null, HttpMethod.GET), "plain", { entry -> service("plain") })
+        make.getService()
+        make.close()
+
+        expect:
+        lazy.isCreated() == false
+        closed == ["plain"]
+    }
+
+    def "test registry swaps the bean in when a request first resolves it"()
+    {
+        setup:
+        def registry = new ServiceRegistry()
+        def users = service("users", "/users/{id}")
+        def calls = new AtomicInteger()
+        registry.addService(new IndexedRESTService(new RESTServiceEntry("test.UsersService", "users", "/users/{id}", HttpMethod.GET), "/users/{id}", { entry ->
+            calls.incrementAndGet()
+            users
+        }))
+        def names = registry.getLazyServiceNames()
+        def route = registry.getRoute("/users/42")
+
+        expect:
+        names == ["users"]
+        route.getService().is(users)
+        route.getPathParameter("id") == "42"
+        registry.getService("users").is(users)
+        registry.getBinding("/users/{id}").is(users)
+        registry.getLazyServiceNames().isEmpty()
+        calls.get() == 1
+    }
+
+    def "test processor writes the index of the services it compiles"()
+    {
+        setup:
+        def compiler = ToolProvider.getSystemJavaCompiler()
+        def root = folder()
+        def source = new File(root, "indexed/IndexedEchoService.java")
+        source.getParentFile().mkdirs()
+        source.setText(INDEXED, "UTF-8")
+        def code = compiler.run(null, null, null, "-proc:only", "-processor", RESTServiceIndexProcessor.getName(), "-classpath", System.getProperty("java.class.path"), "-d", root.getPath(), source.getPath())
+        def read = RESTServiceIndex.load(new URLClassLoader([root.toURI().toURL()] as URL[], (ClassLoader) null))
+
+        expect:
+        code == 0
+        read.getEntries().size() == 1
+        read.getEntry("indexed.IndexedEchoService").toLine() == "indexed.IndexedEchoService\tIndexedEchoService\t/indexed/echo\tPOST"
+    }
+}
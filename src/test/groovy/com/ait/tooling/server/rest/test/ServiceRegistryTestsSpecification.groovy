@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import java.util.concurrent.TimeUnit
+
+import org.springframework.http.HttpMethod
+
+import com.ait.tooling.server.rest.IRESTService
+import com.ait.tooling.server.rest.support.spring.ServiceRegistry
+
+import spock.lang.Specification
+
+class ServiceRegistryTestsSpecification extends Specification
+{
+    List<String> closed = Collections.synchronizedList([])
+
+    IRESTService service(String name, String bind = null)
+    {
+        [getName: { name }, getRequestBinding: { bind }, getRequestMethodType: { HttpMethod.GET }, getSchemas: { null }, close: { closed << name }] as IRESTService
+    }
+
+    static void await(Closure<Boolean> done)
+    {
+        def stop = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L)
+
+        while ((false == done()) && (System.nanoTime() < stop))
+        {
+            Thread.sleep(1L)
+        }
+    }
+
+    def "test registered service is found by name and binding"()
+    {
+        setup:
+        def registry = new ServiceRegistry()
+        def users = service("users", "/users/{id}")
+        def plain = service("plain")
+        def before = registry.getGeneration()
+        registry.register(users)
+        registry.register(plain)
+
+        expect:
+        registry.getGeneration() == before + 2L
+        registry.getService("users").is(users)
+        registry.getService(" users ").is(users)
+        registry.getBinding("/users/{id}").is(users)
+        registry.getBinding("plain").is(plain)
+        registry.getRoute("/users/42").getPathParameter("id") == "42"
+        registry.getServiceNames() == ["users", "plain"]
+        registry.getService("none") == null
+        registry.getService(null) == null
+    }
+
+    def "test duplicate name at startup is still found by its own binding"()
+    {
+        setup:
+        def registry = new ServiceRegistry()
+        def first = service("users", "/users")
+        def again = service("users", "/people")
+        registry.addService(first)
+        registry.addService(again)
+
+        expect:
+        registry.getService("users").is(first)
+        registry.getBinding("/users").is(first)
+        registry.getBinding("/people").is(again)
+        registry.getServices() == [first]
+        registry.enter(again)
+
+        cleanup:
+        registry.leave(again)
+    }
+
+    def "test registering the same service again changes nothing"()
+    {
+        setup:
+        def registry = new ServiceRegistry()
+        def users = service("users")
+        registry.register(users)
+        def before = registry.getGeneration()
+
+        expect:
+        registry.register(users) == null
+        registry.getGeneration() == before
+        closed.isEmpty()
+    }
+
+    def "test replaced service is returned and closed"()
+    {
+        setup:
+        def registry = new ServiceRegistry()
+        def first = service("users", "/users")
+        def again = service("users", "/people")
+        registry.register(first)
+        def before = registry.getGeneration()
+        def last = registry.register(again)
+        await {
+            closed == ["users"]
+        }
+
+        expect:
+        last.is(first)
+        closed == ["users"]
+        registry.getGeneration() == before + 1L
+        registry.getService("users").is(again)
+        registry.getBinding("/people").is(again)
+        registry.getBinding("/users") == null
+        registry.getServices().size() == 1
+    }
+
+    def "test deregistered service is removed and closed"()
+    {
+        setup:
+        def registry = new ServiceRegistry()
+        def users = service("users")
+        registry.register(users)
+        def last = registry.deregister("users")
+        await {
+            closed == ["users"]
+        }
+
+        expect:
+        last.is(users)
+        closed == ["users"]
+        registry.getService("users") == null
+        registry.getBinding("/users") == null
+        registry.deregister("users") == null
+        registry.deregister(null) == null
+        registry.deregisterService("users") == false
+    }
+
+    def "test calls enter registered services only"()
+    {
+        setup:
+        def registry = new ServiceRegistry()
+        def users = service("users")
+        registry.register(users)
+
+        expect:
+        registry.enter(users)
+        registry.enter(service("other")) == false
+
+        cleanup:
+        registry.leave(users)
+    }
+
+    def "test replacement returns at once and closes after calls in flight"()
+    {
+        setup:
+        def registry = new ServiceRegistry()
+        def first = service("users")
+        def again = service("users")
+        registry.register(first)
+        registry.enter(first)
+        def start = System.nanoTime()
+        def last = registry.register(again)
+        def taken = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        Thread.sleep(50L)
+        def during = [closed: new ArrayList(closed), enter: registry.enter(first), fresh: registry.enter(again)]
+        registry.leave(again)
+        registry.leave(first)
+        await {
+            closed == ["users"]
+        }
+
+        expect:
+        taken < 1000L
+        registry.getService("users").is(again)
+        during.closed.isEmpty()
+        during.enter == false
+        during.fresh
+        last.is(first)
+        closed == ["users"]
+    }
+
+    def "test drain gives up after its timeout"()
+    {
+        setup:
+        def registry = new ServiceRegistry()
+        def users = service("users")
+        registry.setDrainTimeout(50L)
+        registry.register(users)
+        registry.enter(users)
+        def start = System.nanoTime()
+        def last = registry.deregister("users")
+        await {
+            closed == ["users"]
+        }
+        def taken = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        registry.leave(users)
+
+        expect:
+        registry.getDrainTimeout() == 50L
+        last.is(users)
+        closed == ["users"]
+        taken >= 50L
+        taken < 5000L
+    }
+
+    def "test drain timeout is not negative"()
+    {
+        setup:
+        def registry = new ServiceRegistry()
+        registry.setDrainTimeout(-1L)
+
+        expect:
+        new ServiceRegistry().getDrainTimeout() == ServiceRegistry.DEFAULT_DRAIN_TIMEOUT
+        registry.getDrainTimeout() == 0L
+    }
+
+    def "test schemas are compiled when a service is registered"()
+    {
+        setup:
+        def registry = new ServiceRegistry()
+        def users = service("users")
+        registry.register(users)
+
+        expect:
+        registry.getSchemas(users).getRequestSchema().isTrivial()
+        registry.getSchemas(users).getResponseSchema().isTrivial()
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2017 Ahome' Innovation Technologies. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ait.tooling.server.rest.test
+
+import com.ait.tooling.server.core.security.session.IServerSession
+import com.ait.tooling.server.core.security.session.IServerSessionRepository
+import com.ait.tooling.server.rest.session.ServerSessionNearCache
+
+import spock.lang.Specification
+
+class SessionNearCacheTestsSpecification extends Specification
+{
+    static class Repository
+    {
+        final Map<String, IServerSession> sessions = [:]
+
+        int calls = 0
+
+        IServerSessionRepository make()
+        {
+            [getSession: { String sessid ->
+                    calls++
+                    sessions[sessid]
+                }] as IServerSessionRepository
+        }
+    }
+
+    static IServerSession session(String sessid, boolean expired = false)
+    {
+        [getId: { sessid }, isExpired: { expired }] as IServerSession
+    }
+
+    def "test sessions are served from the near cache"()
+    {
+        setup:
+        def cache = new ServerSessionNearCache()
+        def store = new Repository()
+        def session = session("s1")
+        store.sessions["s1"] = session
+        def repository = store.make()
+
+        expect:
+        cache.getSession(repository, "s1").is(session)
+        cache.getSession(repository, "s1").is(session)
+        store.calls == 1
+        cache.getHitCount() == 1L
+        cache.getMissCount() == 1L
+        cache.getCachedCount() == 1L
+    }
+
+    def "test unknown sessions are remembered"()
+    {
+        setup:
+        def cache = new ServerSessionNearCache()
+        def store = new Repository()
+        def repository = store.make()
+
+        expect:
+        cache.getSession(repository, "none") == null
+        cache.getSession(repository, "none") == null
+        store.calls == 1
+        cache.getUnknownHitCount() == 1L
+    }
+
+    def "test unknown sessions are not remembered without a negative time to live"()
+    {
+        setup:
+        def cache = new ServerSessionNearCache()
+        cache.setNegativeTimeToLive(0L)
+        def store = new Repository()
+        def repository = store.make()
+
+        expect:
+        cache.getSession(repository, "none") == null
+        cache.getSession(repository, "none") == null
+        store.calls == 2
+    }
+
+    def "test expired sessions are not cached"()
+    {
+        setup:
+        def cache = new ServerSessionNearCache()
+        def store = new Repository()
+        store.sessions["s1"] = session("s1", true)
+        def repository = store.make()
+        cache.getSession(repository, "s1")
+        cache.getSession(repository, "s1")
+
+        expect:
+        store.calls == 2
+        cache.getCachedCount() == 0L
+    }
+
+    def "test invalidate drops a cached session"()
+    {
+        setup:
+        def cache = new ServerSessionNearCache()
+        def store = new Repository()
+        store.sessions["s1"] = session("s1")
+        def repository = store.make()
+        cache.getSession(repository, "s1")
+        cache.invalidate(" s1 ")
+        cache.getSession(repository, "s1")
+
+        expect:
+        store.calls == 2
+    }
+
+    def "test cached sessions expire after their time to live"()
+    {
+        setup:
+        def cache = new ServerSessionNearCache()
+        cache.setTimeToLive(50L)
+        def store = new Repository()
+        store.sessions["s1"] = session("s1")
+        def repository = store.make()
+        cache.getSession(repository, "s1")
+        sleep(150L)
+        cache.getSession(repository, "s1")
+
+        expect:
+        store.calls == 2
+    }
+
+    def "test sessions are cached per repository"()
+    {
+        setup:
+        def cache = new ServerSessionNearCache()
+        def one = new Repository()
+        def two = new Repository()
+        one.sessions["s1"] = session("s1")
+        two.sessions["s1"] = session("s1")
+        def first = one.make()
+        def other = two.make()
+
+        expect:
+        cache.getSession(first, "s1").is(one.sessions["s1"])
+        cache.getSession(other, "s1").is(two.sessions["s1"])
+        one.calls == 1
+        two.calls == 1
+    }
+
+    def "test a disabled near cache always asks the repository"()
+    {
+        setup:
+        def cache = new ServerSessionNearCache()
+        cache.setEnabled(false)
+        def store = new Repository()
+        store.sessions["s1"] = session("s1")
+        def repository = store.make()
+        cache.getSession(repository, "s1")
+        cache.getSession(repository, "s1")
+
+        expect:
+        store.calls == 2
+        cache.getCachedCount() == 0L
+    }
+}